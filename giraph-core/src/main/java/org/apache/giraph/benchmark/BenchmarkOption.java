@@ -55,6 +55,12 @@ public class BenchmarkOption {
       new BenchmarkOption(
           "l", "localEdgesMinRatio", true,
           "Minimum ratio of partition-local edges (default is 0)");
+  /** Option for generating skewed graph with power-law generator */
+  public static final BenchmarkOption POWER_LAW_GENERATOR =
+      new BenchmarkOption(
+          "g", "powerLawGenerator", true,
+          "Generate power-law graph with given generator (rmat or chunglu) " +
+          "instead of uniform random graph");
   /** Option for using Jython */
   public static final BenchmarkOption JYTHON =
       new BenchmarkOption("j", "jython", false, "Use jython implementation");
@@ -24,6 +24,7 @@ import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.edge.ArrayListEdges;
 import org.apache.giraph.edge.HashMapEdges;
+import org.apache.giraph.io.formats.PowerLawVertexInputFormat;
 import org.apache.giraph.io.formats.PseudoRandomInputFormatConstants;
 import org.apache.giraph.io.formats.PseudoRandomVertexInputFormat;
 import org.apache.hadoop.util.ToolRunner;
@@ -52,7 +53,8 @@ public class ShortestPathsBenchmark extends GiraphBenchmark {
   @Override
   public Set<BenchmarkOption> getBenchmarkOptions() {
     return Sets.newHashSet(BenchmarkOption.VERTICES,
-        BenchmarkOption.EDGES_PER_VERTEX, EDGES_CLASS, NO_COMBINER);
+        BenchmarkOption.EDGES_PER_VERTEX, BenchmarkOption.POWER_LAW_GENERATOR,
+        EDGES_CLASS, NO_COMBINER);
   }
 
   @Override
@@ -65,7 +67,13 @@ public class ShortestPathsBenchmark extends GiraphBenchmark {
       conf.setOutEdgesClass(HashMapEdges.class);
     }
     LOG.info("Using class " + GiraphConstants.COMPUTATION_CLASS.get(conf));
-    conf.setVertexInputFormatClass(PseudoRandomVertexInputFormat.class);
+    if (BenchmarkOption.POWER_LAW_GENERATOR.optionTurnedOn(cmd)) {
+      conf.setVertexInputFormatClass(PowerLawVertexInputFormat.class);
+      conf.set(PseudoRandomInputFormatConstants.POWER_LAW_GENERATOR,
+          BenchmarkOption.POWER_LAW_GENERATOR.getOptionValue(cmd));
+    } else {
+      conf.setVertexInputFormatClass(PseudoRandomVertexInputFormat.class);
+    }
     if (!NO_COMBINER.optionTurnedOn(cmd)) {
       conf.setMessageCombinerClass(MinimumDoubleMessageCombiner.class);
     }
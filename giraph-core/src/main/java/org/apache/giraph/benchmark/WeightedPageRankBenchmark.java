@@ -27,6 +27,8 @@ import org.apache.giraph.edge.HashMapEdges;
 import org.apache.giraph.edge.LongDoubleArrayEdges;
 import org.apache.giraph.io.formats.PseudoRandomInputFormatConstants;
 import org.apache.giraph.io.formats.JsonBase64VertexOutputFormat;
+import org.apache.giraph.io.formats.PowerLawEdgeInputFormat;
+import org.apache.giraph.io.formats.PowerLawVertexInputFormat;
 import org.apache.giraph.io.formats.PseudoRandomEdgeInputFormat;
 import org.apache.giraph.io.formats.PseudoRandomVertexInputFormat;
 import org.apache.giraph.partition.SimpleLongRangePartitionerFactory;
@@ -77,6 +79,7 @@ public class WeightedPageRankBenchmark extends GiraphBenchmark {
     return Sets.newHashSet(
         BenchmarkOption.SUPERSTEPS, BenchmarkOption.VERTICES,
         BenchmarkOption.EDGES_PER_VERTEX, BenchmarkOption.LOCAL_EDGES_MIN_RATIO,
+        BenchmarkOption.POWER_LAW_GENERATOR,
         EDGES_CLASS, EDGE_INPUT, PARTITIONER,
         MESSAGE_COMBINER_TYPE, OUTPUT_FORMAT);
   }
@@ -121,7 +124,16 @@ public class WeightedPageRankBenchmark extends GiraphBenchmark {
       configuration.setMessageCombinerClass(DoubleSumMessageCombiner.class);
     }
 
-    if (EDGE_INPUT.optionTurnedOn(cmd)) {
+    if (BenchmarkOption.POWER_LAW_GENERATOR.optionTurnedOn(cmd)) {
+      configuration.set(PseudoRandomInputFormatConstants.POWER_LAW_GENERATOR,
+          BenchmarkOption.POWER_LAW_GENERATOR.getOptionValue(cmd));
+      if (EDGE_INPUT.optionTurnedOn(cmd)) {
+        configuration.setEdgeInputFormatClass(PowerLawEdgeInputFormat.class);
+      } else {
+        configuration.setVertexInputFormatClass(
+            PowerLawVertexInputFormat.class);
+      }
+    } else if (EDGE_INPUT.optionTurnedOn(cmd)) {
       configuration.setEdgeInputFormatClass(PseudoRandomEdgeInputFormat.class);
     } else {
       configuration.setVertexInputFormatClass(
@@ -24,6 +24,7 @@ import org.apache.giraph.graph.GraphTaskManager;
 import org.apache.giraph.graph.InputSplitEvents;
 import org.apache.giraph.graph.InputSplitPaths;
 import org.apache.giraph.job.JobProgressTracker;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.partition.GraphPartitionerFactory;
 import org.apache.giraph.utils.CheckpointingUtils;
 import org.apache.giraph.worker.WorkerInfo;
@@ -168,6 +169,8 @@ public abstract class BspService<I extends WritableComparable,
   public static final String FORCE_CHECKPOINT_USER_FLAG = "/_checkpointAndStop";
   /** Denotes which workers have been cleaned up */
   public static final String CLEANED_UP_DIR = "/_cleanedUpDir";
+  /** Live status of each worker, used by the master dashboard */
+  public static final String WORKER_STATUS_DIR = "/_workerStatusDir";
   /** JSON partition stats key */
   public static final String JSONOBJ_PARTITION_STATS_KEY =
       "_partitionStatsKey";
@@ -177,6 +180,10 @@ public abstract class BspService<I extends WritableComparable,
   public static final String JSONOBJ_NUM_MESSAGE_BYTES_KEY = "_numMsgBytesKey";
   /** JSON metrics key */
   public static final String JSONOBJ_METRICS_KEY = "_metricsKey";
+  /** JSON skew stats key */
+  public static final String JSONOBJ_SKEW_KEY = "_skewKey";
+  /** JSON superstep phases key */
+  public static final String JSONOBJ_PHASES_KEY = "_phasesKey";
 
   /** JSON state key */
   public static final String JSONOBJ_STATE_KEY = "_stateKey";
@@ -234,6 +241,8 @@ public abstract class BspService<I extends WritableComparable,
   protected final String applicationAttemptsPath;
   /** Path to the cleaned up notifications */
   protected final String cleanedUpPath;
+  /** Path to the live worker status nodes */
+  protected final String workerStatusPath;
   /** Path to the checkpoint's root (including job id) */
   protected final String checkpointBasePath;
   /** Old checkpoint in case we want to restart some job */
@@ -349,6 +358,7 @@ public abstract class BspService<I extends WritableComparable,
         EDGE_INPUT_SPLITS_ALL_READY_NODE, EDGE_INPUT_SPLITS_ALL_DONE_NODE);
     applicationAttemptsPath = basePath + APPLICATION_ATTEMPTS_DIR;
     cleanedUpPath = basePath + CLEANED_UP_DIR;
+    workerStatusPath = basePath + WORKER_STATUS_DIR;
 
     String restartJobId = RESTART_JOB_ID.get(conf);
 
@@ -684,6 +694,15 @@ public abstract class BspService<I extends WritableComparable,
     return graphTaskManager;
   }
 
+  /**
+   * Get the timeline of the task running this service
+   *
+   * @return Task timeline
+   */
+  public final Timeline getTimeline() {
+    return Timeline.of(graphTaskManager);
+  }
+
   public final BspEvent getWorkerHealthRegistrationChangedEvent() {
     return workerHealthRegistrationChanged;
   }
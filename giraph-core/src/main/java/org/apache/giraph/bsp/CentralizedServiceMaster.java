@@ -18,6 +18,7 @@
 
 package org.apache.giraph.bsp;
 
+import org.apache.giraph.graph.GraphTaskManager;
 import org.apache.giraph.master.MasterAggregatorHandler;
 import org.apache.giraph.master.MasterCompute;
 import org.apache.giraph.master.MasterInfo;
@@ -59,6 +60,13 @@ public interface CentralizedServiceMaster<I extends WritableComparable,
    */
   MasterInfo getMasterInfo();
 
+  /**
+   * Get the GraphTaskManager that this service is using
+   *
+   * @return the GraphTaskManager instance for this task
+   */
+  GraphTaskManager<I, V, E> getGraphTaskManager();
+
   /**
    * Check all the {@link org.apache.giraph.worker.WorkerInfo} objects to ensure
    * that a minimum number of good workers exists out of the total that have
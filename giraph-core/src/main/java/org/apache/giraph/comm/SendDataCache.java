@@ -50,6 +50,10 @@ public abstract class SendDataCache<D> {
   private final CentralizedServiceWorker serviceWorker;
   /** Size of data (in bytes) for each worker */
   private final int[] dataSizes;
+  /** Size of data (in bytes) for all workers */
+  private long totalDataSize;
+  /** Largest total size of data (in bytes) since the last reset */
+  private long peakDataSize;
   /** Total number of workers */
   private final int numWorkers;
   /** List of partition ids belonging to a worker */
@@ -122,6 +126,7 @@ public abstract class SendDataCache<D> {
         dataCache[partitionId] = null;
       }
     }
+    totalDataSize -= dataSizes[workerInfo.getTaskId()];
     dataSizes[workerInfo.getTaskId()] = 0;
     return workerData;
   }
@@ -184,9 +189,30 @@ public abstract class SendDataCache<D> {
    */
   public int incrDataSize(int partitionId, int size) {
     dataSizes[partitionId] += size;
+    totalDataSize += size;
+    if (totalDataSize > peakDataSize) {
+      peakDataSize = totalDataSize;
+    }
     return dataSizes[partitionId];
   }
 
+  /**
+   * Get the largest size of data cached for all workers together since the
+   * last {@link #resetPeakDataSize()}.
+   *
+   * @return Peak data size in bytes
+   */
+  public long getPeakDataSize() {
+    return peakDataSize;
+  }
+
+  /**
+   * Restart tracking the peak data size from the current size.
+   */
+  public void resetPeakDataSize() {
+    peakDataSize = totalDataSize;
+  }
+
   public ImmutableClassesGiraphConfiguration getConf() {
     return conf;
   }
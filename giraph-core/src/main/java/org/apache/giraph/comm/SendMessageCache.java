@@ -32,6 +32,10 @@ import org.apache.giraph.utils.VertexIdMessages;
 import org.apache.giraph.utils.ByteArrayVertexIdMessages;
 import org.apache.giraph.utils.PairList;
 import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.log4j.Logger;
@@ -60,6 +64,13 @@ public class SendMessageCache<I extends WritableComparable, M extends Writable>
   protected final int maxMessagesSizePerWorker;
   /** NettyWorkerClientRequestProcessor for message sending */
   protected final NettyWorkerClientRequestProcessor<I, ?, ?> clientProcessor;
+  /** Outgoing message class, checked by the primitive send methods */
+  private final Class<? extends Writable> outgoingMessageClass;
+  /**
+   * Reused id for looking up owners of primitive vertex ids, null if
+   * vertex ids are neither IntWritable nor LongWritable
+   */
+  private final I reusablePrimitiveId;
   /**
    * Constructor
    *
@@ -76,6 +87,14 @@ public class SendMessageCache<I extends WritableComparable, M extends Writable>
         ADDITIONAL_MSG_REQUEST_SIZE.get(conf));
     maxMessagesSizePerWorker = maxMsgSize;
     clientProcessor = processor;
+    outgoingMessageClass = conf.getOutgoingMessageValueClass();
+    Class<?> vertexIdClass = conf.getVertexIdClass();
+    if (IntWritable.class.equals(vertexIdClass) ||
+        LongWritable.class.equals(vertexIdClass)) {
+      reusablePrimitiveId = (I) conf.createVertexId();
+    } else {
+      reusablePrimitiveId = null;
+    }
   }
 
   @Override
@@ -160,17 +179,185 @@ public class SendMessageCache<I extends WritableComparable, M extends Writable>
     // Send a request if the cache of outgoing message to
     // the remote worker 'workerInfo' is full enough to be flushed
     if (workerMessageSize >= maxMessagesSizePerWorker) {
-      PairList<Integer, VertexIdMessages<I, M>>
-        workerMessages = removeWorkerMessages(workerInfo);
-      WritableRequest writableRequest =
-        new SendWorkerMessagesRequest<I, M>(workerMessages);
-      totalMsgBytesSentInSuperstep += writableRequest.getSerializedSize();
-      clientProcessor.doRequest(workerInfo, writableRequest);
-      // Notify sending
-      getServiceWorker().getGraphTaskManager().notifySentMessages();
+      sendWorkerMessages(workerInfo);
+    }
+  }
+
+  /**
+   * Remove all cached messages for a worker and send them in one request.
+   *
+   * @param workerInfo Worker to send the messages to
+   */
+  private void sendWorkerMessages(WorkerInfo workerInfo) {
+    PairList<Integer, VertexIdMessages<I, M>>
+      workerMessages = removeWorkerMessages(workerInfo);
+    WritableRequest writableRequest =
+      new SendWorkerMessagesRequest<I, M>(workerMessages);
+    totalMsgBytesSentInSuperstep += writableRequest.getSerializedSize();
+    clientProcessor.doRequest(workerInfo, writableRequest);
+    // Notify sending
+    getServiceWorker().getGraphTaskManager().notifySentMessages();
+  }
+
+  /**
+   * Check that primitive messages of the given type can be sent, i.e. that
+   * vertex ids are IntWritable or LongWritable and outgoing messages are of
+   * the writable class matching the primitive.
+   *
+   * @param messageClass Writable class of the primitive message
+   */
+  protected void checkPrimitiveSend(Class<? extends Writable> messageClass) {
+    if (reusablePrimitiveId == null) {
+      throw new IllegalStateException("checkPrimitiveSend: Primitive " +
+          "messages require IntWritable or LongWritable vertex ids, got " +
+          getConf().getVertexIdClass());
+    }
+    if (!messageClass.equals(outgoingMessageClass)) {
+      throw new IllegalStateException("checkPrimitiveSend: Sending " +
+          messageClass.getSimpleName() + " messages, but outgoing " +
+          "message class is " + outgoingMessageClass);
+    }
+  }
+
+  /**
+   * Get the owner of a primitive vertex id.
+   *
+   * @param vertexId Vertex id (int or long)
+   * @return Owner of the partition the vertex belongs to
+   */
+  private PartitionOwner getPrimitiveIdOwner(long vertexId) {
+    if (reusablePrimitiveId instanceof IntWritable) {
+      ((IntWritable) reusablePrimitiveId).set((int) vertexId);
+    } else {
+      ((LongWritable) reusablePrimitiveId).set(vertexId);
+    }
+    return getServiceWorker().getVertexPartitionOwner(reusablePrimitiveId);
+  }
+
+  /**
+   * Get the primitive value of a vertex id.
+   *
+   * @param vertexId Vertex id, IntWritable or LongWritable
+   * @return Vertex id as long
+   */
+  private long getPrimitiveId(I vertexId) {
+    if (vertexId instanceof IntWritable) {
+      return ((IntWritable) vertexId).get();
+    } else {
+      return ((LongWritable) vertexId).get();
     }
   }
 
+  /**
+   * Get the cached messages of the partition owning a vertex.
+   *
+   * @param owner Owner of the partition
+   * @return Cached messages for the partition
+   */
+  private ByteArrayVertexIdMessages<I, M> getPrimitiveMessages(
+      PartitionOwner owner) {
+    return (ByteArrayVertexIdMessages<I, M>) getPartitionData(
+        owner.getWorkerInfo(), owner.getPartitionId());
+  }
+
+  /**
+   * Account for a primitive message which was written directly into the
+   * cached messages of a partition, and send the messages of its worker if
+   * the cache for it is full enough.
+   *
+   * @param owner Owner of the destination partition
+   * @param bytesAdded Number of bytes written
+   */
+  private void primitiveMessageAdded(PartitionOwner owner, int bytesAdded) {
+    ++totalMsgsSentInSuperstep;
+    WorkerInfo workerInfo = owner.getWorkerInfo();
+    if (incrDataSize(workerInfo.getTaskId(), bytesAdded) >=
+        maxMessagesSizePerWorker) {
+      sendWorkerMessages(workerInfo);
+    }
+  }
+
+  /**
+   * Send a double message to a vertex with a primitive id. The message is
+   * serialized directly, no writables are involved.
+   *
+   * @param destVertexId Target vertex id (int or long)
+   * @param message The message sent to the target
+   */
+  public void sendDoubleMessageRequest(long destVertexId, double message) {
+    checkPrimitiveSend(DoubleWritable.class);
+    addDoubleMessage(destVertexId, message);
+  }
+
+  /**
+   * Add a double message for a vertex with a primitive id to the cache,
+   * without checking that primitive double messages can be sent.
+   *
+   * @param destVertexId Target vertex id (int or long)
+   * @param message The message sent to the target
+   */
+  private void addDoubleMessage(long destVertexId, double message) {
+    PartitionOwner owner = getPrimitiveIdOwner(destVertexId);
+    ByteArrayVertexIdMessages<I, M> messages = getPrimitiveMessages(owner);
+    int originalSize = messages.getSize();
+    messages.addDoubleMessage(destVertexId, message);
+    primitiveMessageAdded(owner, messages.getSize() - originalSize);
+  }
+
+  /**
+   * Send a float message to a vertex with a primitive id. The message is
+   * serialized directly, no writables are involved.
+   *
+   * @param destVertexId Target vertex id (int or long)
+   * @param message The message sent to the target
+   */
+  public void sendFloatMessageRequest(long destVertexId, float message) {
+    checkPrimitiveSend(FloatWritable.class);
+    addFloatMessage(destVertexId, message);
+  }
+
+  /**
+   * Add a float message for a vertex with a primitive id to the cache,
+   * without checking that primitive float messages can be sent.
+   *
+   * @param destVertexId Target vertex id (int or long)
+   * @param message The message sent to the target
+   */
+  private void addFloatMessage(long destVertexId, float message) {
+    PartitionOwner owner = getPrimitiveIdOwner(destVertexId);
+    ByteArrayVertexIdMessages<I, M> messages = getPrimitiveMessages(owner);
+    int originalSize = messages.getSize();
+    messages.addFloatMessage(destVertexId, message);
+    primitiveMessageAdded(owner, messages.getSize() - originalSize);
+  }
+
+  /**
+   * Send a long message to a vertex with a primitive id. The message is
+   * serialized directly, no writables are involved.
+   *
+   * @param destVertexId Target vertex id (int or long)
+   * @param message The message sent to the target
+   */
+  public void sendLongMessageRequest(long destVertexId, long message) {
+    checkPrimitiveSend(LongWritable.class);
+    addLongMessage(destVertexId, message);
+  }
+
+  /**
+   * Add a long message for a vertex with a primitive id to the cache,
+   * without checking that primitive long messages can be sent.
+   *
+   * @param destVertexId Target vertex id (int or long)
+   * @param message The message sent to the target
+   */
+  private void addLongMessage(long destVertexId, long message) {
+    PartitionOwner owner = getPrimitiveIdOwner(destVertexId);
+    ByteArrayVertexIdMessages<I, M> messages = getPrimitiveMessages(owner);
+    int originalSize = messages.getSize();
+    messages.addLongMessage(destVertexId, message);
+    primitiveMessageAdded(owner, messages.getSize() - originalSize);
+  }
+
   /**
    * An iterator wrapper on edges to return
    * target vertex ids.
@@ -217,6 +404,48 @@ public class SendMessageCache<I extends WritableComparable, M extends Writable>
     sendMessageToAllRequest(targetVertexIterator, message);
   }
 
+  /**
+   * Send a double message to all neighbors of a vertex with primitive ids.
+   *
+   * @param vertex The source vertex
+   * @param message The message sent to all neighbors
+   */
+  public void sendDoubleMessageToAllRequest(Vertex<I, ?, ?> vertex,
+      double message) {
+    checkPrimitiveSend(DoubleWritable.class);
+    for (Edge<I, ?> edge : vertex.getEdges()) {
+      addDoubleMessage(getPrimitiveId(edge.getTargetVertexId()), message);
+    }
+  }
+
+  /**
+   * Send a float message to all neighbors of a vertex with primitive ids.
+   *
+   * @param vertex The source vertex
+   * @param message The message sent to all neighbors
+   */
+  public void sendFloatMessageToAllRequest(Vertex<I, ?, ?> vertex,
+      float message) {
+    checkPrimitiveSend(FloatWritable.class);
+    for (Edge<I, ?> edge : vertex.getEdges()) {
+      addFloatMessage(getPrimitiveId(edge.getTargetVertexId()), message);
+    }
+  }
+
+  /**
+   * Send a long message to all neighbors of a vertex with primitive ids.
+   *
+   * @param vertex The source vertex
+   * @param message The message sent to all neighbors
+   */
+  public void sendLongMessageToAllRequest(Vertex<I, ?, ?> vertex,
+      long message) {
+    checkPrimitiveSend(LongWritable.class);
+    for (Edge<I, ?> edge : vertex.getEdges()) {
+      addLongMessage(getPrimitiveId(edge.getTargetVertexId()), message);
+    }
+  }
+
   /**
    * Send message to the target ids in the iterator
    *
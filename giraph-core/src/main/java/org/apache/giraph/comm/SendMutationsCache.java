@@ -17,18 +17,25 @@
  */
 package org.apache.giraph.comm;
 
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.graph.Vertex;
-import org.apache.giraph.graph.VertexMutations;
+import org.apache.giraph.partition.PartitionOwner;
+import org.apache.giraph.utils.ExtendedDataOutput;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+
+import static org.apache.giraph.conf.GiraphConstants.ADDITIONAL_MUTATIONS_REQUEST_SIZE;
+import static org.apache.giraph.conf.GiraphConstants.MAX_MUTATIONS_REQUEST_SIZE;
 
 /**
  * Aggregates the mutations to be sent to partitions so they can be sent in
- * bulk.
+ * bulk. Mutations are serialized right away with
+ * {@link VertexMutationsEncoding}, so that cached mutations cost only their
+ * bytes.  Not thread-safe.
  *
  * @param <I> Vertex id
  * @param <V> Vertex data
@@ -36,163 +43,122 @@ import java.util.Map;
  */
 @SuppressWarnings("rawtypes")
 public class SendMutationsCache<I extends WritableComparable,
-    V extends Writable, E extends Writable> {
-  /** Internal cache */
-  private Map<Integer, Map<I, VertexMutations<I, V, E>>> mutationCache =
-      new HashMap<Integer, Map<I, VertexMutations<I, V, E>>>();
-  /** Number of mutations in each partition */
-  private final Map<Integer, Integer> mutationCountMap =
-      new HashMap<Integer, Integer>();
-
+    V extends Writable, E extends Writable> extends
+    SendDataCache<ExtendedDataOutput> {
   /**
-   * Get the mutations for a partition and destination vertex (creating if
-   * it doesn't exist).
+   * Constructor.
    *
-   * @param partitionId Partition id
-   * @param destVertexId Destination vertex id
-   * @return Mutations for the vertex
+   * @param conf Giraph configuration
+   * @param serviceWorker Service worker
    */
-  private VertexMutations<I, V, E> getVertexMutations(
-      Integer partitionId, I destVertexId) {
-    Map<I, VertexMutations<I, V, E>> idMutations =
-        mutationCache.get(partitionId);
-    if (idMutations == null) {
-      idMutations = new HashMap<I, VertexMutations<I, V, E>>();
-      mutationCache.put(partitionId, idMutations);
-    }
-    VertexMutations<I, V, E> mutations = idMutations.get(destVertexId);
-    if (mutations == null) {
-      mutations = new VertexMutations<I, V, E>();
-      idMutations.put(destVertexId, mutations);
-    }
-    return mutations;
+  public SendMutationsCache(ImmutableClassesGiraphConfiguration<I, V, E> conf,
+      CentralizedServiceWorker<?, ?, ?> serviceWorker) {
+    super(conf, serviceWorker, MAX_MUTATIONS_REQUEST_SIZE.get(conf),
+        ADDITIONAL_MUTATIONS_REQUEST_SIZE.get(conf));
   }
 
   /**
-   * Increment the number of mutations in a partition.
+   * Get the buffer of a partition (creating if it doesn't exist).
    *
-   * @param partitionId Partition id
-   * @return Number of mutations in a partition after the increment
+   * @param partitionOwner Owner of the partition
+   * @return Buffer with the mutations of the partition
    */
-  private int incrementPartitionMutationCount(int partitionId) {
-    Integer currentPartitionMutationCount = mutationCountMap.get(partitionId);
-    if (currentPartitionMutationCount == null) {
-      currentPartitionMutationCount = 0;
+  private ExtendedDataOutput getPartitionData(PartitionOwner partitionOwner) {
+    ExtendedDataOutput partitionData =
+        getData(partitionOwner.getPartitionId());
+    if (partitionData == null) {
+      partitionData = getConf().createExtendedDataOutput(
+          getInitialBufferSize(partitionOwner.getWorkerInfo().getTaskId()));
+      setData(partitionOwner.getPartitionId(), partitionData);
     }
-    Integer updatedPartitionMutationCount =
-        currentPartitionMutationCount + 1;
-    mutationCountMap.put(partitionId, updatedPartitionMutationCount);
-    return updatedPartitionMutationCount;
+    return partitionData;
   }
 
   /**
    * Add an add edge mutation to the cache.
    *
-   * @param partitionId Partition id
+   * @param partitionOwner Owner of the partition of the vertex
    * @param destVertexId Destination vertex id
    * @param edge Edge to be added
-   * @return Number of mutations in the partition.
+   * @return Size of mutations for the worker of the partition.
    */
   public int addEdgeMutation(
-      Integer partitionId, I destVertexId, Edge<I, E> edge) {
-    // Get the mutations for this partition
-    VertexMutations<I, V, E> mutations =
-        getVertexMutations(partitionId, destVertexId);
-
-    // Add the edge
-    mutations.addEdge(edge);
-
-    // Update the number of mutations per partition
-    return incrementPartitionMutationCount(partitionId);
+      PartitionOwner partitionOwner, I destVertexId, Edge<I, E> edge) {
+    ExtendedDataOutput partitionData = getPartitionData(partitionOwner);
+    int originalSize = partitionData.getPos();
+    try {
+      VertexMutationsEncoding.writeAddEdge(partitionData, destVertexId, edge);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "addEdgeMutation: Failed to serialize", e);
+    }
+    return incrDataSize(partitionOwner.getWorkerInfo().getTaskId(),
+        partitionData.getPos() - originalSize);
   }
 
   /**
    * Add a remove edge mutation to the cache.
    *
-   * @param partitionId Partition id
+   * @param partitionOwner Owner of the partition of the vertex
    * @param vertexIndex Destination vertex id
    * @param destinationVertexIndex Edge vertex index to be removed
-   * @return Number of mutations in the partition.
+   * @return Size of mutations for the worker of the partition.
    */
   public int removeEdgeMutation(
-      Integer partitionId, I vertexIndex, I destinationVertexIndex) {
-    // Get the mutations for this partition
-    VertexMutations<I, V, E> mutations =
-        getVertexMutations(partitionId, vertexIndex);
-
-    // Remove the edge
-    mutations.removeEdge(destinationVertexIndex);
-
-    // Update the number of mutations per partition
-    return incrementPartitionMutationCount(partitionId);
+      PartitionOwner partitionOwner, I vertexIndex, I destinationVertexIndex) {
+    ExtendedDataOutput partitionData = getPartitionData(partitionOwner);
+    int originalSize = partitionData.getPos();
+    try {
+      VertexMutationsEncoding.writeRemoveEdge(
+          partitionData, vertexIndex, destinationVertexIndex);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "removeEdgeMutation: Failed to serialize", e);
+    }
+    return incrDataSize(partitionOwner.getWorkerInfo().getTaskId(),
+        partitionData.getPos() - originalSize);
   }
 
   /**
    * Add a add vertex mutation to the cache.
    *
-   * @param partitionId Partition id
+   * @param partitionOwner Owner of the partition of the vertex
    * @param vertex Vertex to be added
-   * @return Number of mutations in the partition.
+   * @return Size of mutations for the worker of the partition.
    */
   public int addVertexMutation(
-      Integer partitionId, Vertex<I, V, E> vertex) {
-    // Get the mutations for this partition
-    VertexMutations<I, V, E> mutations =
-        getVertexMutations(partitionId, vertex.getId());
-
-    // Add the vertex
-    mutations.addVertex(vertex);
-
-    // Update the number of mutations per partition
-    return incrementPartitionMutationCount(partitionId);
+      PartitionOwner partitionOwner, Vertex<I, V, E> vertex) {
+    ExtendedDataOutput partitionData = getPartitionData(partitionOwner);
+    int originalSize = partitionData.getPos();
+    try {
+      VertexMutationsEncoding.<I, V, E>writeAddVertex(
+          partitionData, vertex, getConf());
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "addVertexMutation: Failed to serialize", e);
+    }
+    return incrDataSize(partitionOwner.getWorkerInfo().getTaskId(),
+        partitionData.getPos() - originalSize);
   }
 
   /**
    * Add a remove vertex mutation to the cache.
    *
-   * @param partitionId Partition id
+   * @param partitionOwner Owner of the partition of the vertex
    * @param destVertexId Vertex index to be removed
-   * @return Number of mutations in the partition.
+   * @return Size of mutations for the worker of the partition.
    */
   public int removeVertexMutation(
-      Integer partitionId, I destVertexId) {
-    // Get the mutations for this partition
-    VertexMutations<I, V, E> mutations =
-        getVertexMutations(partitionId, destVertexId);
-
-    // Remove the vertex
-    mutations.removeVertex();
-
-    // Update the number of mutations per partition
-    return incrementPartitionMutationCount(partitionId);
-  }
-
-  /**
-   * Gets the mutations for a partition and removes it from the cache.
-   *
-   * @param partitionId Partition id
-   * @return Removed partition mutations
-   */
-  public Map<I, VertexMutations<I, V, E>> removePartitionMutations(
-      int partitionId) {
-    Map<I, VertexMutations<I, V, E>> idMutations =
-        mutationCache.remove(partitionId);
-    mutationCountMap.put(partitionId, 0);
-    return idMutations;
-  }
-
-  /**
-   * Gets all the mutations and removes them from the cache.
-   *
-   * @return All vertex mutations for all partitions
-   */
-  public Map<Integer, Map<I, VertexMutations<I, V, E>>>
-  removeAllPartitionMutations() {
-    Map<Integer, Map<I, VertexMutations<I, V, E>>> allMutations =
-        mutationCache;
-    mutationCache =
-        new HashMap<Integer, Map<I, VertexMutations<I, V, E>>>();
-    mutationCountMap.clear();
-    return allMutations;
+      PartitionOwner partitionOwner, I destVertexId) {
+    ExtendedDataOutput partitionData = getPartitionData(partitionOwner);
+    int originalSize = partitionData.getPos();
+    try {
+      VertexMutationsEncoding.writeRemoveVertex(partitionData, destVertexId);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "removeVertexMutation: Failed to serialize", e);
+    }
+    return incrDataSize(partitionOwner.getWorkerInfo().getTaskId(),
+        partitionData.getPos() - originalSize);
   }
 }
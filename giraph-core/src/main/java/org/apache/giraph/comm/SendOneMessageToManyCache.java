@@ -28,12 +28,16 @@ import org.apache.giraph.comm.requests.SendWorkerOneMessageToManyRequest;
 import org.apache.giraph.comm.requests.SendWorkerMessagesRequest;
 import org.apache.giraph.comm.requests.WritableRequest;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.utils.ByteArrayOneMessageToManyIds;
 import org.apache.giraph.utils.VertexIdMessages;
 import org.apache.giraph.utils.ExtendedDataOutput;
 import org.apache.giraph.utils.PairList;
 import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.log4j.Logger;
@@ -69,6 +73,12 @@ public class SendOneMessageToManyCache<I extends WritableComparable,
   private final int[] firstPartitionMap;
   /** The WorkerInfo list */
   private final WorkerInfo[] workerInfoList;
+  /** Reused for primitive double messages sent to all edges */
+  private final DoubleWritable reusableDoubleMessage = new DoubleWritable();
+  /** Reused for primitive float messages sent to all edges */
+  private final FloatWritable reusableFloatMessage = new FloatWritable();
+  /** Reused for primitive long messages sent to all edges */
+  private final LongWritable reusableLongMessage = new LongWritable();
 
   /**
    * Constructor
@@ -285,6 +295,51 @@ public class SendOneMessageToManyCache<I extends WritableComparable,
     }
   }
 
+  /**
+   * Keeps one message to many ids encoding for primitive messages. The
+   * message is serialized right away, so one writable is reused for all.
+   *
+   * @param vertex The source vertex
+   * @param message The message sent to all neighbors
+   */
+  @Override
+  public void sendDoubleMessageToAllRequest(Vertex<I, ?, ?> vertex,
+      double message) {
+    checkPrimitiveSend(DoubleWritable.class);
+    reusableDoubleMessage.set(message);
+    sendMessageToAllRequest(vertex, (M) reusableDoubleMessage);
+  }
+
+  /**
+   * Keeps one message to many ids encoding for primitive messages. The
+   * message is serialized right away, so one writable is reused for all.
+   *
+   * @param vertex The source vertex
+   * @param message The message sent to all neighbors
+   */
+  @Override
+  public void sendFloatMessageToAllRequest(Vertex<I, ?, ?> vertex,
+      float message) {
+    checkPrimitiveSend(FloatWritable.class);
+    reusableFloatMessage.set(message);
+    sendMessageToAllRequest(vertex, (M) reusableFloatMessage);
+  }
+
+  /**
+   * Keeps one message to many ids encoding for primitive messages. The
+   * message is serialized right away, so one writable is reused for all.
+   *
+   * @param vertex The source vertex
+   * @param message The message sent to all neighbors
+   */
+  @Override
+  public void sendLongMessageToAllRequest(Vertex<I, ?, ?> vertex,
+      long message) {
+    checkPrimitiveSend(LongWritable.class);
+    reusableLongMessage.set(message);
+    sendMessageToAllRequest(vertex, (M) reusableLongMessage);
+  }
+
   @Override
   public void flush() {
     super.flush();
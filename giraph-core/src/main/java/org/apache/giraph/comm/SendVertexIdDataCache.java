@@ -114,8 +114,7 @@ public abstract class SendVertexIdDataCache<I extends WritableComparable, T,
    * @param partitionId The remote Partition this message belongs to
    * @return The partition data in data cache
    */
-  private VertexIdData<I, T> getPartitionData(WorkerInfo workerInfo,
-                                                       int partitionId) {
+  protected B getPartitionData(WorkerInfo workerInfo, int partitionId) {
     // Get the data collection
     B partitionData = getData(partitionId);
     if (partitionData == null) {
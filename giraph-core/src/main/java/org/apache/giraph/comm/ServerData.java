@@ -22,7 +22,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.comm.aggregators.AllAggregatorServerData;
@@ -42,6 +43,8 @@ import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
 
+import com.google.common.collect.Maps;
+
 /**
  * Anything that the server stores
  *
@@ -72,11 +75,13 @@ public class ServerData<I extends WritableComparable,
    */
   private volatile MessageStore<I, Writable> currentMessageStore;
   /**
-   * Map of partition ids to incoming vertex mutations from other workers.
+   * Map of partition ids to incoming vertex mutations from other workers,
+   * kept per partition so partitions can be resolved independently.
    * (Synchronized access to values)
    */
-  private final ConcurrentHashMap<I, VertexMutations<I, V, E>>
-  vertexMutations = new ConcurrentHashMap<I, VertexMutations<I, V, E>>();
+  private final ConcurrentMap<Integer,
+      ConcurrentMap<I, VertexMutations<I, V, E>>> partitionMutations =
+      Maps.newConcurrentMap();
   /**
    * Holds aggregtors which current worker owns from current superstep
    */
@@ -181,6 +186,15 @@ public class ServerData<I extends WritableComparable,
 
   /** Prepare for next super step */
   public void prepareSuperstep() {
+    prepareCurrentMessageStore();
+    prepareIncomingMessageStore();
+  }
+
+  /**
+   * First half of {@link #prepareSuperstep()}: make the messages received
+   * during the last superstep current, ready for resolving mutations.
+   */
+  public void prepareCurrentMessageStore() {
     if (currentMessageStore != null) {
       try {
         currentMessageStore.clearAll();
@@ -192,8 +206,7 @@ public class ServerData<I extends WritableComparable,
     currentMessageStore =
         incomingMessageStore != null ? incomingMessageStore :
             messageStoreFactory.newStore(conf.getIncomingMessageValueFactory());
-    incomingMessageStore =
-        messageStoreFactory.newStore(conf.getOutgoingMessageValueFactory());
+    incomingMessageStore = null;
     // finalize current message-store before resolving mutations
     currentMessageStore.finalizeStore();
 
@@ -202,6 +215,17 @@ public class ServerData<I extends WritableComparable,
         Collections.synchronizedList(new ArrayList<Writable>());
   }
 
+  /**
+   * Second half of {@link #prepareSuperstep()}: create the store for the
+   * messages of the next superstep. Called after mutations are resolved, so
+   * stores which look at the partitions see their final vertices, and
+   * vertices known to the store stay valid for the whole superstep.
+   */
+  public void prepareIncomingMessageStore() {
+    incomingMessageStore =
+        messageStoreFactory.newStore(conf.getOutgoingMessageValueFactory());
+  }
+
   /**
    * In case of async message store we have to wait for all messages
    * to be processed before going into next superstep.
@@ -213,15 +237,68 @@ public class ServerData<I extends WritableComparable,
   }
 
   /**
-   * Get the vertex mutations (synchronize on the values)
+   * Get the vertex mutations of all partitions, keyed by partition id
+   * (synchronize on the values of the inner maps)
+   *
+   * @return Vertex mutations per partition
+   */
+  public ConcurrentMap<Integer, ConcurrentMap<I, VertexMutations<I, V, E>>>
+  getPartitionMutations() {
+    return partitionMutations;
+  }
+
+  /**
+   * Get the vertex mutations of a partition, creating an empty map if the
+   * partition has none yet (synchronize on the values)
    *
-   * @return Vertex mutations
+   * @param partitionId Partition id
+   * @return Vertex mutations of the partition
    */
-  public ConcurrentHashMap<I, VertexMutations<I, V, E>>
-  getVertexMutations() {
+  public ConcurrentMap<I, VertexMutations<I, V, E>> getOrCreateVertexMutations(
+      int partitionId) {
+    ConcurrentMap<I, VertexMutations<I, V, E>> vertexMutations =
+        partitionMutations.get(partitionId);
+    if (vertexMutations == null) {
+      ConcurrentMap<I, VertexMutations<I, V, E>> newVertexMutations =
+          Maps.newConcurrentMap();
+      vertexMutations =
+          partitionMutations.putIfAbsent(partitionId, newVertexMutations);
+      if (vertexMutations == null) {
+        vertexMutations = newVertexMutations;
+      }
+    }
     return vertexMutations;
   }
 
+  /**
+   * Add mutations received for a partition, merging them with the ones
+   * already received for the same vertices.
+   *
+   * @param partitionId Partition id
+   * @param vertexIdMutations Mutations of each vertex, owned by this object
+   *                          afterwards
+   */
+  public void addVertexMutations(int partitionId,
+      Map<I, VertexMutations<I, V, E>> vertexIdMutations) {
+    ConcurrentMap<I, VertexMutations<I, V, E>> vertexMutations =
+        getOrCreateVertexMutations(partitionId);
+    for (Map.Entry<I, VertexMutations<I, V, E>> entry :
+        vertexIdMutations.entrySet()) {
+      VertexMutations<I, V, E> mutations =
+          vertexMutations.get(entry.getKey());
+      if (mutations == null) {
+        mutations = vertexMutations.putIfAbsent(
+            entry.getKey(), entry.getValue());
+        if (mutations == null) {
+          continue;
+        }
+      }
+      synchronized (mutations) {
+        mutations.addVertexMutations(entry.getValue());
+      }
+    }
+  }
+
   /**
    * Get holder for aggregators which current worker owns
    *
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.graph.VertexMutations;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.Maps;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Binary encoding of a stream of graph mutations. Each mutation is a one
+ * byte operation code followed by the vertex id (part of the vertex for
+ * added vertices) and the operation's arguments, so mutations can be
+ * appended to a buffer without creating any objects.
+ */
+public class VertexMutationsEncoding {
+  /** Add a vertex, followed by the vertex */
+  private static final byte ADD_VERTEX = 0;
+  /** Remove a vertex, followed by its id */
+  private static final byte REMOVE_VERTEX = 1;
+  /** Add an edge, followed by the source id and the edge */
+  private static final byte ADD_EDGE = 2;
+  /** Remove edges, followed by the source and target ids */
+  private static final byte REMOVE_EDGE = 3;
+
+  /** Do not instantiate. */
+  private VertexMutationsEncoding() { }
+
+  /**
+   * Write an add vertex mutation
+   *
+   * @param out Output to write to
+   * @param vertex Vertex to add
+   * @param conf Configuration
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @throws IOException
+   */
+  public static <I extends WritableComparable, V extends Writable,
+      E extends Writable> void writeAddVertex(DataOutput out,
+      Vertex<I, V, E> vertex,
+      ImmutableClassesGiraphConfiguration<I, V, E> conf) throws IOException {
+    out.writeByte(ADD_VERTEX);
+    WritableUtils.writeVertexToDataOutput(out, vertex, conf);
+  }
+
+  /**
+   * Write a remove vertex mutation
+   *
+   * @param out Output to write to
+   * @param vertexId Id of the vertex to remove
+   * @throws IOException
+   */
+  public static void writeRemoveVertex(DataOutput out,
+      WritableComparable vertexId) throws IOException {
+    out.writeByte(REMOVE_VERTEX);
+    vertexId.write(out);
+  }
+
+  /**
+   * Write an add edge mutation
+   *
+   * @param out Output to write to
+   * @param vertexId Source vertex id
+   * @param edge Edge to add
+   * @throws IOException
+   */
+  public static void writeAddEdge(DataOutput out,
+      WritableComparable vertexId, Edge<?, ?> edge) throws IOException {
+    out.writeByte(ADD_EDGE);
+    vertexId.write(out);
+    edge.getTargetVertexId().write(out);
+    edge.getValue().write(out);
+  }
+
+  /**
+   * Write a remove edges mutation
+   *
+   * @param out Output to write to
+   * @param vertexId Source vertex id
+   * @param targetVertexId Target vertex id of the edges to remove
+   * @throws IOException
+   */
+  public static void writeRemoveEdge(DataOutput out,
+      WritableComparable vertexId, WritableComparable targetVertexId)
+    throws IOException {
+    out.writeByte(REMOVE_EDGE);
+    vertexId.write(out);
+    targetVertexId.write(out);
+  }
+
+  /**
+   * Read all the mutations in a buffer, grouped by vertex
+   *
+   * @param data Buffer with the mutations
+   * @param conf Configuration
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @return Mutations of each vertex
+   * @throws IOException
+   */
+  public static <I extends WritableComparable, V extends Writable,
+      E extends Writable> Map<I, VertexMutations<I, V, E>> readMutations(
+      ExtendedDataOutput data,
+      ImmutableClassesGiraphConfiguration<I, V, E> conf) throws IOException {
+    Map<I, VertexMutations<I, V, E>> vertexIdMutations = Maps.newHashMap();
+    ExtendedDataInput in = conf.createExtendedDataInput(data);
+    I vertexId = conf.createVertexId();
+    while (!in.endOfInput()) {
+      byte operation = in.readByte();
+      if (operation == ADD_VERTEX) {
+        Vertex<I, V, E> vertex =
+            WritableUtils.readVertexFromDataInput(in, conf);
+        VertexMutations<I, V, E> mutations =
+            vertexIdMutations.get(vertex.getId());
+        if (mutations == null) {
+          mutations = createMutations(vertexIdMutations, vertex.getId(), conf);
+        }
+        mutations.addVertex(vertex);
+        continue;
+      }
+      vertexId.readFields(in);
+      VertexMutations<I, V, E> mutations = vertexIdMutations.get(vertexId);
+      if (mutations == null) {
+        // The id object becomes the key, read the next one into a new object
+        mutations = createMutations(vertexIdMutations, vertexId, conf);
+        vertexId = conf.createVertexId();
+      }
+      switch (operation) {
+      case REMOVE_VERTEX:
+        mutations.removeVertex();
+        break;
+      case ADD_EDGE:
+        Edge<I, E> edge = conf.createEdge();
+        WritableUtils.readEdge(in, edge);
+        mutations.addEdge(edge);
+        break;
+      case REMOVE_EDGE:
+        I targetVertexId = conf.createVertexId();
+        targetVertexId.readFields(in);
+        mutations.removeEdge(targetVertexId);
+        break;
+      default:
+        throw new IllegalStateException(
+            "readMutations: Unknown operation " + operation);
+      }
+    }
+    return vertexIdMutations;
+  }
+
+  /**
+   * Create the mutations of a vertex, the vertex id object becomes the key.
+   *
+   * @param vertexIdMutations Mutations of each vertex
+   * @param vertexId Vertex id
+   * @param conf Configuration
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @return New mutations of the vertex
+   */
+  private static <I extends WritableComparable, V extends Writable,
+      E extends Writable> VertexMutations<I, V, E> createMutations(
+      Map<I, VertexMutations<I, V, E>> vertexIdMutations, I vertexId,
+      ImmutableClassesGiraphConfiguration<I, V, E> conf) {
+    VertexMutations<I, V, E> mutations = new VertexMutations<I, V, E>();
+    mutations.setConf(conf);
+    vertexIdMutations.put(vertexId, mutations);
+    return mutations;
+  }
+}
@@ -61,6 +61,60 @@ public interface WorkerClientRequestProcessor<I extends WritableComparable,
    */
   void sendMessageToAllRequest(Iterator<I> vertexIdIterator, Writable message);
 
+  /**
+   * Sends a double message to a destination vertex with an IntWritable or
+   * LongWritable id, without wrapping either in a writable.
+   *
+   * @param destVertexId Destination vertex id.
+   * @param message Message to send.
+   */
+  void sendDoubleMessageRequest(long destVertexId, double message);
+
+  /**
+   * Sends a double message through all edges of a vertex with IntWritable or
+   * LongWritable ids, without wrapping it in a writable per edge.
+   *
+   * @param vertex The source vertex.
+   * @param message Message to send.
+   */
+  void sendDoubleMessageToAllRequest(Vertex<I, V, E> vertex, double message);
+
+  /**
+   * Sends a float message to a destination vertex with an IntWritable or
+   * LongWritable id, without wrapping either in a writable.
+   *
+   * @param destVertexId Destination vertex id.
+   * @param message Message to send.
+   */
+  void sendFloatMessageRequest(long destVertexId, float message);
+
+  /**
+   * Sends a float message through all edges of a vertex with IntWritable or
+   * LongWritable ids, without wrapping it in a writable per edge.
+   *
+   * @param vertex The source vertex.
+   * @param message Message to send.
+   */
+  void sendFloatMessageToAllRequest(Vertex<I, V, E> vertex, float message);
+
+  /**
+   * Sends a long message to a destination vertex with an IntWritable or
+   * LongWritable id, without wrapping either in a writable.
+   *
+   * @param destVertexId Destination vertex id.
+   * @param message Message to send.
+   */
+  void sendLongMessageRequest(long destVertexId, long message);
+
+  /**
+   * Sends a long message through all edges of a vertex with IntWritable or
+   * LongWritable ids, without wrapping it in a writable per edge.
+   *
+   * @param vertex The source vertex.
+   * @param message Message to send.
+   */
+  void sendLongMessageToAllRequest(Vertex<I, V, E> vertex, long message);
+
   /**
    * Sends a vertex to the appropriate partition owner
    *
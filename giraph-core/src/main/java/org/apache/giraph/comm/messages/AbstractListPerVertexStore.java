@@ -79,10 +79,11 @@ public abstract class AbstractListPerVertexStore<I extends WritableComparable,
     L list = partitionMap.get(iterator.getCurrentVertexId());
     if (list == null) {
       L newList = createList();
-      list = partitionMap.putIfAbsent(
-          iterator.releaseCurrentVertexId(), newList);
+      I vertexId = iterator.releaseCurrentVertexId();
+      list = partitionMap.putIfAbsent(vertexId, newList);
       if (list == null) {
         list = newList;
+        unknownDestinations.addDestination(partitionId, vertexId);
       }
     }
     return list;
@@ -99,5 +100,24 @@ public abstract class AbstractListPerVertexStore<I extends WritableComparable,
     return list == null ? Collections.<M>emptyList() :
         getMessagesAsIterable(list);
   }
-}
 
+  /**
+   * Messages of a vertex can come from requests of other partitions, so
+   * they are counted from lengths of pointer lists instead of when added.
+   *
+   * @param partitionId Partition id
+   * @return Number of messages for vertices of the partition
+   */
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    ConcurrentMap<I, L> partitionMap = map.get(partitionId);
+    if (partitionMap == null) {
+      return 0;
+    }
+    long numMessages = 0;
+    for (L list : partitionMap.values()) {
+      numMessages += list.size();
+    }
+    return numMessages;
+  }
+}
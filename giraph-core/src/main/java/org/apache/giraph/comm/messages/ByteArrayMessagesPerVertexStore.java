@@ -72,21 +72,23 @@ public class ByteArrayMessagesPerVertexStore<I extends WritableComparable,
    * if necessary.  This method will take ownership of the vertex id from the
    * iterator if necessary (if used in the partition map entry).
    *
+   * @param partitionId Id of the partition
    * @param partitionMap Partition map to look in
    * @param iterator Special iterator that can release ownerhips of vertex ids
    * @return Extended data output for this vertex id (created if necessary)
    */
-  private DataInputOutput getDataInputOutput(
+  private DataInputOutput getDataInputOutput(int partitionId,
       ConcurrentMap<I, DataInputOutput> partitionMap,
       VertexIdIterator<I> iterator) {
     DataInputOutput dataInputOutput =
         partitionMap.get(iterator.getCurrentVertexId());
     if (dataInputOutput == null) {
       DataInputOutput newDataOutput = config.createMessagesInputOutput();
-      dataInputOutput = partitionMap.putIfAbsent(
-          iterator.releaseCurrentVertexId(), newDataOutput);
+      I vertexId = iterator.releaseCurrentVertexId();
+      dataInputOutput = partitionMap.putIfAbsent(vertexId, newDataOutput);
       if (dataInputOutput == null) {
         dataInputOutput = newDataOutput;
+        unknownDestinations.addDestination(partitionId, vertexId);
       }
     }
     return dataInputOutput;
@@ -95,6 +97,7 @@ public class ByteArrayMessagesPerVertexStore<I extends WritableComparable,
   @Override
   public void addPartitionMessages(
     int partitionId, VertexIdMessages<I, M> messages) throws IOException {
+    long numMessages = 0;
     ConcurrentMap<I, DataInputOutput> partitionMap =
         getOrCreatePartitionMap(partitionId);
     VertexIdMessageBytesIterator<I, M> vertexIdMessageBytesIterator =
@@ -107,8 +110,9 @@ public class ByteArrayMessagesPerVertexStore<I extends WritableComparable,
     if (vertexIdMessageBytesIterator != null) {
       while (vertexIdMessageBytesIterator.hasNext()) {
         vertexIdMessageBytesIterator.next();
-        DataInputOutput dataInputOutput =
-            getDataInputOutput(partitionMap, vertexIdMessageBytesIterator);
+        ++numMessages;
+        DataInputOutput dataInputOutput = getDataInputOutput(
+            partitionId, partitionMap, vertexIdMessageBytesIterator);
 
         synchronized (dataInputOutput) {
           vertexIdMessageBytesIterator.writeCurrentMessageBytes(
@@ -120,8 +124,9 @@ public class ByteArrayMessagesPerVertexStore<I extends WritableComparable,
           messages.getVertexIdMessageIterator();
       while (vertexIdMessageIterator.hasNext()) {
         vertexIdMessageIterator.next();
-        DataInputOutput dataInputOutput =
-            getDataInputOutput(partitionMap, vertexIdMessageIterator);
+        ++numMessages;
+        DataInputOutput dataInputOutput = getDataInputOutput(
+            partitionId, partitionMap, vertexIdMessageIterator);
 
         synchronized (dataInputOutput) {
           VerboseByteStructMessageWrite.verboseWriteCurrentMessage(
@@ -129,6 +134,7 @@ public class ByteArrayMessagesPerVertexStore<I extends WritableComparable,
         }
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
   }
 
   @Override
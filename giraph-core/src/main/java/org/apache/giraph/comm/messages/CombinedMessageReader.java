@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.messages;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+/**
+ * Message store which keeps at most one (combined) message per vertex, and
+ * can read it into a message owned by the caller. Primitive stores keep
+ * messages unboxed, so this lets computations read them without any
+ * objects being created per vertex.
+ *
+ * @param <I> Vertex id
+ * @param <M> Message data
+ */
+public interface CombinedMessageReader<I extends WritableComparable,
+    M extends Writable> {
+  /**
+   * Read the combined message of a vertex into a reusable message.
+   *
+   * @param vertexId Vertex id for which we want to get the message
+   * @param message Message to read into, left unchanged if there is no
+   *                message for the vertex
+   * @return True iff there is a message for the vertex
+   */
+  boolean readVertexMessage(I vertexId, M message);
+}
@@ -25,6 +25,8 @@ import org.apache.giraph.comm.messages.primitives.IdOneMessagePerVertexStore;
 import org.apache.giraph.comm.messages.primitives.IntByteArrayMessageStore;
 import org.apache.giraph.comm.messages.primitives.IntFloatMessageStore;
 import org.apache.giraph.comm.messages.primitives.LongDoubleMessageStore;
+import org.apache.giraph.comm.messages.primitives.PrimitiveListMessageStore;
+import org.apache.giraph.comm.messages.primitives.PrimitiveOneMessagePerVertexStore;
 import org.apache.giraph.comm.messages.primitives.long_id.LongByteArrayMessageStore;
 import org.apache.giraph.comm.messages.primitives.long_id.LongPointerListMessageStore;
 import org.apache.giraph.comm.messages.queue.AsyncMessageStoreWrapper;
@@ -69,6 +71,20 @@ public class InMemoryMessageStoreFactory<I extends WritableComparable,
   public InMemoryMessageStoreFactory() {
   }
 
+  /**
+   * Check whether vertex ids and messages are both primitive, so one of the
+   * generic primitive message stores can be used.
+   *
+   * @param messageClass Message class
+   * @return True iff primitive message stores should be used
+   */
+  protected boolean usePrimitiveMessageStore(Class<M> messageClass) {
+    return GiraphConstants.USE_PRIMITIVE_MESSAGE_STORES.get(conf) &&
+        TypeOpsUtils.getPrimitiveIdTypeOpsOrNull(
+            conf.getVertexIdClass()) != null &&
+        TypeOpsUtils.getPrimitiveTypeOpsOrNull(messageClass) != null;
+  }
+
   /**
    * MessageStore to be used when combiner is enabled
    *
@@ -92,6 +108,10 @@ public class InMemoryMessageStoreFactory<I extends WritableComparable,
           (CentralizedServiceWorker<LongWritable, Writable, Writable>) service,
           (MessageCombiner<LongWritable, DoubleWritable>)
               conf.<DoubleWritable>createMessageCombiner());
+    } else if (usePrimitiveMessageStore(messageClass)) {
+      messageStore = new PrimitiveOneMessagePerVertexStore<>(
+          messageValueFactory, service, conf.<M>createMessageCombiner(),
+          conf);
     } else {
       PrimitiveIdTypeOps<I> idTypeOps =
           TypeOpsUtils.getPrimitiveIdTypeOpsOrNull(vertexIdClass);
@@ -120,7 +140,12 @@ public class InMemoryMessageStoreFactory<I extends WritableComparable,
     MessageEncodeAndStoreType encodeAndStore = GiraphConstants
         .MESSAGE_ENCODE_AND_STORE_TYPE.get(conf);
     Class<I> vertexIdClass = conf.getVertexIdClass();
-    if (vertexIdClass.equals(IntWritable.class)) { // INT
+    if (!encodeAndStore.equals(
+        MessageEncodeAndStoreType.POINTER_LIST_PER_VERTEX) &&
+        usePrimitiveMessageStore(messageValueFactory.getValueClass())) {
+      messageStore = new PrimitiveListMessageStore<>(messageValueFactory,
+          service, conf);
+    } else if (vertexIdClass.equals(IntWritable.class)) { // INT
       messageStore = new IntByteArrayMessageStore(messageValueFactory,
           service, conf);
     } else if (vertexIdClass.equals(LongWritable.class)) { // LONG
@@ -180,7 +205,7 @@ public class InMemoryMessageStoreFactory<I extends WritableComparable,
     int asyncMessageStoreThreads =
         GiraphConstants.ASYNC_MESSAGE_STORE_THREADS_COUNT.get(conf);
     if (asyncMessageStoreThreads > 0) {
-      messageStore = new AsyncMessageStoreWrapper(
+      messageStore = AsyncMessageStoreWrapper.wrap(
           messageStore,
           service.getPartitionStore().getPartitionIds(),
           asyncMessageStoreThreads);
@@ -101,6 +101,18 @@ public interface MessageStore<I extends WritableComparable,
    */
   Iterable<I> getPartitionDestinationVertices(int partitionId);
 
+  /**
+   * Gets vertex ids from selected partition which we have messages for, but
+   * which were not known vertices when their first message was added. These
+   * are the only destinations mutation resolution needs to look at.
+   *
+   * @param partitionId Id of partition
+   * @return Iterable over vertex ids which were not known, or null if the
+   *         store doesn't keep track of them and all the destinations from
+   *         {@link #getPartitionDestinationVertices(int)} need to be checked
+   */
+  Iterable<I> getPartitionUnknownDestinationVertices(int partitionId);
+
   /**
    * Clears messages for a partition.
    *
@@ -71,6 +71,7 @@ public class OneMessagePerVertexStore<I extends WritableComparable,
   public void addPartitionMessages(
       int partitionId,
       VertexIdMessages<I, M> messages) throws IOException {
+    long numMessages = 0;
     ConcurrentMap<I, M> partitionMap =
         getOrCreatePartitionMap(partitionId);
     VertexIdMessageIterator<I, M> vertexIdMessageIterator =
@@ -79,15 +80,17 @@ public class OneMessagePerVertexStore<I extends WritableComparable,
     // the minimal amount of vertex id and message objects as possible.
     while (vertexIdMessageIterator.hasNext()) {
       vertexIdMessageIterator.next();
+      ++numMessages;
       I vertexId = vertexIdMessageIterator.getCurrentVertexId();
       M currentMessage =
           partitionMap.get(vertexIdMessageIterator.getCurrentVertexId());
       if (currentMessage == null) {
         M newMessage = messageCombiner.createInitialMessage();
-        currentMessage = partitionMap.putIfAbsent(
-            vertexIdMessageIterator.releaseCurrentVertexId(), newMessage);
+        I newVertexId = vertexIdMessageIterator.releaseCurrentVertexId();
+        currentMessage = partitionMap.putIfAbsent(newVertexId, newMessage);
         if (currentMessage == null) {
           currentMessage = newMessage;
+          unknownDestinations.addDestination(partitionId, newVertexId);
         }
       }
       synchronized (currentMessage) {
@@ -95,6 +98,7 @@ public class OneMessagePerVertexStore<I extends WritableComparable,
             vertexIdMessageIterator.getCurrentMessage());
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
   }
 
   @Override
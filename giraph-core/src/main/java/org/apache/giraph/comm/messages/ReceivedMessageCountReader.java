@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.comm.messages;
+
+/**
+ * Message store which counts messages as they are added, so the number of
+ * messages a partition received is known without iterating over them.
+ */
+public interface ReceivedMessageCountReader {
+  /**
+   * Get the number of messages added to a partition of this store
+   *
+   * @param partitionId Partition id
+   * @return Number of messages added to the partition
+   */
+  long getReceivedMessageCount(int partitionId);
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.comm.messages;
+
+import com.google.common.collect.Maps;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe per partition counts of messages added to a message store.
+ * Stores count messages of a batch locally and add the total once per
+ * batch.
+ */
+public class ReceivedMessageCounts {
+  /** Number of messages added, per partition */
+  private final ConcurrentMap<Integer, AtomicLong> counts =
+      Maps.newConcurrentMap();
+
+  /**
+   * Add messages to the count of a partition
+   *
+   * @param partitionId Partition id
+   * @param numMessages Number of messages added
+   */
+  public void add(int partitionId, long numMessages) {
+    if (numMessages == 0) {
+      return;
+    }
+    AtomicLong count = counts.get(partitionId);
+    if (count == null) {
+      AtomicLong newCount = new AtomicLong();
+      count = counts.putIfAbsent(partitionId, newCount);
+      if (count == null) {
+        count = newCount;
+      }
+    }
+    count.addAndGet(numMessages);
+  }
+
+  /**
+   * Get the number of messages added to a partition
+   *
+   * @param partitionId Partition id
+   * @return Number of messages
+   */
+  public long get(int partitionId) {
+    AtomicLong count = counts.get(partitionId);
+    return count == null ? 0 : count.get();
+  }
+}
@@ -43,7 +43,8 @@ import org.apache.hadoop.io.WritableComparable;
  * @param <T> Type of object which holds messages for one vertex
  */
 public abstract class SimpleMessageStore<I extends WritableComparable,
-    M extends Writable, T> implements MessageStore<I, M>  {
+    M extends Writable, T> implements MessageStore<I, M>,
+    ReceivedMessageCountReader {
   /** Message class */
   protected final MessageValueFactory<M> messageValueFactory;
   /** Service worker */
@@ -52,6 +53,12 @@ public abstract class SimpleMessageStore<I extends WritableComparable,
   protected final ConcurrentMap<Integer, ConcurrentMap<I, T>> map;
   /** Giraph configuration */
   protected final ImmutableClassesGiraphConfiguration<I, ?, ?> config;
+  /** Destinations which were not known vertices */
+  protected final UnknownDestinationTracker<I> unknownDestinations;
+
+  /** Number of messages added to each partition */
+  protected final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
 
   /**
    * Constructor
@@ -69,6 +76,12 @@ public abstract class SimpleMessageStore<I extends WritableComparable,
     this.config = config;
     map = new MapMaker().concurrencyLevel(
         config.getNettyServerExecutionConcurrency()).makeMap();
+    unknownDestinations = new UnknownDestinationTracker<I>(service);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
   }
 
   /**
@@ -149,6 +162,11 @@ public abstract class SimpleMessageStore<I extends WritableComparable,
         partitionMap.keySet();
   }
 
+  @Override
+  public Iterable<I> getPartitionUnknownDestinationVertices(int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
   @Override
   public boolean hasMessagesForVertex(I vertexId) {
     ConcurrentMap<I, ?> partitionMap =
@@ -191,6 +209,7 @@ public abstract class SimpleMessageStore<I extends WritableComparable,
         I vertexId = config.createVertexId();
         vertexId.readFields(in);
         partitionMap.put(vertexId, readFieldsForMessages(in));
+        unknownDestinations.addDestination(partitionId, vertexId);
       }
       map.put(partitionId, partitionMap);
     }
@@ -208,10 +227,12 @@ public abstract class SimpleMessageStore<I extends WritableComparable,
   @Override
   public void clearPartition(int partitionId) throws IOException {
     map.remove(partitionId);
+    unknownDestinations.clearPartition(partitionId);
   }
 
   @Override
   public void clearAll() throws IOException {
     map.clear();
+    unknownDestinations.clearAll();
   }
 }
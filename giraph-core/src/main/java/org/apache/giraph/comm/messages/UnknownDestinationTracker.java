@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.messages;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the message destinations which were not known vertices
+ * when their first message was added to a message store, so that resolving
+ * mutations only has to look at those instead of at every destination.
+ * Vertices are only added or removed while resolving mutations, before any
+ * message of the superstep is sent, so a vertex known when its first message
+ * arrives still exists when messages are resolved. Destinations whose
+ * partition is not in memory are conservatively considered unknown.
+ * Thread-safe.
+ *
+ * @param <I> Vertex id
+ */
+public class UnknownDestinationTracker<I extends WritableComparable> {
+  /** Service worker */
+  private final CentralizedServiceWorker<I, ?, ?> service;
+  /** Map from partition id to unknown destinations in that partition */
+  private final ConcurrentMap<Integer, Queue<I>> partitionDestinations =
+      Maps.newConcurrentMap();
+
+  /**
+   * Constructor
+   *
+   * @param service Service worker
+   */
+  public UnknownDestinationTracker(CentralizedServiceWorker<I, ?, ?> service) {
+    this.service = service;
+  }
+
+  /**
+   * Check whether a destination is a known vertex, in which case it doesn't
+   * need to be recorded.
+   *
+   * @param partitionId Id of the partition of the destination
+   * @param vertexId Destination vertex id
+   * @return True iff the vertex is known to exist
+   */
+  public boolean isKnownVertex(int partitionId, I vertexId) {
+    return service.getPartitionStore().hasVertexInMemory(
+        partitionId, vertexId);
+  }
+
+  /**
+   * Record a destination which is not a known vertex.
+   *
+   * @param partitionId Id of the partition of the destination
+   * @param vertexId Destination vertex id, owned by this object afterwards
+   */
+  public void addUnknownDestination(int partitionId, I vertexId) {
+    Queue<I> destinations = partitionDestinations.get(partitionId);
+    if (destinations == null) {
+      Queue<I> newDestinations = new ConcurrentLinkedQueue<I>();
+      destinations =
+          partitionDestinations.putIfAbsent(partitionId, newDestinations);
+      if (destinations == null) {
+        destinations = newDestinations;
+      }
+    }
+    destinations.add(vertexId);
+  }
+
+  /**
+   * Record a new destination of a message store if it's not a known vertex.
+   * Has to be called once per destination, when it gets its first message.
+   *
+   * @param partitionId Id of the partition of the destination
+   * @param vertexId Destination vertex id, owned by this object afterwards
+   */
+  public void addDestination(int partitionId, I vertexId) {
+    if (!isKnownVertex(partitionId, vertexId)) {
+      addUnknownDestination(partitionId, vertexId);
+    }
+  }
+
+  /**
+   * Get the unknown destinations of a partition
+   *
+   * @param partitionId Partition id
+   * @return Destinations which were not known vertices
+   */
+  public Iterable<I> getUnknownDestinations(int partitionId) {
+    Queue<I> destinations = partitionDestinations.get(partitionId);
+    return (destinations == null) ? Collections.<I>emptyList() :
+        destinations;
+  }
+
+  /**
+   * Forget the destinations of a partition
+   *
+   * @param partitionId Partition id
+   */
+  public void clearPartition(int partitionId) {
+    partitionDestinations.remove(partitionId);
+  }
+
+  /**
+   * Forget all the destinations
+   */
+  public void clearAll() {
+    partitionDestinations.clear();
+  }
+}
@@ -23,7 +23,10 @@ import com.google.common.collect.Maps;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.comm.messages.MessageStore;
 import org.apache.giraph.comm.messages.MessageStoreFactory;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
 import org.apache.giraph.factories.MessageValueFactory;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.utils.EmptyIterable;
 import org.apache.giraph.utils.VertexIdMessageIterator;
 import org.apache.giraph.utils.VertexIdMessages;
@@ -46,7 +49,7 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class DiskBackedMessageStore<I extends WritableComparable,
     V extends Writable, E extends Writable, M extends Writable> implements
-    MessageStore<I, M> {
+    MessageStore<I, M>, ReceivedMessageCountReader {
   /** Message value factory */
   private final MessageValueFactory<M> messageValueFactory;
   /** Service worker */
@@ -60,6 +63,10 @@ public class DiskBackedMessageStore<I extends WritableComparable,
   private final ConcurrentMap<Integer, PartitionDiskBackedMessageStore<I, M>>
   partitionMessageStores;
 
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
+
   /**
    * Constructor
    *
@@ -91,6 +98,7 @@ public class DiskBackedMessageStore<I extends WritableComparable,
   public void addPartitionMessages(
       int partitionId,
       VertexIdMessages<I, M> messages) throws IOException {
+    long numMessages = 0;
     PartitionDiskBackedMessageStore<I, M> partitionMessageStore =
         getMessageStore(partitionId);
     VertexIdMessageIterator<I, M>
@@ -98,6 +106,7 @@ public class DiskBackedMessageStore<I extends WritableComparable,
         messages.getVertexIdMessageIterator();
     while (vertexIdMessageIterator.hasNext()) {
       vertexIdMessageIterator.next();
+      ++numMessages;
       boolean ownsVertexId =
           partitionMessageStore.addVertexMessages(
               vertexIdMessageIterator.getCurrentVertexId(),
@@ -108,6 +117,12 @@ public class DiskBackedMessageStore<I extends WritableComparable,
       }
     }
     checkMemory();
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
   }
 
   @Override
@@ -139,6 +154,12 @@ public class DiskBackedMessageStore<I extends WritableComparable,
     }
   }
 
+  @Override
+  public Iterable<I> getPartitionUnknownDestinationVertices(int partitionId) {
+    // Partitions may be on disk, every destination has to be checked
+    return null;
+  }
+
   @Override
   public void clearVertexMessages(I vertexId) throws IOException {
     if (hasMessagesForVertex(vertexId)) {
@@ -206,7 +227,10 @@ public class DiskBackedMessageStore<I extends WritableComparable,
       }
     }
     if (biggestStore != null) {
+      Timeline.Span span = Timeline.of(service.getGraphTaskManager())
+          .startSpan(Timeline.OUT_OF_CORE, "flushMessages");
       biggestStore.flush();
+      span.end();
     }
   }
 
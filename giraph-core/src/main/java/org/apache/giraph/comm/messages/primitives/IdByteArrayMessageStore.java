@@ -28,6 +28,9 @@ import java.util.List;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.comm.messages.MessageStore;
 import org.apache.giraph.comm.messages.MessagesIterable;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.factories.MessageValueFactory;
 import org.apache.giraph.partition.Partition;
@@ -56,7 +59,8 @@ import com.google.common.collect.Lists;
  * @param <M> Message type
  */
 public class IdByteArrayMessageStore<I extends WritableComparable,
-    M extends Writable> implements MessageStore<I, M> {
+    M extends Writable> implements MessageStore<I, M>,
+    ReceivedMessageCountReader {
   /** Message value factory */
   protected final MessageValueFactory<M> messageValueFactory;
   /** Map from partition id to map from vertex id to message */
@@ -67,6 +71,8 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
   private final ImmutableClassesGiraphConfiguration<I, ?, ?> config;
   /** Vertex id TypeOps */
   private final PrimitiveIdTypeOps<I> idTypeOps;
+  /** Destinations which were not known vertices */
+  private final UnknownDestinationTracker<I> unknownDestinations;
   /** WritableWriter for values in this message store */
   private final WritableWriter<DataInputOutput>
   dataInputOutputWriter = new WritableWriter<DataInputOutput>() {
@@ -84,6 +90,10 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
     }
   };
 
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
+
   /**
    * Constructor
    *
@@ -99,6 +109,7 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
     this.config = config;
 
     idTypeOps = TypeOpsUtils.getPrimitiveIdTypeOps(config.getVertexIdClass());
+    unknownDestinations = new UnknownDestinationTracker<I>(service);
 
     map = new Int2ObjectOpenHashMap<Basic2ObjectMap<I, DataInputOutput>>();
     for (int partitionId : service.getPartitionStore().getPartitionIds()) {
@@ -123,20 +134,36 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
     return map.get(service.getPartitionId(vertexId));
   }
 
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  private void addDestination(int partitionId, I vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, idTypeOps.createCopy(vertexId));
+    }
+  }
+
   /**
    * Get the DataInputOutput for a vertex id, creating if necessary.
    *
+   * @param partitionId Id of the partition
    * @param partitionMap Partition map to look in
    * @param vertexId Id of the vertex
    * @return DataInputOutput for this vertex id (created if necessary)
    */
-  private DataInputOutput getDataInputOutput(
+  private DataInputOutput getDataInputOutput(int partitionId,
       Basic2ObjectMap<I, DataInputOutput> partitionMap,
       I vertexId) {
     DataInputOutput dataInputOutput = partitionMap.get(vertexId);
     if (dataInputOutput == null) {
       dataInputOutput = config.createMessagesInputOutput();
       partitionMap.put(vertexId, dataInputOutput);
+      addDestination(partitionId, vertexId);
     }
     return dataInputOutput;
   }
@@ -144,6 +171,7 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
   @Override
   public void addPartitionMessages(int partitionId,
       VertexIdMessages<I, M> messages) throws IOException {
+    long numMessages = 0;
     Basic2ObjectMap<I, DataInputOutput> partitionMap = map.get(partitionId);
     synchronized (partitionMap) {
       VertexIdMessageBytesIterator<I, M> vertexIdMessageBytesIterator =
@@ -156,7 +184,8 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
       if (vertexIdMessageBytesIterator != null) {
         while (vertexIdMessageBytesIterator.hasNext()) {
           vertexIdMessageBytesIterator.next();
-          DataInputOutput dataInputOutput = getDataInputOutput(
+          ++numMessages;
+          DataInputOutput dataInputOutput = getDataInputOutput(partitionId,
               partitionMap, vertexIdMessageBytesIterator.getCurrentVertexId());
           vertexIdMessageBytesIterator.writeCurrentMessageBytes(
               dataInputOutput.getDataOutput());
@@ -166,19 +195,27 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
             messages.getVertexIdMessageIterator();
         while (iterator.hasNext()) {
           iterator.next();
-          DataInputOutput dataInputOutput =
-              getDataInputOutput(partitionMap, iterator.getCurrentVertexId());
+          ++numMessages;
+          DataInputOutput dataInputOutput = getDataInputOutput(partitionId,
+              partitionMap, iterator.getCurrentVertexId());
 
           VerboseByteStructMessageWrite.verboseWriteCurrentMessage(iterator,
               dataInputOutput.getDataOutput());
         }
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
   }
 
   @Override
   public void clearPartition(int partitionId) throws IOException {
     map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
   }
 
   @Override
@@ -204,6 +241,7 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
   @Override
   public void clearAll() throws IOException {
     map.clear();
+    unknownDestinations.clearAll();
   }
 
   @Override
@@ -217,6 +255,11 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
     return vertices;
   }
 
+  @Override
+  public Iterable<I> getPartitionUnknownDestinationVertices(int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
   @Override
   public void writePartition(DataOutput out, int partitionId)
     throws IOException {
@@ -230,6 +273,10 @@ public class IdByteArrayMessageStore<I extends WritableComparable,
     Basic2ObjectMap<I, DataInputOutput> partitionMap =
         idTypeOps.create2ObjectOpenHashMap(10);
     partitionMap.readFields(in, dataInputOutputWriter);
+    Iterator<I> iterator = partitionMap.fastKeyIterator();
+    while (iterator.hasNext()) {
+      addDestination(partitionId, iterator.next());
+    }
     synchronized (map) {
       map.put(partitionId, partitionMap);
     }
@@ -29,6 +29,9 @@ import java.util.List;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.combiner.MessageCombiner;
 import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.factories.MessageValueFactory;
 import org.apache.giraph.partition.Partition;
@@ -56,7 +59,8 @@ import com.google.common.collect.Lists;
  * @param <M> Message type
  */
 public class IdOneMessagePerVertexStore<I extends WritableComparable,
-    M extends Writable> implements MessageStore<I, M> {
+    M extends Writable> implements MessageStore<I, M>,
+    ReceivedMessageCountReader {
   /** Map from partition id to map from vertex id to message */
   private final Int2ObjectOpenHashMap<Basic2ObjectMap<I, M>> map;
   /** Message value factory */
@@ -69,6 +73,8 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
   private final ImmutableClassesGiraphConfiguration<I, ?, ?> config;
   /** Vertex id TypeOps */
   private final PrimitiveIdTypeOps<I> idTypeOps;
+  /** Destinations which were not known vertices */
+  private final UnknownDestinationTracker<I> unknownDestinations;
   /** WritableWriter for values in this message store */
   private final WritableWriter<M> messageWriter = new WritableWriter<M>() {
     @Override
@@ -84,6 +90,10 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
     }
   };
 
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
+
   /**
    * Constructor
    *
@@ -103,6 +113,7 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
     this.messageCombiner = messageCombiner;
 
     idTypeOps = TypeOpsUtils.getPrimitiveIdTypeOps(config.getVertexIdClass());
+    unknownDestinations = new UnknownDestinationTracker<I>(service);
 
     map = new Int2ObjectOpenHashMap<>();
     for (int partitionId : service.getPartitionStore().getPartitionIds()) {
@@ -125,10 +136,25 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
     return map.get(service.getPartitionId(vertexId));
   }
 
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  private void addDestination(int partitionId, I vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, idTypeOps.createCopy(vertexId));
+    }
+  }
+
   @Override
   public void addPartitionMessages(
       int partitionId,
       VertexIdMessages<I, M> messages) throws IOException {
+    long numMessages = 0;
     Basic2ObjectMap<I, M> partitionMap = map.get(partitionId);
     synchronized (partitionMap) {
       VertexIdMessageIterator<I, M>
@@ -137,6 +163,7 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
       // the minimal amount of vertex id and message objects as possible.
       while (iterator.hasNext()) {
         iterator.next();
+        ++numMessages;
         I vertexId = iterator.getCurrentVertexId();
         M currentMessage =
             partitionMap.get(iterator.getCurrentVertexId());
@@ -146,17 +173,25 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
               iterator.getCurrentVertexId(), newMessage);
           if (currentMessage == null) {
             currentMessage = newMessage;
+            addDestination(partitionId, vertexId);
           }
         }
         messageCombiner.combine(vertexId, currentMessage,
           iterator.getCurrentMessage());
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
   }
 
   @Override
   public void clearPartition(int partitionId) throws IOException {
     map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
   }
 
   @Override
@@ -183,6 +218,7 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
   @Override
   public void clearAll() throws IOException {
     map.clear();
+    unknownDestinations.clearAll();
   }
 
   @Override
@@ -198,6 +234,11 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
     return vertices;
   }
 
+  @Override
+  public Iterable<I> getPartitionUnknownDestinationVertices(int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
   @Override
   public void writePartition(DataOutput out,
       int partitionId) throws IOException {
@@ -210,6 +251,10 @@ public class IdOneMessagePerVertexStore<I extends WritableComparable,
       int partitionId) throws IOException {
     Basic2ObjectMap<I, M> partitionMap = idTypeOps.create2ObjectOpenHashMap(10);
     partitionMap.readFields(in, messageWriter);
+    Iterator<I> iterator = partitionMap.fastKeyIterator();
+    while (iterator.hasNext()) {
+      addDestination(partitionId, iterator.next());
+    }
     synchronized (map) {
       map.put(partitionId, partitionMap);
     }
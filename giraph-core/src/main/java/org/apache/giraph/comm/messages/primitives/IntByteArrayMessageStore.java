@@ -21,6 +21,9 @@ package org.apache.giraph.comm.messages.primitives;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.comm.messages.MessageStore;
 import org.apache.giraph.comm.messages.MessagesIterable;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.factories.MessageValueFactory;
 import org.apache.giraph.partition.Partition;
@@ -54,7 +57,7 @@ import java.util.List;
  * @param <M> Message type
  */
 public class IntByteArrayMessageStore<M extends Writable>
-    implements MessageStore<IntWritable, M> {
+    implements MessageStore<IntWritable, M>, ReceivedMessageCountReader {
   /** Message value factory */
   protected final MessageValueFactory<M> messageValueFactory;
   /** Map from partition id to map from vertex id to message */
@@ -62,9 +65,15 @@ public class IntByteArrayMessageStore<M extends Writable>
   Int2ObjectOpenHashMap<Int2ObjectOpenHashMap<DataInputOutput>> map;
   /** Service worker */
   private final CentralizedServiceWorker<IntWritable, ?, ?> service;
+  /** Destinations which were not known vertices */
+  private final UnknownDestinationTracker<IntWritable> unknownDestinations;
   /** Giraph configuration */
   private final ImmutableClassesGiraphConfiguration<IntWritable, ?, ?> config;
 
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
+
   /**
    * Constructor
    *
@@ -79,6 +88,7 @@ public class IntByteArrayMessageStore<M extends Writable>
         config) {
     this.messageValueFactory = messageValueFactory;
     this.service = service;
+    unknownDestinations = new UnknownDestinationTracker<IntWritable>(service);
     this.config = config;
 
     map =
@@ -110,20 +120,36 @@ public class IntByteArrayMessageStore<M extends Writable>
     return map.get(service.getPartitionId(vertexId));
   }
 
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  private void addDestination(int partitionId, IntWritable vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, new IntWritable(vertexId.get()));
+    }
+  }
+
   /**
    * Get the DataInputOutput for a vertex id, creating if necessary.
    *
+   * @param partitionId  Id of the partition
    * @param partitionMap Partition map to look in
    * @param vertexId     Id of the vertex
    * @return DataInputOutput for this vertex id (created if necessary)
    */
-  private DataInputOutput getDataInputOutput(
+  private DataInputOutput getDataInputOutput(int partitionId,
       Int2ObjectOpenHashMap<DataInputOutput> partitionMap,
-      int vertexId) {
-    DataInputOutput dataInputOutput = partitionMap.get(vertexId);
+      IntWritable vertexId) {
+    DataInputOutput dataInputOutput = partitionMap.get(vertexId.get());
     if (dataInputOutput == null) {
       dataInputOutput = config.createMessagesInputOutput();
-      partitionMap.put(vertexId, dataInputOutput);
+      partitionMap.put(vertexId.get(), dataInputOutput);
+      addDestination(partitionId, vertexId);
     }
     return dataInputOutput;
   }
@@ -132,6 +158,7 @@ public class IntByteArrayMessageStore<M extends Writable>
   public void addPartitionMessages(int partitionId,
       VertexIdMessages<IntWritable, M> messages) throws
       IOException {
+    long numMessages = 0;
     Int2ObjectOpenHashMap<DataInputOutput> partitionMap =
         map.get(partitionId);
     synchronized (partitionMap) {
@@ -146,8 +173,9 @@ public class IntByteArrayMessageStore<M extends Writable>
       if (vertexIdMessageBytesIterator != null) {
         while (vertexIdMessageBytesIterator.hasNext()) {
           vertexIdMessageBytesIterator.next();
-          DataInputOutput dataInputOutput = getDataInputOutput(partitionMap,
-              vertexIdMessageBytesIterator.getCurrentVertexId().get());
+          ++numMessages;
+          DataInputOutput dataInputOutput = getDataInputOutput(partitionId,
+              partitionMap, vertexIdMessageBytesIterator.getCurrentVertexId());
           vertexIdMessageBytesIterator.writeCurrentMessageBytes(
               dataInputOutput.getDataOutput());
         }
@@ -156,13 +184,20 @@ public class IntByteArrayMessageStore<M extends Writable>
             iterator = messages.getVertexIdMessageIterator();
         while (iterator.hasNext()) {
           iterator.next();
-          DataInputOutput dataInputOutput =  getDataInputOutput(partitionMap,
-              iterator.getCurrentVertexId().get());
+          ++numMessages;
+          DataInputOutput dataInputOutput = getDataInputOutput(partitionId,
+              partitionMap, iterator.getCurrentVertexId());
           VerboseByteStructMessageWrite.verboseWriteCurrentMessage(iterator,
               dataInputOutput.getDataOutput());
         }
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
   }
 
   @Override
@@ -172,6 +207,7 @@ public class IntByteArrayMessageStore<M extends Writable>
   @Override
   public void clearPartition(int partitionId) throws IOException {
     map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
   }
 
   @Override
@@ -199,6 +235,7 @@ public class IntByteArrayMessageStore<M extends Writable>
   @Override
   public void clearAll() throws IOException {
     map.clear();
+    unknownDestinations.clearAll();
   }
 
   @Override
@@ -215,6 +252,12 @@ public class IntByteArrayMessageStore<M extends Writable>
     return vertices;
   }
 
+  @Override
+  public Iterable<IntWritable> getPartitionUnknownDestinationVertices(
+      int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
   @Override
   public void writePartition(DataOutput out,
       int partitionId) throws IOException {
@@ -236,8 +279,11 @@ public class IntByteArrayMessageStore<M extends Writable>
     int size = in.readInt();
     Int2ObjectOpenHashMap<DataInputOutput> partitionMap =
         new Int2ObjectOpenHashMap<DataInputOutput>(size);
+    IntWritable reusableVertexId = new IntWritable();
     while (size-- > 0) {
       int vertexId = in.readInt();
+      reusableVertexId.set(vertexId);
+      addDestination(partitionId, reusableVertexId);
       DataInputOutput dataInputOutput = config.createMessagesInputOutput();
       dataInputOutput.readFields(in);
       partitionMap.put(vertexId, dataInputOutput);
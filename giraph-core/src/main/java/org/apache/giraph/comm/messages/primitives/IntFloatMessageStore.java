@@ -20,7 +20,11 @@ package org.apache.giraph.comm.messages.primitives;
 
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.combiner.MessageCombiner;
+import org.apache.giraph.comm.messages.CombinedMessageReader;
 import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionStore;
 
@@ -52,13 +56,21 @@ import java.util.List;
  * get better performance.
  */
 public class IntFloatMessageStore
-    implements MessageStore<IntWritable, FloatWritable> {
+    implements MessageStore<IntWritable, FloatWritable>,
+    CombinedMessageReader<IntWritable, FloatWritable>,
+    ReceivedMessageCountReader {
   /** Map from partition id to map from vertex id to message */
   private final Int2ObjectOpenHashMap<Int2FloatOpenHashMap> map;
   /** Message messageCombiner */
   private final MessageCombiner<IntWritable, FloatWritable> messageCombiner;
   /** Service worker */
   private final CentralizedServiceWorker<IntWritable, ?, ?> service;
+  /** Destinations which were not known vertices */
+  private final UnknownDestinationTracker<IntWritable> unknownDestinations;
+
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
 
   /**
    * Constructor
@@ -70,6 +82,7 @@ public class IntFloatMessageStore
       CentralizedServiceWorker<IntWritable, Writable, Writable> service,
       MessageCombiner<IntWritable, FloatWritable> messageCombiner) {
     this.service = service;
+    unknownDestinations = new UnknownDestinationTracker<IntWritable>(service);
     this.messageCombiner =
         messageCombiner;
 
@@ -101,10 +114,25 @@ public class IntFloatMessageStore
     return map.get(service.getPartitionId(vertexId));
   }
 
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  private void addDestination(int partitionId, IntWritable vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, new IntWritable(vertexId.get()));
+    }
+  }
+
   @Override
   public void addPartitionMessages(int partitionId,
       VertexIdMessages<IntWritable, FloatWritable> messages) throws
       IOException {
+    long numMessages = 0;
     IntWritable reusableVertexId = new IntWritable();
     FloatWritable reusableMessage = new FloatWritable();
     FloatWritable reusableCurrentMessage = new FloatWritable();
@@ -115,6 +143,7 @@ public class IntFloatMessageStore
           iterator = messages.getVertexIdMessageIterator();
       while (iterator.hasNext()) {
         iterator.next();
+        ++numMessages;
         int vertexId = iterator.getCurrentVertexId().get();
         float message = iterator.getCurrentMessage().get();
         if (partitionMap.containsKey(vertexId)) {
@@ -124,10 +153,18 @@ public class IntFloatMessageStore
           messageCombiner.combine(reusableVertexId, reusableCurrentMessage,
               reusableMessage);
           message = reusableCurrentMessage.get();
+        } else {
+          addDestination(partitionId, iterator.getCurrentVertexId());
         }
         partitionMap.put(vertexId, message);
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
   }
 
   @Override
@@ -137,6 +174,7 @@ public class IntFloatMessageStore
   @Override
   public void clearPartition(int partitionId) throws IOException {
     map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
   }
 
   @Override
@@ -156,6 +194,17 @@ public class IntFloatMessageStore
     }
   }
 
+  @Override
+  public boolean readVertexMessage(IntWritable vertexId,
+      FloatWritable message) {
+    Int2FloatOpenHashMap partitionMap = getPartitionMap(vertexId);
+    if (!partitionMap.containsKey(vertexId.get())) {
+      return false;
+    }
+    message.set(partitionMap.get(vertexId.get()));
+    return true;
+  }
+
   @Override
   public void clearVertexMessages(IntWritable vertexId) throws IOException {
     getPartitionMap(vertexId).remove(vertexId.get());
@@ -164,6 +213,7 @@ public class IntFloatMessageStore
   @Override
   public void clearAll() throws IOException {
     map.clear();
+    unknownDestinations.clearAll();
   }
 
   @Override
@@ -179,6 +229,12 @@ public class IntFloatMessageStore
     return vertices;
   }
 
+  @Override
+  public Iterable<IntWritable> getPartitionUnknownDestinationVertices(
+      int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
   @Override
   public void writePartition(DataOutput out,
       int partitionId) throws IOException {
@@ -198,8 +254,11 @@ public class IntFloatMessageStore
       int partitionId) throws IOException {
     int size = in.readInt();
     Int2FloatOpenHashMap partitionMap = new Int2FloatOpenHashMap(size);
+    IntWritable reusableVertexId = new IntWritable();
     while (size-- > 0) {
       int vertexId = in.readInt();
+      reusableVertexId.set(vertexId);
+      addDestination(partitionId, reusableVertexId);
       float message = in.readFloat();
       partitionMap.put(vertexId, message);
     }
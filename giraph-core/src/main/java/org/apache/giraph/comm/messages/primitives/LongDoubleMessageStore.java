@@ -20,7 +20,11 @@ package org.apache.giraph.comm.messages.primitives;
 
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.combiner.MessageCombiner;
+import org.apache.giraph.comm.messages.CombinedMessageReader;
 import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.utils.VertexIdMessageIterator;
 import org.apache.giraph.utils.VertexIdMessages;
@@ -51,13 +55,21 @@ import java.util.List;
  * get better performance.
  */
 public class LongDoubleMessageStore
-    implements MessageStore<LongWritable, DoubleWritable> {
+    implements MessageStore<LongWritable, DoubleWritable>,
+    CombinedMessageReader<LongWritable, DoubleWritable>,
+    ReceivedMessageCountReader {
   /** Map from partition id to map from vertex id to message */
   private final Int2ObjectOpenHashMap<Long2DoubleOpenHashMap> map;
   /** Message messageCombiner */
   private final MessageCombiner<LongWritable, DoubleWritable> messageCombiner;
   /** Service worker */
   private final CentralizedServiceWorker<LongWritable, ?, ?> service;
+  /** Destinations which were not known vertices */
+  private final UnknownDestinationTracker<LongWritable> unknownDestinations;
+
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
 
   /**
    * Constructor
@@ -69,6 +81,7 @@ public class LongDoubleMessageStore
       CentralizedServiceWorker<LongWritable, Writable, Writable> service,
       MessageCombiner<LongWritable, DoubleWritable> messageCombiner) {
     this.service = service;
+    unknownDestinations = new UnknownDestinationTracker<LongWritable>(service);
     this.messageCombiner =
         messageCombiner;
 
@@ -98,10 +111,25 @@ public class LongDoubleMessageStore
     return map.get(service.getPartitionId(vertexId));
   }
 
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  private void addDestination(int partitionId, LongWritable vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, new LongWritable(vertexId.get()));
+    }
+  }
+
   @Override
   public void addPartitionMessages(int partitionId,
       VertexIdMessages<LongWritable, DoubleWritable> messages) throws
       IOException {
+    long numMessages = 0;
     LongWritable reusableVertexId = new LongWritable();
     DoubleWritable reusableMessage = new DoubleWritable();
     DoubleWritable reusableCurrentMessage = new DoubleWritable();
@@ -112,6 +140,7 @@ public class LongDoubleMessageStore
         messages.getVertexIdMessageIterator();
       while (iterator.hasNext()) {
         iterator.next();
+        ++numMessages;
         long vertexId = iterator.getCurrentVertexId().get();
         double message = iterator.getCurrentMessage().get();
         if (partitionMap.containsKey(vertexId)) {
@@ -121,10 +150,18 @@ public class LongDoubleMessageStore
           messageCombiner.combine(reusableVertexId, reusableCurrentMessage,
               reusableMessage);
           message = reusableCurrentMessage.get();
+        } else {
+          addDestination(partitionId, iterator.getCurrentVertexId());
         }
         partitionMap.put(vertexId, message);
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
   }
 
   @Override
@@ -134,6 +171,7 @@ public class LongDoubleMessageStore
   @Override
   public void clearPartition(int partitionId) throws IOException {
     map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
   }
 
   @Override
@@ -153,6 +191,17 @@ public class LongDoubleMessageStore
     }
   }
 
+  @Override
+  public boolean readVertexMessage(LongWritable vertexId,
+      DoubleWritable message) {
+    Long2DoubleOpenHashMap partitionMap = getPartitionMap(vertexId);
+    if (!partitionMap.containsKey(vertexId.get())) {
+      return false;
+    }
+    message.set(partitionMap.get(vertexId.get()));
+    return true;
+  }
+
   @Override
   public void clearVertexMessages(LongWritable vertexId) throws IOException {
     getPartitionMap(vertexId).remove(vertexId.get());
@@ -161,6 +210,7 @@ public class LongDoubleMessageStore
   @Override
   public void clearAll() throws IOException {
     map.clear();
+    unknownDestinations.clearAll();
   }
 
   @Override
@@ -176,6 +226,12 @@ public class LongDoubleMessageStore
     return vertices;
   }
 
+  @Override
+  public Iterable<LongWritable> getPartitionUnknownDestinationVertices(
+      int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
   @Override
   public void writePartition(DataOutput out,
       int partitionId) throws IOException {
@@ -195,8 +251,11 @@ public class LongDoubleMessageStore
       int partitionId) throws IOException {
     int size = in.readInt();
     Long2DoubleOpenHashMap partitionMap = new Long2DoubleOpenHashMap(size);
+    LongWritable reusableVertexId = new LongWritable();
     while (size-- > 0) {
       long vertexId = in.readLong();
+      reusableVertexId.set(vertexId);
+      addDestination(partitionId, reusableVertexId);
       double message = in.readDouble();
       partitionMap.put(vertexId, message);
     }
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.messages.primitives;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.factories.MessageValueFactory;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.types.ops.PrimitiveIdTypeOps;
+import org.apache.giraph.types.ops.PrimitiveTypeOps;
+import org.apache.giraph.types.ops.TypeOpsUtils;
+import org.apache.giraph.types.ops.collections.Basic2ObjectMap;
+import org.apache.giraph.types.ops.collections.BasicArrayList;
+import org.apache.giraph.types.ops.collections.WritableWriter;
+import org.apache.giraph.utils.EmptyIterable;
+import org.apache.giraph.utils.VertexIdMessageIterator;
+import org.apache.giraph.utils.VertexIdMessages;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Special message store to be used when both ids and messages are
+ * primitive, and message combiner is not used. Works for any pair of
+ * primitive id and message types, keeping messages of each vertex in a
+ * primitive array list.
+ *
+ * @param <I> Vertex id type
+ * @param <M> Message type
+ */
+public class PrimitiveListMessageStore<I extends WritableComparable,
+    M extends Writable> implements MessageStore<I, M>,
+    ReceivedMessageCountReader {
+  /** Initial capacity of message lists */
+  private static final int INITIAL_LIST_CAPACITY = 2;
+  /** Map from partition id to map from vertex id to messages */
+  private final Int2ObjectOpenHashMap<Basic2ObjectMap<I, BasicArrayList<M>>>
+  map;
+  /** Service worker */
+  private final CentralizedServiceWorker<I, ?, ?> service;
+  /** Vertex id TypeOps */
+  private final PrimitiveIdTypeOps<I> idTypeOps;
+  /** Message TypeOps */
+  private final PrimitiveTypeOps<M> messageTypeOps;
+  /** Destinations which were not known vertices */
+  private final UnknownDestinationTracker<I> unknownDestinations;
+  /** WritableWriter for message lists in this message store */
+  private final WritableWriter<BasicArrayList<M>> listWriter =
+      new WritableWriter<BasicArrayList<M>>() {
+        @Override
+        public BasicArrayList<M> readFields(DataInput in) throws IOException {
+          BasicArrayList<M> list =
+              messageTypeOps.createArrayList(INITIAL_LIST_CAPACITY);
+          list.readFields(in);
+          return list;
+        }
+
+        @Override
+        public void write(DataOutput out, BasicArrayList<M> value)
+          throws IOException {
+          value.write(out);
+        }
+      };
+
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
+
+  /**
+   * Constructor
+   *
+   * @param messageValueFactory Message value factory
+   * @param service Service worker
+   * @param config Config
+   */
+  public PrimitiveListMessageStore(
+      MessageValueFactory<M> messageValueFactory,
+      CentralizedServiceWorker<I, ?, ?> service,
+      ImmutableClassesGiraphConfiguration<I, ?, ?> config) {
+    this.service = service;
+
+    idTypeOps = TypeOpsUtils.getPrimitiveIdTypeOps(config.getVertexIdClass());
+    messageTypeOps = TypeOpsUtils.getPrimitiveTypeOps(
+        messageValueFactory.getValueClass());
+    unknownDestinations = new UnknownDestinationTracker<I>(service);
+
+    map = new Int2ObjectOpenHashMap<>();
+    for (int partitionId : service.getPartitionStore().getPartitionIds()) {
+      Partition<I, ?, ?> partition =
+          service.getPartitionStore().getOrCreatePartition(partitionId);
+      Basic2ObjectMap<I, BasicArrayList<M>> partitionMap =
+          idTypeOps.create2ObjectOpenHashMap(
+              (int) partition.getVertexCount());
+      map.put(partitionId, partitionMap);
+      service.getPartitionStore().putPartition((Partition) partition);
+    }
+  }
+
+  /**
+   * Get map which holds messages for partition which vertex belongs to.
+   *
+   * @param vertexId Id of the vertex
+   * @return Map which holds messages for partition which vertex belongs to.
+   */
+  private Basic2ObjectMap<I, BasicArrayList<M>> getPartitionMap(
+      I vertexId) {
+    return map.get(service.getPartitionId(vertexId));
+  }
+
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  private void addDestination(int partitionId, I vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, idTypeOps.createCopy(vertexId));
+    }
+  }
+
+  @Override
+  public void addPartitionMessages(
+      int partitionId,
+      VertexIdMessages<I, M> messages) throws IOException {
+    long numMessages = 0;
+    Basic2ObjectMap<I, BasicArrayList<M>> partitionMap = map.get(partitionId);
+    synchronized (partitionMap) {
+      VertexIdMessageIterator<I, M>
+          iterator = messages.getVertexIdMessageIterator();
+      while (iterator.hasNext()) {
+        iterator.next();
+        ++numMessages;
+        I vertexId = iterator.getCurrentVertexId();
+        BasicArrayList<M> vertexMessages = partitionMap.get(vertexId);
+        if (vertexMessages == null) {
+          vertexMessages =
+              messageTypeOps.createArrayList(INITIAL_LIST_CAPACITY);
+          partitionMap.put(vertexId, vertexMessages);
+          addDestination(partitionId, vertexId);
+        }
+        vertexMessages.add(iterator.getCurrentMessage());
+      }
+    }
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
+  }
+
+  @Override
+  public void clearPartition(int partitionId) throws IOException {
+    map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
+  }
+
+  @Override
+  public boolean hasMessagesForVertex(I vertexId) {
+    return getPartitionMap(vertexId).containsKey(vertexId);
+  }
+
+  @Override
+  public Iterable<M> getVertexMessages(
+      I vertexId) throws IOException {
+    final BasicArrayList<M> vertexMessages =
+        getPartitionMap(vertexId).get(vertexId);
+    if (vertexMessages == null) {
+      return EmptyIterable.get();
+    } else {
+      return new Iterable<M>() {
+        @Override
+        public Iterator<M> iterator() {
+          return vertexMessages.fastIterator();
+        }
+      };
+    }
+  }
+
+  @Override
+  public void clearVertexMessages(I vertexId) throws IOException {
+    getPartitionMap(vertexId).remove(vertexId);
+  }
+
+  @Override
+  public void clearAll() throws IOException {
+    map.clear();
+    unknownDestinations.clearAll();
+  }
+
+  @Override
+  public Iterable<I> getPartitionDestinationVertices(
+      int partitionId) {
+    Basic2ObjectMap<I, BasicArrayList<M>> partitionMap = map.get(partitionId);
+    List<I> vertices =
+        Lists.newArrayListWithCapacity(partitionMap.size());
+    Iterator<I> iterator = partitionMap.fastKeyIterator();
+    while (iterator.hasNext()) {
+      vertices.add(idTypeOps.createCopy(iterator.next()));
+    }
+    return vertices;
+  }
+
+  @Override
+  public Iterable<I> getPartitionUnknownDestinationVertices(int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
+  @Override
+  public void writePartition(DataOutput out,
+      int partitionId) throws IOException {
+    map.get(partitionId).write(out, listWriter);
+  }
+
+  @Override
+  public void readFieldsForPartition(DataInput in,
+      int partitionId) throws IOException {
+    Basic2ObjectMap<I, BasicArrayList<M>> partitionMap =
+        idTypeOps.create2ObjectOpenHashMap(10);
+    partitionMap.readFields(in, listWriter);
+    Iterator<I> iterator = partitionMap.fastKeyIterator();
+    while (iterator.hasNext()) {
+      addDestination(partitionId, iterator.next());
+    }
+    synchronized (map) {
+      map.put(partitionId, partitionMap);
+    }
+  }
+
+  @Override
+  public void finalizeStore() {
+  }
+
+  @Override
+  public boolean isPointerListEncoding() {
+    return false;
+  }
+}
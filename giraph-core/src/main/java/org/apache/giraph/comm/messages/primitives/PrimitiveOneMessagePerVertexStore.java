@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.messages.primitives;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.combiner.MessageCombiner;
+import org.apache.giraph.comm.messages.CombinedMessageReader;
+import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.factories.MessageValueFactory;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.types.ops.PrimitiveIdTypeOps;
+import org.apache.giraph.types.ops.PrimitiveTypeOps;
+import org.apache.giraph.types.ops.TypeOpsUtils;
+import org.apache.giraph.types.ops.collections.Basic2PrimitiveMap;
+import org.apache.giraph.utils.EmptyIterable;
+import org.apache.giraph.utils.VertexIdMessageIterator;
+import org.apache.giraph.utils.VertexIdMessages;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Special message store to be used when both ids and messages are
+ * primitive, and message combiner is used. Works for any pair of primitive
+ * id and message types, backed by maps with primitive keys and values.
+ *
+ * @param <I> Vertex id type
+ * @param <M> Message type
+ */
+public class PrimitiveOneMessagePerVertexStore<I extends WritableComparable,
+    M extends Writable> implements MessageStore<I, M>,
+    CombinedMessageReader<I, M>, ReceivedMessageCountReader {
+  /** Map from partition id to map from vertex id to message */
+  private final Int2ObjectOpenHashMap<Basic2PrimitiveMap<I, M>> map;
+  /** Message messageCombiner */
+  private final MessageCombiner<I, M> messageCombiner;
+  /** Service worker */
+  private final CentralizedServiceWorker<I, ?, ?> service;
+  /** Vertex id TypeOps */
+  private final PrimitiveIdTypeOps<I> idTypeOps;
+  /** Message TypeOps */
+  private final PrimitiveTypeOps<M> messageTypeOps;
+  /** Destinations which were not known vertices */
+  private final UnknownDestinationTracker<I> unknownDestinations;
+
+  /** Number of messages added to each partition */
+  private final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
+
+  /**
+   * Constructor
+   *
+   * @param messageValueFactory Message value factory
+   * @param service Service worker
+   * @param messageCombiner Message messageCombiner
+   * @param config Config
+   */
+  public PrimitiveOneMessagePerVertexStore(
+      MessageValueFactory<M> messageValueFactory,
+      CentralizedServiceWorker<I, ?, ?> service,
+      MessageCombiner<I, M> messageCombiner,
+      ImmutableClassesGiraphConfiguration<I, ?, ?> config) {
+    this.service = service;
+    this.messageCombiner = messageCombiner;
+
+    idTypeOps = TypeOpsUtils.getPrimitiveIdTypeOps(config.getVertexIdClass());
+    messageTypeOps = TypeOpsUtils.getPrimitiveTypeOps(
+        messageValueFactory.getValueClass());
+    unknownDestinations = new UnknownDestinationTracker<I>(service);
+
+    map = new Int2ObjectOpenHashMap<>();
+    for (int partitionId : service.getPartitionStore().getPartitionIds()) {
+      Partition<I, ?, ?> partition =
+          service.getPartitionStore().getOrCreatePartition(partitionId);
+      Basic2PrimitiveMap<I, M> partitionMap =
+          idTypeOps.create2PrimitiveOpenHashMap(messageTypeOps,
+              (int) partition.getVertexCount());
+      map.put(partitionId, partitionMap);
+      service.getPartitionStore().putPartition((Partition) partition);
+    }
+  }
+
+  /**
+   * Get map which holds messages for partition which vertex belongs to.
+   *
+   * @param vertexId Id of the vertex
+   * @return Map which holds messages for partition which vertex belongs to.
+   */
+  private Basic2PrimitiveMap<I, M> getPartitionMap(I vertexId) {
+    return map.get(service.getPartitionId(vertexId));
+  }
+
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  private void addDestination(int partitionId, I vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, idTypeOps.createCopy(vertexId));
+    }
+  }
+
+  @Override
+  public void addPartitionMessages(
+      int partitionId,
+      VertexIdMessages<I, M> messages) throws IOException {
+    long numMessages = 0;
+    M currentMessage = messageTypeOps.create();
+    Basic2PrimitiveMap<I, M> partitionMap = map.get(partitionId);
+    synchronized (partitionMap) {
+      VertexIdMessageIterator<I, M>
+          iterator = messages.getVertexIdMessageIterator();
+      while (iterator.hasNext()) {
+        iterator.next();
+        ++numMessages;
+        I vertexId = iterator.getCurrentVertexId();
+        M message = iterator.getCurrentMessage();
+        if (partitionMap.getInto(vertexId, currentMessage)) {
+          messageCombiner.combine(vertexId, currentMessage, message);
+          partitionMap.put(vertexId, currentMessage);
+        } else {
+          partitionMap.put(vertexId, message);
+          addDestination(partitionId, vertexId);
+        }
+      }
+    }
+    receivedMessageCounts.add(partitionId, numMessages);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
+  }
+
+  @Override
+  public void clearPartition(int partitionId) throws IOException {
+    map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
+  }
+
+  @Override
+  public boolean hasMessagesForVertex(I vertexId) {
+    return getPartitionMap(vertexId).containsKey(vertexId);
+  }
+
+  @Override
+  public Iterable<M> getVertexMessages(
+      I vertexId) throws IOException {
+    M message = messageTypeOps.create();
+    if (!getPartitionMap(vertexId).getInto(vertexId, message)) {
+      return EmptyIterable.get();
+    } else {
+      return Collections.singleton(message);
+    }
+  }
+
+  @Override
+  public boolean readVertexMessage(I vertexId, M message) {
+    return getPartitionMap(vertexId).getInto(vertexId, message);
+  }
+
+  @Override
+  public void clearVertexMessages(I vertexId) throws IOException {
+    getPartitionMap(vertexId).remove(vertexId);
+  }
+
+  @Override
+  public void clearAll() throws IOException {
+    map.clear();
+    unknownDestinations.clearAll();
+  }
+
+  @Override
+  public Iterable<I> getPartitionDestinationVertices(
+      int partitionId) {
+    Basic2PrimitiveMap<I, M> partitionMap = map.get(partitionId);
+    List<I> vertices =
+        Lists.newArrayListWithCapacity(partitionMap.size());
+    Iterator<I> iterator = partitionMap.fastKeyIterator();
+    while (iterator.hasNext()) {
+      vertices.add(idTypeOps.createCopy(iterator.next()));
+    }
+    return vertices;
+  }
+
+  @Override
+  public Iterable<I> getPartitionUnknownDestinationVertices(int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
+  @Override
+  public void writePartition(DataOutput out,
+      int partitionId) throws IOException {
+    map.get(partitionId).write(out);
+  }
+
+  @Override
+  public void readFieldsForPartition(DataInput in,
+      int partitionId) throws IOException {
+    Basic2PrimitiveMap<I, M> partitionMap =
+        idTypeOps.create2PrimitiveOpenHashMap(messageTypeOps, 10);
+    partitionMap.readFields(in);
+    Iterator<I> iterator = partitionMap.fastKeyIterator();
+    while (iterator.hasNext()) {
+      addDestination(partitionId, iterator.next());
+    }
+    synchronized (map) {
+      map.put(partitionId, partitionMap);
+    }
+  }
+
+  @Override
+  public void finalizeStore() {
+  }
+
+  @Override
+  public boolean isPointerListEncoding() {
+    return false;
+  }
+}
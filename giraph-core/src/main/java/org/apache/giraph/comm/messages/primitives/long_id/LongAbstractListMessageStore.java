@@ -115,6 +115,10 @@ public abstract class LongAbstractListMessageStore<M extends Writable,
           nascentMap.get(partitionId);
         if (nascentPartitionMap.get(vertexId) == null) {
           nascentPartitionMap.put(vertexId, createList());
+          // The map was populated after mutations were resolved, so
+          // vertices not in it are unknown
+          unknownDestinations.addUnknownDestination(
+              partitionId, new LongWritable(vertexId));
         }
         return nascentPartitionMap.get(vertexId);
       }
@@ -131,6 +135,27 @@ public abstract class LongAbstractListMessageStore<M extends Writable,
     nascentMap.clear();
   }
 
+  /**
+   * Messages of a vertex can come from requests of other partitions, so
+   * they are counted from lengths of lists instead of when added. Valid
+   * after {@link #finalizeStore()}.
+   *
+   * @param partitionId Partition id
+   * @return Number of messages for vertices of the partition
+   */
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    Long2ObjectOpenHashMap<L> partitionMap = map.get(partitionId);
+    if (partitionMap == null) {
+      return 0;
+    }
+    long numMessages = 0;
+    for (L list : partitionMap.values()) {
+      numMessages += list.size();
+    }
+    return numMessages;
+  }
+
   // TODO - discussion
   /*
   some approaches for ensuring correctness with parallel inserts
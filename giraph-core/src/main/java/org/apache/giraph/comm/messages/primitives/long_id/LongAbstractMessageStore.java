@@ -24,6 +24,9 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.comm.messages.UnknownDestinationTracker;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.factories.MessageValueFactory;
 import org.apache.giraph.partition.Partition;
@@ -43,7 +46,7 @@ import java.util.List;
  * @param <T> datastructure used to hold messages
  */
 public abstract class LongAbstractMessageStore<M extends Writable, T>
-  implements MessageStore<LongWritable, M> {
+  implements MessageStore<LongWritable, M>, ReceivedMessageCountReader {
   /** Message value factory */
   protected final MessageValueFactory<M> messageValueFactory;
   /** Map from partition id to map from vertex id to message */
@@ -54,6 +57,12 @@ public abstract class LongAbstractMessageStore<M extends Writable, T>
   /** Giraph configuration */
   protected final ImmutableClassesGiraphConfiguration<LongWritable, ?, ?>
   config;
+  /** Destinations which were not known vertices */
+  protected final UnknownDestinationTracker<LongWritable> unknownDestinations;
+
+  /** Number of messages added to each partition */
+  protected final ReceivedMessageCounts receivedMessageCounts =
+      new ReceivedMessageCounts();
 
   /**
    * Constructor
@@ -70,6 +79,7 @@ public abstract class LongAbstractMessageStore<M extends Writable, T>
     this.messageValueFactory = messageValueFactory;
     this.service = service;
     this.config = config;
+    unknownDestinations = new UnknownDestinationTracker<LongWritable>(service);
 
     map = new Int2ObjectOpenHashMap<>();
     for (int partitionId : service.getPartitionStore().getPartitionIds()) {
@@ -83,6 +93,11 @@ public abstract class LongAbstractMessageStore<M extends Writable, T>
     }
   }
 
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    return receivedMessageCounts.get(partitionId);
+  }
+
   /**
    * Get map which holds messages for partition which vertex belongs to.
    *
@@ -94,9 +109,24 @@ public abstract class LongAbstractMessageStore<M extends Writable, T>
     return map.get(service.getPartitionId(vertexId));
   }
 
+  /**
+   * Record a vertex which just got its first message, unless it's a known
+   * vertex.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Id of the vertex, not kept
+   */
+  protected void addDestination(int partitionId, LongWritable vertexId) {
+    if (!unknownDestinations.isKnownVertex(partitionId, vertexId)) {
+      unknownDestinations.addUnknownDestination(
+          partitionId, new LongWritable(vertexId.get()));
+    }
+  }
+
   @Override
   public void clearPartition(int partitionId) throws IOException {
     map.get(partitionId).clear();
+    unknownDestinations.clearPartition(partitionId);
   }
 
   @Override
@@ -113,6 +143,7 @@ public abstract class LongAbstractMessageStore<M extends Writable, T>
   @Override
   public void clearAll() throws IOException {
     map.clear();
+    unknownDestinations.clearAll();
   }
 
   @Override
@@ -129,4 +160,10 @@ public abstract class LongAbstractMessageStore<M extends Writable, T>
     return vertices;
   }
 
+  @Override
+  public Iterable<LongWritable> getPartitionUnknownDestinationVertices(
+      int partitionId) {
+    return unknownDestinations.getUnknownDestinations(partitionId);
+  }
+
 }
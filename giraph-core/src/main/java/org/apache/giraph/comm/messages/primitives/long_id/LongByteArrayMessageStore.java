@@ -73,16 +73,19 @@ public class LongByteArrayMessageStore<M extends Writable>
   /**
    * Get the DataInputOutput for a vertex id, creating if necessary.
    *
+   * @param partitionId Id of the partition
    * @param partitionMap Partition map to look in
    * @param vertexId Id of the vertex
    * @return DataInputOutput for this vertex id (created if necessary)
    */
-  private DataInputOutput getDataInputOutput(
-    Long2ObjectOpenHashMap<DataInputOutput> partitionMap, long vertexId) {
-    DataInputOutput dataInputOutput = partitionMap.get(vertexId);
+  private DataInputOutput getDataInputOutput(int partitionId,
+    Long2ObjectOpenHashMap<DataInputOutput> partitionMap,
+    LongWritable vertexId) {
+    DataInputOutput dataInputOutput = partitionMap.get(vertexId.get());
     if (dataInputOutput == null) {
       dataInputOutput = config.createMessagesInputOutput();
-      partitionMap.put(vertexId, dataInputOutput);
+      partitionMap.put(vertexId.get(), dataInputOutput);
+      addDestination(partitionId, vertexId);
     }
     return dataInputOutput;
   }
@@ -90,6 +93,7 @@ public class LongByteArrayMessageStore<M extends Writable>
   @Override
   public void addPartitionMessages(int partitionId,
     VertexIdMessages<LongWritable, M> messages) throws IOException {
+    long numMessages = 0;
     Long2ObjectOpenHashMap<DataInputOutput> partitionMap = map.get(partitionId);
     synchronized (partitionMap) {
       VertexIdMessageBytesIterator<LongWritable, M>
@@ -103,8 +107,9 @@ public class LongByteArrayMessageStore<M extends Writable>
       if (vertexIdMessageBytesIterator != null) {
         while (vertexIdMessageBytesIterator.hasNext()) {
           vertexIdMessageBytesIterator.next();
-          DataInputOutput dataInputOutput = getDataInputOutput(partitionMap,
-              vertexIdMessageBytesIterator.getCurrentVertexId().get());
+          ++numMessages;
+          DataInputOutput dataInputOutput = getDataInputOutput(partitionId,
+              partitionMap, vertexIdMessageBytesIterator.getCurrentVertexId());
           vertexIdMessageBytesIterator.writeCurrentMessageBytes(
               dataInputOutput.getDataOutput());
         }
@@ -113,13 +118,15 @@ public class LongByteArrayMessageStore<M extends Writable>
             iterator = messages.getVertexIdMessageIterator();
         while (iterator.hasNext()) {
           iterator.next();
-          DataInputOutput dataInputOutput =  getDataInputOutput(partitionMap,
-              iterator.getCurrentVertexId().get());
+          ++numMessages;
+          DataInputOutput dataInputOutput = getDataInputOutput(partitionId,
+              partitionMap, iterator.getCurrentVertexId());
           VerboseByteStructMessageWrite.verboseWriteCurrentMessage(iterator,
               dataInputOutput.getDataOutput());
         }
       }
     }
+    receivedMessageCounts.add(partitionId, numMessages);
   }
 
   @Override
@@ -159,8 +166,11 @@ public class LongByteArrayMessageStore<M extends Writable>
     int size = in.readInt();
     Long2ObjectOpenHashMap<DataInputOutput> partitionMap =
         new Long2ObjectOpenHashMap<DataInputOutput>(size);
+    LongWritable reusableVertexId = new LongWritable();
     while (size-- > 0) {
       long vertexId = in.readLong();
+      reusableVertexId.set(vertexId);
+      addDestination(partitionId, reusableVertexId);
       DataInputOutput dataInputOutput = config.createMessagesInputOutput();
       dataInputOutput.readFields(in);
       partitionMap.put(vertexId, dataInputOutput);
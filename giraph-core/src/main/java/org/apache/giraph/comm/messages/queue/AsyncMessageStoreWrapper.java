@@ -20,7 +20,11 @@ package org.apache.giraph.comm.messages.queue;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import org.apache.giraph.comm.messages.CombinedMessageReader;
 import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.comm.messages.ReceivedMessageCounts;
+import org.apache.giraph.utils.VertexIdMessageIterator;
 import org.apache.giraph.utils.VertexIdMessages;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
@@ -41,11 +45,15 @@ import java.util.concurrent.Semaphore;
  * It does not provide message store functionality itself, rather
  * providing a wrapper around existing message stores that
  * can now be used in async mode with only slight modifications.
+ * Received message counts come from the wrapped store when it keeps them,
+ * and stores which are {@link CombinedMessageReader}s stay readers once
+ * wrapped (see {@link #wrap(MessageStore, Iterable, int)}).
  * @param <I> Vertex id
  * @param <M> Message data
  */
-public final class AsyncMessageStoreWrapper<I extends WritableComparable,
-    M extends Writable> implements MessageStore<I, M> {
+public class AsyncMessageStoreWrapper<I extends WritableComparable,
+    M extends Writable> implements MessageStore<I, M>,
+    ReceivedMessageCountReader {
 
   /** Logger */
   private static final Logger LOG =
@@ -73,6 +81,11 @@ public final class AsyncMessageStoreWrapper<I extends WritableComparable,
   private Semaphore completionSemaphore;
   /** Underlying message store */
   private final MessageStore<I, M> store;
+  /**
+   * Number of messages added to each partition, null when the underlying
+   * store counts them
+   */
+  private final ReceivedMessageCounts receivedMessageCounts;
 
   /**
    * Constructs async wrapper around existing message store
@@ -90,6 +103,8 @@ public final class AsyncMessageStoreWrapper<I extends WritableComparable,
                                   Iterable<Integer> partitions,
                                   int threadCount) {
     this.store = store;
+    receivedMessageCounts = store instanceof ReceivedMessageCountReader ?
+        null : new ReceivedMessageCounts();
     this.threadsCount = threadCount;
     completionSemaphore = new Semaphore(1 - threadsCount);
     queues = new BlockingQueue[threadsCount];
@@ -108,6 +123,38 @@ public final class AsyncMessageStoreWrapper<I extends WritableComparable,
 
   }
 
+  /**
+   * Wrap a message store, keeping it a {@link CombinedMessageReader} if it
+   * is one.
+   *
+   * @param store underlying message store to be used in computation
+   * @param partitions partitions assigned to this worker
+   * @param threadCount number of threads that will be used to process
+   *                    messages.
+   * @param <I> Vertex id
+   * @param <M> Message data
+   * @return Async wrapper around the store
+   */
+  @SuppressWarnings("unchecked")
+  public static <I extends WritableComparable, M extends Writable>
+  AsyncMessageStoreWrapper<I, M> wrap(MessageStore<I, M> store,
+      Iterable<Integer> partitions, int threadCount) {
+    if (store instanceof CombinedMessageReader) {
+      return new CombinedAsyncMessageStoreWrapper<I, M>(store,
+          (CombinedMessageReader<I, M>) store, partitions, threadCount);
+    }
+    return new AsyncMessageStoreWrapper<I, M>(store, partitions, threadCount);
+  }
+
+  @Override
+  public long getReceivedMessageCount(int partitionId) {
+    if (receivedMessageCounts == null) {
+      return ((ReceivedMessageCountReader) store).getReceivedMessageCount(
+          partitionId);
+    }
+    return receivedMessageCounts.get(partitionId);
+  }
+
   @Override
   public boolean isPointerListEncoding() {
     return store.isPointerListEncoding();
@@ -162,6 +209,11 @@ public final class AsyncMessageStoreWrapper<I extends WritableComparable,
     return store.getPartitionDestinationVertices(partitionId);
   }
 
+  @Override
+  public Iterable<I> getPartitionUnknownDestinationVertices(int partitionId) {
+    return store.getPartitionUnknownDestinationVertices(partitionId);
+  }
+
   @Override
   public void clearPartition(int partitionId) throws IOException {
     store.clearPartition(partitionId);
@@ -194,6 +246,23 @@ public final class AsyncMessageStoreWrapper<I extends WritableComparable,
     }
   }
 
+  /**
+   * Count the messages of a batch, for stores which don't count them
+   *
+   * @param messages Messages
+   * @return Number of messages
+   */
+  private static long countMessages(VertexIdMessages<?, ?> messages) {
+    long numMessages = 0;
+    VertexIdMessageIterator<?, ?> iterator =
+        messages.getVertexIdMessageIterator();
+    while (iterator.hasNext()) {
+      iterator.next();
+      ++numMessages;
+    }
+    return numMessages;
+  }
+
   /**
    * This runnable has logic for background thread
    * that actually does message processing.
@@ -221,6 +290,10 @@ public final class AsyncMessageStoreWrapper<I extends WritableComparable,
           message = queue.take();
           if (message.getMessage() != null) {
             int partitionId = message.getPartitionId();
+            if (receivedMessageCounts != null) {
+              receivedMessageCounts.add(partitionId,
+                  countMessages(message.getMessage()));
+            }
             store.addPartitionMessages(partitionId, message.getMessage());
           } else {
             completionSemaphore.release();
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.messages.queue;
+
+import org.apache.giraph.comm.messages.CombinedMessageReader;
+import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+/**
+ * Async wrapper around a message store which is a
+ * {@link CombinedMessageReader}, so computations can still read combined
+ * messages straight from it.
+ *
+ * @param <I> Vertex id
+ * @param <M> Message data
+ */
+public class CombinedAsyncMessageStoreWrapper<I extends WritableComparable,
+    M extends Writable> extends AsyncMessageStoreWrapper<I, M>
+    implements CombinedMessageReader<I, M> {
+  /** Underlying message store, as a reader */
+  private final CombinedMessageReader<I, M> reader;
+
+  /**
+   * Constructor
+   *
+   * @param store underlying message store to be used in computation
+   * @param reader the same store, as a reader
+   * @param partitions partitions assigned to this worker
+   * @param threadCount number of threads that will be used to process
+   *                    messages.
+   */
+  public CombinedAsyncMessageStoreWrapper(MessageStore<I, M> store,
+      CombinedMessageReader<I, M> reader, Iterable<Integer> partitions,
+      int threadCount) {
+    super(store, partitions, threadCount);
+    this.reader = reader;
+  }
+
+  @Override
+  public boolean readVertexMessage(I vertexId, M message) {
+    return reader.readVertexMessage(vertexId, message);
+  }
+}
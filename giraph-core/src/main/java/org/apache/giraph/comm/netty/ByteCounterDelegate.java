@@ -44,6 +44,10 @@ public class ByteCounterDelegate implements ByteCounter {
       new DecimalFormat("#######.####");
   /** Class timer */
   private static final Time TIME = SystemTime.get();
+  /** All bytes ever received by this process, never reset */
+  private static final AtomicLong TOTAL_BYTES_RECEIVED = new AtomicLong();
+  /** All bytes ever sent by this process, never reset */
+  private static final AtomicLong TOTAL_BYTES_SENT = new AtomicLong();
   /** All bytes ever processed */
   private final AtomicLong bytesProcessed = new AtomicLong();
   /** Total processed requests */
@@ -71,6 +75,26 @@ public class ByteCounterDelegate implements ByteCounter {
     this.isInbound = isInBound;
   }
 
+  /**
+   * Get the bytes received by all inbound counters of this process since it
+   * started. Unlike the per-counter values, this is never reset.
+   *
+   * @return Total bytes received
+   */
+  public static long getTotalBytesReceived() {
+    return TOTAL_BYTES_RECEIVED.get();
+  }
+
+  /**
+   * Get the bytes sent by all outbound counters of this process since it
+   * started. Unlike the per-counter values, this is never reset.
+   *
+   * @return Total bytes sent
+   */
+  public static long getTotalBytesSent() {
+    return TOTAL_BYTES_SENT.get();
+  }
+
   /**
    * Called by Inbound/ Outbound counters to refresh meters on a new superstep
    *
@@ -99,6 +123,11 @@ public class ByteCounterDelegate implements ByteCounter {
   public int byteBookkeeper(ByteBuf buf) {
     int processedBytes = buf.readableBytes();
     bytesProcessed.addAndGet(processedBytes);
+    if (isInbound) {
+      TOTAL_BYTES_RECEIVED.addAndGet(processedBytes);
+    } else {
+      TOTAL_BYTES_SENT.addAndGet(processedBytes);
+    }
     processedBytesHist.update(processedBytes);
     processedRequests.incrementAndGet();
     processedRequestsMeter.mark();
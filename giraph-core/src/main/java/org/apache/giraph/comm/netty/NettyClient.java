@@ -33,6 +33,8 @@ import org.apache.giraph.comm.requests.WritableRequest;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.TaskInfo;
+import org.apache.giraph.metrics.HotPathHistograms;
+import org.apache.giraph.metrics.MemoryAccounting;
 import org.apache.giraph.utils.PipelineUtils;
 import org.apache.giraph.utils.ProgressableUtils;
 import org.apache.giraph.utils.ThreadUtils;
@@ -396,6 +398,7 @@ public class NettyClient {
         Lists.newArrayListWithCapacity(tasks.size() * channelsPerServer);
     for (TaskInfo taskInfo : tasks) {
       context.progress();
+      HotPathHistograms.get().registerPeer(taskInfo.getTaskId());
       InetSocketAddress address = taskIdAddressMap.get(taskInfo.getTaskId());
       if (address == null ||
           !address.getHostName().equals(taskInfo.getHostname()) ||
@@ -702,6 +705,8 @@ public class NettyClient {
           "have a previous request id = " + request.getRequestId() + ", " +
           "request info of " + oldRequestInfo);
       }
+      MemoryAccounting.get().addNettyBytes(
+          Math.max(0, request.getSerializedSize()));
     }
     ChannelFuture writeFuture = channel.write(request);
     newRequestInfo.setWriteFuture(writeFuture);
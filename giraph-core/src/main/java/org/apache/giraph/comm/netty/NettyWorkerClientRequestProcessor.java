@@ -32,9 +32,9 @@ import org.apache.giraph.comm.WorkerClient;
 import org.apache.giraph.comm.WorkerClientRequestProcessor;
 import org.apache.giraph.comm.messages.MessageStore;
 import org.apache.giraph.comm.requests.SendPartitionCurrentMessagesRequest;
-import org.apache.giraph.comm.requests.SendPartitionMutationsRequest;
 import org.apache.giraph.comm.requests.SendVertexRequest;
 import org.apache.giraph.comm.requests.SendWorkerEdgesRequest;
+import org.apache.giraph.comm.requests.SendWorkerMutationsRequest;
 import org.apache.giraph.comm.requests.SendWorkerVerticesRequest;
 import org.apache.giraph.comm.requests.WorkerRequest;
 import org.apache.giraph.comm.requests.WritableRequest;
@@ -42,8 +42,8 @@ import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.graph.Vertex;
-import org.apache.giraph.graph.VertexMutations;
 import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.MemoryAccounting;
 import org.apache.giraph.metrics.MetricNames;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
 import org.apache.giraph.partition.Partition;
@@ -60,7 +60,6 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.Iterator;
-import java.util.Map;
 
 /**
  * Aggregate requests and sends them to the thread-safe NettyClient.  This
@@ -84,9 +83,8 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
   private final SendMessageCache<I, Writable> sendMessageCache;
   /** Cache of edges to be sent. */
   private final SendEdgeCache<I, E> sendEdgeCache;
-  /** Cached map of partitions to vertex indices to mutations */
-  private final SendMutationsCache<I, V, E> sendMutationsCache =
-      new SendMutationsCache<I, V, E>();
+  /** Cache of serialized mutations to be sent */
+  private final SendMutationsCache<I, V, E> sendMutationsCache;
   /** NettyClient that could be shared among one or more instances */
   private final WorkerClient<I, V, E> workerClient;
   /** Messages sent during the last superstep */
@@ -97,8 +95,8 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
   private final int maxVerticesSizePerWorker;
   /** Maximum size of edges per remote worker to cache before sending. */
   private final int maxEdgesSizePerWorker;
-  /** Maximum number of mutations per partition before sending */
-  private final int maxMutationsPerPartition;
+  /** Maximum size of mutations per remote worker to cache before sending */
+  private final int maxMutationsSizePerWorker;
   /** Giraph configuration */
   private final ImmutableClassesGiraphConfiguration<I, V, E> configuration;
   /** Service worker */
@@ -130,6 +128,7 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     sendPartitionCache =
         new SendPartitionCache<I, V, E>(conf, serviceWorker);
     sendEdgeCache = new SendEdgeCache<I, E>(conf, serviceWorker);
+    sendMutationsCache = new SendMutationsCache<I, V, E>(conf, serviceWorker);
     maxMessagesSizePerWorker =
         GiraphConfiguration.MAX_MSG_REQUEST_SIZE.get(conf);
     maxVerticesSizePerWorker =
@@ -145,8 +144,8 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     }
     maxEdgesSizePerWorker =
         GiraphConfiguration.MAX_EDGE_REQUEST_SIZE.get(conf);
-    maxMutationsPerPartition =
-        GiraphConfiguration.MAX_MUTATIONS_PER_REQUEST.get(conf);
+    maxMutationsSizePerWorker =
+        GiraphConfiguration.MAX_MUTATIONS_REQUEST_SIZE.get(conf);
     this.serviceWorker = serviceWorker;
     this.serverData = serviceWorker.getServerData();
 
@@ -175,6 +174,39 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     this.sendMessageCache.sendMessageToAllRequest(vertexIdIterator, message);
   }
 
+  @Override
+  public void sendDoubleMessageRequest(long destVertexId, double message) {
+    this.sendMessageCache.sendDoubleMessageRequest(destVertexId, message);
+  }
+
+  @Override
+  public void sendDoubleMessageToAllRequest(Vertex<I, V, E> vertex,
+      double message) {
+    this.sendMessageCache.sendDoubleMessageToAllRequest(vertex, message);
+  }
+
+  @Override
+  public void sendFloatMessageRequest(long destVertexId, float message) {
+    this.sendMessageCache.sendFloatMessageRequest(destVertexId, message);
+  }
+
+  @Override
+  public void sendFloatMessageToAllRequest(Vertex<I, V, E> vertex,
+      float message) {
+    this.sendMessageCache.sendFloatMessageToAllRequest(vertex, message);
+  }
+
+  @Override
+  public void sendLongMessageRequest(long destVertexId, long message) {
+    this.sendMessageCache.sendLongMessageRequest(destVertexId, message);
+  }
+
+  @Override
+  public void sendLongMessageToAllRequest(Vertex<I, V, E> vertex,
+      long message) {
+    this.sendMessageCache.sendLongMessageToAllRequest(vertex, message);
+  }
+
   @Override
   public void sendPartitionRequest(WorkerInfo workerInfo,
                                    Partition<I, V, E> partition) {
@@ -276,11 +308,10 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     }
 
     // Add the message to the cache
-    int partitionMutationCount =
-        sendMutationsCache.addEdgeMutation(partitionId, vertexIndex, edge);
+    int workerMutationsSize = sendMutationsCache.addEdgeMutation(
+        partitionOwner, vertexIndex, edge);
 
-    sendMutationsRequestIfFull(
-        partitionId, partitionOwner, partitionMutationCount);
+    sendMutationsRequestIfFull(partitionOwner, workerMutationsSize);
   }
 
   @Override
@@ -314,24 +345,22 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
   }
 
   /**
-   * Send a mutations request if the maximum number of mutations per partition
-   * was met.
+   * Send a mutations request if the cache of outgoing mutations to the
+   * worker owning the partition is full.
    *
-   * @param partitionId Partition id
    * @param partitionOwner Owner of the partition
-   * @param partitionMutationCount Number of mutations for this partition
+   * @param workerMutationsSize Size of mutations cached for the worker
    */
   private void sendMutationsRequestIfFull(
-      int partitionId, PartitionOwner partitionOwner,
-      int partitionMutationCount) {
-    // Send a request if enough mutations are there for a partition
-    if (partitionMutationCount >= maxMutationsPerPartition) {
-      Map<I, VertexMutations<I, V, E>> partitionMutations =
-          sendMutationsCache.removePartitionMutations(partitionId);
+      PartitionOwner partitionOwner, int workerMutationsSize) {
+    if (workerMutationsSize >= maxMutationsSizePerWorker) {
+      WorkerInfo workerInfo = partitionOwner.getWorkerInfo();
+      PairList<Integer, ExtendedDataOutput> workerMutations =
+          sendMutationsCache.removeWorkerData(workerInfo);
       WritableRequest writableRequest =
-          new SendPartitionMutationsRequest<I, V, E>(
-              partitionId, partitionMutations);
-      doRequest(partitionOwner.getWorkerInfo(), writableRequest);
+          new SendWorkerMutationsRequest<I, V, E>(
+              configuration, workerMutations);
+      doRequest(workerInfo, writableRequest);
     }
   }
 
@@ -348,12 +377,10 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     }
 
     // Add the message to the cache
-    int partitionMutationCount =
-        sendMutationsCache.removeEdgeMutation(
-            partitionId, vertexIndex, destinationVertexIndex);
+    int workerMutationsSize = sendMutationsCache.removeEdgeMutation(
+        partitionOwner, vertexIndex, destinationVertexIndex);
 
-    sendMutationsRequestIfFull(
-        partitionId, partitionOwner, partitionMutationCount);
+    sendMutationsRequestIfFull(partitionOwner, workerMutationsSize);
   }
 
   @Override
@@ -367,11 +394,10 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     }
 
     // Add the message to the cache
-    int partitionMutationCount =
-        sendMutationsCache.addVertexMutation(partitionId, vertex);
+    int workerMutationsSize =
+        sendMutationsCache.addVertexMutation(partitionOwner, vertex);
 
-    sendMutationsRequestIfFull(
-        partitionId, partitionOwner, partitionMutationCount);
+    sendMutationsRequestIfFull(partitionOwner, workerMutationsSize);
   }
 
   @Override
@@ -385,15 +411,24 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     }
 
     // Add the message to the cache
-    int partitionMutationCount =
-        sendMutationsCache.removeVertexMutation(partitionId, vertexIndex);
+    int workerMutationsSize =
+        sendMutationsCache.removeVertexMutation(partitionOwner, vertexIndex);
 
-    sendMutationsRequestIfFull(
-        partitionId, partitionOwner, partitionMutationCount);
+    sendMutationsRequestIfFull(partitionOwner, workerMutationsSize);
   }
 
   @Override
   public void flush() throws IOException {
+    MemoryAccounting.get().addSendCacheBytes(
+        sendMessageCache.getPeakDataSize() +
+        sendPartitionCache.getPeakDataSize() +
+        sendEdgeCache.getPeakDataSize() +
+        sendMutationsCache.getPeakDataSize());
+    sendMessageCache.resetPeakDataSize();
+    sendPartitionCache.resetPeakDataSize();
+    sendEdgeCache.resetPeakDataSize();
+    sendMutationsCache.resetPeakDataSize();
+
     // Execute the remaining sends messages (if any)
     // including individual and compact messages.
     sendMessageCache.flush();
@@ -428,17 +463,17 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     }
 
     // Execute the remaining sends mutations (if any)
-    Map<Integer, Map<I, VertexMutations<I, V, E>>> remainingMutationsCache =
-        sendMutationsCache.removeAllPartitionMutations();
-    for (Map.Entry<Integer, Map<I, VertexMutations<I, V, E>>> entry :
-        remainingMutationsCache.entrySet()) {
+    PairList<WorkerInfo, PairList<Integer, ExtendedDataOutput>>
+        remainingMutationsCache = sendMutationsCache.removeAllData();
+    PairList<WorkerInfo,
+        PairList<Integer, ExtendedDataOutput>>.Iterator
+        mutationsIterator = remainingMutationsCache.getIterator();
+    while (mutationsIterator.hasNext()) {
+      mutationsIterator.next();
       WritableRequest writableRequest =
-          new SendPartitionMutationsRequest<I, V, E>(
-              entry.getKey(), entry.getValue());
-      PartitionOwner partitionOwner =
-          serviceWorker.getVertexPartitionOwner(
-              entry.getValue().keySet().iterator().next());
-      doRequest(partitionOwner.getWorkerInfo(), writableRequest);
+          new SendWorkerMutationsRequest<I, V, E>(
+              configuration, mutationsIterator.getCurrentSecond());
+      doRequest(mutationsIterator.getCurrentFirst(), writableRequest);
     }
   }
 
@@ -29,19 +29,27 @@ import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.graph.VertexMutations;
 import org.apache.giraph.graph.VertexResolver;
 import org.apache.giraph.partition.Partition;
+import org.apache.giraph.utils.CallableFactory;
+import org.apache.giraph.utils.ProgressableUtils;
 import org.apache.giraph.utils.ReflectionUtils;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.log4j.Logger;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 
 import java.net.InetSocketAddress;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.giraph.conf.GiraphConstants.MESSAGE_STORE_FACTORY_CLASS;
 
@@ -122,91 +130,152 @@ public class NettyWorkerServer<I extends WritableComparable,
 
   @Override
   public void prepareSuperstep() {
-    serverData.prepareSuperstep(); // updates the current message-store
+    serverData.prepareCurrentMessageStore(); // updates the current store
     resolveMutations();
+    serverData.prepareIncomingMessageStore();
   }
 
   /**
-   * Resolve mutation requests.
+   * Resolve mutation requests. Partitions are resolved in parallel, and
+   * partitions without mutations or messages are skipped.
    */
   private void resolveMutations() {
-    Multimap<Integer, I> resolveVertexIndices = HashMultimap.create(
-        service.getPartitionStore().getNumPartitions(), 100);
-      // Add any mutated vertex indices to be resolved
-    for (Entry<I, VertexMutations<I, V, E>> e :
-        serverData.getVertexMutations().entrySet()) {
-      I vertexId = e.getKey();
-      Integer partitionId = service.getPartitionId(vertexId);
-      if (!resolveVertexIndices.put(partitionId, vertexId)) {
-        throw new IllegalStateException(
-            "resolveMutations: Already has missing vertex on this " +
-                "worker for " + vertexId);
-      }
+    Set<Integer> partitionIds = Sets.newHashSet(
+        service.getPartitionStore().getPartitionIds());
+    partitionIds.addAll(serverData.getPartitionMutations().keySet());
+    if (partitionIds.isEmpty()) {
+      return;
     }
-    // Keep track of the vertices which are not here but have received messages
-    for (Integer partitionId : service.getPartitionStore().getPartitionIds()) {
-      Iterable<I> destinations = serverData.getCurrentMessageStore().
-          getPartitionDestinationVertices(partitionId);
-      if (!Iterables.isEmpty(destinations)) {
-        Partition<I, V, E> partition =
-            service.getPartitionStore().getOrCreatePartition(partitionId);
-        for (I vertexId : destinations) {
-          if (partition.getVertex(vertexId) == null) {
-            if (!resolveVertexIndices.put(partitionId, vertexId)) {
-              throw new IllegalStateException(
-                  "resolveMutations: Already has missing vertex on this " +
-                      "worker for " + vertexId);
+    final Queue<Integer> partitionIdQueue =
+        new ArrayBlockingQueue<Integer>(partitionIds.size(), false,
+            partitionIds);
+    final AtomicLong resolvedVertices = new AtomicLong();
+    final AtomicInteger resolvedPartitions = new AtomicInteger();
+    long startMillis = System.currentTimeMillis();
+
+    CallableFactory<Void> callableFactory = new CallableFactory<Void>() {
+      @Override
+      public Callable<Void> newCallable(int callableId) {
+        return new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            VertexResolver<I, V, E> vertexResolver =
+                conf.createVertexResolver();
+            Integer partitionId;
+            while ((partitionId = partitionIdQueue.poll()) != null) {
+              long resolved = resolvePartitionMutations(
+                  partitionId, vertexResolver);
+              if (resolved > 0) {
+                resolvedVertices.addAndGet(resolved);
+                resolvedPartitions.incrementAndGet();
+              }
             }
+            return null;
           }
-        }
-        service.getPartitionStore().putPartition(partition);
+        };
       }
+    };
+    ProgressableUtils.getResultsWithNCallables(callableFactory,
+        Math.min(conf.getNumComputeThreads(), partitionIds.size()),
+        "resolve-mutations-%d", context);
+
+    if (!serverData.getPartitionMutations().isEmpty()) {
+      throw new IllegalStateException("resolveMutations: Illegally " +
+          "still has mutations for partitions " +
+          serverData.getPartitionMutations().keySet());
     }
-    // Resolve all graph mutations
-    VertexResolver<I, V, E> vertexResolver = conf.createVertexResolver();
-    for (Entry<Integer, Collection<I>> e :
-        resolveVertexIndices.asMap().entrySet()) {
-      Partition<I, V, E> partition =
-          service.getPartitionStore().getOrCreatePartition(e.getKey());
-      for (I vertexIndex : e.getValue()) {
-        Vertex<I, V, E> originalVertex =
-            partition.getVertex(vertexIndex);
-
-        VertexMutations<I, V, E> mutations = null;
-        VertexMutations<I, V, E> vertexMutations =
-            serverData.getVertexMutations().get(vertexIndex);
-        if (vertexMutations != null) {
-          synchronized (vertexMutations) {
-            mutations = vertexMutations.copy();
-          }
-          serverData.getVertexMutations().remove(vertexIndex);
-        }
-        Vertex<I, V, E> vertex = vertexResolver.resolve(
-            vertexIndex, originalVertex, mutations,
-            serverData.getCurrentMessageStore().
-                hasMessagesForVertex(vertexIndex));
-        context.progress();
-
-        if (LOG.isDebugEnabled()) {
-          LOG.debug("resolveMutations: Resolved vertex index " +
-              vertexIndex + " with original vertex " +
-              originalVertex + ", returned vertex " + vertex +
-              " on superstep " + service.getSuperstep() +
-              " with mutations " +
-              mutations);
-        }
-        if (vertex != null) {
-          partition.putVertex(vertex);
-        } else if (originalVertex != null) {
-          partition.removeVertex(originalVertex.getId());
-        }
+    if (LOG.isInfoEnabled() && resolvedVertices.get() > 0) {
+      LOG.info("resolveMutations: Resolved " + resolvedVertices.get() +
+          " vertices in " + resolvedPartitions.get() + " out of " +
+          partitionIds.size() + " partitions in " +
+          (System.currentTimeMillis() - startMillis) + " ms");
+    }
+  }
+
+  /**
+   * Resolve the mutated vertices of a partition, and the vertices which are
+   * not there but have received messages. If the message store kept track
+   * of the destinations which were not known vertices, only those are
+   * checked instead of every destination.
+   *
+   * @param partitionId Partition id
+   * @param vertexResolver Vertex resolver to use
+   * @return Number of vertices resolved
+   */
+  private long resolvePartitionMutations(int partitionId,
+      VertexResolver<I, V, E> vertexResolver) {
+    MessageStore<I, Writable> messageStore =
+        serverData.getCurrentMessageStore();
+    Map<I, VertexMutations<I, V, E>> vertexMutations =
+        serverData.getPartitionMutations().remove(partitionId);
+    if (vertexMutations == null) {
+      vertexMutations = Collections.emptyMap();
+    }
+    Iterable<I> destinations =
+        messageStore.getPartitionUnknownDestinationVertices(partitionId);
+    if (destinations == null) {
+      destinations = messageStore.getPartitionDestinationVertices(partitionId);
+    }
+    if (vertexMutations.isEmpty() && Iterables.isEmpty(destinations)) {
+      return 0;
+    }
+
+    long resolved = 0;
+    Partition<I, V, E> partition =
+        service.getPartitionStore().getOrCreatePartition(partitionId);
+    for (Entry<I, VertexMutations<I, V, E>> entry :
+        vertexMutations.entrySet()) {
+      // All requests are done, the lock only publishes the mutations
+      synchronized (entry.getValue()) {
+        resolveVertex(partition, entry.getKey(), entry.getValue(),
+            vertexResolver, messageStore);
       }
-      service.getPartitionStore().putPartition(partition);
+      ++resolved;
     }
-    if (!serverData.getVertexMutations().isEmpty()) {
-      throw new IllegalStateException("resolveMutations: Illegally " +
-          "still has " + serverData.getVertexMutations().size() +
-          " mutations left.");
+    // Keep track of the vertices which are not here but have received messages
+    for (I vertexId : destinations) {
+      if (!vertexMutations.containsKey(vertexId) &&
+          partition.getVertex(vertexId) == null) {
+        resolveVertex(partition, vertexId, null, vertexResolver,
+            messageStore);
+        ++resolved;
+      }
+    }
+    service.getPartitionStore().putPartition(partition);
+    return resolved;
+  }
+
+  /**
+   * Resolve a single vertex and apply the result to its partition.
+   *
+   * @param partition Partition of the vertex
+   * @param vertexIndex Id of the vertex
+   * @param mutations Mutations of the vertex, null if none
+   * @param vertexResolver Vertex resolver to use
+   * @param messageStore Store with the messages for this superstep
+   */
+  private void resolveVertex(Partition<I, V, E> partition, I vertexIndex,
+      VertexMutations<I, V, E> mutations,
+      VertexResolver<I, V, E> vertexResolver,
+      MessageStore<I, Writable> messageStore) {
+    Vertex<I, V, E> originalVertex = partition.getVertex(vertexIndex);
+    Vertex<I, V, E> vertex = vertexResolver.resolve(
+        vertexIndex, originalVertex, mutations,
+        messageStore.hasMessagesForVertex(vertexIndex));
+    context.progress();
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("resolveMutations: Resolved vertex index " +
+          vertexIndex + " with original vertex " +
+          originalVertex + ", returned vertex " + vertex +
+          " on superstep " + service.getSuperstep() +
+          " with mutations " +
+          mutations);
+    }
+    if (vertex != null) {
+      partition.putVertex(vertex);
+    } else if (originalVertex != null) {
+      partition.removeVertex(originalVertex.getId());
     }
   }
 
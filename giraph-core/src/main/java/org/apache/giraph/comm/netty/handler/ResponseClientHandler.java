@@ -18,6 +18,8 @@
 
 package org.apache.giraph.comm.netty.handler;
 
+import org.apache.giraph.metrics.HotPathHistograms;
+import org.apache.giraph.metrics.MemoryAccounting;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.log4j.Logger;
 
@@ -108,6 +110,10 @@ public class ResponseClientHandler extends ChannelInboundHandlerAdapter {
       LOG.info("messageReceived: Already received response for (taskId = " +
           senderId + ", requestId = " + requestId + ")");
     } else {
+      HotPathHistograms.get().recordRequestRtt(senderId,
+          requestInfo.getElapsedNanos());
+      MemoryAccounting.get().addNettyBytes(
+          -Math.max(0, requestInfo.getRequest().getSerializedSize()));
       if (LOG.isDebugEnabled()) {
         LOG.debug("messageReceived: Completed (taskId = " + senderId + ")" +
             requestInfo + ".  Waiting on " + workerIdOutstandingRequestMap
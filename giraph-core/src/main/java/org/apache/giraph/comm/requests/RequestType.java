@@ -51,6 +51,8 @@ public enum RequestType {
   SEND_WORKER_EDGES_REQUEST(SendWorkerEdgesRequest.class),
   /** Send a partition of mutations */
   SEND_PARTITION_MUTATIONS_REQUEST(SendPartitionMutationsRequest.class),
+  /** Send serialized mutations of one or more partitions */
+  SEND_WORKER_MUTATIONS_REQUEST(SendWorkerMutationsRequest.class),
   /** Send aggregated values from one worker's vertices */
   SEND_WORKER_AGGREGATORS_REQUEST(SendWorkerAggregatorsRequest.class),
   /** Send aggregated values from worker owner to master */
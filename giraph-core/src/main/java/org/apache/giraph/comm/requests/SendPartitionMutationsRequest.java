@@ -34,7 +34,6 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Send a collection of vertex mutations for a partition.
@@ -110,26 +109,11 @@ public class SendPartitionMutationsRequest<I extends WritableComparable,
 
   @Override
   public void doRequest(ServerData<I, V, E> serverData) {
-    ConcurrentHashMap<I, VertexMutations<I, V, E>> vertexMutations =
-      serverData.getVertexMutations();
     Histogram verticesInMutationHist = GiraphMetrics.get().perSuperstep()
         .getUniformHistogram(MetricNames.VERTICES_IN_MUTATION_REQUEST);
-    verticesInMutationHist.update(vertexMutations.size());
-    for (Entry<I, VertexMutations<I, V, E>> entry :
-        vertexIdMutations.entrySet()) {
-      VertexMutations<I, V, E> mutations =
-          vertexMutations.get(entry.getKey());
-      if (mutations == null) {
-        mutations = vertexMutations.putIfAbsent(
-            entry.getKey(), entry.getValue());
-        if (mutations == null) {
-          continue;
-        }
-      }
-      synchronized (mutations) {
-        mutations.addVertexMutations(entry.getValue());
-      }
-    }
+    verticesInMutationHist.update(
+        serverData.getOrCreateVertexMutations(partitionId).size());
+    serverData.addVertexMutations(partitionId, vertexIdMutations);
   }
 
   @Override
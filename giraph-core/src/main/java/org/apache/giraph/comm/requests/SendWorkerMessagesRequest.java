@@ -19,6 +19,7 @@
 package org.apache.giraph.comm.requests;
 
 import org.apache.giraph.comm.ServerData;
+import org.apache.giraph.metrics.HotPathHistograms;
 import org.apache.giraph.utils.VertexIdMessages;
 import org.apache.giraph.utils.ByteArrayVertexIdMessages;
 import org.apache.giraph.utils.PairList;
@@ -66,14 +67,17 @@ public class SendWorkerMessagesRequest<I extends WritableComparable,
 
   @Override
   public void doRequest(ServerData serverData) {
+    HotPathHistograms histograms = HotPathHistograms.get();
     PairList<Integer, VertexIdMessages<I, M>>.Iterator
         iterator = partitionVertexData.getIterator();
     while (iterator.hasNext()) {
       iterator.next();
       try {
+        long startNanos = histograms.startNanos();
         serverData.getIncomingMessageStore().
             addPartitionMessages(iterator.getCurrentFirst(),
                 iterator.getCurrentSecond());
+        histograms.recordAddPartitionMessages(startNanos);
       } catch (IOException e) {
         throw new RuntimeException("doRequest: Got IOException ", e);
       }
@@ -29,6 +29,7 @@ import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.comm.ServerData;
 import org.apache.giraph.comm.messages.MessageStore;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.metrics.HotPathHistograms;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.utils.ByteArrayOneMessageToManyIds;
 import org.apache.giraph.utils.ByteArrayVertexIdMessages;
@@ -97,7 +98,9 @@ public class SendWorkerOneMessageToManyRequest<I extends WritableComparable,
       MessageStore<I, M> messageStore = serverData.getIncomingMessageStore();
       if (messageStore.isPointerListEncoding()) {
         // if message store is pointer list based then send data as is
+        long startNanos = HotPathHistograms.get().startNanos();
         messageStore.addPartitionMessages(-1, oneMessageToManyIds);
+        HotPathHistograms.get().recordAddPartitionMessages(startNanos);
       } else { // else split the data per partition and send individually
         CentralizedServiceWorker<I, ?, ?> serviceWorker =
             serverData.getServiceWorker();
@@ -144,8 +147,10 @@ public class SendWorkerOneMessageToManyRequest<I extends WritableComparable,
         for (Entry<Integer, ByteArrayVertexIdMessages> idMsgs :
             partitionIdMsgs.entrySet()) {
           if (!idMsgs.getValue().isEmpty()) {
+            long startNanos = HotPathHistograms.get().startNanos();
             serverData.getIncomingMessageStore().addPartitionMessages(
                 idMsgs.getKey(), idMsgs.getValue());
+            HotPathHistograms.get().recordAddPartitionMessages(startNanos);
           }
         }
       }
@@ -21,6 +21,11 @@ import org.apache.giraph.aggregators.AggregatorWriter;
 import org.apache.giraph.aggregators.TextAggregatorWriter;
 import org.apache.giraph.combiner.MessageCombiner;
 import org.apache.giraph.edge.ByteArrayEdges;
+import org.apache.giraph.edge.IdAndNullArrayEdges;
+import org.apache.giraph.edge.IdAndValueArrayEdges;
+import org.apache.giraph.edge.IntNullArrayEdges;
+import org.apache.giraph.edge.LongDoubleArrayEdges;
+import org.apache.giraph.edge.LongNullArrayEdges;
 import org.apache.giraph.edge.OutEdges;
 import org.apache.giraph.factories.ComputationFactory;
 import org.apache.giraph.factories.DefaultComputationFactory;
@@ -44,10 +49,16 @@ import org.apache.giraph.master.MasterCompute;
 import org.apache.giraph.partition.GraphPartitionerFactory;
 import org.apache.giraph.partition.HashPartitionerFactory;
 import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PrimitiveArrayPartition;
 import org.apache.giraph.partition.SimplePartition;
+import org.apache.giraph.types.ops.TypeOpsUtils;
 import org.apache.giraph.worker.DefaultWorkerContext;
 import org.apache.giraph.worker.WorkerContext;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 
@@ -170,6 +181,15 @@ public class GiraphClasses<I extends WritableComparable,
 
     outEdgesClass = (Class<? extends OutEdges<I, E>>)
         VERTEX_EDGES_CLASS.get(conf);
+    if (!VERTEX_EDGES_CLASS.contains(conf) &&
+        USE_PRIMITIVE_OUT_EDGES.get(conf)) {
+      Class<? extends OutEdges> primitiveOutEdgesClass =
+          getPrimitiveOutEdgesClass(giraphTypes);
+      if (primitiveOutEdgesClass != null) {
+        outEdgesClass = (Class<? extends OutEdges<I, E>>)
+            primitiveOutEdgesClass;
+      }
+    }
     inputOutEdgesClass = (Class<? extends OutEdges<I, E>>)
         INPUT_VERTEX_EDGES_CLASS.getWithDefault(conf, outEdgesClass);
 
@@ -200,7 +220,7 @@ public class GiraphClasses<I extends WritableComparable,
     workerContextClass = WORKER_CONTEXT_CLASS.get(conf);
     masterComputeClass =  MASTER_COMPUTE_CLASS.get(conf);
     partitionClass = (Class<? extends Partition<I, V, E>>)
-        PARTITION_CLASS.get(conf);
+        resolvePartitionClass(conf, giraphTypes);
 
     edgeInputFilterClass = (Class<? extends EdgeInputFilter<I, E>>)
         EDGE_INPUT_FILTER_CLASS.get(conf);
@@ -208,6 +228,59 @@ public class GiraphClasses<I extends WritableComparable,
         VERTEX_INPUT_FILTER_CLASS.get(conf);
   }
 
+  /**
+   * Get the {@link Partition} class a job uses: the configured one, or
+   * {@link PrimitiveArrayPartition} when none is configured and the graph
+   * types support it.
+   *
+   * @param conf Configuration
+   * @param types Graph types
+   * @return Partition class
+   */
+  static Class<? extends Partition> resolvePartitionClass(
+      Configuration conf, GiraphTypes types) {
+    if (!PARTITION_CLASS.contains(conf) &&
+        USE_PRIMITIVE_PARTITION.get(conf) &&
+        PrimitiveArrayPartition.isSupported(conf, types)) {
+      return PrimitiveArrayPartition.class;
+    }
+    return PARTITION_CLASS.get(conf);
+  }
+
+  /**
+   * Get the primitive array {@link OutEdges} class matching vertex id and
+   * edge value types, preferring hand-specialized classes over ones driven
+   * by TypeOps.
+   *
+   * @param types Graph types
+   * @return OutEdges class, or null if types are not primitive
+   */
+  private static Class<? extends OutEdges> getPrimitiveOutEdgesClass(
+      GiraphTypes types) {
+    Class<?> idClass = types.getVertexIdClass();
+    Class<?> edgeValueClass = types.getEdgeValueClass();
+    if (idClass == null || edgeValueClass == null ||
+        TypeOpsUtils.getPrimitiveIdTypeOpsOrNull(idClass) == null) {
+      return null;
+    }
+    if (NullWritable.class.equals(edgeValueClass)) {
+      if (LongWritable.class.equals(idClass)) {
+        return LongNullArrayEdges.class;
+      } else if (IntWritable.class.equals(idClass)) {
+        return IntNullArrayEdges.class;
+      }
+      return IdAndNullArrayEdges.class;
+    }
+    if (TypeOpsUtils.getPrimitiveTypeOpsOrNull(edgeValueClass) == null) {
+      return null;
+    }
+    if (LongWritable.class.equals(idClass) &&
+        DoubleWritable.class.equals(edgeValueClass)) {
+      return LongDoubleArrayEdges.class;
+    }
+    return IdAndValueArrayEdges.class;
+  }
+
   public Class<? extends ComputationFactory<I, V, E,
       ? extends Writable, ? extends Writable>> getComputationFactoryClass() {
     return computationFactoryClass;
@@ -20,6 +20,7 @@ package org.apache.giraph.conf;
 
 import org.apache.giraph.aggregators.AggregatorWriter;
 import org.apache.giraph.combiner.MessageCombiner;
+import org.apache.giraph.edge.EdgeValueCombiner;
 import org.apache.giraph.edge.OutEdges;
 import org.apache.giraph.edge.ReuseObjectsOutEdges;
 import org.apache.giraph.factories.ComputationFactory;
@@ -224,11 +225,13 @@ public class GiraphConfiguration extends Configuration
   }
 
   /**
-   * Get Partition class used
+   * Get Partition class used, including one selected automatically from
+   * the graph types
    * @return Partition class
    */
   public Class<? extends Partition> getPartitionClass() {
-    return PARTITION_CLASS.get(this);
+    return GiraphClasses.resolvePartitionClass(this,
+        GiraphTypes.readFrom(this));
   }
 
   /**
@@ -453,6 +456,59 @@ public class GiraphConfiguration extends Configuration
     VERTEX_OUTPUT_FORMAT_THREAD_SAFE.set(this, vertexOutputFormatThreadSafe);
   }
 
+  /**
+   * Check if EdgeOutputFormat is thread-safe
+   *
+   * @return True iff EdgeOutputFormat is thread-safe
+   */
+  public final boolean edgeOutputFormatThreadSafe() {
+    return EDGE_OUTPUT_FORMAT_THREAD_SAFE.get(this);
+  }
+
+  /**
+   * Set whether or not selected EdgeOutputFormat is thread-safe
+   *
+   * @param edgeOutputFormatThreadSafe True iff selected EdgeOutputFormat
+   *                                   is thread-safe
+   */
+  public final void setEdgeOutputFormatThreadSafe(
+      boolean edgeOutputFormatThreadSafe) {
+    EDGE_OUTPUT_FORMAT_THREAD_SAFE.set(this, edgeOutputFormatThreadSafe);
+  }
+
+  /**
+   * Check if vertex output should be written asynchronously
+   *
+   * @return True iff vertex output is written by dedicated writer threads
+   */
+  public final boolean isAsyncVertexOutput() {
+    return ASYNC_VERTEX_OUTPUT.get(this);
+  }
+
+  /**
+   * Set whether or not vertex output should be written asynchronously
+   *
+   * @param asyncVertexOutput True iff vertex output should be written by
+   *                          dedicated writer threads
+   */
+  public final void setAsyncVertexOutput(boolean asyncVertexOutput) {
+    ASYNC_VERTEX_OUTPUT.set(this, asyncVertexOutput);
+  }
+
+  /**
+   * Get the number of writer threads to use with asynchronous vertex output.
+   * If output format is not thread safe, returns 1.
+   *
+   * @return Number of async output writer threads
+   */
+  public final int getNumAsyncVertexOutputThreads() {
+    if (!vertexOutputFormatThreadSafe()) {
+      return 1;
+    } else {
+      return Math.max(1, ASYNC_VERTEX_OUTPUT_THREADS.get(this));
+    }
+  }
+
   /**
    * Does the job have a {@link EdgeOutputFormat}?
    *
@@ -1210,6 +1266,57 @@ public class GiraphConfiguration extends Configuration
     CREATE_EDGE_SOURCE_VERTICES.set(this, createVertex);
   }
 
+  /**
+   * Whether to sort out-edges of vertices when moving them from the edge
+   * store to vertices. Removing duplicates implies sorting.
+   *
+   * @return True iff input edges should be sorted
+   */
+  public boolean sortInputEdges() {
+    return SORT_INPUT_EDGES.get(this) || DEDUP_INPUT_EDGES.get(this);
+  }
+
+  /**
+   * Set whether to sort out-edges of vertices when moving them from the
+   * edge store to vertices
+   *
+   * @param sort True iff input edges should be sorted
+   */
+  public void setSortInputEdges(boolean sort) {
+    SORT_INPUT_EDGES.set(this, sort);
+  }
+
+  /**
+   * Whether to remove duplicate out-edges when moving them from the edge
+   * store to vertices
+   *
+   * @return True iff duplicate input edges should be removed
+   */
+  public boolean dedupInputEdges() {
+    return DEDUP_INPUT_EDGES.get(this);
+  }
+
+  /**
+   * Set whether to remove duplicate out-edges when moving them from the
+   * edge store to vertices
+   *
+   * @param dedup True iff duplicate input edges should be removed
+   */
+  public void setDedupInputEdges(boolean dedup) {
+    DEDUP_INPUT_EDGES.set(this, dedup);
+  }
+
+  /**
+   * Set the edge value combiner class (optional), used to combine values
+   * of duplicate edges
+   *
+   * @param edgeValueCombinerClass Determines how edge values are combined
+   */
+  public final void setEdgeValueCombinerClass(
+      Class<? extends EdgeValueCombiner> edgeValueCombinerClass) {
+    EDGE_VALUE_COMBINER_CLASS.set(this, edgeValueCombinerClass);
+  }
+
   /**
    * Get the maximum timeout (in milliseconds) for waiting for all tasks
    * to complete after the job is done.
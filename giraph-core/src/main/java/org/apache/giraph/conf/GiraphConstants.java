@@ -24,6 +24,8 @@ import org.apache.giraph.comm.messages.InMemoryMessageStoreFactory;
 import org.apache.giraph.comm.messages.MessageEncodeAndStoreType;
 import org.apache.giraph.comm.messages.MessageStoreFactory;
 import org.apache.giraph.edge.ByteArrayEdges;
+import org.apache.giraph.edge.DefaultEdgeValueCombiner;
+import org.apache.giraph.edge.EdgeValueCombiner;
 import org.apache.giraph.edge.EdgeStoreFactory;
 import org.apache.giraph.edge.InMemoryEdgeStoreFactory;
 import org.apache.giraph.edge.OutEdges;
@@ -62,6 +64,7 @@ import org.apache.giraph.job.GiraphJobRetryChecker;
 import org.apache.giraph.job.HaltApplicationUtils;
 import org.apache.giraph.mapping.MappingStore;
 import org.apache.giraph.mapping.MappingStoreOps;
+import org.apache.giraph.mapping.StreamingPartitionAlgorithm;
 import org.apache.giraph.mapping.translate.TranslateEdge;
 import org.apache.giraph.master.DefaultMasterCompute;
 import org.apache.giraph.master.MasterCompute;
@@ -70,6 +73,7 @@ import org.apache.giraph.partition.GraphPartitionerFactory;
 import org.apache.giraph.partition.HashPartitionerFactory;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.SimplePartition;
+import org.apache.giraph.partition.VertexReorderer;
 import org.apache.giraph.worker.DefaultWorkerContext;
 import org.apache.giraph.worker.WorkerContext;
 import org.apache.giraph.worker.WorkerObserver;
@@ -105,6 +109,31 @@ public interface GiraphConstants {
   IntConfOption LB_MAPPINGSTORE_LOWER =
       new IntConfOption("giraph.lbMappingStoreLower", -1,
           "'lower' value used by lbMappingstore");
+  /**
+   * Number of entries each input thread of CompressedLongByteMappingStore
+   * buffers on heap before compressing them off-heap
+   */
+  IntConfOption COMPRESSED_MAPPINGSTORE_RUN_SIZE =
+      new IntConfOption("giraph.compressedMappingStoreRunSize", 1 << 20,
+          "Entries buffered on heap by each input thread of " +
+          "CompressedLongByteMappingStore");
+  /** Scoring function used by streaming partitioning during input */
+  EnumConfOption<StreamingPartitionAlgorithm> STREAMING_PARTITION_ALGORITHM =
+      EnumConfOption.create("giraph.streamingPartition.algorithm",
+          StreamingPartitionAlgorithm.class, StreamingPartitionAlgorithm.LDG,
+          "Scoring function used by streaming partitioning, LDG or FENNEL");
+  /**
+   * How many times more vertices than the average a worker can get from
+   * streaming partitioning
+   */
+  FloatConfOption STREAMING_PARTITION_SLACK =
+      new FloatConfOption("giraph.streamingPartition.slack", 1.1f,
+          "Maximum worker size relative to the average during streaming " +
+          "partitioning");
+  /** Exponent of the worker size cost in Fennel streaming partitioning */
+  FloatConfOption STREAMING_PARTITION_FENNEL_GAMMA =
+      new FloatConfOption("giraph.streamingPartition.fennelGamma", 1.5f,
+          "Exponent of the worker size cost in Fennel streaming partitioning");
   /** Class used to conduct expensive edge translation during vertex input */
   ClassConfOption EDGE_TRANSLATION_CLASS =
       ClassConfOption.create("giraph.edgeTranslationClass", null,
@@ -332,11 +361,51 @@ public interface GiraphConstants {
           "Vertex output format thread-safe - if your VertexOutputFormat " +
           "allows several vertexWriters to be created and written to in " +
           "parallel, you should set this to true.");
+  /**
+   * Edge output format thread-safe - if your EdgeOutputFormat allows
+   * several edgeWriters to be created and written to in parallel,
+   * you should set this to true.
+   */
+  BooleanConfOption EDGE_OUTPUT_FORMAT_THREAD_SAFE =
+      new BooleanConfOption("giraph.edgeOutputFormatThreadSafe", false,
+          "Edge output format thread-safe - if your EdgeOutputFormat " +
+          "allows several edgeWriters to be created and written to in " +
+          "parallel, you should set this to true.");
   /** Number of threads for writing output in the end of the application */
   IntConfOption NUM_OUTPUT_THREADS =
       new IntConfOption("giraph.numOutputThreads", 1,
           "Number of threads for writing output in the end of the application");
 
+  /**
+   * Whether to write vertex output asynchronously. Vertices are serialized
+   * into buffers by compute/save threads and written by dedicated writer
+   * threads, so slow output doesn't stall the computation.
+   */
+  BooleanConfOption ASYNC_VERTEX_OUTPUT =
+      new BooleanConfOption("giraph.asyncVertexOutput", false,
+          "Whether to write vertex output asynchronously - vertices are " +
+          "serialized into buffers and written by dedicated writer threads");
+  /**
+   * Number of writer threads used with asynchronous vertex output. If vertex
+   * output format is not thread-safe, only one writer thread is used.
+   */
+  IntConfOption ASYNC_VERTEX_OUTPUT_THREADS =
+      new IntConfOption("giraph.asyncVertexOutput.numThreads", 1,
+          "Number of writer threads used with asynchronous vertex output " +
+          "(1 if vertex output format is not thread-safe)");
+  /** Size of a single buffer of serialized vertices for async output */
+  IntConfOption ASYNC_VERTEX_OUTPUT_BUFFER_SIZE =
+      new IntConfOption("giraph.asyncVertexOutput.bufferSize", 512 * ONE_KB,
+          "Size of a single buffer of serialized vertices for async output");
+  /**
+   * Maximum number of full buffers waiting to be written. When this limit is
+   * reached, threads producing output block until writers catch up.
+   */
+  IntConfOption ASYNC_VERTEX_OUTPUT_MAX_BUFFERS =
+      new IntConfOption("giraph.asyncVertexOutput.maxQueuedBuffers", 32,
+          "Maximum number of full buffers waiting to be written, " +
+          "producers block when this limit is reached");
+
   /** conf key for comma-separated list of jars to export to YARN workers */
   StrConfOption GIRAPH_YARN_LIBJARS =
     new StrConfOption("giraph.yarn.libjars", "",
@@ -393,6 +462,57 @@ public interface GiraphConstants {
       ClassConfOption.create("giraph.partitionClass", SimplePartition.class,
           Partition.class, "Partition class - optional");
 
+  /**
+   * Whether to use PrimitiveArrayPartition when no partition class is set
+   * and the vertex id and value types have primitive type ops
+   */
+  BooleanConfOption USE_PRIMITIVE_PARTITION =
+      new BooleanConfOption("giraph.usePrimitivePartition", true,
+          "Whether to store vertices in PrimitiveArrayPartition when no " +
+          "partition class is set and vertex ids and values are " +
+          "primitive writables");
+
+  /**
+   * Size of a block of serialized vertices in CompressedBlockPartition,
+   * before compression
+   */
+  IntConfOption COMPRESSED_PARTITION_BLOCK_SIZE =
+      new IntConfOption("giraph.compressedPartition.blockSize", 64 * ONE_KB,
+          "Size of a block of serialized vertices in " +
+          "CompressedBlockPartition, before compression");
+
+  /** Deflate level used by CompressedBlockPartition */
+  IntConfOption COMPRESSED_PARTITION_LEVEL =
+      new IntConfOption("giraph.compressedPartition.level", 1,
+          "Deflate level (1 is fastest, 9 is smallest) used to compress " +
+          "blocks of vertices in CompressedBlockPartition");
+
+  /**
+   * Whether to use message stores with unboxed messages when both vertex
+   * ids and messages are primitive writables
+   */
+  BooleanConfOption USE_PRIMITIVE_MESSAGE_STORES =
+      new BooleanConfOption("giraph.usePrimitiveMessageStores", true,
+          "Whether to keep messages unboxed in the in-memory message stores " +
+          "when vertex ids and messages are primitive writables");
+
+  /**
+   * Whether to use primitive array edges when no out-edges class is set and
+   * vertex ids and edge values are primitive writables
+   */
+  BooleanConfOption USE_PRIMITIVE_OUT_EDGES =
+      new BooleanConfOption("giraph.usePrimitiveOutEdges", true,
+          "Whether to store edges in primitive arrays when no out-edges " +
+          "class is set and vertex ids and edge values are primitive " +
+          "writables");
+
+  /** Vertex reorderer class - optional */
+  ClassConfOption<VertexReorderer> VERTEX_REORDERER_CLASS =
+      ClassConfOption.create("giraph.vertexReordererClass", null,
+          VertexReorderer.class, "Reorders the vertices of each partition " +
+          "after input so that neighbors are computed close together, " +
+          "e.g. BfsVertexReorderer or DegreeVertexReorderer - optional");
+
   /**
    * Minimum number of simultaneous workers before this job can run (int)
    */
@@ -484,6 +604,71 @@ public interface GiraphConstants {
       new StrConfOption("giraph.metrics.directory", "",
           "Directory in HDFS to write master metrics to, instead of stderr");
 
+  /**
+   * Directory in HDFS to write the performance timeline to. Every task
+   * writes its spans there as Chrome trace events, and the master merges
+   * them into a single job trace at the end. Disabled when empty.
+   */
+  StrConfOption TIMELINE_DIRECTORY =
+      new StrConfOption("giraph.timeline.directory", "",
+          "Directory in HDFS to write the Chrome trace timeline of the " +
+          "job to, disabled if empty");
+
+  /**
+   * Number of vertices (by compute time, messages sent, messages received
+   * and edges) and partitions (by compute time) to report as the most
+   * skewed each superstep. Disabled when 0.
+   */
+  IntConfOption SKEW_TOP_K =
+      new IntConfOption("giraph.skew.topK", 0,
+          "Number of most expensive vertices and partitions to report " +
+          "each superstep, 0 to disable");
+
+  /**
+   * Measure compute time, and count received messages, of every this many
+   * vertices for skew reports
+   */
+  IntConfOption SKEW_TIMING_SAMPLE_INTERVAL =
+      new IntConfOption("giraph.skew.timingSampleInterval", 64,
+          "Measure compute time and count received messages of every this " +
+          "many vertices for skew reports, messages sent and edges are " +
+          "always exact");
+
+  /**
+   * Whether the master should serve a live HTTP/JSON dashboard of the job.
+   * Workers then publish their progress, memory, network and out-of-core
+   * status to ZooKeeper periodically, independent of superstep boundaries.
+   */
+  BooleanConfOption DASHBOARD_ENABLE =
+      new BooleanConfOption("giraph.dashboard.enable", false,
+          "Serve a live HTTP/JSON job dashboard from the master");
+
+  /** Port of the master dashboard */
+  IntConfOption DASHBOARD_PORT =
+      new IntConfOption("giraph.dashboard.port", 0,
+          "Port of the master dashboard, 0 to pick any free port");
+
+  /** How often workers publish their status for the dashboard */
+  IntConfOption DASHBOARD_UPDATE_MSECS =
+      new IntConfOption("giraph.dashboard.updateMsecs", 5000,
+          "Milliseconds between worker status updates for the dashboard");
+
+  /**
+   * Whether workers estimate the memory retained by partitions, messages,
+   * edges, send caches and in-flight requests. Estimating messages
+   * serializes all of them once per superstep.
+   */
+  BooleanConfOption MEMORY_ACCOUNTING_ENABLE =
+      new BooleanConfOption("giraph.memoryAccounting.enable", false,
+          "Estimate memory retained by each worker subsystem every " +
+          "superstep, costs one serialization of all messages");
+
+  /** Fraction of the heap after which memory accounting warns */
+  FloatConfOption MEMORY_WARNING_FRACTION =
+      new FloatConfOption("giraph.memoryAccounting.warningFraction", 0.9f,
+          "Log estimated memory retained by each worker subsystem when " +
+          "more than this fraction of the heap is used");
+
   /**
    *  ZooKeeper comma-separated list (if not set,
    *  will start up ZooKeeper locally). Consider that after locally-starting
@@ -739,10 +924,31 @@ public interface GiraphConstants {
           "Additional size (expressed as a ratio) of each per-partition " +
           "buffer on top of the average size.");
 
-  /** Maximum number of mutations per partition before flush */
+  /**
+   * Maximum number of mutations per partition before flush
+   *
+   * @deprecated Mutations are flushed by size, see
+   *             {@link #MAX_MUTATIONS_REQUEST_SIZE}
+   */
+  @Deprecated
   IntConfOption MAX_MUTATIONS_PER_REQUEST =
       new IntConfOption("giraph.maxMutationsPerRequest", 100,
-          "Maximum number of mutations per partition before flush");
+          "Ignored, mutations are flushed by size, see " +
+          "giraph.mutationsRequestSize");
+
+  /** Maximum size of mutations (in bytes) per peer before flush */
+  IntConfOption MAX_MUTATIONS_REQUEST_SIZE =
+      new IntConfOption("giraph.mutationsRequestSize", 512 * ONE_KB,
+          "Maximum size of mutations (in bytes) per peer before flush");
+
+  /**
+   * Additional size (expressed as a ratio) of each per-partition buffer on
+   * top of the average size for mutations.
+   */
+  FloatConfOption ADDITIONAL_MUTATIONS_REQUEST_SIZE =
+      new FloatConfOption("giraph.additionalMutationsRequestSize", 0.2f,
+          "Additional size (expressed as a ratio) of each per-partition " +
+          "buffer on top of the average size.");
 
   /**
    * Use message size encoding (typically better for complex objects,
@@ -844,6 +1050,51 @@ public interface GiraphConstants {
       new IntConfOption("giraph.userPartitionCount", -1,
           "Overrides default partition count calculation if not -1");
 
+  /**
+   * Estimated milliseconds of work per message received by a partition,
+   * on top of measured compute time, for the "load" partition balance
+   * algorithm
+   */
+  FloatConfOption LOAD_BALANCE_MS_PER_MESSAGE =
+      new FloatConfOption("giraph.loadBalance.msPerMessage", 0.0001f,
+          "Estimated milliseconds per message received by a partition, " +
+          "used by the load partition balance algorithm");
+
+  /**
+   * Estimated milliseconds of work per message byte sent by a partition,
+   * on top of measured compute time, for the "load" partition balance
+   * algorithm
+   */
+  FloatConfOption LOAD_BALANCE_MS_PER_SENT_BYTE =
+      new FloatConfOption("giraph.loadBalance.msPerSentByte", 0.00001f,
+          "Estimated milliseconds per message byte sent by a partition, " +
+          "used by the load partition balance algorithm");
+
+  /** Estimated bytes per vertex when migrating a partition */
+  IntConfOption LOAD_BALANCE_BYTES_PER_VERTEX =
+      new IntConfOption("giraph.loadBalance.bytesPerVertex", 64,
+          "Estimated bytes to transfer per vertex when migrating a partition");
+
+  /** Estimated bytes per edge when migrating a partition */
+  IntConfOption LOAD_BALANCE_BYTES_PER_EDGE =
+      new IntConfOption("giraph.loadBalance.bytesPerEdge", 16,
+          "Estimated bytes to transfer per edge when migrating a partition");
+
+  /** Estimated partition migration throughput, in bytes per millisecond */
+  FloatConfOption LOAD_BALANCE_MIGRATION_BYTES_PER_MS =
+      new FloatConfOption("giraph.loadBalance.migrationBytesPerMs", 50000f,
+          "Estimated partition migration throughput in bytes per " +
+          "millisecond, used to compute the cost of moving a partition");
+
+  /**
+   * Number of future supersteps over which the speedup of moving a
+   * partition is expected to pay off
+   */
+  IntConfOption LOAD_BALANCE_PAYBACK_SUPERSTEPS =
+      new IntConfOption("giraph.loadBalance.paybackSupersteps", 1,
+          "Partition is moved only if predicted superstep speedup times " +
+          "this number of supersteps exceeds the migration time");
+
   /** Vertex key space size for
    * {@link org.apache.giraph.partition.SimpleWorkerPartitioner}
    */
@@ -1080,6 +1331,32 @@ public interface GiraphConstants {
           "Create a source vertex if present in edge input but not " +
           "necessarily in vertex input");
 
+  /**
+   * Sort out-edges of every vertex by target id when moving them from the
+   * edge store to vertices. Use an OutEdges class which keeps insertion
+   * order (e.g. LongNullArrayEdges) for vertices to have sorted adjacency.
+   */
+  BooleanConfOption SORT_INPUT_EDGES =
+      new BooleanConfOption("giraph.sortInputEdges", false,
+          "Sort out-edges of every vertex by target id when moving them " +
+          "from the edge store to vertices");
+
+  /**
+   * Remove duplicate out-edges (same target id) when moving them from the
+   * edge store to vertices, implies sorting.
+   */
+  BooleanConfOption DEDUP_INPUT_EDGES =
+      new BooleanConfOption("giraph.dedupInputEdges", false,
+          "Remove duplicate out-edges when moving them from the edge store " +
+          "to vertices, values are combined with edge value combiner");
+
+  /** Edge value combiner class - optional */
+  ClassConfOption<EdgeValueCombiner> EDGE_VALUE_COMBINER_CLASS =
+      ClassConfOption.create("giraph.edgeValueCombinerClass",
+          DefaultEdgeValueCombiner.class, EdgeValueCombiner.class,
+          "Combines values of duplicate edges removed because of " +
+          "giraph.dedupInputEdges - optional");
+
   /**
    * This counter group will contain one counter whose name is the ZooKeeper
    * server:port which this job is using
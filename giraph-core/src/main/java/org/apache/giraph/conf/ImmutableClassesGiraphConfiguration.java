@@ -30,6 +30,7 @@ import org.apache.giraph.combiner.MessageCombiner;
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
 import org.apache.giraph.edge.EdgeStoreFactory;
+import org.apache.giraph.edge.EdgeValueCombiner;
 import org.apache.giraph.edge.OutEdges;
 import org.apache.giraph.edge.ReusableEdge;
 import org.apache.giraph.factories.ComputationFactory;
@@ -55,6 +56,7 @@ import org.apache.giraph.io.internal.WrappedEdgeOutputFormat;
 import org.apache.giraph.io.internal.WrappedMappingInputFormat;
 import org.apache.giraph.io.internal.WrappedVertexInputFormat;
 import org.apache.giraph.io.internal.WrappedVertexOutputFormat;
+import org.apache.giraph.io.superstep_output.AsyncSuperstepOutput;
 import org.apache.giraph.io.superstep_output.MultiThreadedSuperstepOutput;
 import org.apache.giraph.io.superstep_output.NoOpSuperstepOutput;
 import org.apache.giraph.io.superstep_output.SuperstepOutput;
@@ -69,6 +71,7 @@ import org.apache.giraph.master.MasterObserver;
 import org.apache.giraph.master.SuperstepClasses;
 import org.apache.giraph.partition.GraphPartitionerFactory;
 import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.VertexReorderer;
 import org.apache.giraph.utils.ExtendedByteArrayDataInput;
 import org.apache.giraph.utils.ExtendedByteArrayDataOutput;
 import org.apache.giraph.utils.ExtendedDataInput;
@@ -440,7 +443,9 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
   public SuperstepOutput<I, V, E> createSuperstepOutput(
       Mapper<?, ?, ?, ?>.Context context) {
     if (doOutputDuringComputation()) {
-      if (vertexOutputFormatThreadSafe()) {
+      if (isAsyncVertexOutput()) {
+        return new AsyncSuperstepOutput<I, V, E>(this, context);
+      } else if (vertexOutputFormatThreadSafe()) {
         return new MultiThreadedSuperstepOutput<I, V, E>(this, context);
       } else {
         return new SynchronizedSuperstepOutput<I, V, E>(this, context);
@@ -875,6 +880,17 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
     }
   }
 
+  /**
+   * Create edge value combiner, used to combine values of duplicate edges
+   *
+   * @return Instantiated edge value combiner
+   */
+  @SuppressWarnings("unchecked")
+  public EdgeValueCombiner<E> createEdgeValueCombiner() {
+    return ReflectionUtils.newInstance(EDGE_VALUE_COMBINER_CLASS.get(this),
+        this);
+  }
+
   /**
    * Create edge store factory
    *
@@ -941,6 +957,11 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
     return classes.getOutEdgesClass();
   }
 
+  @Override
+  public Class<? extends Partition<I, V, E>> getPartitionClass() {
+    return classes.getPartitionClass();
+  }
+
   /**
    * Get the user's subclassed {@link org.apache.giraph.edge.OutEdges} used for
    * input
@@ -1115,6 +1136,19 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
     return partition;
   }
 
+  /**
+   * Create the vertex reorderer, if one is set
+   *
+   * @return Vertex reorderer, null if vertices shouldn't be reordered
+   */
+  public VertexReorderer<I, V, E> createVertexReorderer() {
+    Class<? extends VertexReorderer> klass = VERTEX_REORDERER_CLASS.get(this);
+    if (klass == null) {
+      return null;
+    }
+    return (VertexReorderer<I, V, E>) ReflectionUtils.newInstance(klass, this);
+  }
+
   /**
    * Use unsafe serialization?
    *
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.counters;
+
+import org.apache.giraph.metrics.CriticalPath;
+import org.apache.giraph.metrics.SuperstepPhases.Phase;
+import org.apache.hadoop.mapreduce.Mapper.Context;
+
+import com.google.common.collect.Maps;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Hadoop Counters in group "Giraph Critical Path" with how long barriers
+ * were held up by each {@link Phase}, summed over all supersteps. Counters
+ * are only created for phases which held up a barrier.
+ */
+public class GiraphCriticalPath extends HadoopCountersBase {
+  /** Counter group name for the critical path */
+  public static final String GROUP_NAME = "Giraph Critical Path";
+
+  /** Counter of each phase, created when first needed */
+  private final Map<Phase, GiraphHadoopCounter> heldUpMs =
+      Maps.newEnumMap(Phase.class);
+
+  /**
+   * Create using Hadoop Context
+   *
+   * @param context Hadoop Context to use.
+   */
+  public GiraphCriticalPath(Context context) {
+    super(context, GROUP_NAME);
+  }
+
+  /**
+   * Get counter for msecs barriers were held up by a phase
+   *
+   * @param phase Phase
+   * @return Counter of msecs
+   */
+  public GiraphHadoopCounter getHeldUpMs(Phase phase) {
+    GiraphHadoopCounter counter = heldUpMs.get(phase);
+    if (counter == null) {
+      counter = getCounter("Held up by " + phase.getDisplayName() + " (ms)");
+      heldUpMs.put(phase, counter);
+    }
+    return counter;
+  }
+
+  /**
+   * Add the critical path of a superstep
+   *
+   * @param criticalPath Critical path
+   */
+  public void add(CriticalPath criticalPath) {
+    if (criticalPath.getHeldUpMsecs() > 0) {
+      getHeldUpMs(criticalPath.getPhase()).increment(
+          criticalPath.getHeldUpMsecs());
+    }
+  }
+
+  @Override
+  public Iterator<GiraphHadoopCounter> iterator() {
+    return heldUpMs.values().iterator();
+  }
+}
@@ -19,11 +19,14 @@
 package org.apache.giraph.edge;
 
 import com.google.common.collect.MapMaker;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.conf.DefaultImmutableClassesGiraphConfigurable;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.SequentialAccessPartition;
 import org.apache.giraph.utils.CallableFactory;
 import org.apache.giraph.utils.ProgressableUtils;
 import org.apache.giraph.utils.VertexIdEdgeIterator;
@@ -33,6 +36,8 @@ import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.util.Progressable;
 import org.apache.log4j.Logger;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -74,6 +79,10 @@ public abstract class AbstractEdgeStore<I extends WritableComparable,
    * from the one used during computation.
    */
   protected boolean useInputOutEdges;
+  /**
+   * Whether to sort out-edges of vertices when moving them to vertices.
+   */
+  protected boolean sortInputEdges;
 
   /**
    * Constructor.
@@ -93,6 +102,7 @@ public abstract class AbstractEdgeStore<I extends WritableComparable,
       configuration.getNettyServerExecutionConcurrency()).makeMap();
     reuseEdgeObjects = configuration.reuseEdgeObjects();
     useInputOutEdges = configuration.useInputOutEdges();
+    sortInputEdges = configuration.sortInputEdges();
   }
 
   /**
@@ -148,6 +158,16 @@ public abstract class AbstractEdgeStore<I extends WritableComparable,
     VertexIdEdgeIterator<I, E> vertexIdEdgeIterator,
     Map<K, OutEdges<I, E>> partitionEdgesIn);
 
+  /**
+   * Remove the edges waiting to be moved to a vertex
+   *
+   * @param partitionEdges map of out-edges for vertices in a partition
+   * @param vertexId Vertex id
+   * @return Out-edges of the vertex, null if it has none
+   */
+  protected abstract OutEdges<I, E> removeVertexEdges(
+    Map<K, OutEdges<I, E>> partitionEdges, I vertexId);
+
   @Override
   public void addPartitionEdges(
     int partitionId, VertexIdEdges<I, E> edges) {
@@ -184,6 +204,73 @@ public abstract class AbstractEdgeStore<I extends WritableComparable,
     }
   }
 
+  /**
+   * Estimate the serialized size of the edges waiting to be moved to their
+   * vertices, by serializing the out-edges of a sample of vertices in every
+   * partition.
+   *
+   * @param sampleSize Number of vertices to serialize per partition
+   * @return Estimated size in bytes
+   * @throws IOException
+   */
+  public long estimateTransientEdgesBytes(int sampleSize) throws IOException {
+    CountingOutputStream counter =
+        new CountingOutputStream(ByteStreams.nullOutputStream());
+    DataOutputStream out = new DataOutputStream(counter);
+    long bytes = 0;
+    for (Map<K, OutEdges<I, E>> partitionEdges : transientEdges.values()) {
+      long partitionStart = counter.getCount();
+      int sampled = 0;
+      for (OutEdges<I, E> edges : partitionEdges.values()) {
+        if (sampled == sampleSize) {
+          break;
+        }
+        edges.write(out);
+        ++sampled;
+      }
+      out.flush();
+      if (sampled > 0) {
+        bytes += (counter.getCount() - partitionStart) *
+            partitionEdges.size() / sampled;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Add incoming edges to a vertex which is in the partition, and save it.
+   *
+   * @param partition Partition of the vertex
+   * @param vertex Vertex
+   * @param edges Incoming edges of the vertex
+   * @param edgeSorter Sorter if edges are sorted, null otherwise
+   */
+  private void addEdgesToVertex(Partition<I, V, E> partition,
+    Vertex<I, V, E> vertex, OutEdges<I, E> edges,
+    EdgeSorter<I, E> edgeSorter) {
+    OutEdges<I, E> outEdges;
+    if (edgeSorter == null) {
+      outEdges = convertInputToComputeEdges(edges);
+    } else {
+      // Existing edges of the vertex are sorted together with the new ones
+      edgeSorter.addEdges(vertex.getEdges());
+      edgeSorter.addEdges(edges);
+      outEdges = edgeSorter.createSortedOutEdges();
+    }
+    // A vertex may exist with or without edges initially
+    // and optimize the case of no initial edges
+    if (vertex.getNumEdges() == 0 || edgeSorter != null) {
+      vertex.setEdges(outEdges);
+    } else {
+      for (Edge<I, E> edge : outEdges) {
+        vertex.addEdge(edge);
+      }
+    }
+    // Some Partition implementations (e.g. ByteArrayPartition)
+    // require us to put back the vertex after modifying it.
+    partition.saveVertex(vertex);
+  }
+
   @Override
   public void moveEdgesToVertices() {
     final boolean createSourceVertex = configuration.getCreateSourceVertex();
@@ -195,7 +282,9 @@ public abstract class AbstractEdgeStore<I extends WritableComparable,
     }
 
     if (LOG.isInfoEnabled()) {
-      LOG.info("moveEdgesToVertices: Moving incoming edges to vertices.");
+      LOG.info("moveEdgesToVertices: Moving incoming edges to vertices." +
+          (sortInputEdges ? " Sorting edges, dedup=" +
+              configuration.dedupInputEdges() : ""));
     }
 
     final BlockingQueue<Integer> partitionIdQueue =
@@ -211,24 +300,44 @@ public abstract class AbstractEdgeStore<I extends WritableComparable,
           public Void call() throws Exception {
             Integer partitionId;
             I representativeVertexId = configuration.createVertexId();
+            EdgeSorter<I, E> edgeSorter = sortInputEdges ?
+                new EdgeSorter<I, E>(configuration,
+                    configuration.dedupInputEdges()) : null;
             while ((partitionId = partitionIdQueue.poll()) != null) {
               Partition<I, V, E> partition =
                   service.getPartitionStore().getOrCreatePartition(partitionId);
               Map<K, OutEdges<I, E>> partitionEdges =
                   transientEdges.remove(partitionId);
+              if (partition instanceof SequentialAccessPartition) {
+                // Looking up vertices one by one would be slow, go over the
+                // partition instead
+                for (Vertex<I, V, E> vertex : partition) {
+                  OutEdges<I, E> edges =
+                      removeVertexEdges(partitionEdges, vertex.getId());
+                  if (edges != null) {
+                    addEdgesToVertex(partition, vertex, edges, edgeSorter);
+                  }
+                }
+              }
               Iterator<Et> iterator =
                   getPartitionEdgesIterator(partitionEdges);
               // process all vertices in given partition
               while (iterator.hasNext()) {
                 Et entry = iterator.next();
                 I vertexId = getVertexId(entry, representativeVertexId);
-                OutEdges<I, E> outEdges = convertInputToComputeEdges(
-                  getPartitionEdges(entry));
                 Vertex<I, V, E> vertex = partition.getVertex(vertexId);
                 // If the source vertex doesn't exist, create it. Otherwise,
-                // just set the edges.
+                // just add the edges.
                 if (vertex == null) {
                   if (createSourceVertex) {
+                    OutEdges<I, E> outEdges;
+                    if (edgeSorter == null) {
+                      outEdges = convertInputToComputeEdges(
+                          getPartitionEdges(entry));
+                    } else {
+                      edgeSorter.addEdges(getPartitionEdges(entry));
+                      outEdges = edgeSorter.createSortedOutEdges();
+                    }
                     // createVertex only if it is allowed by configuration
                     vertex = configuration.createVertex();
                     vertex.initialize(createVertexId(entry),
@@ -236,18 +345,8 @@ public abstract class AbstractEdgeStore<I extends WritableComparable,
                     partition.putVertex(vertex);
                   }
                 } else {
-                  // A vertex may exist with or without edges initially
-                  // and optimize the case of no initial edges
-                  if (vertex.getNumEdges() == 0) {
-                    vertex.setEdges(outEdges);
-                  } else {
-                    for (Edge<I, E> edge : outEdges) {
-                      vertex.addEdge(edge);
-                    }
-                  }
-                  // Some Partition implementations (e.g. ByteArrayPartition)
-                  // require us to put back the vertex after modifying it.
-                  partition.saveVertex(vertex);
+                  addEdgesToVertex(partition, vertex,
+                      getPartitionEdges(entry), edgeSorter);
                 }
                 iterator.remove();
               }
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * The default edge value combining approach is to simply keep the value of
+ * the first edge in target id order.
+ *
+ * @param <E> Edge value
+ */
+public class DefaultEdgeValueCombiner<E extends Writable>
+    implements EdgeValueCombiner<E> {
+  @Override
+  public void combine(E originalEdgeValue, E edgeValue) {
+    // Keep the original value, do nothing
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.types.ops.TypeOps;
+import org.apache.giraph.types.ops.TypeOpsUtils;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorts out-edges of a vertex by target vertex id, and optionally removes
+ * duplicate edges, combining their values with {@link EdgeValueCombiner}.
+ * Sorted edges are added in order to a new compute {@link OutEdges}, so
+ * with array-based edges (e.g. {@link LongNullArrayEdges} or
+ * {@link LongDoubleArrayEdges}) vertices end up with sorted adjacency.
+ *
+ * Edges are copied into a pool of edge objects which is reused across
+ * vertices when the compute {@link OutEdges} copies edges it is given.
+ * Ids and values with {@link TypeOps} (e.g. primitive writables) are copied
+ * with {@link TypeOps#set(Object, Object)}, other types are serialized once
+ * per batch of added edges.
+ * Not thread-safe, every thread should have its own instance.
+ *
+ * @param <I> Vertex id
+ * @param <E> Edge value
+ */
+public class EdgeSorter<I extends WritableComparable, E extends Writable> {
+  /** Orders edges by target vertex id */
+  @SuppressWarnings("unchecked")
+  private final Comparator<Edge<I, E>> targetIdComparator =
+      new Comparator<Edge<I, E>>() {
+        @Override
+        public int compare(Edge<I, E> e1, Edge<I, E> e2) {
+          return e1.getTargetVertexId().compareTo(e2.getTargetVertexId());
+        }
+      };
+  /** Configuration */
+  private final ImmutableClassesGiraphConfiguration<I, ?, E> conf;
+  /** Whether to remove duplicate edges */
+  private final boolean dedupEdges;
+  /** Combines values of duplicate edges */
+  private final EdgeValueCombiner<E> edgeValueCombiner;
+  /** Whether edge objects can be reused after adding them to OutEdges */
+  private final boolean reuseEdgeObjects;
+  /** Copies of edges added so far, and spare edges from previous vertices */
+  private final List<ReusableEdge<I, E>> edges = Lists.newArrayList();
+  /** Number of edges added for current vertex */
+  private int numEdges;
+  /** TypeOps for vertex ids, null if ids have to be serialized */
+  private final TypeOps<I> idTypeOps;
+  /**
+   * TypeOps for edge values, null if values have to be serialized or if
+   * they are NullWritables
+   */
+  private final TypeOps<E> valueTypeOps;
+  /** Whether edges can be copied without serializing them */
+  private final boolean copyWithTypeOps;
+  /**
+   * Buffer used to copy edges which can't be copied with TypeOps, since
+   * iterables may reuse edge objects
+   */
+  private final ExtendedDataOutput copyBuffer;
+
+  /**
+   * Constructor
+   *
+   * @param conf Configuration
+   * @param dedupEdges Whether to remove duplicate edges
+   */
+  public EdgeSorter(ImmutableClassesGiraphConfiguration<I, ?, E> conf,
+      boolean dedupEdges) {
+    this.conf = conf;
+    this.dedupEdges = dedupEdges;
+    edgeValueCombiner = conf.createEdgeValueCombiner();
+    reuseEdgeObjects = conf.reuseEdgeObjects();
+    idTypeOps = TypeOpsUtils.getTypeOpsOrNull(conf.getVertexIdClass());
+    valueTypeOps = TypeOpsUtils.getTypeOpsOrNull(conf.getEdgeValueClass());
+    copyWithTypeOps = idTypeOps != null &&
+        (valueTypeOps != null || conf.isEdgeValueNullWritable());
+    copyBuffer = copyWithTypeOps ? null : conf.createExtendedDataOutput();
+  }
+
+  /**
+   * Add edges of the current vertex
+   *
+   * @param edgesToAdd Edges to add
+   */
+  public void addEdges(Iterable<Edge<I, E>> edgesToAdd) {
+    if (copyWithTypeOps) {
+      for (Edge<I, E> edge : edgesToAdd) {
+        ReusableEdge<I, E> copy = nextEdge();
+        idTypeOps.set(copy.getTargetVertexId(), edge.getTargetVertexId());
+        if (valueTypeOps != null) {
+          valueTypeOps.set(copy.getValue(), edge.getValue());
+        }
+        ++numEdges;
+      }
+      return;
+    }
+    try {
+      // Serialize the whole batch, and read it back with a single input
+      copyBuffer.reset();
+      int numEdgesToAdd = 0;
+      for (Edge<I, E> edge : edgesToAdd) {
+        WritableUtils.writeEdge(copyBuffer, edge);
+        ++numEdgesToAdd;
+      }
+      ExtendedDataInput input = conf.createExtendedDataInput(
+          copyBuffer.getByteArray(), 0, copyBuffer.getPos());
+      for (int i = 0; i < numEdgesToAdd; ++i) {
+        WritableUtils.readEdge(input, nextEdge());
+        ++numEdges;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("addEdges: IOException", e);
+    }
+  }
+
+  /**
+   * Get edge object from the pool to copy the next added edge into
+   *
+   * @return Edge at position numEdges in the pool
+   */
+  private ReusableEdge<I, E> nextEdge() {
+    if (numEdges == edges.size()) {
+      edges.add(conf.createReusableEdge());
+    }
+    return edges.get(numEdges);
+  }
+
+  /**
+   * Sort all edges added for the current vertex and move them to a new
+   * compute {@link OutEdges}. Afterwards the sorter is ready for the next
+   * vertex.
+   *
+   * @return Sorted (and deduplicated) out-edges
+   */
+  public OutEdges<I, E> createSortedOutEdges() {
+    List<ReusableEdge<I, E>> vertexEdges = edges.subList(0, numEdges);
+    Collections.sort(vertexEdges, targetIdComparator);
+    int numUniqueEdges = numEdges;
+    if (dedupEdges) {
+      numUniqueEdges = 0;
+      for (int i = 0; i < numEdges; ++i) {
+        ReusableEdge<I, E> edge = vertexEdges.get(i);
+        if (numUniqueEdges > 0) {
+          Edge<I, E> lastUnique = vertexEdges.get(numUniqueEdges - 1);
+          if (lastUnique.getTargetVertexId().equals(
+              edge.getTargetVertexId())) {
+            edgeValueCombiner.combine(lastUnique.getValue(), edge.getValue());
+            continue;
+          }
+        }
+        // Swap, so that duplicates remain in the pool
+        vertexEdges.set(i, vertexEdges.get(numUniqueEdges));
+        vertexEdges.set(numUniqueEdges, edge);
+        ++numUniqueEdges;
+      }
+    }
+    OutEdges<I, E> outEdges = conf.createAndInitializeOutEdges(numUniqueEdges);
+    for (int i = 0; i < numUniqueEdges; ++i) {
+      outEdges.add(vertexEdges.get(i));
+      if (!reuseEdgeObjects) {
+        // OutEdges keeps the edge object, so it can't be reused
+        vertexEdges.set(i, conf.createReusableEdge());
+      }
+    }
+    numEdges = 0;
+    return outEdges;
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * When duplicate edges (same source and target) are removed while moving
+ * edges from the edge store to vertices, this class specifies how to
+ * combine their edge values.
+ *
+ * @param <E> Edge value
+ */
+public interface EdgeValueCombiner<E extends Writable> {
+  /**
+   * Combine an edge value with the value of the original edge
+   * by modifying originalEdgeValue.
+   *
+   * @param originalEdgeValue Combine the other edge value into this one
+   * @param edgeValue Combine into the originalEdgeValue
+   */
+  void combine(E originalEdgeValue, E edgeValue);
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfigurable;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.types.ops.PrimitiveIdTypeOps;
+import org.apache.giraph.types.ops.PrimitiveTypeOps;
+import org.apache.giraph.types.ops.TypeOpsUtils;
+import org.apache.giraph.types.ops.collections.Basic2PrimitiveMap;
+import org.apache.giraph.utils.EdgeIterables;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * Implementation of {@link OutEdges} with IDs and Edge values having their
+ * TypeOps.
+ * Data is backed by a {@link Basic2PrimitiveMap}. Parallel edges are not
+ * allowed.
+ * Note: this implementation is optimized for fast random access and
+ * mutations, and uses less space than a generic {@link HashMapEdges} (but
+ * more than {@link IdAndValueArrayEdges}).
+ *
+ * @param <I> Vertex id type
+ * @param <E> Edge value type
+ */
+public class IdAndValueHashMapEdges<I extends WritableComparable,
+    E extends Writable> implements StrictRandomAccessOutEdges<I, E>,
+    ReuseObjectsOutEdges<I, E>, MutableOutEdges<I, E>,
+    ImmutableClassesGiraphConfigurable<I, Writable, E> {
+  /** Map from target vertex id to edge value. */
+  private Basic2PrimitiveMap<I, E> edgeMap;
+  /** Representative edge value object, used by getEdgeValue(). */
+  private E representativeEdgeValue;
+
+  @Override
+  public ImmutableClassesGiraphConfiguration<I, Writable, E> getConf() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setConf(
+      ImmutableClassesGiraphConfiguration<I, Writable, E> conf) {
+    PrimitiveIdTypeOps<I> idTypeOps =
+        TypeOpsUtils.getPrimitiveIdTypeOps(conf.getVertexIdClass());
+    PrimitiveTypeOps<E> edgeTypeOps =
+        TypeOpsUtils.getPrimitiveTypeOps(conf.getEdgeValueClass());
+    edgeMap = idTypeOps.create2PrimitiveOpenHashMap(edgeTypeOps, 10);
+  }
+
+  @Override
+  public void initialize(Iterable<Edge<I, E>> edges) {
+    EdgeIterables.initialize(this, edges);
+  }
+
+  @Override
+  public void initialize(int capacity) {
+    edgeMap = edgeMap.getKeyTypeOps().create2PrimitiveOpenHashMap(
+        edgeMap.getValueTypeOps(), capacity);
+  }
+
+  @Override
+  public void initialize() {
+    edgeMap.clear();
+  }
+
+  @Override
+  public void add(Edge<I, E> edge) {
+    edgeMap.put(edge.getTargetVertexId(), edge.getValue());
+  }
+
+  @Override
+  public void remove(I targetVertexId) {
+    edgeMap.remove(targetVertexId);
+  }
+
+  @Override
+  public E getEdgeValue(I targetVertexId) {
+    if (representativeEdgeValue == null) {
+      representativeEdgeValue = edgeMap.getValueTypeOps().create();
+    }
+    if (!edgeMap.getInto(targetVertexId, representativeEdgeValue)) {
+      return null;
+    }
+    return representativeEdgeValue;
+  }
+
+  @Override
+  public void setEdgeValue(I targetVertexId, E edgeValue) {
+    if (edgeMap.containsKey(targetVertexId)) {
+      edgeMap.put(targetVertexId, edgeValue);
+    }
+  }
+
+  @Override
+  public int size() {
+    return edgeMap.size();
+  }
+
+  @Override
+  public Iterator<Edge<I, E>> iterator() {
+    // Returns an iterator that reuses objects.
+    return new UnmodifiableIterator<Edge<I, E>>() {
+      /** Position of the next edge in the map. */
+      private int index;
+      /** Representative edge object. */
+      private final Edge<I, E> representativeEdge = EdgeFactory.create(
+          edgeMap.getKeyTypeOps().create(),
+          edgeMap.getValueTypeOps().create());
+
+      @Override
+      public boolean hasNext() {
+        return index < edgeMap.size();
+      }
+
+      @Override
+      public Edge<I, E> next() {
+        edgeMap.getKeyInto(index, representativeEdge.getTargetVertexId());
+        edgeMap.getValueInto(index, representativeEdge.getValue());
+        index++;
+        return representativeEdge;
+      }
+    };
+  }
+
+  /** Helper class for a mutable edge that modifies the backing map. */
+  private class HashMapMutableEdge extends DefaultEdge<I, E> {
+    /** Position of the edge in the backing map. */
+    private int index;
+
+    /** Constructor. */
+    public HashMapMutableEdge() {
+      super(
+          edgeMap.getKeyTypeOps().create(),
+          edgeMap.getValueTypeOps().create());
+    }
+
+    /**
+     * Make the edge point to the given position in the backing map.
+     *
+     * @param index Position in the map
+     */
+    public void setIndex(int index) {
+      // Update the id and value objects from the superclass.
+      edgeMap.getKeyInto(index, getTargetVertexId());
+      edgeMap.getValueInto(index, getValue());
+      // Update the index.
+      this.index = index;
+    }
+
+    @Override
+    public void setValue(E value) {
+      // Update the value object from the superclass.
+      edgeMap.getValueTypeOps().set(getValue(), value);
+      // Update the value stored in the backing map.
+      edgeMap.setValue(index, value);
+    }
+  }
+
+  @Override
+  public Iterator<MutableEdge<I, E>> mutableIterator() {
+    return new Iterator<MutableEdge<I, E>>() {
+      /** Position of the next edge in the map. */
+      private int index = 0;
+      /** Representative edge object. */
+      private final HashMapMutableEdge representativeEdge =
+          new HashMapMutableEdge();
+
+      @Override
+      public boolean hasNext() {
+        return index < edgeMap.size();
+      }
+
+      @Override
+      public MutableEdge<I, E> next() {
+        representativeEdge.setIndex(index++);
+        return representativeEdge;
+      }
+
+      @Override
+      public void remove() {
+        // Since removeAt() replaces the deleted edge with the last edge
+        // in the map, we need to decrease the offset so that the latter
+        // won't be skipped.
+        edgeMap.removeAt(--index);
+      }
+    };
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    edgeMap.write(out);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    edgeMap.readFields(in);
+  }
+}
@@ -119,4 +119,10 @@ public class SimpleEdgeStore<I extends WritableComparable,
     }
     return outEdges;
   }
+
+  @Override
+  protected OutEdges<I, E> removeVertexEdges(
+      Map<I, OutEdges<I, E>> partitionEdges, I vertexId) {
+    return partitionEdges.remove(vertexId);
+  }
 }
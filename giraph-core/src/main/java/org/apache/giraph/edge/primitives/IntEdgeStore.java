@@ -128,4 +128,12 @@ public class IntEdgeStore<V extends Writable, E extends Writable>
     }
     return outEdges;
   }
+
+  @Override
+  protected OutEdges<IntWritable, E> removeVertexEdges(
+      Map<Integer, OutEdges<IntWritable, E>> partitionEdges,
+      IntWritable vertexId) {
+    return ((Int2ObjectMap<OutEdges<IntWritable, E>>) partitionEdges)
+        .remove(vertexId.get());
+  }
 }
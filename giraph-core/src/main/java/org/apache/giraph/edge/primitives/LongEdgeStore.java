@@ -129,4 +129,12 @@ public class LongEdgeStore<V extends Writable, E extends Writable>
     }
     return outEdges;
   }
+
+  @Override
+  protected OutEdges<LongWritable, E> removeVertexEdges(
+    Map<Long, OutEdges<LongWritable, E>> partitionEdges,
+    LongWritable vertexId) {
+    return ((Long2ObjectMap<OutEdges<LongWritable, E>>) partitionEdges)
+        .remove(vertexId.get());
+  }
 }
@@ -174,6 +174,78 @@ public abstract class AbstractComputation<I extends WritableComparable,
     workerClientRequestProcessor.sendMessageToAllRequest(vertex, message);
   }
 
+  /**
+   * Send a double message to a vertex id, for computations with IntWritable or
+   * LongWritable vertex ids and DoubleWritable outgoing messages. Avoids
+   * creating a writable per message.
+   *
+   * @param id Vertex id to send the message to
+   * @param message Message data to send
+   */
+  public void sendDoubleMessage(long id, double message) {
+    workerClientRequestProcessor.sendDoubleMessageRequest(id, message);
+  }
+
+  /**
+   * Send a double message to all edges, for computations with IntWritable or
+   * LongWritable vertex ids and DoubleWritable outgoing messages.
+   *
+   * @param vertex Vertex whose edges to send the message to.
+   * @param message Message sent to all edges.
+   */
+  public void sendDoubleMessageToAllEdges(Vertex<I, V, E> vertex,
+      double message) {
+    workerClientRequestProcessor.sendDoubleMessageToAllRequest(vertex, message);
+  }
+
+  /**
+   * Send a float message to a vertex id, for computations with IntWritable or
+   * LongWritable vertex ids and FloatWritable outgoing messages. Avoids
+   * creating a writable per message.
+   *
+   * @param id Vertex id to send the message to
+   * @param message Message data to send
+   */
+  public void sendFloatMessage(long id, float message) {
+    workerClientRequestProcessor.sendFloatMessageRequest(id, message);
+  }
+
+  /**
+   * Send a float message to all edges, for computations with IntWritable or
+   * LongWritable vertex ids and FloatWritable outgoing messages.
+   *
+   * @param vertex Vertex whose edges to send the message to.
+   * @param message Message sent to all edges.
+   */
+  public void sendFloatMessageToAllEdges(Vertex<I, V, E> vertex,
+      float message) {
+    workerClientRequestProcessor.sendFloatMessageToAllRequest(vertex, message);
+  }
+
+  /**
+   * Send a long message to a vertex id, for computations with IntWritable or
+   * LongWritable vertex ids and LongWritable outgoing messages. Avoids
+   * creating a writable per message.
+   *
+   * @param id Vertex id to send the message to
+   * @param message Message data to send
+   */
+  public void sendLongMessage(long id, long message) {
+    workerClientRequestProcessor.sendLongMessageRequest(id, message);
+  }
+
+  /**
+   * Send a long message to all edges, for computations with IntWritable or
+   * LongWritable vertex ids and LongWritable outgoing messages.
+   *
+   * @param vertex Vertex whose edges to send the message to.
+   * @param message Message sent to all edges.
+   */
+  public void sendLongMessageToAllEdges(Vertex<I, V, E> vertex,
+      long message) {
+    workerClientRequestProcessor.sendLongMessageToAllRequest(vertex, message);
+  }
+
   /**
    * Send a message to multiple target vertex ids in the iterator.
    *
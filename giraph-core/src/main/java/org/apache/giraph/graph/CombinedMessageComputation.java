@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.graph;
+
+import org.apache.giraph.combiner.MessageCombiner;
+import org.apache.giraph.comm.messages.CombinedMessageReader;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Computation which receives at most one, combined, message per vertex.
+ * When the message store is a {@link CombinedMessageReader} (as are the
+ * primitive stores used with message combiners), the message is read
+ * straight into a reused message object, so no objects are created per
+ * vertex. Otherwise messages are combined here with the configured
+ * message combiner.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M1> Incoming message type
+ * @param <M2> Outgoing message type
+ */
+public abstract class CombinedMessageComputation<I extends WritableComparable,
+    V extends Writable, E extends Writable, M1 extends Writable,
+    M2 extends Writable> extends AbstractComputation<I, V, E, M1, M2> {
+  /** Combiner for when the message store gives more than one message */
+  private MessageCombiner<I, M1> messageCombiner;
+
+  /**
+   * Must be defined by user to do computation on a single Vertex.
+   *
+   * @param vertex Vertex
+   * @param message Combined message sent to this vertex in the previous
+   *                superstep, null if there are none. The message is
+   *                reused, do not keep references to it.
+   */
+  public abstract void computeCombined(Vertex<I, V, E> vertex, M1 message)
+    throws IOException;
+
+  @Override
+  public final void compute(Vertex<I, V, E> vertex,
+      Iterable<M1> messages) throws IOException {
+    Iterator<M1> iterator = messages.iterator();
+    if (!iterator.hasNext()) {
+      computeCombined(vertex, null);
+      return;
+    }
+    M1 message = iterator.next();
+    if (!iterator.hasNext()) {
+      computeCombined(vertex, message);
+      return;
+    }
+    if (messageCombiner == null) {
+      if (!getConf().useMessageCombiner()) {
+        throw new IllegalStateException("compute: " +
+            getClass().getSimpleName() + " got multiple messages for " +
+            "vertex " + vertex.getId() + " and no message combiner is set");
+      }
+      messageCombiner = getConf().createMessageCombiner();
+    }
+    M1 combinedMessage = messageCombiner.createInitialMessage();
+    messageCombiner.combine(vertex.getId(), combinedMessage, message);
+    while (iterator.hasNext()) {
+      messageCombiner.combine(vertex.getId(), combinedMessage,
+          iterator.next());
+    }
+    computeCombined(vertex, combinedMessage);
+  }
+}
@@ -19,13 +19,22 @@ package org.apache.giraph.graph;
 
 import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.comm.WorkerClientRequestProcessor;
+import org.apache.giraph.comm.messages.CombinedMessageReader;
 import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
 import org.apache.giraph.comm.netty.NettyWorkerClientRequestProcessor;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.io.SimpleVertexWriter;
 import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.HotPathHistograms;
+import org.apache.giraph.metrics.MemoryAccounting;
 import org.apache.giraph.metrics.MetricNames;
+import org.apache.giraph.metrics.SkewStats;
+import org.apache.giraph.metrics.SkewTracker;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
+import org.apache.giraph.metrics.SuperstepPhaseTracker;
+import org.apache.giraph.metrics.SuperstepPhases;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionStats;
 import org.apache.giraph.time.SystemTime;
@@ -91,6 +100,8 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
   private final TimedLogger timedLogger = new TimedLogger(30 * 1000, LOG);
   /** VertexWriter for this ComputeCallable */
   private SimpleVertexWriter<I, V, E> vertexWriter;
+  /** Most expensive vertices and partitions of this thread, null if off */
+  private SkewStats skewStats;
   /** Get the start time in nanos */
   private final long startNanos = TIME.getNanoseconds();
 
@@ -138,8 +149,10 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
     WorkerThreadAggregatorUsage aggregatorUsage =
         serviceWorker.getAggregatorHandler().newThreadAggregatorUsage();
     WorkerContext workerContext = serviceWorker.getWorkerContext();
+    Timeline timeline = Timeline.of(serviceWorker.getGraphTaskManager());
 
     vertexWriter = serviceWorker.getSuperstepOutput().getVertexWriter();
+    skewStats = SkewTracker.get().newThreadStats();
 
     List<PartitionStats> partitionStatsList = Lists.newArrayList();
     while (!partitionIdQueue.isEmpty()) {
@@ -158,12 +171,20 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
       computation.preSuperstep();
 
       try {
-        PartitionStats partitionStats =
-            computePartition(computation, partition);
+        Timeline.Span span = timeline
+            .startSpan(Timeline.COMPUTE, "computePartition")
+            .setArg("partition", partitionId);
+        long startNanos = HotPathHistograms.get().startNanos();
+        PartitionStats partitionStats = computePartition(computation,
+            partition, workerClientRequestProcessor);
+        HotPathHistograms.get().recordComputePartition(startNanos);
+        MemoryAccounting.get().checkHeadroom();
+        span.end();
         partitionStatsList.add(partitionStats);
         long partitionMsgs = workerClientRequestProcessor.resetMessageCount();
         partitionStats.addMessagesSentCount(partitionMsgs);
-        messagesSentCounter.inc(partitionMsgs);
+        // Includes messages counted per vertex for skew stats
+        messagesSentCounter.inc(partitionStats.getMessagesSentCount());
         long partitionMsgBytes =
           workerClientRequestProcessor.resetMessageBytesCount();
         partitionStats.addMessageBytesSentCount(partitionMsgBytes);
@@ -187,6 +208,9 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
 
     // Return VertexWriter after the usage
     serviceWorker.getSuperstepOutput().returnVertexWriter(vertexWriter);
+    if (skewStats != null) {
+      SkewTracker.get().merge(skewStats);
+    }
 
     if (LOG.isInfoEnabled()) {
       float seconds = Times.getNanosSince(TIME, startNanos) /
@@ -196,7 +220,14 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
           graphState.getSuperstep() + ".  Flushing started");
     }
     try {
+      SuperstepPhaseTracker.get().startPhaseOnThread(
+          SuperstepPhases.Phase.FLUSH);
+      Timeline.Span flushSpan =
+          timeline.startSpan(Timeline.FLUSH, "flushMessages");
+      long flushStartNanos = HotPathHistograms.get().startNanos();
       workerClientRequestProcessor.flush();
+      HotPathHistograms.get().recordFlush(flushStartNanos);
+      flushSpan.end();
       // The messages flushed out from the cache is
       // from the last partition processed
       if (partitionStatsList.size() > 0) {
@@ -218,24 +249,83 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
    *
    * @param computation Computation to use
    * @param partition Partition to compute
+   * @param workerClientRequestProcessor Sends the messages of computation
    * @return Partition stats for this computed partition
    */
+  @SuppressWarnings("unchecked")
   private PartitionStats computePartition(
       Computation<I, V, E, M1, M2> computation,
-      Partition<I, V, E> partition) throws IOException, InterruptedException {
+      Partition<I, V, E> partition,
+      WorkerClientRequestProcessor<I, V, E> workerClientRequestProcessor)
+    throws IOException, InterruptedException {
     PartitionStats partitionStats =
         new PartitionStats(partition.getId(), 0, 0, 0, 0, 0);
     long verticesComputedProgress = 0;
+    int sampleInterval = SkewTracker.get().getTimingSampleInterval();
+    int verticesUntilSample = 0;
+    long startMillis = TIME.getMilliseconds();
+    // Stores which count messages as they are added give the partition's
+    // count, otherwise messages of each vertex are counted here
+    ReceivedMessageCountReader messageCountReader =
+        messageStore instanceof ReceivedMessageCountReader ?
+            (ReceivedMessageCountReader) messageStore : null;
+    long messagesReceived = 0;
+    // Read combined messages into a reused one when both sides support it
+    CombinedMessageComputation<I, V, E, M1, M2> combinedComputation = null;
+    CombinedMessageReader<I, M1> combinedReader = null;
+    M1 combinedMessage = null;
+    if (computation instanceof CombinedMessageComputation &&
+        messageStore instanceof CombinedMessageReader) {
+      combinedComputation =
+          (CombinedMessageComputation<I, V, E, M1, M2>) computation;
+      combinedReader = (CombinedMessageReader<I, M1>) messageStore;
+      combinedMessage = configuration.<M1>getIncomingMessageValueFactory()
+          .newInstance();
+    }
     // Make sure this is thread-safe across runs
     synchronized (partition) {
       for (Vertex<I, V, E> vertex : partition) {
-        Iterable<M1> messages = messageStore.getVertexMessages(vertex.getId());
-        if (vertex.isHalted() && !Iterables.isEmpty(messages)) {
+        boolean hasMessages;
+        Iterable<M1> messages = null;
+        if (combinedReader != null) {
+          hasMessages =
+              combinedReader.readVertexMessage(vertex.getId(), combinedMessage);
+        } else {
+          messages = messageStore.getVertexMessages(vertex.getId());
+          hasMessages = !Iterables.isEmpty(messages);
+        }
+        if (vertex.isHalted() && hasMessages) {
           vertex.wakeUp();
         }
         if (!vertex.isHalted()) {
           context.progress();
-          computation.compute(vertex, messages);
+          // Skew reports time, and count the messages of, sampled vertices
+          boolean sampleVertex = false;
+          if (skewStats != null && --verticesUntilSample < 0) {
+            verticesUntilSample = sampleInterval - 1;
+            sampleVertex = true;
+          }
+          long vertexMessages = sampleVertex ? 0 : -1;
+          if (hasMessages && (messageCountReader == null || sampleVertex)) {
+            vertexMessages = messages == null ? 1 : Iterables.size(messages);
+            messagesReceived += vertexMessages;
+          }
+          long vertexStartNanos = sampleVertex ? System.nanoTime() : -1;
+          if (combinedReader != null) {
+            combinedComputation.computeCombined(vertex,
+                hasMessages ? combinedMessage : null);
+          } else {
+            computation.compute(vertex, messages);
+          }
+          if (skewStats != null) {
+            long computeUs = vertexStartNanos < 0 ? -1 :
+                (System.nanoTime() - vertexStartNanos) / 1000;
+            // Count messages per vertex, the partition total is kept
+            long sent = workerClientRequestProcessor.resetMessageCount();
+            partitionStats.addMessagesSentCount(sent);
+            skewStats.recordVertex(vertex.getId(), computeUs, sent,
+                vertexMessages, vertex.getNumEdges());
+          }
           // Need to unwrap the mutated edges (possibly)
           vertex.unwrapMutableEdges();
           //Compact edges representation if possible
@@ -264,11 +354,20 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
         }
       }
 
+      if (messageCountReader != null) {
+        messagesReceived =
+            messageCountReader.getReceivedMessageCount(partition.getId());
+      }
       messageStore.clearPartition(partition.getId());
     }
+    partitionStats.addMessagesReceivedCount(messagesReceived);
+    partitionStats.addComputeMs(Times.getMsSince(TIME, startMillis));
+    if (skewStats != null) {
+      skewStats.recordPartition(partition.getId(),
+          partitionStats.getComputeMs());
+    }
     WorkerProgress.get().addVerticesComputed(verticesComputedProgress);
     WorkerProgress.get().incrementPartitionsComputed();
     return partitionStats;
   }
 }
-
@@ -34,8 +34,14 @@ import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.metrics.GiraphMetricsRegistry;
 import org.apache.giraph.metrics.GiraphTimer;
 import org.apache.giraph.metrics.GiraphTimerContext;
+import org.apache.giraph.metrics.HotPathHistograms;
+import org.apache.giraph.metrics.MemoryAccounting;
 import org.apache.giraph.metrics.ResetSuperstepMetricsObserver;
+import org.apache.giraph.metrics.SkewTracker;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
+import org.apache.giraph.metrics.SuperstepPhaseTracker;
+import org.apache.giraph.metrics.SuperstepPhases;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.partition.PartitionStats;
@@ -152,6 +158,8 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
   private Mapper<?, ?, ?, ?>.Context context;
   /** is this GraphTaskManager the master? */
   private boolean isMaster;
+  /** Timeline of this task, disabled until setup */
+  private Timeline timeline = Timeline.disabled();
 
   /**
    * Default constructor for GiraphTaskManager.
@@ -231,6 +239,8 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
     context.setStatus("setup: Connected to Zookeeper service " +
       serverPortList);
     this.graphFunctions = determineGraphFunctions(conf, zkManager);
+    timeline = Timeline.create(conf,
+        "task " + conf.getTaskPartition() + " (" + graphFunctions + ")");
     // Sometimes it takes a while to get multiple ZooKeeper servers up
     if (conf.getZooKeeperServerCount() > 1) {
       Thread.sleep(GiraphConstants.DEFAULT_ZOOKEEPER_INIT_LIMIT *
@@ -295,12 +305,15 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
       final long superstep = serviceWorker.getSuperstep();
       GiraphTimerContext superstepTimerContext =
         getTimerForThisSuperstep(superstep);
+      Timeline.Span superstepSpan =
+          timeline.startSpan(Timeline.SUPERSTEP, "superstep");
       GraphState graphState = new GraphState(superstep,
           finishedSuperstepStats.getVertexCount(),
           finishedSuperstepStats.getEdgeCount(),
           context);
       Collection<? extends PartitionOwner> masterAssignedPartitionOwners =
         serviceWorker.startSuperstep();
+      SuperstepPhaseTracker.get().startSuperstep();
       if (LOG.isDebugEnabled()) {
         LOG.debug("execute: " + MemoryUtils.getRuntimeMemoryStats());
       }
@@ -332,12 +345,17 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
       }
       partitionStatsList.clear();
       // execute the current superstep
+      SuperstepPhaseTracker.get().startPhase(SuperstepPhases.Phase.COMPUTE);
       if (numPartitions > 0) {
         processGraphPartitions(context, partitionStatsList, graphState,
           messageStore, numPartitions, numThreads);
       }
+      SuperstepPhaseTracker.get().startPhase(
+          SuperstepPhases.Phase.WAIT_REQUESTS);
       finishedSuperstepStats = completeSuperstepAndCollectStats(
         partitionStatsList, superstepTimerContext);
+      superstepSpan.end();
+      timeline.flush();
 
       // END of superstep compute loop
     }
@@ -390,6 +408,7 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
    */
   private GiraphTimerContext getTimerForThisSuperstep(long superstep) {
     GiraphMetrics.get().resetSuperstepMetrics(superstep);
+    timeline.setSuperstep(superstep);
     return superstepTimer.time();
   }
 
@@ -398,6 +417,9 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
    */
   private void setupAndInitializeGiraphMetrics() {
     GiraphMetrics.init(conf);
+    HotPathHistograms.init(conf);
+    SkewTracker.init(conf);
+    MemoryAccounting.init(conf);
     GiraphMetrics.get().addSuperstepResetObserver(this);
     initJobMetrics();
     MemoryUtils.initMetrics();
@@ -514,6 +536,10 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
     return jobProgressTracker;
   }
 
+  public Timeline getTimeline() {
+    return timeline;
+  }
+
   /**
    * Copied from JobConf to get the location of this jar.  Workaround for
    * things like Oozie map-reduce jobs. NOTE: Pure YARN profile cannot
@@ -785,8 +811,11 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
       if (LOG.isInfoEnabled()) {
         LOG.info("execute: Loading from checkpoint " + superstep);
       }
+      Timeline.Span span =
+          timeline.startSpan(Timeline.CHECKPOINT, "loadCheckpoint");
       VertexEdgeCount vertexEdgeCount = serviceWorker.loadCheckpoint(
         serviceWorker.getRestartedSuperstep());
+      span.end();
       finishedSuperstepStats = new FinishedSuperstepStats(0, false,
           vertexEdgeCount.getVertexCount(), vertexEdgeCount.getEdgeCount(),
           false, CheckpointStatus.NONE);
@@ -805,7 +834,10 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
   private boolean storeCheckpoint(CheckpointStatus checkpointStatus)
     throws IOException {
     if (checkpointStatus != CheckpointStatus.NONE) {
+      Timeline.Span span =
+          timeline.startSpan(Timeline.CHECKPOINT, "storeCheckpoint");
       serviceWorker.storeCheckpoint();
+      span.end();
     }
     return checkpointStatus == CheckpointStatus.CHECKPOINT_AND_HALT;
   }
@@ -944,6 +976,7 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
 
     // Stop tracking metrics
     GiraphMetrics.get().shutdown();
+    timeline.close();
   }
 
   /**
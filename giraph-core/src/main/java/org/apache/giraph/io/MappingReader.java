@@ -43,6 +43,8 @@ public abstract class MappingReader<I extends WritableComparable,
 
   /** Aggregator usage for vertex reader */
   private WorkerAggregatorUsage workerAggregatorUsage;
+  /** Number of workers the job runs with, -1 if unknown */
+  private int numWorkers = -1;
 
   /**
    * Use the input split and context to setup reading the vertices.
@@ -73,6 +75,27 @@ public abstract class MappingReader<I extends WritableComparable,
     workerAggregatorUsage = agg;
   }
 
+  /**
+   * Set the number of workers the job actually runs with, which can be
+   * anywhere between the configured minimum and maximum. It is invoked
+   * just before initialization.
+   * This method is only for use by the infrastructure.
+   *
+   * @param numWorkers Number of workers
+   */
+  public void setNumWorkers(int numWorkers) {
+    this.numWorkers = numWorkers;
+  }
+
+  /**
+   * Get the number of workers the job runs with
+   *
+   * @return Number of workers, -1 if unknown
+   */
+  public int getNumWorkers() {
+    return numWorkers;
+  }
+
   /**
    *
    * @return false iff there are no more vertices
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.io;
+
+import org.apache.giraph.partition.Partition;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.IOException;
+
+/**
+ * Implemented by {@link VertexWriter}s which can write a whole partition
+ * at once. When saving vertices in the end of the application, such writers
+ * get each partition instead of its vertices one by one, so they can read
+ * the partition's internal representation directly.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public interface VertexPartitionWriter<I extends WritableComparable,
+    V extends Writable, E extends Writable> {
+  /**
+   * Writes all vertices of the partition
+   *
+   * @param partition Partition to write
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  void writePartition(Partition<I, V, E> partition) throws IOException,
+      InterruptedException;
+}
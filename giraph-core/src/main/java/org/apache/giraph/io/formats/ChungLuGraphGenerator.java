@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import java.util.Random;
+
+/**
+ * Chung-Lu graph generator. Vertex i has weight (i + 1)^(-1 / (gamma - 1)),
+ * which gives degree distribution following power-law with exponent gamma.
+ * Out-degree of a vertex is proportional to its weight, and targets are
+ * chosen proportionally to their weights, by inverting the (continuous
+ * approximation of) cumulative weight function, so no per-vertex tables
+ * are needed. Weight of vertex i is approximated by the integral of
+ * y^(-alpha) over [i + 0.5, i + 1.5).
+ */
+public class ChungLuGraphGenerator extends PowerLawGraphGenerator {
+  /** Lower bound of the continuous weight function */
+  private static final double LOWER_BOUND = 0.5;
+
+  /** Weight exponent, 1 / (gamma - 1) */
+  private final double alpha;
+  /** Antiderivative of the weight function at its lower bound */
+  private final double lowerAntiderivative;
+  /** Total weight, antiderivative difference over all vertices */
+  private final double totalWeight;
+  /** Expected number of edges per unit of weight */
+  private final double edgesPerWeight;
+
+  /**
+   * Constructor
+   *
+   * @param numVertices Total number of vertices
+   * @param edgesPerVertex Average number of out-edges per vertex
+   * @param seed Seed for the whole graph
+   * @param gamma Exponent of the degree distribution, has to be &gt; 1
+   */
+  public ChungLuGraphGenerator(long numVertices, int edgesPerVertex,
+      long seed, double gamma) {
+    super(numVertices, edgesPerVertex, seed);
+    if (gamma <= 1) {
+      throw new IllegalArgumentException(
+          "ChungLuGraphGenerator: Exponent " + gamma + " <= 1");
+    }
+    alpha = 1 / (gamma - 1);
+    lowerAntiderivative = antiderivative(LOWER_BOUND);
+    totalWeight =
+        antiderivative(numVertices + LOWER_BOUND) - lowerAntiderivative;
+    edgesPerWeight = (double) numVertices * edgesPerVertex / totalWeight;
+  }
+
+  /**
+   * Check whether weights are 1 / (i + 1), for which cumulative weight
+   * function is logarithmic.
+   *
+   * @return True iff alpha is 1
+   */
+  private boolean isHarmonic() {
+    return Math.abs(alpha - 1) < 1e-9;
+  }
+
+  /**
+   * Antiderivative of the continuous weight function y^(-alpha)
+   *
+   * @param y Point
+   * @return Antiderivative at y
+   */
+  private double antiderivative(double y) {
+    return isHarmonic() ? Math.log(y) : Math.pow(y, 1 - alpha) / (1 - alpha);
+  }
+
+  /**
+   * Inverse of {@link #antiderivative(double)}
+   *
+   * @param value Antiderivative value
+   * @return Point at which antiderivative has given value
+   */
+  private double inverseAntiderivative(double value) {
+    return isHarmonic() ? Math.exp(value) :
+        Math.pow(value * (1 - alpha), 1 / (1 - alpha));
+  }
+
+  @Override
+  public int getNumEdges(long vertexId, Random random) {
+    return roundNumEdges(
+        Math.pow(vertexId + 1.0, -alpha) * edgesPerWeight, random);
+  }
+
+  @Override
+  public long generateDestVertex(long vertexId, Random random) {
+    double y = inverseAntiderivative(
+        lowerAntiderivative + random.nextDouble() * totalWeight);
+    return Math.max(0, Math.min(numVertices - 1,
+        (long) (y - LOWER_BOUND)));
+  }
+}
@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.io.formats;
+
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.VertexPartitionWriter;
+import org.apache.giraph.io.VertexWriter;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PrimitiveArrayPartition;
+import org.apache.giraph.types.ops.PrimitiveIdTypeOps;
+import org.apache.giraph.types.ops.PrimitiveTypeOps;
+import org.apache.giraph.types.ops.TypeOpsUtils;
+import org.apache.giraph.types.ops.collections.BasicArrayList;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fast output of vertex ids and values for graphs where both are primitive
+ * types. Each partition is written to its own file as two columns: all
+ * vertex ids followed by all vertex values, in the same order, so files can
+ * be read back without any per-vertex framing. Partitions which keep ids
+ * and values in primitive arrays ({@link PrimitiveArrayPartition}) are
+ * written straight from those arrays.
+ *
+ * Files are written to the work directory of the task's
+ * {@link FileOutputCommitter}, so the output directory is set and committed
+ * the same way as for other file output formats. Every writer writes its
+ * own files, so giraph.vertexOutputFormatThreadSafe can be set to save
+ * partitions from multiple threads.
+ *
+ * File layout:
+ * <pre>
+ * int      magic
+ * UTF      vertex id class name
+ * UTF      vertex value class name
+ * int      number of ids, followed by ids
+ * int      number of values, followed by values
+ * </pre>
+ * Columns are written in {@link java.io.DataOutput} encoding.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@SuppressWarnings("rawtypes")
+public class ColumnarVertexOutputFormat<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends VertexOutputFormat<I, V, E> {
+  /** Magic number at the beginning of each file */
+  public static final int MAGIC = 0x47435643;
+  /** Prefix of names of files with partitions */
+  public static final String FILE_PREFIX = "partition-";
+  /** Size of the buffer for writing files */
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  /** Used only for output paths and the output committer */
+  private final ColumnarFileOutputFormat fileOutputFormat =
+      new ColumnarFileOutputFormat();
+  /** Counter for names of files written from single vertices */
+  private final AtomicInteger vertexFileCounter = new AtomicInteger();
+
+  /**
+   * Check if columnar output supports id and value types of the job
+   *
+   * @param idClass Vertex id class
+   * @param valueClass Vertex value class
+   * @return True iff both vertex id and vertex value types are primitive
+   */
+  public static boolean isSupported(Class<?> idClass, Class<?> valueClass) {
+    return TypeOpsUtils.getPrimitiveIdTypeOpsOrNull(idClass) != null &&
+        TypeOpsUtils.getPrimitiveTypeOpsOrNull(valueClass) != null;
+  }
+
+  @Override
+  public void checkOutputSpecs(JobContext context)
+    throws IOException, InterruptedException {
+    if (!isSupported(getConf().getVertexIdClass(),
+        getConf().getVertexValueClass())) {
+      throw new IllegalStateException("checkOutputSpecs: Only primitive " +
+          "vertex id and value types are supported, got " +
+          getConf().getVertexIdClass() + " and " +
+          getConf().getVertexValueClass());
+    }
+    fileOutputFormat.checkOutputSpecs(context);
+  }
+
+  @Override
+  public OutputCommitter getOutputCommitter(TaskAttemptContext context)
+    throws IOException, InterruptedException {
+    return fileOutputFormat.getOutputCommitter(context);
+  }
+
+  @Override
+  public VertexWriter<I, V, E> createVertexWriter(
+      TaskAttemptContext context) throws IOException, InterruptedException {
+    return new ColumnarVertexWriter();
+  }
+
+  /**
+   * Write columns of one partition
+   *
+   * @param partition Partition to write
+   * @param out Output to write to
+   * @param idTypeOps TypeOps for vertex ids
+   * @param valueTypeOps TypeOps for vertex values
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @throws IOException
+   */
+  public static <I extends WritableComparable, V extends Writable,
+      E extends Writable> void writeColumns(Partition<I, V, E> partition,
+      DataOutput out, PrimitiveIdTypeOps<I> idTypeOps,
+      PrimitiveTypeOps<V> valueTypeOps) throws IOException {
+    writeHeader(out, idTypeOps, valueTypeOps);
+    if (partition instanceof PrimitiveArrayPartition) {
+      ((PrimitiveArrayPartition<I, V, E>) partition).writeColumns(out);
+      return;
+    }
+    // Same encoding as BasicArrayList, one pass per column
+    int vertexCount = (int) partition.getVertexCount();
+    out.writeInt(vertexCount);
+    int written = 0;
+    for (Vertex<I, V, E> vertex : partition) {
+      vertex.getId().write(out);
+      ++written;
+    }
+    checkVertexCount(partition, vertexCount, written);
+    out.writeInt(vertexCount);
+    written = 0;
+    for (Vertex<I, V, E> vertex : partition) {
+      vertex.getValue().write(out);
+      ++written;
+    }
+    checkVertexCount(partition, vertexCount, written);
+  }
+
+  /**
+   * Write file header
+   *
+   * @param out Output to write to
+   * @param idTypeOps TypeOps for vertex ids
+   * @param valueTypeOps TypeOps for vertex values
+   * @throws IOException
+   */
+  private static void writeHeader(DataOutput out,
+      PrimitiveIdTypeOps<?> idTypeOps, PrimitiveTypeOps<?> valueTypeOps)
+    throws IOException {
+    out.writeInt(MAGIC);
+    out.writeUTF(idTypeOps.getTypeClass().getName());
+    out.writeUTF(valueTypeOps.getTypeClass().getName());
+  }
+
+  /**
+   * Make sure the partition didn't change while its columns were written
+   *
+   * @param partition Partition being written
+   * @param expected Number of vertices at the start
+   * @param actual Number of vertices iterated over
+   */
+  private static void checkVertexCount(Partition<?, ?, ?> partition,
+      int expected, int actual) {
+    if (expected != actual) {
+      throw new IllegalStateException("writeColumns: Partition " +
+          partition.getId() + " has " + expected + " vertices, but " +
+          actual + " were iterated over");
+    }
+  }
+
+  /**
+   * Read columns written by
+   * {@link #writeColumns(Partition, DataOutput, PrimitiveIdTypeOps,
+   * PrimitiveTypeOps)}
+   *
+   * @param in Input to read from
+   * @param ids List to read vertex ids into
+   * @param values List to read vertex values into
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @throws IOException
+   */
+  public static <I, V> void readColumns(DataInput in,
+      BasicArrayList<I> ids, BasicArrayList<V> values) throws IOException {
+    int magic = in.readInt();
+    if (magic != MAGIC) {
+      throw new IOException("readColumns: Invalid magic number " + magic);
+    }
+    String idClassName = in.readUTF();
+    String valueClassName = in.readUTF();
+    if (!idClassName.equals(
+        ids.getElementTypeOps().getTypeClass().getName()) ||
+        !valueClassName.equals(
+            values.getElementTypeOps().getTypeClass().getName())) {
+      throw new IOException("readColumns: File has columns of types " +
+          idClassName + " and " + valueClassName);
+    }
+    ids.readFields(in);
+    values.readFields(in);
+  }
+
+  /**
+   * File output format which provides output paths and the committer,
+   * files are created by {@link ColumnarVertexWriter}
+   */
+  private static class ColumnarFileOutputFormat
+      extends FileOutputFormat<NullWritable, NullWritable> {
+    @Override
+    public RecordWriter<NullWritable, NullWritable> getRecordWriter(
+        TaskAttemptContext context) {
+      throw new UnsupportedOperationException(
+          "getRecordWriter: Files are written by ColumnarVertexWriter");
+    }
+
+    /**
+     * Get file for vertices written one by one
+     *
+     * @param context Task context
+     * @param extension Extension to add to the name
+     * @return Path of the file in the task's work directory
+     * @throws IOException
+     */
+    public Path getVertexFile(TaskAttemptContext context, String extension)
+      throws IOException {
+      return getDefaultWorkFile(context, extension);
+    }
+  }
+
+  /**
+   * Writer which writes whole partitions in columnar format, and gathers
+   * vertices written one by one into a single file
+   */
+  private class ColumnarVertexWriter extends VertexWriter<I, V, E>
+      implements VertexPartitionWriter<I, V, E> {
+    /** TypeOps for vertex ids */
+    private PrimitiveIdTypeOps<I> idTypeOps;
+    /** TypeOps for vertex values */
+    private PrimitiveTypeOps<V> valueTypeOps;
+    /** Work directory of the task */
+    private Path workPath;
+    /** Ids of vertices written one by one */
+    private BasicArrayList<I> vertexIds;
+    /** Values of vertices written one by one */
+    private BasicArrayList<V> vertexValues;
+
+    @Override
+    public void initialize(TaskAttemptContext context)
+      throws IOException, InterruptedException {
+      idTypeOps = TypeOpsUtils.getPrimitiveIdTypeOps(
+          getConf().getVertexIdClass());
+      valueTypeOps = TypeOpsUtils.getPrimitiveTypeOps(
+          getConf().getVertexValueClass());
+      workPath = ((FileOutputCommitter)
+          fileOutputFormat.getOutputCommitter(context)).getWorkPath();
+    }
+
+    @Override
+    public void writePartition(Partition<I, V, E> partition)
+      throws IOException, InterruptedException {
+      writeFile(new Path(workPath, FILE_PREFIX + partition.getId()),
+          partition);
+    }
+
+    @Override
+    public void writeVertex(Vertex<I, V, E> vertex)
+      throws IOException, InterruptedException {
+      if (vertexIds == null) {
+        vertexIds = idTypeOps.createArrayList(0);
+        vertexValues = valueTypeOps.createArrayList(0);
+      }
+      vertexIds.add(vertex.getId());
+      vertexValues.add(vertex.getValue());
+    }
+
+    @Override
+    public void close(TaskAttemptContext context)
+      throws IOException, InterruptedException {
+      if (vertexIds == null) {
+        return;
+      }
+      Path path = fileOutputFormat.getVertexFile(
+          context, "-" + vertexFileCounter.getAndIncrement());
+      writeFile(path, null);
+      vertexIds = null;
+      vertexValues = null;
+    }
+
+    /**
+     * Create a file and write columns into it
+     *
+     * @param path Path of the file
+     * @param partition Partition to write, or null to write vertices
+     *                  gathered by {@link #writeVertex(Vertex)}
+     * @throws IOException
+     */
+    private void writeFile(Path path, Partition<I, V, E> partition)
+      throws IOException {
+      FileSystem fs = path.getFileSystem(getConf());
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(fs.create(path, false), BUFFER_SIZE));
+      try {
+        if (partition != null) {
+          writeColumns(partition, out, idTypeOps, valueTypeOps);
+        } else {
+          writeHeader(out, idTypeOps, valueTypeOps);
+          vertexIds.write(out);
+          vertexValues.write(out);
+        }
+      } finally {
+        out.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.io.EdgeInputFormat;
+import org.apache.giraph.io.EdgeReader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * EdgeInputFormat which generates the same skewed graph as
+ * {@link PowerLawVertexInputFormat}, streaming edges one by one, so even
+ * vertices with millions of out-edges are never held in memory by the
+ * reader. Vertices without out-edges are not generated by this format.
+ */
+public class PowerLawEdgeInputFormat
+    extends EdgeInputFormat<LongWritable, DoubleWritable> {
+  @Override public void checkInputSpecs(Configuration conf) { }
+
+  @Override
+  public final List<InputSplit> getSplits(final JobContext context,
+      final int minSplitCountHint) throws IOException, InterruptedException {
+    return PseudoRandomUtils.getSplits(minSplitCountHint);
+  }
+
+  @Override
+  public EdgeReader<LongWritable, DoubleWritable> createEdgeReader(
+      InputSplit split, TaskAttemptContext context) throws IOException {
+    return new PowerLawEdgeReader();
+  }
+
+  /**
+   * {@link EdgeReader} that generates power-law edges.
+   */
+  private static class PowerLawEdgeReader
+      extends EdgeReader<LongWritable, DoubleWritable> {
+    /** Id after the last vertex of this split. */
+    private long endVertexId = -1;
+    /** Number of vertices in this split. */
+    private long totalSplitVertices = -1;
+    /** Id of the vertex whose edges are being read. */
+    private long currentVertexId = -1;
+    /** Source id of the current edge. */
+    private final LongWritable currentSourceId = new LongWritable();
+    /** Current edge. */
+    private Edge<LongWritable, DoubleWritable> currentEdge;
+    /** Number of out-edges of current vertex. */
+    private int currentNumEdges = 0;
+    /** Edges read for the current vertex. */
+    private int currentOutEdgesRead = 0;
+    /** Graph generator */
+    private PowerLawGraphGenerator generator;
+    /** Random number generator, reseeded for every vertex */
+    private final Random random = new Random();
+
+    @Override
+    public void initialize(InputSplit inputSplit, TaskAttemptContext context)
+      throws IOException, InterruptedException {
+      generator = PowerLawGraphGenerator.create(getConf());
+      long startingVertexId = PseudoRandomUtils.getSplitStartingVertexId(
+          inputSplit, generator.getNumVertices());
+      totalSplitVertices = PseudoRandomUtils.getSplitNumVertices(
+          inputSplit, generator.getNumVertices());
+      endVertexId = startingVertexId + totalSplitVertices;
+      currentVertexId = startingVertexId - 1;
+    }
+
+    @Override
+    public boolean nextEdge() throws IOException, InterruptedException {
+      while (currentOutEdgesRead == currentNumEdges) {
+        ++currentVertexId;
+        if (currentVertexId >= endVertexId) {
+          return false;
+        }
+        generator.seedVertex(currentVertexId, random);
+        currentNumEdges = generator.getNumEdges(currentVertexId, random);
+        currentOutEdgesRead = 0;
+        // Skip vertex value to generate the same edges as
+        // PowerLawVertexInputFormat
+        random.nextDouble();
+      }
+      // Callers may modify the source id, so set it for every edge
+      currentSourceId.set(currentVertexId);
+      currentEdge = EdgeFactory.create(
+          new LongWritable(
+              generator.generateDestVertex(currentVertexId, random)),
+          new DoubleWritable(random.nextDouble()));
+      ++currentOutEdgesRead;
+      return true;
+    }
+
+    @Override
+    public LongWritable getCurrentSourceId() throws IOException,
+        InterruptedException {
+      return currentSourceId;
+    }
+
+    @Override
+    public Edge<LongWritable, DoubleWritable> getCurrentEdge()
+      throws IOException, InterruptedException {
+      return currentEdge;
+    }
+
+    @Override
+    public void close() throws IOException { }
+
+    @Override
+    public float getProgress() throws IOException, InterruptedException {
+      return (currentVertexId - (endVertexId - totalSplitVertices)) *
+          100.0f / totalSplitVertices;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.util.Random;
+
+/**
+ * Generates skewed, power-law graphs for large scale testing. Every vertex
+ * gets its own random number generator seeded from the vertex id and the
+ * configured seed, so the same vertex always gets the same edges
+ * regardless of the number of splits or workers, and every split can be
+ * generated independently.
+ *
+ * Generated graphs are multigraphs: duplicate edges are possible (and
+ * common for high-degree vertices), since removing them would require
+ * keeping all targets of a vertex in memory.
+ */
+public abstract class PowerLawGraphGenerator {
+  /** Constant used to mix the seed with vertex ids */
+  private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+  /** Total number of vertices */
+  protected final long numVertices;
+  /** Average number of out-edges per vertex */
+  protected final int edgesPerVertex;
+  /** Seed for the whole graph */
+  private final long seed;
+
+  /**
+   * Constructor
+   *
+   * @param numVertices Total number of vertices
+   * @param edgesPerVertex Average number of out-edges per vertex
+   * @param seed Seed for the whole graph
+   */
+  protected PowerLawGraphGenerator(long numVertices, int edgesPerVertex,
+      long seed) {
+    if (numVertices <= 0) {
+      throw new IllegalArgumentException(
+          "PowerLawGraphGenerator: numVertices " + numVertices + " <= 0");
+    }
+    if (edgesPerVertex <= 0) {
+      throw new IllegalArgumentException(
+          "PowerLawGraphGenerator: edgesPerVertex " + edgesPerVertex +
+          " <= 0");
+    }
+    this.numVertices = numVertices;
+    this.edgesPerVertex = edgesPerVertex;
+    this.seed = seed;
+  }
+
+  /**
+   * Create generator from configuration, see
+   * {@link PseudoRandomInputFormatConstants}.
+   *
+   * @param conf Configuration
+   * @return Power-law graph generator
+   */
+  public static PowerLawGraphGenerator create(Configuration conf) {
+    long numVertices = conf.getLong(
+        PseudoRandomInputFormatConstants.AGGREGATE_VERTICES, 0);
+    int edgesPerVertex = conf.getInt(
+        PseudoRandomInputFormatConstants.EDGES_PER_VERTEX, 0);
+    long seed = conf.getLong(
+        PseudoRandomInputFormatConstants.POWER_LAW_SEED, 0);
+    String generator = conf.get(
+        PseudoRandomInputFormatConstants.POWER_LAW_GENERATOR,
+        PseudoRandomInputFormatConstants.POWER_LAW_GENERATOR_DEFAULT);
+    if ("rmat".equalsIgnoreCase(generator)) {
+      return new RMatGraphGenerator(numVertices, edgesPerVertex, seed,
+          conf.getFloat(PseudoRandomInputFormatConstants.RMAT_A,
+              PseudoRandomInputFormatConstants.RMAT_A_DEFAULT),
+          conf.getFloat(PseudoRandomInputFormatConstants.RMAT_B,
+              PseudoRandomInputFormatConstants.RMAT_B_DEFAULT),
+          conf.getFloat(PseudoRandomInputFormatConstants.RMAT_C,
+              PseudoRandomInputFormatConstants.RMAT_C_DEFAULT));
+    } else if ("chunglu".equalsIgnoreCase(generator)) {
+      return new ChungLuGraphGenerator(numVertices, edgesPerVertex, seed,
+          conf.getFloat(PseudoRandomInputFormatConstants.POWER_LAW_EXPONENT,
+              PseudoRandomInputFormatConstants.POWER_LAW_EXPONENT_DEFAULT));
+    } else {
+      throw new IllegalArgumentException("create: Unknown generator " +
+          generator + ", use rmat or chunglu");
+    }
+  }
+
+  /**
+   * Get total number of vertices
+   *
+   * @return Total number of vertices
+   */
+  public long getNumVertices() {
+    return numVertices;
+  }
+
+  /**
+   * Reset random number generator for generating data of a vertex
+   *
+   * @param vertexId Vertex id
+   * @param random Random number generator to reset
+   */
+  public void seedVertex(long vertexId, Random random) {
+    random.setSeed(seed ^ (vertexId * SEED_MIX));
+  }
+
+  /**
+   * Randomly round expected number of edges, so that the total number of
+   * edges matches the expected one on average.
+   *
+   * @param expectedEdges Expected number of edges
+   * @param random Random number generator
+   * @return Number of edges
+   */
+  protected static int roundNumEdges(double expectedEdges, Random random) {
+    if (expectedEdges >= Integer.MAX_VALUE) {
+      return Integer.MAX_VALUE;
+    }
+    int numEdges = (int) expectedEdges;
+    if (random.nextDouble() < expectedEdges - numEdges) {
+      ++numEdges;
+    }
+    return numEdges;
+  }
+
+  /**
+   * Get number of out-edges of a vertex. Has to be called right after
+   * {@link #seedVertex(long, Random)}, before generating any targets.
+   *
+   * @param vertexId Vertex id
+   * @param random Random number generator of the vertex
+   * @return Number of out-edges
+   */
+  public abstract int getNumEdges(long vertexId, Random random);
+
+  /**
+   * Generate target of the next out-edge of a vertex
+   *
+   * @param vertexId Source vertex id
+   * @param random Random number generator of the vertex
+   * @return Target vertex id, in [0, numVertices)
+   */
+  public abstract long generateDestVertex(long vertexId, Random random);
+}
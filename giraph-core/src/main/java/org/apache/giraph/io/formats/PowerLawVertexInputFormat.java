@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.edge.OutEdges;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.VertexInputFormat;
+import org.apache.giraph.io.VertexReader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * VertexInputFormat for large scale testing on skewed graphs. Like
+ * {@link PseudoRandomVertexInputFormat}, but out-degrees and edge targets
+ * follow a power-law distribution, generated by
+ * {@link PowerLawGraphGenerator} (R-MAT or Chung-Lu). Number of edges per
+ * vertex is the average out-degree. Output is repeatable for the same
+ * parameters and seed, regardless of the number of splits.
+ */
+public class PowerLawVertexInputFormat extends
+    VertexInputFormat<LongWritable, DoubleWritable, DoubleWritable> {
+  @Override public void checkInputSpecs(Configuration conf) { }
+
+  @Override
+  public final List<InputSplit> getSplits(final JobContext context,
+      final int minSplitCountHint) throws IOException, InterruptedException {
+    return PseudoRandomUtils.getSplits(minSplitCountHint);
+  }
+
+  @Override
+  public VertexReader<LongWritable, DoubleWritable, DoubleWritable>
+  createVertexReader(InputSplit split, TaskAttemptContext context)
+    throws IOException {
+    return new PowerLawVertexReader();
+  }
+
+  /**
+   * Used by {@link PowerLawVertexInputFormat} to read generated data.
+   */
+  private static class PowerLawVertexReader extends
+      VertexReader<LongWritable, DoubleWritable, DoubleWritable> {
+    /** Starting vertex id. */
+    private long startingVertexId = -1;
+    /** Vertices read so far. */
+    private long verticesRead = 0;
+    /** Total vertices to read (on this split alone). */
+    private long totalSplitVertices = -1;
+    /** Graph generator */
+    private PowerLawGraphGenerator generator;
+    /** Random number generator, reseeded for every vertex */
+    private final Random random = new Random();
+
+    @Override
+    public void initialize(InputSplit inputSplit,
+        TaskAttemptContext context) throws IOException {
+      generator = PowerLawGraphGenerator.create(getConf());
+      startingVertexId = PseudoRandomUtils.getSplitStartingVertexId(
+          inputSplit, generator.getNumVertices());
+      totalSplitVertices = PseudoRandomUtils.getSplitNumVertices(
+          inputSplit, generator.getNumVertices());
+    }
+
+    @Override
+    public boolean nextVertex() throws IOException, InterruptedException {
+      return totalSplitVertices > verticesRead;
+    }
+
+    @Override
+    public Vertex<LongWritable, DoubleWritable, DoubleWritable>
+    getCurrentVertex() throws IOException, InterruptedException {
+      Vertex<LongWritable, DoubleWritable, DoubleWritable> vertex =
+          getConf().createVertex();
+      long vertexId = startingVertexId + verticesRead;
+      generator.seedVertex(vertexId, random);
+      int numEdges = generator.getNumEdges(vertexId, random);
+      DoubleWritable vertexValue = new DoubleWritable(random.nextDouble());
+      OutEdges<LongWritable, DoubleWritable> edges =
+          getConf().createAndInitializeOutEdges(numEdges);
+      for (int i = 0; i < numEdges; ++i) {
+        edges.add(EdgeFactory.create(
+            new LongWritable(generator.generateDestVertex(vertexId, random)),
+            new DoubleWritable(random.nextDouble())));
+      }
+      vertex.initialize(new LongWritable(vertexId), vertexValue, edges);
+      ++verticesRead;
+      return vertex;
+    }
+
+    @Override
+    public void close() throws IOException { }
+
+    @Override
+    public float getProgress() throws IOException {
+      return verticesRead * 100.0f / totalSplitVertices;
+    }
+  }
+}
@@ -33,6 +33,34 @@ public class PseudoRandomInputFormatConstants {
       "giraph.pseudoRandomInputFormat.localEdgesMinRatio";
   /** Default minimum ratio of partition-local edges. */
   public static final float LOCAL_EDGES_MIN_RATIO_DEFAULT = 0;
+  /**
+   * Which power-law generator to use in power-law input formats,
+   * "rmat" or "chunglu".
+   */
+  public static final String POWER_LAW_GENERATOR =
+      "giraph.pseudoRandomInputFormat.powerLawGenerator";
+  /** Default power-law generator. */
+  public static final String POWER_LAW_GENERATOR_DEFAULT = "rmat";
+  /** R-MAT probability of an edge falling into the top-left quadrant. */
+  public static final String RMAT_A = "giraph.pseudoRandomInputFormat.rmatA";
+  /** Default R-MAT a (Graph500 parameters). */
+  public static final float RMAT_A_DEFAULT = 0.57f;
+  /** R-MAT probability of an edge falling into the top-right quadrant. */
+  public static final String RMAT_B = "giraph.pseudoRandomInputFormat.rmatB";
+  /** Default R-MAT b (Graph500 parameters). */
+  public static final float RMAT_B_DEFAULT = 0.19f;
+  /** R-MAT probability of an edge falling into the bottom-left quadrant. */
+  public static final String RMAT_C = "giraph.pseudoRandomInputFormat.rmatC";
+  /** Default R-MAT c (Graph500 parameters). */
+  public static final float RMAT_C_DEFAULT = 0.19f;
+  /** Exponent of degree distribution for Chung-Lu generator (> 1). */
+  public static final String POWER_LAW_EXPONENT =
+      "giraph.pseudoRandomInputFormat.powerLawExponent";
+  /** Default exponent of degree distribution. */
+  public static final float POWER_LAW_EXPONENT_DEFAULT = 2.5f;
+  /** Seed for power-law generators, same seed gives same graph. */
+  public static final String POWER_LAW_SEED =
+      "giraph.pseudoRandomInputFormat.powerLawSeed";
 
   /** Do not construct. */
   private PseudoRandomInputFormatConstants() { }
@@ -46,4 +46,55 @@ public class PseudoRandomUtils {
     }
     return inputSplitList;
   }
+
+  /**
+   * Get the first vertex id generated by a split, when vertices
+   * [0, aggregateVertices) are evenly divided among all splits
+   *
+   * @param inputSplit Input split
+   * @param aggregateVertices Total number of vertices
+   * @return First vertex id of the split
+   */
+  public static long getSplitStartingVertexId(InputSplit inputSplit,
+      long aggregateVertices) {
+    BspInputSplit bspInputSplit = toBspInputSplit(inputSplit);
+    long extraVertices = aggregateVertices % bspInputSplit.getNumSplits();
+    return bspInputSplit.getSplitIndex() *
+        (aggregateVertices / bspInputSplit.getNumSplits()) +
+        Math.min(bspInputSplit.getSplitIndex(), extraVertices);
+  }
+
+  /**
+   * Get the number of vertices generated by a split, when vertices
+   * [0, aggregateVertices) are evenly divided among all splits
+   *
+   * @param inputSplit Input split
+   * @param aggregateVertices Total number of vertices
+   * @return Number of vertices in the split
+   */
+  public static long getSplitNumVertices(InputSplit inputSplit,
+      long aggregateVertices) {
+    BspInputSplit bspInputSplit = toBspInputSplit(inputSplit);
+    long splitVertices = aggregateVertices / bspInputSplit.getNumSplits();
+    if (bspInputSplit.getSplitIndex() <
+        aggregateVertices % bspInputSplit.getNumSplits()) {
+      ++splitVertices;
+    }
+    return splitVertices;
+  }
+
+  /**
+   * Cast input split to {@link BspInputSplit}
+   *
+   * @param inputSplit Input split
+   * @return Same split as {@link BspInputSplit}
+   */
+  private static BspInputSplit toBspInputSplit(InputSplit inputSplit) {
+    if (!(inputSplit instanceof BspInputSplit)) {
+      throw new IllegalArgumentException(
+          "toBspInputSplit: Got " + inputSplit.getClass() +
+          " instead of " + BspInputSplit.class);
+    }
+    return (BspInputSplit) inputSplit;
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import java.util.Random;
+
+/**
+ * R-MAT (recursive matrix, Kronecker-like) graph generator. Adjacency
+ * matrix of the 2^scale x 2^scale graph is recursively divided into four
+ * quadrants, with an edge falling into them with probabilities a, b, c and
+ * d = 1 - a - b - c. Edges which fall outside of [0, numVertices) are
+ * rejected.
+ *
+ * Instead of generating edges globally, each source vertex draws its
+ * out-degree from the marginal probability of its row and then chooses
+ * the column bit by bit, conditioned on its own row bits. This gives the
+ * same distribution as global R-MAT while letting every split generate its
+ * vertices independently.
+ */
+public class RMatGraphGenerator extends PowerLawGraphGenerator {
+  /** Number of bits in vertex ids */
+  private final int scale;
+  /** Probability of a row bit being 0 (a + b) */
+  private final double rowZeroProbability;
+  /** Probability of a column bit being 1 when row bit is 0, b / (a + b) */
+  private final double columnOneIfRowZero;
+  /** Probability of a column bit being 1 when row bit is 1, d / (c + d) */
+  private final double columnOneIfRowOne;
+  /**
+   * Expected number of edges in the whole graph divided by the probability
+   * of an edge having source in [0, numVertices)
+   */
+  private final double edgesPerProbability;
+
+  /**
+   * Constructor
+   *
+   * @param numVertices Total number of vertices
+   * @param edgesPerVertex Average number of out-edges per vertex
+   * @param seed Seed for the whole graph
+   * @param a Probability of top-left quadrant
+   * @param b Probability of top-right quadrant
+   * @param c Probability of bottom-left quadrant
+   */
+  public RMatGraphGenerator(long numVertices, int edgesPerVertex, long seed,
+      double a, double b, double c) {
+    super(numVertices, edgesPerVertex, seed);
+    double d = 1 - a - b - c;
+    if (a <= 0 || b < 0 || c < 0 || d <= 0) {
+      throw new IllegalArgumentException("RMatGraphGenerator: Invalid " +
+          "probabilities a=" + a + ", b=" + b + ", c=" + c + ", d=" + d);
+    }
+    scale = numVertices == 1 ? 1 :
+        64 - Long.numberOfLeadingZeros(numVertices - 1);
+    rowZeroProbability = a + b;
+    columnOneIfRowZero = b / (a + b);
+    columnOneIfRowOne = d / (c + d);
+    // Probability of a row in [0, numVertices): sum over bits set in
+    // numVertices, of taking 0 there while matching all higher bits.
+    double validRowsProbability = 0;
+    if (numVertices == 1L << scale) {
+      validRowsProbability = 1;
+    } else {
+      double prefixProbability = 1;
+      for (int bit = scale - 1; bit >= 0; --bit) {
+        if (((numVertices >>> bit) & 1) == 1) {
+          validRowsProbability += prefixProbability * rowZeroProbability;
+          prefixProbability *= 1 - rowZeroProbability;
+        } else {
+          prefixProbability *= rowZeroProbability;
+        }
+      }
+    }
+    edgesPerProbability =
+        (double) numVertices * edgesPerVertex / validRowsProbability;
+  }
+
+  @Override
+  public int getNumEdges(long vertexId, Random random) {
+    double rowProbability = 1;
+    for (int bit = scale - 1; bit >= 0; --bit) {
+      rowProbability *= ((vertexId >>> bit) & 1) == 0 ?
+          rowZeroProbability : 1 - rowZeroProbability;
+    }
+    return roundNumEdges(rowProbability * edgesPerProbability, random);
+  }
+
+  @Override
+  public long generateDestVertex(long vertexId, Random random) {
+    long destVertexId;
+    do {
+      destVertexId = 0;
+      for (int bit = scale - 1; bit >= 0; --bit) {
+        double columnOne = ((vertexId >>> bit) & 1) == 0 ?
+            columnOneIfRowZero : columnOneIfRowOne;
+        destVertexId <<= 1;
+        if (random.nextDouble() < columnOne) {
+          destVertexId |= 1;
+        }
+      }
+    } while (destVertexId >= numVertices);
+    return destVertexId;
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.MappingInputFormat;
+import org.apache.giraph.io.MappingReader;
+import org.apache.giraph.io.VertexInputFormat;
+import org.apache.giraph.io.VertexReader;
+import org.apache.giraph.mapping.DefaultLongByteOps;
+import org.apache.giraph.mapping.LongByteMappingStore;
+import org.apache.giraph.mapping.MappingEntry;
+import org.apache.giraph.mapping.MappingStore;
+import org.apache.giraph.mapping.MappingStoreOps;
+import org.apache.giraph.mapping.StreamingPartitionAssigner;
+import org.apache.giraph.partition.LongMappingStorePartitionerFactory;
+import org.apache.giraph.worker.WorkerAggregatorUsage;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Mapping input format which computes a locality-aware vertex to worker
+ * mapping while streaming over the job's vertex input, instead of reading
+ * a precomputed one. Each vertex goes to the worker which already holds most
+ * of its neighbors (see {@link StreamingPartitionAssigner}), and later
+ * supersteps route messages through the resulting mapping store.
+ *
+ * Every worker reads all mapping splits and has to end up with the same
+ * mapping, while threads pick up splits in arbitrary order. Each split is
+ * therefore streamed independently and only neighbors from the same split
+ * are taken into account; balance within each split keeps the workers
+ * balanced overall. Vertex ids have to be longs, and vertices are assigned
+ * among the workers the job actually started with, at most
+ * {@link StreamingPartitionAssigner#MAX_WORKERS}.
+ *
+ * Since mapping splits are the vertex input splits, every worker reads the
+ * whole vertex input once more before loading its own share of it, so the
+ * job reads its vertex input (number of workers + 1) times. This pays off
+ * when the input is small next to the messages saved over the supersteps;
+ * for large inputs or many workers compute the mapping once offline and
+ * read it with a regular {@link MappingInputFormat} instead.
+ *
+ * Use {@link #configure(GiraphConfiguration)} to set up the mapping store
+ * and partitioner which go with it.
+ *
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public class StreamingPartitionMappingInputFormat<V extends Writable,
+    E extends Writable>
+    extends MappingInputFormat<LongWritable, V, E, ByteWritable> {
+  /** Default number of ids per mapping store block */
+  private static final int DEFAULT_MAPPING_STORE_LOWER = 4096;
+  /** Default initial number of mapping store blocks */
+  private static final int DEFAULT_MAPPING_STORE_UPPER = 1024;
+
+  /** Vertex input format which is streamed over */
+  private VertexInputFormat<LongWritable, V, E> vertexInputFormat;
+
+  /**
+   * Use streaming partitioning for the job, setting the mapping input
+   * format, mapping store and partitioner. Mapping store block sizes are
+   * only set if they weren't set already.
+   *
+   * @param conf Configuration
+   */
+  public static void configure(GiraphConfiguration conf) {
+    GiraphConstants.MAPPING_INPUT_FORMAT_CLASS.set(conf,
+        StreamingPartitionMappingInputFormat.class);
+    conf.setClass(GiraphConstants.MAPPING_STORE_CLASS.getKey(),
+        LongByteMappingStore.class, MappingStore.class);
+    conf.setClass(GiraphConstants.MAPPING_STORE_OPS_CLASS.getKey(),
+        DefaultLongByteOps.class, MappingStoreOps.class);
+    conf.setGraphPartitionerFactoryClass(
+        LongMappingStorePartitionerFactory.class);
+    if (GiraphConstants.LB_MAPPINGSTORE_LOWER.get(conf) <= 0) {
+      GiraphConstants.LB_MAPPINGSTORE_LOWER.set(conf,
+          DEFAULT_MAPPING_STORE_LOWER);
+    }
+    if (GiraphConstants.LB_MAPPINGSTORE_UPPER.get(conf) <= 0) {
+      GiraphConstants.LB_MAPPINGSTORE_UPPER.set(conf,
+          DEFAULT_MAPPING_STORE_UPPER);
+    }
+  }
+
+  @Override
+  public void setConf(
+      ImmutableClassesGiraphConfiguration<LongWritable, V, E> conf) {
+    super.setConf(conf);
+    vertexInputFormat = conf.createWrappedVertexInputFormat();
+  }
+
+  @Override
+  public void checkInputSpecs(Configuration conf) {
+    // Vertex input is checked on its own
+  }
+
+  /**
+   * Mapping splits are the vertex input splits, all of which every worker
+   * reads.
+   *
+   * @param context Context of the job
+   * @param minSplitCountHint Minimum number of splits to create
+   * @return Vertex input splits
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  @Override
+  public List<InputSplit> getSplits(JobContext context,
+      int minSplitCountHint) throws IOException, InterruptedException {
+    return vertexInputFormat.getSplits(context, minSplitCountHint);
+  }
+
+  @Override
+  public void writeInputSplit(InputSplit inputSplit,
+      DataOutput dataOutput) throws IOException {
+    vertexInputFormat.writeInputSplit(inputSplit, dataOutput);
+  }
+
+  @Override
+  public InputSplit readInputSplit(DataInput dataInput) throws IOException,
+      ClassNotFoundException {
+    return vertexInputFormat.readInputSplit(dataInput);
+  }
+
+  @Override
+  public MappingReader<LongWritable, V, E, ByteWritable> createMappingReader(
+      InputSplit split, TaskAttemptContext context) throws IOException {
+    return new StreamingPartitionMappingReader(
+        vertexInputFormat.createVertexReader(split, context));
+  }
+
+  /**
+   * Mapping reader which assigns vertices of one split to workers
+   */
+  private class StreamingPartitionMappingReader
+      extends MappingReader<LongWritable, V, E, ByteWritable> {
+    /** Reader of the split's vertices */
+    private final VertexReader<LongWritable, V, E> vertexReader;
+    /** Neighbors of the current vertex */
+    private final LongArrayList neighbors = new LongArrayList();
+    /** Reusable entry returned to the caller */
+    private final MappingEntry<LongWritable, ByteWritable> entry =
+        new MappingEntry<LongWritable, ByteWritable>(new LongWritable(),
+            new ByteWritable());
+    /** Assigner for this split */
+    private StreamingPartitionAssigner assigner;
+
+    /**
+     * Constructor
+     *
+     * @param vertexReader Reader of the split's vertices
+     */
+    public StreamingPartitionMappingReader(
+        VertexReader<LongWritable, V, E> vertexReader) {
+      this.vertexReader = vertexReader;
+    }
+
+    @Override
+    public void initialize(InputSplit inputSplit,
+        TaskAttemptContext context) throws IOException,
+        InterruptedException {
+      if (getNumWorkers() < 1) {
+        throw new IllegalStateException("initialize: Number of workers " +
+            "must be set before streaming a mapping split");
+      }
+      vertexReader.setConf(getConf());
+      vertexReader.initialize(inputSplit, context);
+      assigner = new StreamingPartitionAssigner(getConf(), getNumWorkers());
+    }
+
+    @Override
+    public void setWorkerAggregatorUse(WorkerAggregatorUsage agg) {
+      super.setWorkerAggregatorUse(agg);
+      vertexReader.setWorkerAggregatorUse(agg);
+    }
+
+    @Override
+    public boolean nextEntry() throws IOException, InterruptedException {
+      if (!vertexReader.nextVertex()) {
+        return false;
+      }
+      Vertex<LongWritable, V, E> vertex = vertexReader.getCurrentVertex();
+      neighbors.clear();
+      for (Edge<LongWritable, E> edge : vertex.getEdges()) {
+        neighbors.add(edge.getTargetVertexId().get());
+      }
+      long vertexId = vertex.getId().get();
+      entry.getVertexId().set(vertexId);
+      entry.getMappingTarget().set(assigner.assign(vertexId, neighbors));
+      return true;
+    }
+
+    @Override
+    public MappingEntry<LongWritable, ByteWritable> getCurrentEntry() {
+      return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+      vertexReader.close();
+    }
+
+    @Override
+    public float getProgress() throws IOException, InterruptedException {
+      return vertexReader.getProgress();
+    }
+  }
+}
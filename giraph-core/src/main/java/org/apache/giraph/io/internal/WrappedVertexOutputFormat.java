@@ -21,8 +21,10 @@ package org.apache.giraph.io.internal;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.VertexPartitionWriter;
 import org.apache.giraph.io.VertexWriter;
 import org.apache.giraph.job.HadoopUtils;
+import org.apache.giraph.partition.Partition;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.JobContext;
@@ -68,34 +70,10 @@ public class WrappedVertexOutputFormat<I extends WritableComparable,
     final VertexWriter<I, V, E> vertexWriter =
         originalOutputFormat.createVertexWriter(
             HadoopUtils.makeTaskAttemptContext(getConf(), context));
-    return new VertexWriter<I, V, E>() {
-      @Override
-      public void setConf(
-          ImmutableClassesGiraphConfiguration<I, V, E> conf) {
-        super.setConf(conf);
-        vertexWriter.setConf(conf);
-      }
-
-      @Override
-      public void initialize(
-          TaskAttemptContext context) throws IOException, InterruptedException {
-        vertexWriter.initialize(
-            HadoopUtils.makeTaskAttemptContext(getConf(), context));
-      }
-
-      @Override
-      public void close(
-          TaskAttemptContext context) throws IOException, InterruptedException {
-        vertexWriter.close(
-            HadoopUtils.makeTaskAttemptContext(getConf(), context));
-      }
-
-      @Override
-      public void writeVertex(
-          Vertex<I, V, E> vertex) throws IOException, InterruptedException {
-        vertexWriter.writeVertex(vertex);
-      }
-    };
+    if (vertexWriter instanceof VertexPartitionWriter) {
+      return new WrappedVertexPartitionWriter(vertexWriter);
+    }
+    return new WrappedVertexWriter(vertexWriter);
   }
 
   @Override
@@ -165,4 +143,71 @@ public class WrappedVertexOutputFormat<I extends WritableComparable,
       /*end[HADOOP_NON_COMMIT_JOB]*/
     };
   }
+
+  /**
+   * Wraps user's {@link VertexWriter} to pass proper contexts to it
+   */
+  private class WrappedVertexWriter extends VertexWriter<I, V, E> {
+    /** {@link VertexWriter} which is wrapped */
+    protected final VertexWriter<I, V, E> vertexWriter;
+
+    /**
+     * Constructor
+     *
+     * @param vertexWriter Vertex writer to wrap
+     */
+    public WrappedVertexWriter(VertexWriter<I, V, E> vertexWriter) {
+      this.vertexWriter = vertexWriter;
+    }
+
+    @Override
+    public void setConf(
+        ImmutableClassesGiraphConfiguration<I, V, E> conf) {
+      super.setConf(conf);
+      vertexWriter.setConf(conf);
+    }
+
+    @Override
+    public void initialize(
+        TaskAttemptContext context) throws IOException, InterruptedException {
+      vertexWriter.initialize(
+          HadoopUtils.makeTaskAttemptContext(getConf(), context));
+    }
+
+    @Override
+    public void close(
+        TaskAttemptContext context) throws IOException, InterruptedException {
+      vertexWriter.close(
+          HadoopUtils.makeTaskAttemptContext(getConf(), context));
+    }
+
+    @Override
+    public void writeVertex(
+        Vertex<I, V, E> vertex) throws IOException, InterruptedException {
+      vertexWriter.writeVertex(vertex);
+    }
+  }
+
+  /**
+   * Wraps user's {@link VertexWriter} which can also write whole partitions
+   */
+  private class WrappedVertexPartitionWriter extends WrappedVertexWriter
+      implements VertexPartitionWriter<I, V, E> {
+    /**
+     * Constructor
+     *
+     * @param vertexWriter Vertex writer to wrap, has to implement
+     *                     {@link VertexPartitionWriter}
+     */
+    public WrappedVertexPartitionWriter(VertexWriter<I, V, E> vertexWriter) {
+      super(vertexWriter);
+    }
+
+    @Override
+    public void writePartition(Partition<I, V, E> partition)
+      throws IOException, InterruptedException {
+      ((VertexPartitionWriter<I, V, E>) vertexWriter).writePartition(
+          partition);
+    }
+  }
 }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.superstep_output;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.ReusableEdge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.EdgeOutputFormat;
+import org.apache.giraph.io.EdgeWriter;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * Decouples iterating over edges from writing them, for EdgeOutputFormats
+ * which are not thread-safe. Many threads can serialize edges of vertices
+ * into buffers, which are then written by writer threads through
+ * {@link EdgeWriter}s.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public class AsyncEdgeWriterPool<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends AsyncOutputWriterPool<I, V, E> {
+  /** Edge output format, used to get new edge writers */
+  private final EdgeOutputFormat<I, V, E> edgeOutputFormat;
+
+  /**
+   * Constructor, starts writer threads
+   *
+   * @param conf Configuration
+   * @param context Mapper context
+   * @param numWriterThreads Number of writer threads
+   */
+  public AsyncEdgeWriterPool(
+      ImmutableClassesGiraphConfiguration<I, V, E> conf,
+      Mapper<?, ?, ?, ?>.Context context, int numWriterThreads) {
+    super(conf, context);
+    edgeOutputFormat = conf.createWrappedEdgeOutputFormat();
+    start(numWriterThreads, "async-edge-writer-%d");
+  }
+
+  /**
+   * Create new writer which serializes edges and hands them over to
+   * writer threads. Returned writer is not thread-safe, every producer thread
+   * should have its own, and {@link AsyncEdgeWriter#flush()} it when done.
+   *
+   * @return Buffering edge writer
+   */
+  public AsyncEdgeWriter createEdgeWriter() {
+    return new AsyncEdgeWriter();
+  }
+
+  @Override
+  protected BufferConsumer createBufferConsumer() throws IOException,
+      InterruptedException {
+    final EdgeWriter<I, V, E> edgeWriter =
+        edgeOutputFormat.createEdgeWriter(context);
+    edgeWriter.setConf(conf);
+    edgeWriter.initialize(context);
+    final I sourceId = conf.createVertexId();
+    final V sourceValue = conf.createVertexValue();
+    final ReusableEdge<I, E> edge = conf.createReusableEdge();
+    return new BufferConsumer() {
+      @Override
+      public void consume(ExtendedDataInput input) throws IOException,
+          InterruptedException {
+        while (!input.endOfInput()) {
+          sourceId.readFields(input);
+          sourceValue.readFields(input);
+          int numEdges = input.readInt();
+          for (int i = 0; i < numEdges; i++) {
+            WritableUtils.readEdge(input, edge);
+            edgeWriter.writeEdge(sourceId, sourceValue, edge);
+          }
+        }
+      }
+
+      @Override
+      public void close() throws IOException, InterruptedException {
+        edgeWriter.close(context);
+      }
+    };
+  }
+
+  /**
+   * Edge writer which serializes edges into a buffer, and passes full
+   * buffers to writer threads. Not thread-safe.
+   */
+  public class AsyncEdgeWriter extends BufferingWriter {
+    /**
+     * Serialize all out-edges of a vertex. Source id and value are
+     * serialized only once per vertex.
+     *
+     * @param vertex Vertex whose edges to write
+     * @return Number of edges written
+     * @throws IOException
+     */
+    public int writeEdges(Vertex<I, V, E> vertex) throws IOException {
+      ExtendedDataOutput buffer = getBuffer();
+      vertex.getId().write(buffer);
+      vertex.getValue().write(buffer);
+      int numEdgesPos = buffer.getPos();
+      buffer.skipBytes(4);
+      int numEdges = 0;
+      for (Edge<I, E> edge : vertex.getEdges()) {
+        WritableUtils.writeEdge(buffer, edge);
+        ++numEdges;
+      }
+      buffer.writeInt(numEdgesPos, numEdges);
+      recordWritten();
+      return numEdges;
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.superstep_output;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.utils.ExtendedByteArrayDataOutput;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.LogStacktraceCallable;
+import org.apache.giraph.utils.ProgressableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decouples producing output from writing it. Producer threads serialize
+ * records into buffers, and full buffers are drained by a pool of dedicated
+ * writer threads, each with its own {@link BufferConsumer}. The number of
+ * full buffers waiting to be written is bounded, so producers block when
+ * writers can't keep up.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public abstract class AsyncOutputWriterPool<I extends WritableComparable,
+    V extends Writable, E extends Writable> {
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(AsyncOutputWriterPool.class);
+  /** Buffer which signals writer threads that there is no more output */
+  private static final ExtendedDataOutput END_OF_OUTPUT =
+      new ExtendedByteArrayDataOutput(0);
+  /** How long to wait for space in the queue before checking writers */
+  private static final int OFFER_WAIT_MSECS = 1000;
+
+  /** Configuration */
+  protected final ImmutableClassesGiraphConfiguration<I, V, E> conf;
+  /** Mapper context */
+  protected final Mapper<?, ?, ?, ?>.Context context;
+  /** Size after which buffer is handed over to writer threads */
+  private final int bufferSize;
+  /** Full buffers waiting to be written */
+  private final BlockingQueue<ExtendedDataOutput> fullBuffers;
+  /** Buffers which were already written and can be reused */
+  private final ConcurrentLinkedQueue<ExtendedDataOutput> freeBuffers =
+      new ConcurrentLinkedQueue<ExtendedDataOutput>();
+  /** First exception thrown by some of the writer threads */
+  private final AtomicReference<Throwable> writerFailure =
+      new AtomicReference<Throwable>();
+  /** Results of writer threads */
+  private final List<Future<Void>> writerFutures = Lists.newArrayList();
+
+  /**
+   * Constructor. Subclasses have to call {@link #start(int, String)} once
+   * they are ready to create {@link BufferConsumer}s.
+   *
+   * @param conf Configuration
+   * @param context Mapper context
+   */
+  protected AsyncOutputWriterPool(
+      ImmutableClassesGiraphConfiguration<I, V, E> conf,
+      Mapper<?, ?, ?, ?>.Context context) {
+    this.conf = conf;
+    this.context = context;
+    bufferSize = GiraphConstants.ASYNC_VERTEX_OUTPUT_BUFFER_SIZE.get(conf);
+    fullBuffers = new ArrayBlockingQueue<ExtendedDataOutput>(Math.max(1,
+        GiraphConstants.ASYNC_VERTEX_OUTPUT_MAX_BUFFERS.get(conf)));
+  }
+
+  /**
+   * Start writer threads
+   *
+   * @param numThreads Number of writer threads
+   * @param threadNameFormat Format for thread names
+   */
+  protected void start(int numThreads, String threadNameFormat) {
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads,
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat(threadNameFormat).build());
+    for (int i = 0; i < numThreads; i++) {
+      writerFutures.add(executor.submit(
+          new LogStacktraceCallable<Void>(new WriterCallable())));
+    }
+    executor.shutdown();
+    if (LOG.isInfoEnabled()) {
+      LOG.info("start: Started " + numThreads + " " +
+          getClass().getSimpleName() + " writer threads, buffer size " +
+          bufferSize);
+    }
+  }
+
+  /**
+   * Create consumer which will write out buffers on one of the writer
+   * threads. Called once on each writer thread.
+   *
+   * @return Buffer consumer
+   */
+  protected abstract BufferConsumer createBufferConsumer()
+    throws IOException, InterruptedException;
+
+  /**
+   * Wait for all queued output to be written and close underlying
+   * writers. All {@link BufferingWriter}s have to be flushed before this
+   * call.
+   */
+  public void close() {
+    for (int i = 0; i < writerFutures.size(); i++) {
+      putBuffer(END_OF_OUTPUT);
+    }
+    for (Future<Void> future : writerFutures) {
+      ProgressableUtils.getFutureResult(future, context);
+    }
+    checkWriters();
+  }
+
+  /**
+   * Hand over a buffer to writer threads, blocking while queue is full.
+   *
+   * @param buffer Buffer to write
+   */
+  private void putBuffer(ExtendedDataOutput buffer) {
+    try {
+      while (!fullBuffers.offer(buffer, OFFER_WAIT_MSECS,
+          TimeUnit.MILLISECONDS)) {
+        checkWriters();
+        context.progress();
+      }
+    } catch (InterruptedException e) {
+      throw new IllegalStateException("putBuffer: Interrupted", e);
+    }
+  }
+
+  /**
+   * Fail fast if some of the writer threads failed, otherwise producers
+   * could block forever on a full queue.
+   */
+  private void checkWriters() {
+    Throwable failure = writerFailure.get();
+    if (failure != null) {
+      throw new IllegalStateException("checkWriters: Writer thread failed",
+          failure);
+    }
+  }
+
+  /**
+   * Get an empty buffer, reusing one which was already written if possible
+   *
+   * @return Empty buffer
+   */
+  private ExtendedDataOutput getFreeBuffer() {
+    ExtendedDataOutput buffer = freeBuffers.poll();
+    if (buffer == null) {
+      buffer = conf.createExtendedDataOutput(bufferSize);
+    }
+    return buffer;
+  }
+
+  /**
+   * Writes out serialized records on a writer thread.
+   */
+  protected interface BufferConsumer {
+    /**
+     * Deserialize and write out all records from the input
+     *
+     * @param input Serialized records
+     */
+    void consume(ExtendedDataInput input)
+      throws IOException, InterruptedException;
+
+    /**
+     * Close underlying writer, called when there is no more output
+     */
+    void close() throws IOException, InterruptedException;
+  }
+
+  /**
+   * Serializes records into a buffer, and passes full buffers to writer
+   * threads. Not thread-safe, every producer thread should have its own.
+   */
+  public class BufferingWriter {
+    /** Buffer currently being filled */
+    private ExtendedDataOutput buffer = getFreeBuffer();
+
+    /**
+     * Get the buffer to serialize next record into
+     *
+     * @return Buffer
+     */
+    protected ExtendedDataOutput getBuffer() {
+      return buffer;
+    }
+
+    /**
+     * Call after each serialized record, hands over the buffer to writer
+     * threads if it's full.
+     */
+    protected void recordWritten() {
+      if (buffer.getPos() >= bufferSize) {
+        flush();
+      }
+    }
+
+    /**
+     * Hand over everything serialized so far to writer threads
+     */
+    public void flush() {
+      if (buffer.getPos() > 0) {
+        putBuffer(buffer);
+        buffer = getFreeBuffer();
+      }
+    }
+  }
+
+  /**
+   * Callable run by each of the writer threads
+   */
+  private class WriterCallable implements Callable<Void> {
+    @Override
+    public Void call() throws Exception {
+      try {
+        BufferConsumer consumer = createBufferConsumer();
+        while (true) {
+          ExtendedDataOutput buffer = fullBuffers.take();
+          if (buffer == END_OF_OUTPUT) {
+            break;
+          }
+          consumer.consume(conf.createExtendedDataInput(buffer));
+          buffer.reset();
+          freeBuffers.offer(buffer);
+        }
+        consumer.close();
+        return null;
+        // CHECKSTYLE: stop IllegalCatchCheck
+      } catch (Exception e) {
+        // CHECKSTYLE: resume IllegalCatchCheck
+        writerFailure.compareAndSet(null, e);
+        throw e;
+      }
+    }
+  }
+}
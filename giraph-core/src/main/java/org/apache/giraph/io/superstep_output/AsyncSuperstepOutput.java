@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.superstep_output;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.io.SimpleVertexWriter;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class to use as {@link SuperstepOutput} when vertex output should be
+ * written asynchronously. Compute threads only serialize vertices, actual
+ * writing is done by {@link AsyncVertexWriterPool}. Works with both
+ * thread-safe and non thread-safe VertexOutputFormats.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public class AsyncSuperstepOutput<I extends WritableComparable,
+    V extends Writable, E extends Writable> implements
+    SuperstepOutput<I, V, E> {
+  /** Pool of writer threads */
+  private final AsyncVertexWriterPool<I, V, E> writerPool;
+  /** Buffering vertex writers which are not currently used */
+  private final List<AsyncVertexWriterPool<I, V, E>.AsyncVertexWriter>
+  availableVertexWriters = Lists.newArrayList();
+  /** Buffering vertex writers which are currently used */
+  private final Set<AsyncVertexWriterPool<I, V, E>.AsyncVertexWriter>
+  occupiedVertexWriters = Sets.newHashSet();
+
+  /**
+   * Constructor
+   *
+   * @param conf    Configuration
+   * @param context Mapper context
+   */
+  public AsyncSuperstepOutput(
+      ImmutableClassesGiraphConfiguration<I, V, E> conf,
+      Mapper<?, ?, ?, ?>.Context context) {
+    writerPool = new AsyncVertexWriterPool<I, V, E>(conf, context);
+  }
+
+  @Override
+  public synchronized SimpleVertexWriter<I, V, E> getVertexWriter() {
+    AsyncVertexWriterPool<I, V, E>.AsyncVertexWriter vertexWriter;
+    if (availableVertexWriters.isEmpty()) {
+      vertexWriter = writerPool.createVertexWriter();
+    } else {
+      vertexWriter =
+          availableVertexWriters.remove(availableVertexWriters.size() - 1);
+    }
+    occupiedVertexWriters.add(vertexWriter);
+    return vertexWriter;
+  }
+
+  @Override
+  public void returnVertexWriter(SimpleVertexWriter<I, V, E> vertexWriter) {
+    AsyncVertexWriterPool<I, V, E>.AsyncVertexWriter returnedWriter =
+        (AsyncVertexWriterPool<I, V, E>.AsyncVertexWriter) vertexWriter;
+    // Flush outside of the lock, it can block while writers catch up
+    returnedWriter.flush();
+    synchronized(this) {
+      if (!occupiedVertexWriters.remove(returnedWriter)) {
+        throw new IllegalStateException("returnVertexWriter: " +
+            "Returned vertex writer which is not currently occupied!");
+      }
+      availableVertexWriters.add(returnedWriter);
+    }
+  }
+
+  @Override
+  public synchronized void postApplication() throws IOException,
+      InterruptedException {
+    if (!occupiedVertexWriters.isEmpty()) {
+      throw new IllegalStateException("postApplication: " +
+          occupiedVertexWriters.size() +
+          " vertex writers were not returned!");
+    }
+    writerPool.close();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.superstep_output;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.SimpleVertexWriter;
+import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.VertexWriter;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * Decouples producing vertex output from writing it. Threads which produce
+ * output (compute threads or save threads) serialize vertices into buffers,
+ * and full buffers are drained by a pool of dedicated writer threads, each
+ * with its own {@link VertexWriter}. The number of full buffers waiting to
+ * be written is bounded, so producers block when writers can't keep up.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public class AsyncVertexWriterPool<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends AsyncOutputWriterPool<I, V, E> {
+  /** Vertex output format, used to get new vertex writers */
+  private final VertexOutputFormat<I, V, E> vertexOutputFormat;
+
+  /**
+   * Constructor, starts writer threads
+   *
+   * @param conf Configuration
+   * @param context Mapper context
+   */
+  public AsyncVertexWriterPool(
+      ImmutableClassesGiraphConfiguration<I, V, E> conf,
+      Mapper<?, ?, ?, ?>.Context context) {
+    super(conf, context);
+    vertexOutputFormat = conf.createWrappedVertexOutputFormat();
+    start(conf.getNumAsyncVertexOutputThreads(), "async-vertex-writer-%d");
+  }
+
+  /**
+   * Create new writer which serializes vertices and hands them over to
+   * writer threads. Returned writer is not thread-safe, every producer thread
+   * should have its own, and {@link AsyncVertexWriter#flush()} it when done.
+   *
+   * @return Buffering vertex writer
+   */
+  public AsyncVertexWriter createVertexWriter() {
+    return new AsyncVertexWriter();
+  }
+
+  @Override
+  protected BufferConsumer createBufferConsumer() throws IOException,
+      InterruptedException {
+    final VertexWriter<I, V, E> vertexWriter =
+        vertexOutputFormat.createVertexWriter(context);
+    vertexWriter.setConf(conf);
+    vertexWriter.initialize(context);
+    final Vertex<I, V, E> vertex = conf.createVertex();
+    vertex.initialize(conf.createVertexId(), conf.createVertexValue(),
+        conf.createOutEdges());
+    return new BufferConsumer() {
+      @Override
+      public void consume(ExtendedDataInput input) throws IOException,
+          InterruptedException {
+        while (!input.endOfInput()) {
+          WritableUtils.reinitializeVertexFromDataInput(input, vertex, conf);
+          vertexWriter.writeVertex(vertex);
+        }
+      }
+
+      @Override
+      public void close() throws IOException, InterruptedException {
+        vertexWriter.close(context);
+      }
+    };
+  }
+
+  /**
+   * Vertex writer which serializes vertices into a buffer, and passes full
+   * buffers to writer threads. Not thread-safe.
+   */
+  public class AsyncVertexWriter extends BufferingWriter
+      implements SimpleVertexWriter<I, V, E> {
+    @Override
+    public void writeVertex(Vertex<I, V, E> vertex) throws IOException,
+        InterruptedException {
+      WritableUtils.writeVertexToDataOutput(getBuffer(), vertex, conf);
+      recordWritten();
+    }
+  }
+}
@@ -83,6 +83,8 @@ public class CombinedWorkerProgress extends WorkerProgress {
           verticesStored += workerProgress.getVerticesStored();
           partitionsToStore += workerProgress.getPartitionsToStore();
           partitionsStored += workerProgress.getPartitionsStored();
+          edgesToStore += workerProgress.getEdgesToStore();
+          edgesStored += workerProgress.getEdgesStored();
         }
       }
 
@@ -135,6 +137,10 @@ public class CombinedWorkerProgress extends WorkerProgress {
           verticesToStore).append(" vertices stored; ");
       sb.append(partitionsStored).append(" out of ").append(
           partitionsToStore).append(" partitions stored");
+      if (edgesToStore > 0) {
+        sb.append("; ").append(edgesStored).append(" out of ").append(
+            edgesToStore).append(" edges stored");
+      }
     }
     sb.append("; min free memory on worker ").append(
         workerWithMinFreeMemory).append(" - ").append(
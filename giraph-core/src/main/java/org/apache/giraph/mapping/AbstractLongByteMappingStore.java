@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+import org.apache.giraph.conf.DefaultImmutableClassesGiraphConfigurable;
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+
+/**
+ * Base class for implementations of MappingStore<LongWritable, ByteWritable>
+ * which {@link AbstractLongByteOps} can operate on. Targets are treated as
+ * unsigned bytes, and -1 means no target.
+ */
+public abstract class AbstractLongByteMappingStore
+  extends DefaultImmutableClassesGiraphConfigurable<LongWritable, Writable,
+  Writable> implements MappingStore<LongWritable, ByteWritable> {
+  /**
+   * Auxiliary method to be used by getTarget
+   *
+   * @param vertexId vertexId
+   * @return return byte value of target, -1 if not assigned
+   */
+  public abstract byte getByteTarget(LongWritable vertexId);
+
+  @Override
+  public ByteWritable getTarget(LongWritable vertexId,
+    ByteWritable target) {
+    byte bval = getByteTarget(vertexId);
+    if (bval == -1) { // worker not assigned by mapping
+      return null;
+    }
+    target.set(bval);
+    return target;
+  }
+}
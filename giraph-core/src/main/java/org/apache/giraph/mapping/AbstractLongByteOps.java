@@ -28,12 +28,12 @@ import org.apache.hadoop.io.LongWritable;
 public abstract class AbstractLongByteOps
   implements MappingStoreOps<LongWritable, ByteWritable> {
   /** Mapping store instance to operate on */
-  protected LongByteMappingStore mappingStore;
+  protected AbstractLongByteMappingStore mappingStore;
 
   @Override
   public void initialize(MappingStore<LongWritable,
       ByteWritable> mappingStore) {
-    this.mappingStore = (LongByteMappingStore) mappingStore;
+    this.mappingStore = (AbstractLongByteMappingStore) mappingStore;
   }
 
   /**
@@ -0,0 +1,555 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+import org.apache.giraph.utils.OffHeapLongArray;
+
+import java.io.Closeable;
+
+/**
+ * Sorted map from long ids to byte targets, kept off-heap and compressed
+ * in blocks of up to {@link #BLOCK_SIZE} entries.
+ *
+ * Within a block, the i-th id is stored as its distance from
+ * <code>firstId + i</code>, bit-packed with the smallest width which fits
+ * all of them, so consecutive ids take no space at all. Targets are stored
+ * as their distance from the smallest target in the block, also
+ * bit-packed, so blocks with a single target take no space for them
+ * either.
+ *
+ * To find the block of an id, the id range is split into equal buckets,
+ * about one per block, and the first block of each bucket is recorded.
+ * Lookup computes the bucket with a shift, and then only has to search
+ * the few blocks of that bucket. The block is then directly indexed
+ * (consecutive ids) or binary searched.
+ *
+ * Entries have to be added in increasing id order, after which
+ * {@link #finish()} is called. Lookups are only valid, and thread-safe,
+ * once finished.
+ */
+public final class CompressedLongByteArray implements Closeable {
+  /** Maximum number of entries in a block */
+  public static final int BLOCK_SIZE = 64;
+  /** Bits of block header used for entry count */
+  private static final int COUNT_BITS = 7;
+  /** Bits of block header used for id width */
+  private static final int ID_WIDTH_BITS = 7;
+  /** Bits of block header used for target width */
+  private static final int TARGET_WIDTH_BITS = 4;
+  /** Shift of id width in block header */
+  private static final int ID_WIDTH_SHIFT = COUNT_BITS;
+  /** Shift of target width in block header */
+  private static final int TARGET_WIDTH_SHIFT = ID_WIDTH_SHIFT + ID_WIDTH_BITS;
+  /** Shift of base target in block header */
+  private static final int BASE_TARGET_SHIFT =
+      TARGET_WIDTH_SHIFT + TARGET_WIDTH_BITS;
+  /** Bits of block header below the offset of block data */
+  private static final int HEADER_BITS = BASE_TARGET_SHIFT + Byte.SIZE;
+
+  /** Packed ids followed by packed targets, for each block */
+  private final OffHeapLongArray data;
+  /**
+   * First id and header of each block, next to each other so a lookup
+   * touches one cache line for both. Header holds the entry count, widths,
+   * base target and, in the upper bits, the offset of block data.
+   */
+  private final OffHeapLongArray blocks;
+  /** Index of the first block of each bucket, available once finished */
+  private OffHeapLongArray bucketStarts;
+  /** Smallest id */
+  private long minId;
+  /** Difference between largest and smallest id, unsigned */
+  private long idRange;
+  /** Shift which turns distance from smallest id into bucket */
+  private int bucketShift;
+  /** Ids of the block being built */
+  private final long[] pendingIds = new long[BLOCK_SIZE];
+  /** Targets of the block being built */
+  private final byte[] pendingTargets = new byte[BLOCK_SIZE];
+  /** Number of entries in the block being built */
+  private int numPending;
+  /** Bits which were packed but not yet written */
+  private long bitBuffer;
+  /** Number of bits in bitBuffer */
+  private int bitCount;
+  /** Number of entries */
+  private long size;
+  /** Whether all entries were added */
+  private boolean finished;
+
+  /**
+   * Constructor
+   *
+   * @param expectedSize Expected number of entries, used for preallocation
+   */
+  public CompressedLongByteArray(long expectedSize) {
+    long expectedBlocks = expectedSize / BLOCK_SIZE + 1;
+    data = new OffHeapLongArray(expectedBlocks * 2);
+    blocks = new OffHeapLongArray(expectedBlocks * 2);
+  }
+
+  /**
+   * Add an entry, ids have to be strictly increasing
+   *
+   * @param id Id
+   * @param target Target
+   */
+  public void add(long id, byte target) {
+    if (finished) {
+      throw new IllegalStateException("add: Already finished");
+    }
+    if (size > 0 && id <= getLastAddedId()) {
+      throw new IllegalArgumentException("add: Id " + id +
+          " not larger than previous id " + getLastAddedId());
+    }
+    pendingIds[numPending] = id;
+    pendingTargets[numPending] = target;
+    ++numPending;
+    ++size;
+    if (numPending == BLOCK_SIZE) {
+      writeBlock();
+    }
+  }
+
+  /**
+   * Get the largest id added so far, only valid if size is positive
+   *
+   * @return Last added id
+   */
+  private long getLastAddedId() {
+    return numPending > 0 ? pendingIds[numPending - 1] :
+        lastIdOfBlock(getNumBlocks() - 1);
+  }
+
+  /**
+   * Call once all entries are added, releases unused memory
+   */
+  public void finish() {
+    if (numPending > 0) {
+      writeBlock();
+    }
+    data.trim();
+    blocks.trim();
+    buildBuckets();
+    finished = true;
+  }
+
+  /**
+   * Split the id range into buckets and record first block of each
+   */
+  private void buildBuckets() {
+    long numBlocks = getNumBlocks();
+    if (numBlocks == 0) {
+      bucketStarts = new OffHeapLongArray(0);
+      return;
+    }
+    minId = getFirstId(0);
+    idRange = lastIdOfBlock(numBlocks - 1) - minId;
+    // Shift until there are at most as many buckets as blocks, negative
+    // means the unsigned range doesn't even fit in a signed long
+    bucketShift = 0;
+    while (bucketShift < Long.SIZE - 1 && ((idRange >>> bucketShift) < 0 ||
+        (idRange >>> bucketShift) >= numBlocks)) {
+      ++bucketShift;
+    }
+    long numBuckets = (idRange >>> bucketShift) + 1;
+    bucketStarts = new OffHeapLongArray(numBuckets + 1);
+    long block = 0;
+    for (long bucket = 0; bucket <= numBuckets; bucket++) {
+      while (block < numBlocks &&
+          ((getFirstId(block) - minId) >>> bucketShift) < bucket) {
+        ++block;
+      }
+      bucketStarts.add(block);
+    }
+  }
+
+  /**
+   * Get the target of an id
+   *
+   * @param id Id
+   * @return Target, or -1 if id is not present
+   */
+  public byte get(long id) {
+    long distance = id - minId;
+    // Unsigned comparison, also rejects ids smaller than minId
+    if (blocks.size() == 0 ||
+        distance + Long.MIN_VALUE > idRange + Long.MIN_VALUE) {
+      return -1;
+    }
+    // Last block starting at or before id is the last block of this bucket,
+    // or the last block of a previous bucket if this one has none before id
+    long bucket = distance >>> bucketShift;
+    long lo = Math.max(0, bucketStarts.get(bucket) - 1);
+    long hi = bucketStarts.get(bucket + 1) - 1;
+    while (lo < hi) {
+      long mid = (lo + hi + 1) >>> 1;
+      if (getFirstId(mid) <= id) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    long firstId = getFirstId(lo);
+    long header = getHeader(lo);
+    long offset = getDataOffset(header);
+    int count = getCount(header);
+    int idWidth = getIdWidth(header);
+    int index;
+    if (idWidth == 0) {
+      long delta = id - firstId;
+      if (delta < 0 || delta >= count) {
+        return -1;
+      }
+      index = (int) delta;
+    } else {
+      index = findIndex(offset, firstId, count, idWidth, id);
+      if (index < 0) {
+        return -1;
+      }
+    }
+    return readTarget(offset, header, index);
+  }
+
+  /**
+   * Binary search for an id within a block with packed ids
+   *
+   * @param start Offset in data of packed ids
+   * @param firstId First id of the block
+   * @param count Number of entries in the block
+   * @param idWidth Width of packed ids
+   * @param id Id to look for
+   * @return Index in the block, or -1 if not present
+   */
+  private int findIndex(long start, long firstId, int count, int idWidth,
+      long id) {
+    // The i-th id is firstId + i + residual, with residual below
+    // 2^idWidth, so the index is at most the distance from firstId and
+    // at least that minus the largest residual
+    long delta = id - firstId;
+    int lo = 0;
+    int hi = delta < 0 || delta >= count ? count - 1 : (int) delta;
+    if (delta >= 0 && idWidth < Long.SIZE - 1) {
+      long minIndex = delta - ((1L << idWidth) - 1);
+      if (minIndex > 0) {
+        lo = (int) Math.min(count, minIndex);
+      }
+    }
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long midId = firstId + mid + readBits(start, (long) mid * idWidth,
+          idWidth);
+      if (midId < id) {
+        lo = mid + 1;
+      } else if (midId > id) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the target at an index within a block
+   *
+   * @param start Offset in data of packed ids
+   * @param header Block header
+   * @param index Index in the block
+   * @return Target
+   */
+  private byte readTarget(long start, long header, int index) {
+    int base = getBaseTarget(header);
+    int targetWidth = getTargetWidth(header);
+    if (targetWidth == 0) {
+      return (byte) base;
+    }
+    long bitIndex = (long) getCount(header) * getIdWidth(header) +
+        (long) index * targetWidth;
+    return (byte) (base + readBits(start, bitIndex, targetWidth));
+  }
+
+  /**
+   * Get the number of written blocks
+   *
+   * @return Number of blocks
+   */
+  private long getNumBlocks() {
+    return blocks.size() >>> 1;
+  }
+
+  /**
+   * Get the first id of a written block
+   *
+   * @param block Block index
+   * @return First id of the block
+   */
+  private long getFirstId(long block) {
+    return blocks.get(block << 1);
+  }
+
+  /**
+   * Get the header of a written block
+   *
+   * @param block Block index
+   * @return Block header
+   */
+  private long getHeader(long block) {
+    return blocks.get((block << 1) + 1);
+  }
+
+  /**
+   * Get the last id of a written block
+   *
+   * @param block Block index
+   * @return Last id of the block
+   */
+  private long lastIdOfBlock(long block) {
+    long header = getHeader(block);
+    long offset = getDataOffset(header);
+    int last = getCount(header) - 1;
+    int idWidth = getIdWidth(header);
+    long residual = idWidth == 0 ? 0 :
+        readBits(offset, (long) last * idWidth, idWidth);
+    return getFirstId(block) + last + residual;
+  }
+
+  /**
+   * Compress pending entries into a new block
+   */
+  private void writeBlock() {
+    long firstId = pendingIds[0];
+    // Distances from firstId + i never decrease, so the last is the largest
+    int idWidth = bitWidth(
+        pendingIds[numPending - 1] - firstId - (numPending - 1));
+    int minTarget = 0xFF;
+    int maxTarget = 0;
+    for (int i = 0; i < numPending; i++) {
+      int target = pendingTargets[i] & 0xFF;
+      minTarget = Math.min(minTarget, target);
+      maxTarget = Math.max(maxTarget, target);
+    }
+    int targetWidth = bitWidth(maxTarget - minTarget);
+
+    blocks.add(firstId);
+    blocks.add((data.size() << HEADER_BITS) | numPending |
+        ((long) idWidth << ID_WIDTH_SHIFT) |
+        ((long) targetWidth << TARGET_WIDTH_SHIFT) |
+        ((long) minTarget << BASE_TARGET_SHIFT));
+    if (idWidth > 0) {
+      for (int i = 0; i < numPending; i++) {
+        writeBits(pendingIds[i] - firstId - i, idWidth);
+      }
+    }
+    if (targetWidth > 0) {
+      for (int i = 0; i < numPending; i++) {
+        writeBits((pendingTargets[i] & 0xFF) - minTarget, targetWidth);
+      }
+    }
+    if (bitCount > 0) {
+      data.add(bitBuffer);
+      bitBuffer = 0;
+      bitCount = 0;
+    }
+    numPending = 0;
+  }
+
+  /**
+   * Pack bits after the ones already packed
+   *
+   * @param value Value, bits above width have to be zero
+   * @param width Number of bits to write, between 1 and 64
+   */
+  private void writeBits(long value, int width) {
+    bitBuffer |= value << bitCount;
+    int total = bitCount + width;
+    if (total >= Long.SIZE) {
+      data.add(bitBuffer);
+      bitBuffer = bitCount == 0 ? 0 : value >>> (Long.SIZE - bitCount);
+      total -= Long.SIZE;
+    }
+    bitCount = total;
+  }
+
+  /**
+   * Read packed bits
+   *
+   * @param start Offset in data where packing starts
+   * @param bitIndex Index of the first bit to read, relative to start
+   * @param width Number of bits to read, between 1 and 64
+   * @return Value
+   */
+  private long readBits(long start, long bitIndex, int width) {
+    long word = start + (bitIndex >>> 6);
+    int shift = (int) (bitIndex & (Long.SIZE - 1));
+    long value = data.get(word) >>> shift;
+    if (shift + width > Long.SIZE) {
+      value |= data.get(word + 1) << (Long.SIZE - shift);
+    }
+    return width == Long.SIZE ? value : value & ((1L << width) - 1);
+  }
+
+  /**
+   * Number of bits needed to represent an unsigned value
+   *
+   * @param value Value
+   * @return Number of bits
+   */
+  private static int bitWidth(long value) {
+    return Long.SIZE - Long.numberOfLeadingZeros(value);
+  }
+
+  /**
+   * Get offset of block data from block header
+   *
+   * @param header Block header
+   * @return Offset in data
+   */
+  private static long getDataOffset(long header) {
+    return header >>> HEADER_BITS;
+  }
+
+  /**
+   * Get entry count from block header
+   *
+   * @param header Block header
+   * @return Entry count
+   */
+  private static int getCount(long header) {
+    return (int) (header & ((1 << COUNT_BITS) - 1));
+  }
+
+  /**
+   * Get id width from block header
+   *
+   * @param header Block header
+   * @return Id width
+   */
+  private static int getIdWidth(long header) {
+    return (int) ((header >>> ID_WIDTH_SHIFT) & ((1 << ID_WIDTH_BITS) - 1));
+  }
+
+  /**
+   * Get target width from block header
+   *
+   * @param header Block header
+   * @return Target width
+   */
+  private static int getTargetWidth(long header) {
+    return (int) ((header >>> TARGET_WIDTH_SHIFT) &
+        ((1 << TARGET_WIDTH_BITS) - 1));
+  }
+
+  /**
+   * Get base target from block header
+   *
+   * @param header Block header
+   * @return Base target
+   */
+  private static int getBaseTarget(long header) {
+    return (int) ((header >>> BASE_TARGET_SHIFT) & 0xFF);
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Get the number of bytes allocated off-heap
+   *
+   * @return Allocated bytes
+   */
+  public long getAllocatedBytes() {
+    return data.getAllocatedBytes() + blocks.getAllocatedBytes() +
+        (bucketStarts == null ? 0 : bucketStarts.getAllocatedBytes());
+  }
+
+  /**
+   * Create a cursor over entries in id order, only valid once finished
+   *
+   * @return New cursor
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Release off-heap memory
+   */
+  @Override
+  public void close() {
+    data.close();
+    blocks.close();
+    if (bucketStarts != null) {
+      bucketStarts.close();
+    }
+  }
+
+  /**
+   * Iterates over entries in id order, decoding one block at a time
+   */
+  public final class Cursor {
+    /** Ids of the current block */
+    private final long[] ids = new long[BLOCK_SIZE];
+    /** Targets of the current block */
+    private final byte[] targets = new byte[BLOCK_SIZE];
+    /** Next block to decode */
+    private long nextBlock;
+    /** Number of entries in the current block */
+    private int count;
+    /** Index of the current entry in the current block */
+    private int index = -1;
+
+    /**
+     * Move to the next entry
+     *
+     * @return False if there are no more entries
+     */
+    public boolean next() {
+      ++index;
+      if (index < count) {
+        return true;
+      }
+      if (nextBlock == getNumBlocks()) {
+        return false;
+      }
+      long firstId = getFirstId(nextBlock);
+      long header = getHeader(nextBlock);
+      long offset = getDataOffset(header);
+      count = getCount(header);
+      int idWidth = getIdWidth(header);
+      for (int i = 0; i < count; i++) {
+        ids[i] = firstId + i + (idWidth == 0 ? 0 :
+            readBits(offset, (long) i * idWidth, idWidth));
+        targets[i] = readTarget(offset, header, i);
+      }
+      ++nextBlock;
+      index = 0;
+      return true;
+    }
+
+    public long getId() {
+      return ids[index];
+    }
+
+    public byte getTarget() {
+      return targets[index];
+    }
+  }
+}
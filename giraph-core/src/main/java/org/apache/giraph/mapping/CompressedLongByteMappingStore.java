@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.Arrays;
+import it.unimi.dsi.fastutil.Swapper;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An implementation of MappingStore<LongWritable, ByteWritable> which keeps
+ * the mapping off-heap in a sorted, block-compressed
+ * {@link CompressedLongByteArray}, for graphs where
+ * {@link LongByteMappingStore} would take too much heap.
+ *
+ * While filling, each thread buffers entries on heap, and every full buffer
+ * is sorted and compressed off-heap into a run. Runs are merged into the
+ * final array in {@link #postFilling()}. If an id is added more than once,
+ * one of its targets is kept. Off-heap memory is released by
+ * {@link #close()}.
+ */
+@ThreadSafe
+public class CompressedLongByteMappingStore
+    extends AbstractLongByteMappingStore implements Closeable {
+  /** Logger instance */
+  private static final Logger LOG = Logger.getLogger(
+      CompressedLongByteMappingStore.class);
+  /** Orders cursors by their current id */
+  private static final Comparator<CompressedLongByteArray.Cursor>
+  CURSOR_COMPARATOR = new Comparator<CompressedLongByteArray.Cursor>() {
+    @Override
+    public int compare(CompressedLongByteArray.Cursor c1,
+        CompressedLongByteArray.Cursor c2) {
+      return Long.compare(c1.getId(), c2.getId());
+    }
+  };
+
+  /** Buffers of all threads which added entries */
+  private final List<RunBuffer> buffers = Lists.newArrayList();
+  /** Sorted runs waiting to be merged */
+  private final List<CompressedLongByteArray> runs = Lists.newArrayList();
+  /** Buffer of current thread */
+  private final ThreadLocal<RunBuffer> threadBuffer =
+      new ThreadLocal<RunBuffer>() {
+        @Override
+        protected RunBuffer initialValue() {
+          RunBuffer buffer = new RunBuffer();
+          synchronized(buffers) {
+            buffers.add(buffer);
+          }
+          return buffer;
+        }
+      };
+  /** Number of entries each thread buffers before compressing them */
+  private int runSize;
+  /** Final mapping, available after filling */
+  private CompressedLongByteArray mapping;
+  /** Number of entries in the final mapping */
+  private long numEntries;
+
+  @Override
+  public void initialize() {
+    runSize = GiraphConstants.COMPRESSED_MAPPINGSTORE_RUN_SIZE.get(getConf());
+    if (runSize <= 0) {
+      throw new IllegalStateException("initialize: Run size has to be " +
+          "positive, got " + runSize);
+    }
+  }
+
+  @Override
+  public byte getByteTarget(LongWritable vertexId) {
+    return mapping.get(vertexId.get());
+  }
+
+  @Override
+  public void addEntry(LongWritable vertexId, ByteWritable target) {
+    threadBuffer.get().add(vertexId.get(), target.get());
+  }
+
+  @Override
+  public void postFilling() {
+    // not thread-safe, all filling threads are done at this point
+    for (RunBuffer buffer : buffers) {
+      buffer.flush();
+    }
+    buffers.clear();
+
+    long totalEntries = 0;
+    PriorityQueue<CompressedLongByteArray.Cursor> cursors =
+        new PriorityQueue<CompressedLongByteArray.Cursor>(
+            Math.max(1, runs.size()), CURSOR_COMPARATOR);
+    for (CompressedLongByteArray run : runs) {
+      totalEntries += run.size();
+      CompressedLongByteArray.Cursor cursor = run.cursor();
+      if (cursor.next()) {
+        cursors.add(cursor);
+      }
+    }
+    mapping = new CompressedLongByteArray(totalEntries);
+    boolean first = true;
+    long lastId = 0;
+    while (!cursors.isEmpty()) {
+      CompressedLongByteArray.Cursor cursor = cursors.poll();
+      if (first || cursor.getId() != lastId) {
+        lastId = cursor.getId();
+        mapping.add(lastId, cursor.getTarget());
+        first = false;
+      }
+      if (cursor.next()) {
+        cursors.add(cursor);
+      }
+    }
+    mapping.finish();
+    for (CompressedLongByteArray run : runs) {
+      run.close();
+    }
+    runs.clear();
+    numEntries = mapping.size();
+
+    if (LOG.isInfoEnabled()) {
+      LOG.info("postFilling: " + numEntries + " entries use " +
+          mapping.getAllocatedBytes() + " bytes off-heap");
+    }
+  }
+
+  @Override
+  public long getStats() {
+    return numEntries;
+  }
+
+  /**
+   * Release off-heap memory, the store can't be used afterwards
+   */
+  @Override
+  public void close() {
+    if (mapping != null) {
+      mapping.close();
+      mapping = null;
+    }
+  }
+
+  /**
+   * Entries added by one thread, compressed into a sorted run when full
+   */
+  private class RunBuffer {
+    /** Buffered ids */
+    private final long[] ids = new long[runSize];
+    /** Buffered targets */
+    private final byte[] targets = new byte[runSize];
+    /** Number of buffered entries */
+    private int size;
+
+    /**
+     * Buffer an entry, compressing the buffer if it's full
+     *
+     * @param id Id
+     * @param target Target
+     */
+    void add(long id, byte target) {
+      ids[size] = id;
+      targets[size] = target;
+      ++size;
+      if (size == runSize) {
+        flush();
+      }
+    }
+
+    /**
+     * Sort buffered entries and compress them into a new run
+     */
+    void flush() {
+      if (size == 0) {
+        return;
+      }
+      Arrays.quickSort(0, size, new AbstractIntComparator() {
+        @Override
+        public int compare(int i, int j) {
+          return Long.compare(ids[i], ids[j]);
+        }
+      }, new Swapper() {
+        @Override
+        public void swap(int i, int j) {
+          long id = ids[i];
+          ids[i] = ids[j];
+          ids[j] = id;
+          byte target = targets[i];
+          targets[i] = targets[j];
+          targets[j] = target;
+        }
+      });
+      CompressedLongByteArray run = new CompressedLongByteArray(size);
+      for (int i = 0; i < size; i++) {
+        if (i == 0 || ids[i] != ids[i - 1]) {
+          run.add(ids[i], targets[i]);
+        }
+      }
+      run.finish();
+      synchronized(runs) {
+        runs.add(run);
+      }
+      size = 0;
+    }
+  }
+}
@@ -20,11 +20,9 @@ package org.apache.giraph.mapping;
 
 import com.google.common.collect.MapMaker;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-import org.apache.giraph.conf.DefaultImmutableClassesGiraphConfigurable;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.hadoop.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Writable;
 import org.apache.log4j.Logger;
 
 import java.util.Arrays;
@@ -43,9 +41,7 @@ import javax.annotation.concurrent.ThreadSafe;
  * any byte passed is treated as unsigned
  */
 @ThreadSafe
-public class LongByteMappingStore
-  extends DefaultImmutableClassesGiraphConfigurable<LongWritable, Writable,
-  Writable> implements MappingStore<LongWritable, ByteWritable> {
+public class LongByteMappingStore extends AbstractLongByteMappingStore {
   /** Logger instance */
   private static final Logger LOG = Logger.getLogger(
     LongByteMappingStore.class);
@@ -84,12 +80,7 @@ public class LongByteMappingStore
     idToBytes = new Long2ObjectOpenHashMap<>(upper);
   }
 
-  /**
-   * Auxiliary method to be used by getTarget
-   *
-   * @param vertexId vertexId
-   * @return return byte value of target
-   */
+  @Override
   public byte getByteTarget(LongWritable vertexId) {
     long key = vertexId.get() >>> lowerOrder;
     int suffix = (int) (vertexId.get() & lowerBitMask);
@@ -115,17 +106,6 @@ public class LongByteMappingStore
     numEntries.getAndIncrement(); // increment count
   }
 
-  @Override
-  public ByteWritable getTarget(LongWritable vertexId,
-    ByteWritable target) {
-    Byte bval = getByteTarget(vertexId);
-    if (bval == -1) { // worker not assigned by mapping
-      return null;
-    }
-    target.set(bval);
-    return target;
-  }
-
   @Override
   public void postFilling() {
     // not thread-safe
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+/**
+ * Scoring functions which {@link StreamingPartitionAssigner} can use to
+ * place a vertex, given how many of its neighbors each worker already has
+ */
+public enum StreamingPartitionAlgorithm {
+  /**
+   * Linear Deterministic Greedy: neighbors on the worker, scaled down
+   * linearly by how full the worker is
+   */
+  LDG,
+  /**
+   * Fennel: neighbors on the worker minus the marginal cost of growing the
+   * worker, which is super-linear in its size
+   */
+  FENNEL
+}
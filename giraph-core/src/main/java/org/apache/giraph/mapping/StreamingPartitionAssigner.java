@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Assigns vertices of a stream to workers one at a time, placing each
+ * vertex on the worker which already holds most of its neighbors while
+ * keeping workers balanced (Linear Deterministic Greedy or Fennel).
+ *
+ * Assignment only depends on the vertices seen so far in this stream, so
+ * the same stream always produces the same assignment. Workers are indexed
+ * from zero, and their number is bounded by what a byte mapping target can
+ * represent: targets are read unsigned and 255 (-1) means unassigned.
+ */
+@NotThreadSafe
+public class StreamingPartitionAssigner {
+  /** Maximum number of workers a byte target can represent */
+  public static final int MAX_WORKERS = 255;
+
+  /** Scoring function */
+  private final StreamingPartitionAlgorithm algorithm;
+  /** Number of workers to assign to */
+  private final int numWorkers;
+  /** Maximum worker size relative to the average */
+  private final float slack;
+  /** Exponent of the worker size cost for Fennel */
+  private final float gamma;
+  /** Number of vertices assigned to each worker */
+  private final long[] loads;
+  /** Scratch space, number of neighbors of current vertex on each worker */
+  private final int[] neighborCounts;
+  /** Worker of each vertex assigned so far */
+  private final Long2ByteOpenHashMap assignments =
+      new Long2ByteOpenHashMap();
+  /** Number of vertices assigned so far */
+  private long numVertices;
+  /** Number of edges of vertices assigned so far */
+  private long numEdges;
+
+  /**
+   * Constructor
+   *
+   * @param algorithm Scoring function
+   * @param numWorkers Number of workers to assign to
+   * @param slack Maximum worker size relative to the average, at least 1
+   * @param gamma Exponent of the worker size cost for Fennel, above 1
+   */
+  public StreamingPartitionAssigner(StreamingPartitionAlgorithm algorithm,
+      int numWorkers, float slack, float gamma) {
+    if (numWorkers < 1 || numWorkers > MAX_WORKERS) {
+      throw new IllegalArgumentException("StreamingPartitionAssigner: " +
+          "Number of workers must be between 1 and " + MAX_WORKERS +
+          ", got " + numWorkers);
+    }
+    if (slack < 1) {
+      throw new IllegalArgumentException(
+          "StreamingPartitionAssigner: Slack must be at least 1, got " +
+          slack);
+    }
+    if (algorithm == StreamingPartitionAlgorithm.FENNEL && gamma <= 1) {
+      throw new IllegalArgumentException(
+          "StreamingPartitionAssigner: Fennel gamma must be above 1, got " +
+          gamma);
+    }
+    this.algorithm = algorithm;
+    this.numWorkers = numWorkers;
+    this.slack = slack;
+    this.gamma = gamma;
+    loads = new long[numWorkers];
+    neighborCounts = new int[numWorkers];
+    assignments.defaultReturnValue((byte) -1);
+  }
+
+  /**
+   * Constructor, reads the algorithm settings from configuration
+   *
+   * @param conf Configuration
+   * @param numWorkers Number of workers to assign to
+   */
+  public StreamingPartitionAssigner(GiraphConfiguration conf,
+      int numWorkers) {
+    this(GiraphConstants.STREAMING_PARTITION_ALGORITHM.get(conf), numWorkers,
+        GiraphConstants.STREAMING_PARTITION_SLACK.get(conf),
+        GiraphConstants.STREAMING_PARTITION_FENNEL_GAMMA.get(conf));
+  }
+
+  /**
+   * Assign a vertex to a worker. Neighbors which were not assigned yet are
+   * ignored. A vertex which was already assigned keeps its worker.
+   *
+   * @param vertexId Vertex id
+   * @param neighbors Ids of vertex neighbors
+   * @return Worker the vertex is assigned to
+   */
+  public byte assign(long vertexId, LongArrayList neighbors) {
+    byte existing = assignments.get(vertexId);
+    if (existing != -1) {
+      return existing;
+    }
+    ++numVertices;
+    numEdges += neighbors.size();
+    for (int i = 0; i < neighbors.size(); i++) {
+      byte target = assignments.get(neighbors.getLong(i));
+      if (target != -1) {
+        ++neighborCounts[target & 0xFF];
+      }
+    }
+
+    // Workers at capacity are skipped, and since the capacity is at least
+    // the average size after this assignment some worker is always below it
+    double capacity = slack * (double) numVertices / numWorkers;
+    double fennelAlpha = 0;
+    if (algorithm == StreamingPartitionAlgorithm.FENNEL) {
+      // Undirected edges show up in adjacency lists of both endpoints
+      fennelAlpha = numEdges / 2.0 * Math.pow(numWorkers, gamma - 1) /
+          Math.pow(numVertices, gamma);
+    }
+    int best = -1;
+    double bestScore = 0;
+    for (int worker = 0; worker < numWorkers; worker++) {
+      if (loads[worker] >= capacity) {
+        continue;
+      }
+      double score;
+      if (algorithm == StreamingPartitionAlgorithm.FENNEL) {
+        score = neighborCounts[worker] -
+            fennelAlpha * gamma * Math.pow(loads[worker], gamma - 1);
+      } else {
+        score = neighborCounts[worker] * (1 - loads[worker] / capacity);
+      }
+      // Ties go to the smaller worker, then to the lower index
+      if (best == -1 || score > bestScore ||
+          (score == bestScore && loads[worker] < loads[best])) {
+        best = worker;
+        bestScore = score;
+      }
+    }
+    for (int worker = 0; worker < numWorkers; worker++) {
+      neighborCounts[worker] = 0;
+    }
+
+    ++loads[best];
+    assignments.put(vertexId, (byte) best);
+    return (byte) best;
+  }
+
+  /**
+   * Get the worker a vertex was assigned to
+   *
+   * @param vertexId Vertex id
+   * @return Worker, or -1 if the vertex wasn't assigned
+   */
+  public byte getAssignment(long vertexId) {
+    return assignments.get(vertexId);
+  }
+
+  /**
+   * Get the number of vertices assigned to a worker
+   *
+   * @param worker Worker index
+   * @return Number of vertices assigned to it
+   */
+  public long getLoad(int worker) {
+    return loads[worker];
+  }
+
+  public int getNumWorkers() {
+    return numWorkers;
+  }
+
+  public long getNumVertices() {
+    return numVertices;
+  }
+}
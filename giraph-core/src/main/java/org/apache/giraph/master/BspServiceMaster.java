@@ -32,6 +32,7 @@ import org.apache.giraph.comm.netty.NettyMasterClient;
 import org.apache.giraph.comm.netty.NettyMasterServer;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.counters.GiraphCriticalPath;
 import org.apache.giraph.counters.GiraphStats;
 import org.apache.giraph.graph.InputSplitPaths;
 import org.apache.giraph.graph.GlobalStats;
@@ -51,11 +52,15 @@ import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.partition.PartitionStats;
 import org.apache.giraph.partition.PartitionUtils;
 import org.apache.giraph.metrics.AggregatedMetrics;
+import org.apache.giraph.metrics.CriticalPath;
 import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.metrics.GiraphTimer;
 import org.apache.giraph.metrics.GiraphTimerContext;
 import org.apache.giraph.metrics.ResetSuperstepMetricsObserver;
+import org.apache.giraph.metrics.SkewStats;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
+import org.apache.giraph.metrics.SuperstepPhases;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.metrics.WorkerSuperstepMetrics;
 import org.apache.giraph.utils.CheckpointingUtils;
 import org.apache.giraph.utils.JMapHistoDumper;
@@ -175,6 +180,8 @@ public class BspServiceMaster<I extends WritableComparable,
   private MasterClient masterClient;
   /** IPC Server */
   private MasterServer masterServer;
+  /** Live job dashboard, if enabled */
+  private MasterDashboard dashboard;
   /** Master info */
   private MasterInfo masterInfo;
   /** List of workers in current superstep, sorted by task id */
@@ -183,6 +190,8 @@ public class BspServiceMaster<I extends WritableComparable,
   private final int localityLimit = 5;
   /** Observers over master lifecycle. */
   private final MasterObserver[] observers;
+  /** Counters of time lost waiting for the slowest worker's phases */
+  private final GiraphCriticalPath criticalPathCounters;
 
   // Per-Superstep Metrics
   /** MasterCompute time */
@@ -233,6 +242,7 @@ public class BspServiceMaster<I extends WritableComparable,
 
     GiraphMetrics.get().addSuperstepResetObserver(this);
     GiraphStats.init((Mapper.Context) context);
+    criticalPathCounters = new GiraphCriticalPath((Mapper.Context) context);
   }
 
   @Override
@@ -903,6 +913,9 @@ public class BspServiceMaster<I extends WritableComparable,
             LOG.info("becomeMaster: I am now the master!");
           }
           isMaster = true;
+          if (GiraphConstants.DASHBOARD_ENABLE.get(getConfiguration())) {
+            startDashboard();
+          }
           return isMaster;
         }
         LOG.info("becomeMaster: Waiting to become the master...");
@@ -918,6 +931,24 @@ public class BspServiceMaster<I extends WritableComparable,
     }
   }
 
+  /**
+   * Start serving the live job dashboard. Failing to start it doesn't fail
+   * the job.
+   */
+  private void startDashboard() {
+    try {
+      dashboard = new MasterDashboard(this, workerStatusPath,
+          GiraphConstants.DASHBOARD_PORT.get(getConfiguration()));
+      if (LOG.isInfoEnabled()) {
+        LOG.info("startDashboard: Serving job dashboard at " +
+            dashboard.getUrl());
+      }
+      getContext().setStatus("Job dashboard at " + dashboard.getUrl());
+    } catch (IOException e) {
+      LOG.error("startDashboard: Failed to start job dashboard", e);
+    }
+  }
+
   @Override
   public MasterInfo getMasterInfo() {
     return masterInfo;
@@ -952,6 +983,10 @@ public class BspServiceMaster<I extends WritableComparable,
     }
 
     AggregatedMetrics aggregatedMetrics = new AggregatedMetrics();
+    SkewStats skewStats =
+        new SkewStats(GiraphConstants.SKEW_TOP_K.get(conf));
+    List<String> phaseWorkers = Lists.newArrayList();
+    List<SuperstepPhases> workerPhases = Lists.newArrayList();
 
     allPartitionStatsList.clear();
     for (String finishedPath : workerFinishedPathList) {
@@ -988,6 +1023,23 @@ public class BspServiceMaster<I extends WritableComparable,
               workerMetrics);
           aggregatedMetrics.add(workerMetrics, hostnamePartitionId);
         }
+        if (workerFinishedInfoObj.has(JSONOBJ_SKEW_KEY)) {
+          SkewStats workerSkewStats = new SkewStats();
+          WritableUtils.readFieldsFromByteArray(
+              Base64.decode(workerFinishedInfoObj.getString(
+                  JSONOBJ_SKEW_KEY)),
+              workerSkewStats);
+          skewStats.addAll(workerSkewStats, hostnamePartitionId + " ");
+        }
+        if (workerFinishedInfoObj.has(JSONOBJ_PHASES_KEY)) {
+          SuperstepPhases phases = new SuperstepPhases();
+          WritableUtils.readFieldsFromByteArray(
+              Base64.decode(workerFinishedInfoObj.getString(
+                  JSONOBJ_PHASES_KEY)),
+              phases);
+          phaseWorkers.add(hostnamePartitionId);
+          workerPhases.add(phases);
+        }
       } catch (JSONException e) {
         throw new IllegalStateException(
             "aggregateWorkerStats: JSONException", e);
@@ -1010,6 +1062,17 @@ public class BspServiceMaster<I extends WritableComparable,
         printAggregatedMetricsToHDFS(superstep, aggregatedMetrics);
       }
     }
+    if (!skewStats.isEmpty()) {
+      printSkewStats(superstep, skewStats);
+    }
+    CriticalPath criticalPath =
+        CriticalPath.analyze(superstep, phaseWorkers, workerPhases);
+    if (criticalPath != null) {
+      if (LOG.isInfoEnabled()) {
+        LOG.info("aggregateWorkerStats: criticalPath " + criticalPath);
+      }
+      criticalPathCounters.add(criticalPath);
+    }
 
     if (LOG.isInfoEnabled()) {
       LOG.info("aggregateWorkerStats: Aggregation found " + globalStats +
@@ -1053,6 +1116,37 @@ public class BspServiceMaster<I extends WritableComparable,
     }
   }
 
+  /**
+   * Write the most skewed vertices and partitions of a superstep to their
+   * own file next to the metrics, or to stderr if there is no metrics
+   * directory
+   *
+   * @param superstep the current superstep
+   * @param skewStats skew stats merged from all workers
+   */
+  private void printSkewStats(long superstep, SkewStats skewStats) {
+    ImmutableClassesGiraphConfiguration conf = getConfiguration();
+    int sampleInterval = GiraphConstants.SKEW_TIMING_SAMPLE_INTERVAL.get(conf);
+    if (GiraphConstants.METRICS_DIRECTORY.isDefaultValue(conf)) {
+      skewStats.print(superstep, sampleInterval, System.err);
+      return;
+    }
+    Path outFile = new Path(GiraphConstants.METRICS_DIRECTORY.get(conf) +
+        Path.SEPARATOR_CHAR + "superstep_" + superstep + ".skew");
+    PrintStream out = null;
+    try {
+      out = new PrintStream(getFs().create(outFile, true), false,
+          Charset.defaultCharset().name());
+      skewStats.print(superstep, sampleInterval, out);
+    } catch (IOException e) {
+      LOG.error("printSkewStats: error writing " + outFile, e);
+    } finally {
+      if (out != null) {
+        out.close();
+      }
+    }
+  }
+
   /**
    * Finalize the checkpoint file prefixes by taking the chosen workers and
    * writing them to a finalized file.  Also write out the master
@@ -1636,10 +1730,14 @@ public class BspServiceMaster<I extends WritableComparable,
 
     String finishedWorkerPath =
         getWorkerFinishedPath(getApplicationAttempt(), getSuperstep());
-    if (!barrierOnWorkerList(finishedWorkerPath,
+    Timeline.Span barrierSpan = getTimeline().startSpan(Timeline.BARRIER,
+        "waitForWorkers", getSuperstep());
+    boolean workersFinished = barrierOnWorkerList(finishedWorkerPath,
         chosenWorkerInfoList,
         getSuperstepStateChangedEvent(),
-        false)) {
+        false);
+    barrierSpan.end();
+    if (!workersFinished) {
       return SuperstepState.WORKER_FAILURE;
     }
 
@@ -1758,7 +1856,10 @@ public class BspServiceMaster<I extends WritableComparable,
    */
   private void doMasterCompute() {
     GiraphTimerContext timerContext = masterComputeTimer.time();
+    Timeline.Span span = getTimeline().startSpan(Timeline.MASTER,
+        "masterCompute", getSuperstep());
     masterCompute.compute();
+    span.end();
     timerContext.stop();
   }
 
@@ -1885,6 +1986,11 @@ public class BspServiceMaster<I extends WritableComparable,
   @Override
   public void cleanup(SuperstepState superstepState) throws IOException {
     ImmutableClassesGiraphConfiguration conf = getConfiguration();
+    if (dashboard != null) {
+      dashboard.stop();
+    }
+    // Timeline has to be complete before the master merges it
+    getTimeline().close();
 
     // All master processes should denote they are done by adding special
     // znode.  Once the number of znodes equals the number of partitions
@@ -1917,6 +2023,8 @@ public class BspServiceMaster<I extends WritableComparable,
     if (isMaster) {
       getGraphTaskManager().setIsMaster(true);
       cleanUpZooKeeper();
+      // All tasks have cleaned up, so all timelines are written
+      Timeline.mergeTaskTimelines(conf);
       // If desired, cleanup the checkpoint directory
       if (superstepState == SuperstepState.ALL_SUPERSTEPS_DONE &&
           GiraphConstants.CLEANUP_CHECKPOINTS_AFTER_SUCCESS.get(conf)) {
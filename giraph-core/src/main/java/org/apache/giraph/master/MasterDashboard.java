@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.master;
+
+import static org.apache.giraph.worker.WorkerStatusReporter.COMPUTATION_DONE_KEY;
+import static org.apache.giraph.worker.WorkerStatusReporter.HEAP_HEADROOM_MB_KEY;
+import static org.apache.giraph.worker.WorkerStatusReporter.RECEIVED_MB_PER_SEC_KEY;
+import static org.apache.giraph.worker.WorkerStatusReporter.SENT_MB_PER_SEC_KEY;
+import static org.apache.giraph.worker.WorkerStatusReporter.SUPERSTEP_KEY;
+import static org.apache.giraph.worker.WorkerStatusReporter.TASK_ID_KEY;
+import static org.apache.giraph.worker.WorkerStatusReporter.VERTICES_COMPUTED_KEY;
+import static org.apache.giraph.worker.WorkerStatusReporter.VERTICES_TO_COMPUTE_KEY;
+
+import org.apache.giraph.bsp.BspService;
+import org.apache.giraph.utils.ThreadUtils;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.KeeperException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.google.common.collect.Lists;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lightweight HTTP/JSON dashboard served by the master. Every request reads
+ * the latest status each worker published to ZooKeeper (see
+ * {@link org.apache.giraph.worker.WorkerStatusReporter}), so progress,
+ * memory headroom, network throughput and out-of-core activity are visible
+ * while a superstep is running, together with the workers lagging behind.
+ */
+public class MasterDashboard {
+  /** Maximum number of stragglers to report */
+  public static final int MAX_STRAGGLERS = 5;
+  /** Class logger */
+  private static final Logger LOG = Logger.getLogger(MasterDashboard.class);
+  /** Charset of the responses and status data */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /** Service master */
+  private final BspService<?, ?, ?> service;
+  /** Parent path of the worker status znodes */
+  private final String workerStatusPath;
+  /** HTTP server */
+  private final HttpServer server;
+  /** Executor handling the requests */
+  private final ExecutorService executor;
+
+  /**
+   * Constructor, starts serving
+   *
+   * @param service Service master
+   * @param workerStatusPath Parent path of the worker status znodes
+   * @param port Port to listen on, 0 to pick any free port
+   * @throws IOException
+   */
+  public MasterDashboard(BspService<?, ?, ?> service,
+      String workerStatusPath, int port) throws IOException {
+    this.service = service;
+    this.workerStatusPath = workerStatusPath;
+    server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        handleRequest(exchange);
+      }
+    });
+    executor = Executors.newSingleThreadExecutor(
+        ThreadUtils.createThreadFactory("master-dashboard-%d", null));
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Get the address of the dashboard.
+   *
+   * @return Dashboard URL
+   */
+  public String getUrl() {
+    return "http://" + service.getHostname() + ":" +
+        server.getAddress().getPort() + "/";
+  }
+
+  /**
+   * Answer one request with the current job status.
+   *
+   * @param exchange HTTP exchange
+   * @throws IOException
+   */
+  private void handleRequest(HttpExchange exchange) throws IOException {
+    int code = 200;
+    String body;
+    try {
+      body = summarize(service.getJobId(), service.getSuperstep(),
+          readWorkerStatuses()).toString(2);
+    } catch (JSONException e) {
+      code = 500;
+      body = "{\"error\": " + JSONObject.quote(e.toString()) + "}";
+    } catch (KeeperException e) {
+      code = 500;
+      body = "{\"error\": " + JSONObject.quote(e.toString()) + "}";
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      code = 503;
+      body = "{\"error\": \"interrupted\"}";
+    }
+    byte[] bytes = body.getBytes(UTF_8);
+    exchange.getResponseHeaders().set("Content-Type",
+        "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(code, bytes.length);
+    OutputStream out = exchange.getResponseBody();
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Read the latest status of every worker which published one.
+   *
+   * @return Worker statuses
+   * @throws KeeperException
+   * @throws InterruptedException
+   * @throws JSONException
+   */
+  private List<JSONObject> readWorkerStatuses() throws KeeperException,
+      InterruptedException, JSONException {
+    List<JSONObject> statuses = Lists.newArrayList();
+    List<String> statusNodes;
+    try {
+      statusNodes = service.getZkExt().getChildrenExt(
+          workerStatusPath, false, false, true);
+    } catch (KeeperException.NoNodeException e) {
+      // No worker published its status yet
+      return statuses;
+    }
+    for (String statusNode : statusNodes) {
+      try {
+        byte[] data = service.getZkExt().getData(statusNode, false, null);
+        statuses.add(new JSONObject(new String(data, UTF_8)));
+      } catch (KeeperException.NoNodeException e) {
+        // Worker finished in the meantime
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("readWorkerStatuses: " + statusNode + " is gone");
+        }
+      }
+    }
+    return statuses;
+  }
+
+  /**
+   * Summarize worker statuses into the dashboard document.
+   *
+   * @param jobId Job id
+   * @param superstep Superstep of the master
+   * @param workers Worker statuses
+   * @return Dashboard document
+   * @throws JSONException
+   */
+  static JSONObject summarize(String jobId, long superstep,
+      List<JSONObject> workers) throws JSONException {
+    Collections.sort(workers, new Comparator<JSONObject>() {
+      @Override
+      public int compare(JSONObject o1, JSONObject o2) {
+        return Integer.compare(o1.optInt(TASK_ID_KEY),
+            o2.optInt(TASK_ID_KEY));
+      }
+    });
+    long verticesToCompute = 0;
+    long verticesComputed = 0;
+    double sentMBPerSec = 0;
+    double receivedMBPerSec = 0;
+    double minHeadroomMB = Double.MAX_VALUE;
+    int minHeadroomTaskId = -1;
+    for (JSONObject worker : workers) {
+      verticesToCompute += worker.optLong(VERTICES_TO_COMPUTE_KEY);
+      verticesComputed += worker.optLong(VERTICES_COMPUTED_KEY);
+      sentMBPerSec += worker.optDouble(SENT_MB_PER_SEC_KEY, 0);
+      receivedMBPerSec += worker.optDouble(RECEIVED_MB_PER_SEC_KEY, 0);
+      double headroomMB = worker.optDouble(HEAP_HEADROOM_MB_KEY,
+          Double.MAX_VALUE);
+      if (headroomMB < minHeadroomMB) {
+        minHeadroomMB = headroomMB;
+        minHeadroomTaskId = worker.optInt(TASK_ID_KEY);
+      }
+    }
+
+    JSONObject totals = new JSONObject();
+    totals.put(VERTICES_TO_COMPUTE_KEY, verticesToCompute);
+    totals.put(VERTICES_COMPUTED_KEY, verticesComputed);
+    totals.put(SENT_MB_PER_SEC_KEY, sentMBPerSec);
+    totals.put(RECEIVED_MB_PER_SEC_KEY, receivedMBPerSec);
+    if (minHeadroomTaskId != -1) {
+      totals.put("minHeapHeadroomMB", minHeadroomMB);
+      totals.put("minHeapHeadroomTaskId", minHeadroomTaskId);
+    }
+
+    JSONObject dashboard = new JSONObject();
+    dashboard.put("jobId", jobId);
+    dashboard.put(SUPERSTEP_KEY, superstep);
+    dashboard.put("timestampMsecs", System.currentTimeMillis());
+    dashboard.put("numWorkers", workers.size());
+    dashboard.put("totals", totals);
+    dashboard.put("stragglers", new JSONArray(findStragglers(workers)));
+    dashboard.put("workers", new JSONArray(workers));
+    return dashboard;
+  }
+
+  /**
+   * Find the workers lagging behind in the latest superstep any worker
+   * reached: those still computing with a smaller fraction of their vertices
+   * computed than the average, slowest first.
+   *
+   * @param workers Worker statuses
+   * @return Task ids of at most {@link #MAX_STRAGGLERS} stragglers
+   */
+  static List<Integer> findStragglers(List<JSONObject> workers) {
+    long latestSuperstep = Long.MIN_VALUE;
+    for (JSONObject worker : workers) {
+      latestSuperstep = Math.max(latestSuperstep,
+          worker.optLong(SUPERSTEP_KEY, Long.MIN_VALUE));
+    }
+    final List<JSONObject> candidates = Lists.newArrayList();
+    double fractionSum = 0;
+    for (JSONObject worker : workers) {
+      if (worker.optLong(SUPERSTEP_KEY, Long.MIN_VALUE) == latestSuperstep) {
+        candidates.add(worker);
+        fractionSum += fractionComputed(worker);
+      }
+    }
+    Collections.sort(candidates, new Comparator<JSONObject>() {
+      @Override
+      public int compare(JSONObject o1, JSONObject o2) {
+        return Double.compare(fractionComputed(o1), fractionComputed(o2));
+      }
+    });
+    double averageFraction = fractionSum / Math.max(1, candidates.size());
+    List<Integer> stragglers = Lists.newArrayList();
+    for (JSONObject worker : candidates) {
+      double fraction = fractionComputed(worker);
+      if (stragglers.size() == MAX_STRAGGLERS || fraction >= averageFraction) {
+        break;
+      }
+      stragglers.add(worker.optInt(TASK_ID_KEY));
+    }
+    return stragglers;
+  }
+
+  /**
+   * Get the fraction of vertices a worker computed in its current superstep.
+   *
+   * @param worker Worker status
+   * @return Fraction between 0 and 1
+   */
+  private static double fractionComputed(JSONObject worker) {
+    if (worker.optBoolean(COMPUTATION_DONE_KEY)) {
+      return 1;
+    }
+    long toCompute = worker.optLong(VERTICES_TO_COMPUTE_KEY);
+    if (toCompute <= 0) {
+      return 0;
+    }
+    return Math.min(1d,
+        (double) worker.optLong(VERTICES_COMPUTED_KEY) / toCompute);
+  }
+
+  /**
+   * Stop serving.
+   */
+  public void stop() {
+    server.stop(0);
+    executor.shutdown();
+  }
+}
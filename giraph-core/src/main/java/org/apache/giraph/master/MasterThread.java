@@ -25,6 +25,7 @@ import org.apache.giraph.bsp.SuperstepState;
 import org.apache.giraph.counters.GiraphTimers;
 import org.apache.giraph.graph.Computation;
 import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper.Context;
@@ -121,7 +122,13 @@ public class MasterThread<I extends WritableComparable, V extends Writable,
             GiraphMetrics.get().resetSuperstepMetrics(cachedSuperstep);
             Class<? extends Computation> computationClass =
                 bspServiceMaster.getMasterCompute().getComputation();
+            Timeline timeline =
+                Timeline.of(bspServiceMaster.getGraphTaskManager());
+            Timeline.Span span = timeline.startSpan(Timeline.MASTER,
+                "coordinateSuperstep", cachedSuperstep);
             superstepState = bspServiceMaster.coordinateSuperstep();
+            span.end();
+            timeline.flush();
             long superstepMillis = System.currentTimeMillis() -
                 startSuperstepMillis;
             superstepSecsMap.put(cachedSuperstep,
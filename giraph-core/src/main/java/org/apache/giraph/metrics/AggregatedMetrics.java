@@ -19,6 +19,7 @@
 package org.apache.giraph.metrics;
 
 import org.apache.giraph.graph.GraphTaskManager;
+import org.apache.giraph.utils.MemoryUtils;
 import org.apache.giraph.worker.BspServiceWorker;
 
 import com.google.common.collect.Maps;
@@ -32,6 +33,18 @@ import java.util.Map;
 public class AggregatedMetrics {
   /** Mapping from name to aggregated metric */
   private Map<String, AggregatedMetric> metrics = Maps.newHashMap();
+  /** Request round trip times of all workers, in us */
+  private final LatencyHistogram requestRtt = new LatencyHistogram();
+  /** Message store insertion times of all workers, in us */
+  private final LatencyHistogram addPartitionMessages = new LatencyHistogram();
+  /** Partition compute times of all workers, in us */
+  private final LatencyHistogram computePartition = new LatencyHistogram();
+  /** Message flush times of all workers, in us */
+  private final LatencyHistogram flush = new LatencyHistogram();
+  /** 99th percentile round trip of the slowest worker to peer link */
+  private long slowestLinkP99 = -1;
+  /** Description of the slowest worker to peer link */
+  private String slowestLink;
 
   /**
    * Add value from hostname for a metric.
@@ -71,6 +84,24 @@ public class AggregatedMetrics {
         workerMetrics.getTimeToFirstMsg(), hostname);
     add(BspServiceWorker.TIMER_WAIT_REQUESTS,
         workerMetrics.getWaitRequestsTimer(), hostname);
+    requestRtt.add(workerMetrics.getRequestRttHistogram());
+    addPartitionMessages.add(workerMetrics.getAddPartitionMessagesHistogram());
+    computePartition.add(workerMetrics.getComputePartitionHistogram());
+    flush.add(workerMetrics.getFlushHistogram());
+    for (MemoryAccounting.Subsystem subsystem :
+        MemoryAccounting.Subsystem.values()) {
+      long bytes = workerMetrics.getMemoryEstimate(subsystem);
+      if (bytes >= 0) {
+        add(memoryMetricName(subsystem), bytes, hostname);
+      }
+    }
+    for (int i = 0; i < workerMetrics.getNumPeers(); i++) {
+      if (workerMetrics.getPeerRttP99(i) > slowestLinkP99) {
+        slowestLinkP99 = workerMetrics.getPeerRttP99(i);
+        slowestLink = hostname + " to task " +
+            workerMetrics.getPeerTaskId(i);
+      }
+    }
     return this;
   }
 
@@ -97,10 +128,73 @@ public class AggregatedMetrics {
     printAggregatedMetric(out, "network communication time", "ms", commTime);
     printAggregatedMetric(out, "time to first message", "us", timeToFirstMsg);
     printAggregatedMetric(out, "wait requests time", "us", waitRequestsMicros);
+    printHistogram(out, "request round trip", requestRtt);
+    if (slowestLink != null) {
+      out.println("  slowest link: p99 " + slowestLinkP99 + " us from " +
+          slowestLink);
+    }
+    printHistogram(out, "add partition messages", addPartitionMessages);
+    printHistogram(out, "compute partition", computePartition);
+    printHistogram(out, "flush messages", flush);
+    for (MemoryAccounting.Subsystem subsystem :
+        MemoryAccounting.Subsystem.values()) {
+      AggregatedMetric memory = get(memoryMetricName(subsystem));
+      if (memory != null) {
+        out.println("estimated " + subsystem.getDescription());
+        out.println("  mean: " + MemoryUtils.megaBytes(
+            (long) memory.mean()) + " MB");
+        out.println("  largest: " + MemoryUtils.megaBytes(
+            memory.max().getValue()) + " MB from " +
+            memory.max().getHostname());
+      }
+    }
 
     return this;
   }
 
+  /**
+   * Get the name of the aggregated memory estimate of a subsystem
+   *
+   * @param subsystem Subsystem
+   * @return Metric name
+   */
+  private static String memoryMetricName(MemoryAccounting.Subsystem subsystem) {
+    return "memory-" + subsystem.name();
+  }
+
+  /**
+   * Print percentiles of a histogram merged from all workers
+   *
+   * @param out PrintStream to write to
+   * @param header String header to print
+   * @param histogram Histogram of microseconds
+   */
+  private void printHistogram(PrintStream out, String header,
+                              LatencyHistogram histogram) {
+    if (histogram.getCount() > 0) {
+      out.println(header + " (us)");
+      out.println("  " + histogram);
+    } else {
+      out.println(header + ": NO DATA");
+    }
+  }
+
+  public LatencyHistogram getRequestRtt() {
+    return requestRtt;
+  }
+
+  public LatencyHistogram getAddPartitionMessages() {
+    return addPartitionMessages;
+  }
+
+  public LatencyHistogram getComputePartition() {
+    return computePartition;
+  }
+
+  public LatencyHistogram getFlush() {
+    return flush;
+  }
+
   /**
    * Print batch of lines for AggregatedMetric
    *
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.metrics.SuperstepPhases.Phase;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Critical path of a superstep: the worker which entered the barrier last,
+ * how long it held up the barrier after the worker before it, and the
+ * phase in which it fell behind the other workers the most.
+ */
+public class CriticalPath {
+  /** Superstep */
+  private final long superstep;
+  /** Worker which entered the barrier last */
+  private final String worker;
+  /** Msecs between the last two workers entering the barrier */
+  private final long heldUpMsecs;
+  /** Phase of the critical worker exceeding the median by the most */
+  private final Phase phase;
+  /** Duration of the phase on the critical worker */
+  private final long phaseMsecs;
+  /** Median duration of the phase on all workers */
+  private final long medianPhaseMsecs;
+  /** Msecs from start to barrier on the critical worker */
+  private final long superstepMsecs;
+  /** Number of workers analyzed */
+  private final int numWorkers;
+
+  /**
+   * Constructor
+   *
+   * @param superstep Superstep
+   * @param worker Worker which entered the barrier last
+   * @param heldUpMsecs Msecs between the last two workers entering
+   * @param phase Phase of the critical worker exceeding the median most
+   * @param phaseMsecs Duration of the phase on the critical worker
+   * @param medianPhaseMsecs Median duration of the phase on all workers
+   * @param superstepMsecs Msecs from start to barrier on critical worker
+   * @param numWorkers Number of workers analyzed
+   */
+  private CriticalPath(long superstep, String worker, long heldUpMsecs,
+      Phase phase, long phaseMsecs, long medianPhaseMsecs,
+      long superstepMsecs, int numWorkers) {
+    this.superstep = superstep;
+    this.worker = worker;
+    this.heldUpMsecs = heldUpMsecs;
+    this.phase = phase;
+    this.phaseMsecs = phaseMsecs;
+    this.medianPhaseMsecs = medianPhaseMsecs;
+    this.superstepMsecs = superstepMsecs;
+    this.numWorkers = numWorkers;
+  }
+
+  /**
+   * Find the critical path of a superstep
+   *
+   * @param superstep Superstep
+   * @param workers Names of the workers
+   * @param workerPhases Phases of each of the workers
+   * @return Critical path, null if there are no workers
+   */
+  public static CriticalPath analyze(long superstep, List<String> workers,
+      List<SuperstepPhases> workerPhases) {
+    int numWorkers = workerPhases.size();
+    if (numWorkers == 0) {
+      return null;
+    }
+    int last = 0;
+    for (int i = 1; i < numWorkers; i++) {
+      if (workerPhases.get(i).getBarrierEnteredMsecs() >
+          workerPhases.get(last).getBarrierEnteredMsecs()) {
+        last = i;
+      }
+    }
+    long heldUpMsecs = 0;
+    if (numWorkers > 1) {
+      long secondLast = Long.MIN_VALUE;
+      for (int i = 0; i < numWorkers; i++) {
+        if (i != last) {
+          secondLast = Math.max(secondLast,
+              workerPhases.get(i).getBarrierEnteredMsecs());
+        }
+      }
+      heldUpMsecs =
+          workerPhases.get(last).getBarrierEnteredMsecs() - secondLast;
+    }
+
+    SuperstepPhases critical = workerPhases.get(last);
+    Phase worstPhase = null;
+    long worstExcess = 0;
+    long worstMedian = 0;
+    Phase longestPhase = null;
+    long longestMedian = 0;
+    long[] durations = new long[numWorkers];
+    for (Phase phase : Phase.values()) {
+      for (int i = 0; i < numWorkers; i++) {
+        durations[i] = workerPhases.get(i).getPhaseMsecs(phase);
+      }
+      Arrays.sort(durations);
+      long median = durations[numWorkers / 2];
+      long excess = critical.getPhaseMsecs(phase) - median;
+      if (excess > worstExcess) {
+        worstPhase = phase;
+        worstExcess = excess;
+        worstMedian = median;
+      }
+      if (longestPhase == null || critical.getPhaseMsecs(phase) >
+          critical.getPhaseMsecs(longestPhase)) {
+        longestPhase = phase;
+        longestMedian = median;
+      }
+    }
+    // Not behind in any phase, so blame where it spent the most time
+    if (worstPhase == null) {
+      worstPhase = longestPhase;
+      worstMedian = longestMedian;
+    }
+    return new CriticalPath(superstep, workers.get(last), heldUpMsecs,
+        worstPhase, critical.getPhaseMsecs(worstPhase), worstMedian,
+        critical.getTotalMsecs(), numWorkers);
+  }
+
+  public long getSuperstep() {
+    return superstep;
+  }
+
+  public String getWorker() {
+    return worker;
+  }
+
+  public long getHeldUpMsecs() {
+    return heldUpMsecs;
+  }
+
+  public Phase getPhase() {
+    return phase;
+  }
+
+  public long getPhaseMsecs() {
+    return phaseMsecs;
+  }
+
+  public long getMedianPhaseMsecs() {
+    return medianPhaseMsecs;
+  }
+
+  public long getSuperstepMsecs() {
+    return superstepMsecs;
+  }
+
+  public int getNumWorkers() {
+    return numWorkers;
+  }
+
+  @Override
+  public String toString() {
+    return "superstep=" + superstep + " worker=" + worker +
+        " heldUpMsecs=" + heldUpMsecs + " phase=" + phase.getDisplayName() +
+        " phaseMsecs=" + phaseMsecs + " medianPhaseMsecs=" +
+        medianPhaseMsecs + " superstepMsecs=" + superstepMsecs +
+        " numWorkers=" + numWorkers;
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency histograms of the hot paths of a task: request round trips per
+ * peer, message store insertion, partition compute and message flushing.
+ * All values are in microseconds. Workers drain them into
+ * {@link WorkerSuperstepMetrics} at the end of every superstep, which the
+ * master aggregates.
+ *
+ * Histograms are only recorded when metrics are enabled, otherwise timing
+ * methods return immediately without reading the clock.
+ */
+public class HotPathHistograms {
+  /** Singleton instance, disabled until initialized */
+  private static volatile HotPathHistograms INSTANCE =
+      new HotPathHistograms(false);
+
+  /** Whether to record anything */
+  private final boolean enabled;
+  /**
+   * Request round trip time for each peer task, indexed by task id. Only
+   * replaced, grown and filled while holding the lock on this object.
+   */
+  private volatile AtomicReferenceArray<LatencyHistogram> requestRtt =
+      new AtomicReferenceArray<LatencyHistogram>(0);
+  /** Time to add a partition's messages to the message store */
+  private final LatencyHistogram addPartitionMessages =
+      new LatencyHistogram();
+  /** Time to compute a partition */
+  private final LatencyHistogram computePartition = new LatencyHistogram();
+  /** Time to flush the messages of a compute thread */
+  private final LatencyHistogram flush = new LatencyHistogram();
+
+  /**
+   * Constructor
+   *
+   * @param enabled Whether to record anything
+   */
+  private HotPathHistograms(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Get singleton instance
+   *
+   * @return HotPathHistograms singleton
+   */
+  public static HotPathHistograms get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Initialize singleton, enabled if metrics are enabled
+   *
+   * @param conf Configuration
+   */
+  public static void init(GiraphConfiguration conf) {
+    INSTANCE = new HotPathHistograms(conf.metricsEnabled());
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start timing an operation
+   *
+   * @return Start time to pass to one of the record methods, 0 if disabled
+   */
+  public long startNanos() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Record the round trip time of a request
+   *
+   * @param taskId Task the request was sent to
+   * @param elapsedNanos Round trip time
+   */
+  public void recordRequestRtt(int taskId, long elapsedNanos) {
+    if (!enabled) {
+      return;
+    }
+    AtomicReferenceArray<LatencyHistogram> peerHistograms = requestRtt;
+    LatencyHistogram histogram = taskId < peerHistograms.length() ?
+        peerHistograms.get(taskId) : null;
+    if (histogram == null) {
+      histogram = registerPeer(taskId);
+    }
+    histogram.record(elapsedNanos / 1000);
+  }
+
+  /**
+   * Create the round trip histogram of a peer task, if it doesn't exist.
+   * Called when connecting to the peers, so recording a round trip only
+   * reads the array.
+   *
+   * @param taskId Task id of the peer
+   * @return Round trip histogram of the peer
+   */
+  public synchronized LatencyHistogram registerPeer(int taskId) {
+    AtomicReferenceArray<LatencyHistogram> peerHistograms = requestRtt;
+    if (taskId >= peerHistograms.length()) {
+      AtomicReferenceArray<LatencyHistogram> grown =
+          new AtomicReferenceArray<LatencyHistogram>(
+              Math.max(taskId + 1, 2 * peerHistograms.length()));
+      for (int i = 0; i < peerHistograms.length(); ++i) {
+        grown.set(i, peerHistograms.get(i));
+      }
+      peerHistograms = grown;
+      requestRtt = grown;
+    }
+    LatencyHistogram histogram = peerHistograms.get(taskId);
+    if (histogram == null) {
+      histogram = new LatencyHistogram();
+      peerHistograms.set(taskId, histogram);
+    }
+    return histogram;
+  }
+
+  /**
+   * Record the time spent adding messages of a partition to the store
+   *
+   * @param startNanos Value returned by {@link #startNanos()}
+   */
+  public void recordAddPartitionMessages(long startNanos) {
+    if (enabled) {
+      addPartitionMessages.record((System.nanoTime() - startNanos) / 1000);
+    }
+  }
+
+  /**
+   * Record the time spent computing a partition
+   *
+   * @param startNanos Value returned by {@link #startNanos()}
+   */
+  public void recordComputePartition(long startNanos) {
+    if (enabled) {
+      computePartition.record((System.nanoTime() - startNanos) / 1000);
+    }
+  }
+
+  /**
+   * Record the time spent flushing messages
+   *
+   * @param startNanos Value returned by {@link #startNanos()}
+   */
+  public void recordFlush(long startNanos) {
+    if (enabled) {
+      flush.record((System.nanoTime() - startNanos) / 1000);
+    }
+  }
+
+  /**
+   * Move everything recorded so far into superstep metrics
+   *
+   * @param metrics Superstep metrics to fill
+   */
+  public void drainTo(WorkerSuperstepMetrics metrics) {
+    AtomicReferenceArray<LatencyHistogram> peerHistograms = requestRtt;
+    for (int taskId = 0; taskId < peerHistograms.length(); ++taskId) {
+      LatencyHistogram histogram = peerHistograms.get(taskId);
+      if (histogram == null) {
+        continue;
+      }
+      LatencyHistogram peerRtt = new LatencyHistogram();
+      histogram.drainTo(peerRtt);
+      if (peerRtt.getCount() > 0) {
+        metrics.addPeerRequestRtt(taskId, peerRtt);
+      }
+    }
+    addPartitionMessages.drainTo(metrics.getAddPartitionMessagesHistogram());
+    computePartition.drainTo(metrics.getComputePartitionHistogram());
+    flush.drainTo(metrics.getFlushHistogram());
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.metrics;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Histogram of non-negative values (typically latencies in microseconds)
+ * with log-linear buckets, in the spirit of HdrHistogram. Values below
+ * 2 * {@link #SUB_BUCKETS} are counted exactly, larger ones in buckets whose
+ * width is at most 1 / {@link #SUB_BUCKETS} of their value.
+ *
+ * Recording is lock-free and doesn't allocate, so it can be used on hot
+ * paths from many threads. Reading while recording gives a slightly
+ * inconsistent but never corrupt view.
+ */
+@ThreadSafe
+public class LatencyHistogram implements Writable {
+  /** Largest recorded value, larger values are clamped to it */
+  public static final long MAX_VALUE = (1L << 40) - 1;
+  /** Number of bits of precision kept for each value */
+  private static final int SUB_BUCKET_BITS = 4;
+  /** Number of buckets per power of two */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** Total number of buckets */
+  private static final int NUM_BUCKETS = bucketIndex(MAX_VALUE) + 1;
+
+  /** Number of values in each bucket */
+  private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+  /** Sum of all values */
+  private final AtomicLong sum = new AtomicLong();
+  /** Largest value */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Get the bucket a value falls into
+   *
+   * @param value Value, in [0, MAX_VALUE]
+   * @return Bucket index
+   */
+  private static int bucketIndex(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS +
+        (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  /**
+   * Get the largest value which falls into a bucket
+   *
+   * @param index Bucket index
+   * @return Largest value of the bucket
+   */
+  private static long highestValue(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long top = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+
+  /**
+   * Record a value
+   *
+   * @param value Value, negative values are recorded as 0
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    } else if (value > MAX_VALUE) {
+      value = MAX_VALUE;
+    }
+    counts.incrementAndGet(bucketIndex(value));
+    sum.addAndGet(value);
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * Add all values of another histogram to this one
+   *
+   * @param other Histogram to add
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      long count = other.counts.get(i);
+      if (count != 0) {
+        counts.addAndGet(i, count);
+      }
+    }
+    sum.addAndGet(other.sum.get());
+    mergeMax(other.max.get());
+  }
+
+  /**
+   * Move all values of this histogram to another one, leaving this one
+   * empty. Values recorded concurrently end up in exactly one of the two.
+   *
+   * @param target Histogram to move the values to
+   */
+  public void drainTo(LatencyHistogram target) {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      if (counts.get(i) != 0) {
+        target.counts.addAndGet(i, counts.getAndSet(i, 0));
+      }
+    }
+    target.sum.addAndGet(sum.getAndSet(0));
+    target.mergeMax(max.getAndSet(0));
+  }
+
+  /**
+   * Raise max to the given value if it is larger
+   *
+   * @param value Value
+   */
+  private void mergeMax(long value) {
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * Remove all values
+   */
+  public void clear() {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    sum.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Get the number of recorded values
+   *
+   * @return Number of values
+   */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long getSum() {
+    return sum.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Get the mean of recorded values
+   *
+   * @return Mean, 0 if empty
+   */
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0 : sum.get() / (double) count;
+  }
+
+  /**
+   * Get the value below which the given percentage of values fall, up to
+   * the precision of the buckets
+   *
+   * @param percentile Percentile, in [0, 100]
+   * @return Value at percentile, 0 if empty
+   */
+  public long getValueAtPercentile(double percentile) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    long[] snapshot = new long[NUM_BUCKETS];
+    int nonEmpty = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      if (snapshot[i] != 0) {
+        nonEmpty++;
+      }
+    }
+    out.writeLong(sum.get());
+    out.writeLong(max.get());
+    out.writeInt(nonEmpty);
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      if (snapshot[i] != 0) {
+        out.writeShort(i);
+        out.writeLong(snapshot[i]);
+      }
+    }
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    clear();
+    sum.set(in.readLong());
+    max.set(in.readLong());
+    int nonEmpty = in.readInt();
+    for (int i = 0; i < nonEmpty; i++) {
+      int index = in.readShort();
+      counts.set(index, in.readLong());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", mean=" + String.format("%.1f",
+        getMean()) + ", p50=" + getValueAtPercentile(50) +
+        ", p90=" + getValueAtPercentile(90) +
+        ", p99=" + getValueAtPercentile(99) + ", max=" + getMax();
+  }
+}
@@ -0,0 +1,418 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.out_of_core.DiskBackedMessageStore;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.edge.AbstractEdgeStore;
+import org.apache.giraph.edge.EdgeStore;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.DiskBackedPartitionStore;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.utils.MemoryUtils;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.log4j.Logger;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estimates how many bytes each memory hungry subsystem of a worker retains,
+ * so when a worker runs out of memory it's clear what to blame. Estimates
+ * are based on serialized sizes, so they are lower bounds of the heap used
+ * by object based structures. Peaks of every superstep are published with
+ * {@link WorkerSuperstepMetrics}, and a warning with the breakdown is logged
+ * when the heap gets close to full. Disabled unless
+ * {@link GiraphConstants#MEMORY_ACCOUNTING_ENABLE} is set.
+ */
+@ThreadSafe
+public class MemoryAccounting {
+  /** Subsystems whose memory is accounted for */
+  public enum Subsystem {
+    /** Vertices and their edges */
+    PARTITIONS("partition store"),
+    /** Messages received, for the current and the next superstep */
+    MESSAGES("message store"),
+    /** Edges read during input, before they are moved to their vertices */
+    EDGES("edge store"),
+    /** Data cached by compute and input threads before it's sent */
+    SEND_CACHES("send caches"),
+    /** Requests sent and not acknowledged yet */
+    NETTY("netty requests in flight");
+
+    /** Human readable description */
+    private final String description;
+
+    /**
+     * Constructor
+     *
+     * @param description Human readable description
+     */
+    Subsystem(String description) {
+      this.description = description;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+  }
+
+  /** Number of vertices to serialize per partition for estimates */
+  public static final int SAMPLE_SIZE = 64;
+  /** Don't warn about the heap more often than this */
+  private static final long WARNING_INTERVAL_MSECS = 60 * 1000;
+  /** Class logger */
+  private static final Logger LOG = Logger.getLogger(MemoryAccounting.class);
+  /** Singleton instance, disabled until initialized */
+  private static volatile MemoryAccounting INSTANCE =
+      new MemoryAccounting(false, 1);
+
+  /** Whether accounting is enabled */
+  private final boolean enabled;
+  /** Warn when this fraction of the maximum heap is used */
+  private final float warningFraction;
+  /** Latest estimate of each subsystem, -1 if unknown */
+  private final AtomicLongArray current =
+      new AtomicLongArray(Subsystem.values().length);
+  /** Largest estimate of each subsystem in this superstep, -1 if unknown */
+  private final AtomicLongArray peak =
+      new AtomicLongArray(Subsystem.values().length);
+  /** When the last warning was logged */
+  private final AtomicLong lastWarningMsecs = new AtomicLong();
+
+  /**
+   * Constructor
+   *
+   * @param enabled Whether accounting is enabled
+   * @param warningFraction Warn when this fraction of the heap is used
+   */
+  private MemoryAccounting(boolean enabled, float warningFraction) {
+    this.enabled = enabled;
+    this.warningFraction = warningFraction;
+    for (Subsystem subsystem : Subsystem.values()) {
+      current.set(subsystem.ordinal(), -1);
+      peak.set(subsystem.ordinal(), -1);
+    }
+    // Tracked continuously rather than estimated, so known from the start
+    for (Subsystem subsystem : new Subsystem[] {
+      Subsystem.SEND_CACHES, Subsystem.NETTY }) {
+      current.set(subsystem.ordinal(), 0);
+      peak.set(subsystem.ordinal(), 0);
+    }
+  }
+
+  /**
+   * Get singleton instance
+   *
+   * @return MemoryAccounting singleton
+   */
+  public static MemoryAccounting get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Initialize singleton from configuration
+   *
+   * @param conf Configuration
+   */
+  public static void init(GiraphConfiguration conf) {
+    INSTANCE = new MemoryAccounting(
+        GiraphConstants.MEMORY_ACCOUNTING_ENABLE.get(conf),
+        GiraphConstants.MEMORY_WARNING_FRACTION.get(conf));
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Set the latest estimate of a subsystem
+   *
+   * @param subsystem Subsystem
+   * @param bytes Estimated bytes retained, -1 if unknown
+   */
+  public void setEstimate(Subsystem subsystem, long bytes) {
+    if (enabled) {
+      current.set(subsystem.ordinal(), bytes);
+      updatePeak(subsystem, bytes);
+    }
+  }
+
+  /**
+   * Add the peak size of the send caches of a thread which flushed them.
+   * Caches of different threads are summed, as an upper bound of what they
+   * retained together.
+   *
+   * @param bytes Peak bytes in the send caches of the thread
+   */
+  public void addSendCacheBytes(long bytes) {
+    if (enabled && bytes > 0) {
+      updatePeak(Subsystem.SEND_CACHES,
+          current.addAndGet(Subsystem.SEND_CACHES.ordinal(), bytes));
+    }
+  }
+
+  /**
+   * Track requests which were sent and are waiting for acknowledgement.
+   *
+   * @param bytes Serialized size of the request, negative once acknowledged
+   */
+  public void addNettyBytes(long bytes) {
+    if (enabled && bytes != 0) {
+      updatePeak(Subsystem.NETTY,
+          current.addAndGet(Subsystem.NETTY.ordinal(), bytes));
+    }
+  }
+
+  /**
+   * Raise the peak of a subsystem if needed
+   *
+   * @param subsystem Subsystem
+   * @param bytes Current estimate
+   */
+  private void updatePeak(Subsystem subsystem, long bytes) {
+    int index = subsystem.ordinal();
+    while (true) {
+      long oldPeak = peak.get(index);
+      if (bytes <= oldPeak || peak.compareAndSet(index, oldPeak, bytes)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Estimate the partition and message stores of a worker, which is done
+   * once all messages of the superstep were received.
+   *
+   * @param partitionStore Partition store
+   * @param currentMessageStore Messages for the current superstep
+   * @param incomingMessageStore Messages for the next superstep
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   */
+  public <I extends WritableComparable, V extends Writable,
+      E extends Writable> void estimateStores(
+      PartitionStore<I, V, E> partitionStore,
+      MessageStore<I, Writable> currentMessageStore,
+      MessageStore<I, Writable> incomingMessageStore) {
+    if (!enabled) {
+      return;
+    }
+    try {
+      setEstimate(Subsystem.PARTITIONS,
+          estimatePartitionStoreBytes(partitionStore));
+      long currentBytes =
+          estimateMessageStoreBytes(currentMessageStore, partitionStore);
+      long incomingBytes =
+          estimateMessageStoreBytes(incomingMessageStore, partitionStore);
+      setEstimate(Subsystem.MESSAGES,
+          currentBytes < 0 || incomingBytes < 0 ? -1 :
+              currentBytes + incomingBytes);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "estimateStores: Failed to serialize for estimates", e);
+    }
+    checkHeadroom();
+  }
+
+  /**
+   * Estimate the edges waiting in the edge store, which is done right
+   * before they are moved to their vertices.
+   *
+   * @param edgeStore Edge store
+   */
+  public void estimateEdgeStore(EdgeStore<?, ?, ?> edgeStore) {
+    if (!enabled) {
+      return;
+    }
+    if (edgeStore instanceof AbstractEdgeStore) {
+      try {
+        setEstimate(Subsystem.EDGES, ((AbstractEdgeStore<?, ?, ?, ?, ?>)
+            edgeStore).estimateTransientEdgesBytes(SAMPLE_SIZE));
+      } catch (IOException e) {
+        throw new IllegalStateException(
+            "estimateEdgeStore: Failed to serialize for estimates", e);
+      }
+    }
+    checkHeadroom();
+  }
+
+  /**
+   * Estimate the size of all partitions in memory, by serializing a sample
+   * of vertices of every partition.
+   *
+   * @param partitionStore Partition store
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @return Estimated bytes, -1 if unknown
+   * @throws IOException
+   */
+  private static <I extends WritableComparable, V extends Writable,
+      E extends Writable> long estimatePartitionStoreBytes(
+      PartitionStore<I, V, E> partitionStore) throws IOException {
+    // Getting partitions of the out-of-core store would load them
+    if (partitionStore instanceof DiskBackedPartitionStore) {
+      return -1;
+    }
+    long bytes = 0;
+    for (Integer partitionId : partitionStore.getPartitionIds()) {
+      Partition<I, V, E> partition =
+          partitionStore.getOrCreatePartition(partitionId);
+      bytes += estimatePartitionBytes(partition);
+      partitionStore.putPartition(partition);
+    }
+    return bytes;
+  }
+
+  /**
+   * Estimate the size of a partition by serializing a sample of its
+   * vertices.
+   *
+   * @param partition Partition
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @return Estimated bytes
+   * @throws IOException
+   */
+  static <I extends WritableComparable, V extends Writable,
+      E extends Writable> long estimatePartitionBytes(
+      Partition<I, V, E> partition) throws IOException {
+    CountingOutputStream counter =
+        new CountingOutputStream(ByteStreams.nullOutputStream());
+    DataOutputStream out = new DataOutputStream(counter);
+    int sampled = 0;
+    for (Vertex<I, V, E> vertex : partition) {
+      if (sampled == SAMPLE_SIZE) {
+        break;
+      }
+      WritableUtils.writeVertexToDataOutput(out, vertex, partition.getConf());
+      ++sampled;
+    }
+    out.flush();
+    if (sampled == 0) {
+      return 0;
+    }
+    return counter.getCount() * partition.getVertexCount() / sampled;
+  }
+
+  /**
+   * Get the serialized size of all messages in a message store.
+   *
+   * @param messageStore Message store
+   * @param partitionStore Partition store with the partition ids
+   * @param <I> Vertex id
+   * @return Bytes, -1 if unknown
+   * @throws IOException
+   */
+  private static <I extends WritableComparable> long
+  estimateMessageStoreBytes(MessageStore<I, Writable> messageStore,
+      PartitionStore<I, ?, ?> partitionStore) throws IOException {
+    // Out-of-core messages would be read back from disk
+    if (messageStore == null ||
+        messageStore instanceof DiskBackedMessageStore) {
+      return -1;
+    }
+    CountingOutputStream counter =
+        new CountingOutputStream(ByteStreams.nullOutputStream());
+    DataOutputStream out = new DataOutputStream(counter);
+    for (Integer partitionId : partitionStore.getPartitionIds()) {
+      messageStore.writePartition(out, partitionId);
+    }
+    out.flush();
+    return counter.getCount();
+  }
+
+  /**
+   * Log a warning with the breakdown of estimates if the heap is almost
+   * full. Cheap, so it can be called often.
+   */
+  public void checkHeadroom() {
+    if (!enabled) {
+      return;
+    }
+    double maxMB = MemoryUtils.maxMemoryMB();
+    double usedMB = MemoryUtils.totalMemoryMB() - MemoryUtils.freeMemoryMB();
+    if (usedMB < warningFraction * maxMB) {
+      return;
+    }
+    long lastWarning = lastWarningMsecs.get();
+    long now = System.currentTimeMillis();
+    if (now - lastWarning < WARNING_INTERVAL_MSECS ||
+        !lastWarningMsecs.compareAndSet(lastWarning, now)) {
+      return;
+    }
+    LOG.warn("checkHeadroom: " + Math.round(usedMB * 100 / maxMB) +
+        "% of the heap is used (" + MemoryUtils.getRuntimeMemoryStats() +
+        "), estimated retained " + toString());
+  }
+
+  /**
+   * Move the peaks of this superstep to metrics and start over. Send caches
+   * are empty between supersteps, other subsystems keep their latest
+   * estimate.
+   *
+   * @param metrics Metrics to fill
+   */
+  public void drainTo(WorkerSuperstepMetrics metrics) {
+    for (Subsystem subsystem : Subsystem.values()) {
+      int index = subsystem.ordinal();
+      if (subsystem == Subsystem.SEND_CACHES) {
+        current.set(index, 0);
+      }
+      metrics.setMemoryEstimate(subsystem,
+          peak.getAndSet(index, current.get(index)));
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    Subsystem largest = null;
+    for (Subsystem subsystem : Subsystem.values()) {
+      long bytes = current.get(subsystem.ordinal());
+      if (bytes < 0) {
+        continue;
+      }
+      if (largest == null || bytes > current.get(largest.ordinal())) {
+        largest = subsystem;
+      }
+      sb.append(sb.length() == 0 ? "" : ", ").append(
+          subsystem.getDescription()).append(" = ").append(
+          Math.round(MemoryUtils.megaBytes(bytes))).append("M");
+    }
+    if (largest != null) {
+      sb.append(", largest is the ").append(largest.getDescription());
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.metrics;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Top-K vertices by compute time, messages sent, messages received and
+ * edge count, and the slowest partitions, of one superstep. Each compute
+ * thread fills its own instance, which are then merged per worker and
+ * finally on the master.
+ */
+@NotThreadSafe
+public class SkewStats implements Writable {
+  /** Longest vertex labels kept */
+  private static final int MAX_LABEL_LENGTH = 256;
+
+  /** Vertices by compute time in us */
+  private final TopKList computeMicros;
+  /** Vertices by messages sent */
+  private final TopKList messagesSent;
+  /** Vertices by messages received */
+  private final TopKList messagesReceived;
+  /** Vertices by number of edges */
+  private final TopKList edges;
+  /** Partitions by compute time in ms */
+  private final TopKList partitionComputeMs;
+
+  /** Constructor for reflection */
+  public SkewStats() {
+    this(0);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param k Number of vertices and partitions to keep in each list
+   */
+  public SkewStats(int k) {
+    computeMicros = new TopKList(k);
+    messagesSent = new TopKList(k);
+    messagesReceived = new TopKList(k);
+    edges = new TopKList(k);
+    partitionComputeMs = new TopKList(k);
+  }
+
+  /**
+   * Record a computed vertex. The label is only built if the vertex makes
+   * it into one of the lists.
+   *
+   * @param id Vertex id
+   * @param computeUs Compute time in us, negative if it wasn't measured
+   * @param sent Messages sent
+   * @param received Messages received, negative if they weren't counted
+   * @param numEdges Number of edges
+   */
+  public void recordVertex(Object id, long computeUs, long sent,
+      long received, long numEdges) {
+    String label = null;
+    if (computeUs >= 0 && computeMicros.accepts(computeUs)) {
+      label = label(id);
+      computeMicros.add(computeUs, label);
+    }
+    if (messagesSent.accepts(sent)) {
+      label = label == null ? label(id) : label;
+      messagesSent.add(sent, label);
+    }
+    if (received >= 0 && messagesReceived.accepts(received)) {
+      label = label == null ? label(id) : label;
+      messagesReceived.add(received, label);
+    }
+    if (edges.accepts(numEdges)) {
+      label = label == null ? label(id) : label;
+      edges.add(numEdges, label);
+    }
+  }
+
+  /**
+   * Record a computed partition
+   *
+   * @param partitionId Partition id
+   * @param computeMs Compute time in ms
+   */
+  public void recordPartition(int partitionId, long computeMs) {
+    if (partitionComputeMs.accepts(computeMs)) {
+      partitionComputeMs.add(computeMs, "partition " + partitionId);
+    }
+  }
+
+  /**
+   * Label a vertex
+   *
+   * @param id Vertex id
+   * @return Label, cut to {@link #MAX_LABEL_LENGTH}
+   */
+  private static String label(Object id) {
+    String label = String.valueOf(id);
+    return label.length() <= MAX_LABEL_LENGTH ? label :
+        label.substring(0, MAX_LABEL_LENGTH);
+  }
+
+  /**
+   * Merge in the lists of another instance
+   *
+   * @param other Other stats
+   * @param partitionPrefix Prefix for partition labels of the other stats,
+   *                        e.g. the worker they come from
+   */
+  public void addAll(SkewStats other, String partitionPrefix) {
+    computeMicros.addAll(other.computeMicros, null);
+    messagesSent.addAll(other.messagesSent, null);
+    messagesReceived.addAll(other.messagesReceived, null);
+    edges.addAll(other.edges, null);
+    partitionComputeMs.addAll(other.partitionComputeMs, partitionPrefix);
+  }
+
+  /**
+   * Whether nothing was recorded
+   *
+   * @return True if all lists are empty
+   */
+  public boolean isEmpty() {
+    return edges.size() == 0 && partitionComputeMs.size() == 0;
+  }
+
+  public TopKList getComputeMicros() {
+    return computeMicros;
+  }
+
+  public TopKList getMessagesSent() {
+    return messagesSent;
+  }
+
+  public TopKList getMessagesReceived() {
+    return messagesReceived;
+  }
+
+  public TopKList getEdges() {
+    return edges;
+  }
+
+  public TopKList getPartitionComputeMs() {
+    return partitionComputeMs;
+  }
+
+  /**
+   * Human readable dump of the lists
+   *
+   * @param superstep Superstep
+   * @param sampleInterval Compute time and messages received were measured
+   *                       for every this many vertices
+   * @param out Where to print
+   */
+  public void print(long superstep, int sampleInterval, PrintStream out) {
+    String sampled = sampleInterval > 1 ?
+        "sampled 1 in " + sampleInterval + " vertices" : null;
+    out.println("--- SKEW: superstep " + superstep + " ---");
+    printList(out, "vertex compute time (us" +
+        (sampled == null ? "" : ", " + sampled) + ")", computeMicros);
+    printList(out, "vertex messages sent", messagesSent);
+    printList(out, "vertex messages received" +
+        (sampled == null ? "" : " (" + sampled + ")"), messagesReceived);
+    printList(out, "vertex edges", edges);
+    printList(out, "partition compute time (ms)", partitionComputeMs);
+  }
+
+  /**
+   * Print one list
+   *
+   * @param out Where to print
+   * @param header Name of the list
+   * @param list List to print
+   */
+  private static void printList(PrintStream out, String header,
+      TopKList list) {
+    out.println(header);
+    for (TopKList.Entry entry : list.getSortedEntries()) {
+      out.println("  " + entry.getValue() + " " + entry.getLabel());
+    }
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    computeMicros.write(out);
+    messagesSent.write(out);
+    messagesReceived.write(out);
+    edges.write(out);
+    partitionComputeMs.write(out);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    computeMicros.readFields(in);
+    messagesSent.readFields(in);
+    messagesReceived.readFields(in);
+    edges.readFields(in);
+    partitionComputeMs.readFields(in);
+  }
+}
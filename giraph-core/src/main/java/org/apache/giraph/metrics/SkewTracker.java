@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Collects {@link SkewStats} of all compute threads of a worker during a
+ * superstep. Disabled unless {@link GiraphConstants#SKEW_TOP_K} is
+ * positive.
+ */
+@ThreadSafe
+public class SkewTracker {
+  /** Singleton instance, disabled until initialized */
+  private static volatile SkewTracker INSTANCE = new SkewTracker(0, 1);
+
+  /** Number of vertices and partitions to keep in each list */
+  private final int k;
+  /** Time, and count received messages of, every this many vertices */
+  private final int timingSampleInterval;
+  /** Stats merged from compute threads in the current superstep */
+  private SkewStats current;
+
+  /**
+   * Constructor
+   *
+   * @param k Number of entries to keep, 0 to disable
+   * @param timingSampleInterval Sample every this many vertices
+   */
+  private SkewTracker(int k, int timingSampleInterval) {
+    this.k = k;
+    this.timingSampleInterval = Math.max(1, timingSampleInterval);
+    current = new SkewStats(k);
+  }
+
+  /**
+   * Get singleton instance
+   *
+   * @return SkewTracker singleton
+   */
+  public static SkewTracker get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Initialize singleton from configuration
+   *
+   * @param conf Configuration
+   */
+  public static void init(GiraphConfiguration conf) {
+    INSTANCE = new SkewTracker(GiraphConstants.SKEW_TOP_K.get(conf),
+        GiraphConstants.SKEW_TIMING_SAMPLE_INTERVAL.get(conf));
+  }
+
+  public boolean isEnabled() {
+    return k > 0;
+  }
+
+  public int getTimingSampleInterval() {
+    return timingSampleInterval;
+  }
+
+  /**
+   * Create stats for a compute thread to fill
+   *
+   * @return New stats, null if disabled
+   */
+  public SkewStats newThreadStats() {
+    return isEnabled() ? new SkewStats(k) : null;
+  }
+
+  /**
+   * Merge stats of a compute thread which is done
+   *
+   * @param stats Stats of the thread
+   */
+  public synchronized void merge(SkewStats stats) {
+    current.addAll(stats, null);
+  }
+
+  /**
+   * Get the stats of the superstep and start over
+   *
+   * @return Merged stats of all threads
+   */
+  public synchronized SkewStats drain() {
+    SkewStats stats = current;
+    current = new SkewStats(k);
+    return stats;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.metrics.SuperstepPhases.Phase;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records when this worker goes through each {@link Phase} of the current
+ * superstep. Always enabled, since it only takes a few timestamps per
+ * superstep.
+ */
+@ThreadSafe
+public class SuperstepPhaseTracker {
+  /** Singleton instance */
+  private static final SuperstepPhaseTracker INSTANCE =
+      new SuperstepPhaseTracker();
+
+  /**
+   * Start of each phase in msecs, followed by the barrier entry, 0 if not
+   * reached yet
+   */
+  private final AtomicLongArray marks =
+      new AtomicLongArray(SuperstepPhases.NUM_MARKS);
+
+  /**
+   * Get singleton instance
+   *
+   * @return SuperstepPhaseTracker singleton
+   */
+  public static SuperstepPhaseTracker get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Forget the previous superstep and start the {@link Phase#PREPARE} phase
+   * of a new one.
+   */
+  public void startSuperstep() {
+    for (int i = 1; i < SuperstepPhases.NUM_MARKS; i++) {
+      marks.set(i, 0);
+    }
+    marks.set(0, System.currentTimeMillis());
+  }
+
+  /**
+   * Start a phase, which ends the previous one.
+   *
+   * @param phase Phase to start
+   */
+  public void startPhase(Phase phase) {
+    marks.set(phase.ordinal(), System.currentTimeMillis());
+  }
+
+  /**
+   * Record that one of several threads got to a phase. The phase starts when
+   * the last thread gets there.
+   *
+   * @param phase Phase the thread got to
+   */
+  public void startPhaseOnThread(Phase phase) {
+    long now = System.currentTimeMillis();
+    int index = phase.ordinal();
+    while (true) {
+      long mark = marks.get(index);
+      if (now <= mark || marks.compareAndSet(index, mark, now)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Record entering the barrier, which ends the last phase.
+   */
+  public void enterBarrier() {
+    marks.set(SuperstepPhases.NUM_MARKS - 1, System.currentTimeMillis());
+  }
+
+  /**
+   * Get the phases of the current superstep. Phases which were skipped
+   * take no time.
+   *
+   * @return Phases of the current superstep
+   */
+  public SuperstepPhases snapshot() {
+    long[] values = new long[SuperstepPhases.NUM_MARKS];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = marks.get(i);
+      if (i > 0 && values[i] < values[i - 1]) {
+        values[i] = values[i - 1];
+      }
+    }
+    return new SuperstepPhases(values);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * When a worker went through each phase of a superstep, up to entering the
+ * barrier. Sent to the master to find the critical path of the superstep.
+ */
+public class SuperstepPhases implements Writable {
+  /** Phases of a superstep on a worker, in order */
+  public enum Phase {
+    /** Exchanging partitions, checkpointing and preSuperstep() */
+    PREPARE("prepare"),
+    /** Computing (or loading input), until the last thread is done */
+    COMPUTE("compute"),
+    /** Flushing the messages cached by compute threads */
+    FLUSH("flush"),
+    /** Waiting for all sent requests to be acknowledged */
+    WAIT_REQUESTS("waitRequests"),
+    /** postSuperstep(), aggregators and reporting stats */
+    POST_SUPERSTEP("postSuperstep");
+
+    /** Name used in logs and counters */
+    private final String displayName;
+
+    /**
+     * Constructor
+     *
+     * @param displayName Name used in logs and counters
+     */
+    Phase(String displayName) {
+      this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+      return displayName;
+    }
+  }
+
+  /** Number of timestamps: start of each phase and the barrier entry */
+  static final int NUM_MARKS = Phase.values().length + 1;
+
+  /** Start of each phase in msecs, followed by the barrier entry */
+  private final long[] marks = new long[NUM_MARKS];
+
+  /**
+   * Constructor for reflection
+   */
+  public SuperstepPhases() { }
+
+  /**
+   * Constructor
+   *
+   * @param marks Start of each phase in msecs, followed by the barrier entry
+   */
+  SuperstepPhases(long[] marks) {
+    System.arraycopy(marks, 0, this.marks, 0, NUM_MARKS);
+  }
+
+  /**
+   * @return When the superstep started, in msecs
+   */
+  public long getStartMsecs() {
+    return marks[0];
+  }
+
+  /**
+   * @return When the worker entered the barrier, in msecs
+   */
+  public long getBarrierEnteredMsecs() {
+    return marks[NUM_MARKS - 1];
+  }
+
+  /**
+   * @return Msecs from the start of the superstep to entering the barrier
+   */
+  public long getTotalMsecs() {
+    return getBarrierEnteredMsecs() - getStartMsecs();
+  }
+
+  /**
+   * Get how long a phase took
+   *
+   * @param phase Phase
+   * @return Duration in msecs
+   */
+  public long getPhaseMsecs(Phase phase) {
+    return marks[phase.ordinal() + 1] - marks[phase.ordinal()];
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    for (long mark : marks) {
+      out.writeLong(mark);
+    }
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    for (int i = 0; i < NUM_MARKS; i++) {
+      marks[i] = in.readLong();
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("totalMsecs=").append(
+        getTotalMsecs());
+    for (Phase phase : Phase.values()) {
+      sb.append(' ').append(phase.getDisplayName()).append("Msecs=").append(
+          getPhaseMsecs(phase));
+    }
+    return sb.toString();
+  }
+}
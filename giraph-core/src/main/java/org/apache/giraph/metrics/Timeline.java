@@ -0,0 +1,523 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.GraphTaskManager;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.log4j.Logger;
+import org.json.JSONObject;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import static org.apache.giraph.bsp.BspService.INPUT_SUPERSTEP;
+
+/**
+ * Per-task timeline of where wall-clock time goes: every thread records
+ * spans (input split reads, partition compute, message flush, barrier
+ * waits, checkpoints, out-of-core I/O) which are written to HDFS in the
+ * Chrome trace event format, one file per task. At the end of the job the
+ * master concatenates all task files into a single trace which can be
+ * loaded into a trace viewer (chrome://tracing, Perfetto).
+ *
+ * Events carry the task partition as process id, the recording thread as
+ * thread id and the superstep as argument. Timestamps are wall-clock based
+ * so spans of different workers line up as well as the clocks do.
+ *
+ * Each task owns its timeline (see {@link GraphTaskManager#getTimeline()}),
+ * so master and workers sharing a JVM in local mode don't mix their events.
+ * Recording threads only queue serialized events; once enough are queued
+ * a background thread writes them out, and the rest is written at the end
+ * of every superstep.
+ *
+ * When {@link GiraphConstants#TIMELINE_DIRECTORY} is not set the timeline
+ * is disabled and {@link #startSpan} returns a shared no-op span.
+ */
+@ThreadSafe
+public class Timeline {
+  /** Category of input loading spans */
+  public static final String INPUT = "input";
+  /** Category of computation spans */
+  public static final String COMPUTE = "compute";
+  /** Category of message flushing spans */
+  public static final String FLUSH = "flush";
+  /** Category of barrier waiting spans */
+  public static final String BARRIER = "barrier";
+  /** Category of checkpointing spans */
+  public static final String CHECKPOINT = "checkpoint";
+  /** Category of out-of-core I/O spans */
+  public static final String OUT_OF_CORE = "ooc";
+  /** Category of whole superstep spans */
+  public static final String SUPERSTEP = "superstep";
+  /** Category of master spans */
+  public static final String MASTER = "master";
+  /** Name of the merged job trace */
+  public static final String MERGED_FILE = "timeline.json";
+  /** Prefix of per-task trace files */
+  private static final String TASK_FILE_PREFIX = "timeline_task_";
+  /** Hand queued events to the writer once this many are pending */
+  private static final int FLUSH_THRESHOLD = 16 * 1024;
+  /** Class logger */
+  private static final Logger LOG = Logger.getLogger(Timeline.class);
+  /** Span handed out while the timeline is disabled */
+  private static final Span NO_OP_SPAN = new Span(null, null, null, 0, 0);
+  /** Shared disabled timeline */
+  private static final Timeline DISABLED = new Timeline();
+
+  /** Whether events are recorded */
+  private final boolean enabled;
+  /** Process id of the events, the task partition */
+  private final int taskPartition;
+  /** Wall-clock time in microseconds matching {@link #baseNanos} */
+  private final long baseMicros;
+  /** Monotonic time at which the timeline was created */
+  private final long baseNanos;
+  /** Serialized events waiting to be written */
+  private final Queue<String> pending = new ConcurrentLinkedQueue<String>();
+  /** Number of events in {@link #pending} */
+  private final AtomicInteger numPending = new AtomicInteger();
+  /** Threads whose name was already emitted */
+  private final ConcurrentMap<Long, Boolean> namedThreads =
+      new ConcurrentHashMap<Long, Boolean>();
+  /** Writes queued events in the background, null when disabled */
+  private final ExecutorService writer;
+  /** Whether a background write is queued or running */
+  private final AtomicBoolean writeScheduled = new AtomicBoolean();
+  /** Where events are written, null once closed */
+  private Writer out;
+  /** Superstep attached to spans which don't specify one */
+  private volatile long superstep = INPUT_SUPERSTEP;
+
+  /**
+   * Create a disabled timeline
+   */
+  private Timeline() {
+    enabled = false;
+    taskPartition = -1;
+    baseMicros = 0;
+    baseNanos = 0;
+    writer = null;
+  }
+
+  /**
+   * Create an enabled timeline writing to the given stream
+   *
+   * @param taskPartition Task partition, used as process id
+   * @param processName Name shown for this task in trace viewers
+   * @param out Where to write events
+   */
+  Timeline(int taskPartition, String processName, Writer out) {
+    enabled = true;
+    this.taskPartition = taskPartition;
+    this.out = out;
+    writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setDaemon(true).setNameFormat("timeline-writer-%d").build());
+    baseNanos = System.nanoTime();
+    baseMicros = System.currentTimeMillis() * 1000;
+    enqueue(metadataEvent("process_name", 0, processName));
+  }
+
+  /**
+   * Get the timeline of a task
+   *
+   * @param taskManager Task manager, may be null
+   * @return Task timeline, disabled if there is no task manager
+   */
+  public static Timeline of(GraphTaskManager<?, ?, ?> taskManager) {
+    Timeline timeline = taskManager == null ? null : taskManager.getTimeline();
+    return timeline == null ? DISABLED : timeline;
+  }
+
+  /**
+   * Get a disabled timeline, which records nothing
+   *
+   * @return Disabled timeline
+   */
+  public static Timeline disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Create the timeline of a task, creating its trace file if
+   * {@link GiraphConstants#TIMELINE_DIRECTORY} is set
+   *
+   * @param conf Configuration
+   * @param processName Name shown for this task in trace viewers
+   * @return Task timeline, disabled if not configured or on failure
+   */
+  public static Timeline create(
+      ImmutableClassesGiraphConfiguration<?, ?, ?> conf, String processName) {
+    String dir = GiraphConstants.TIMELINE_DIRECTORY.get(conf);
+    if (dir.isEmpty()) {
+      return DISABLED;
+    }
+    Path file = new Path(dir, TASK_FILE_PREFIX + conf.getTaskPartition() +
+        ".json");
+    try {
+      FileSystem fs = file.getFileSystem(conf);
+      Writer writer = new BufferedWriter(
+          new OutputStreamWriter(fs.create(file, true), Charsets.UTF_8));
+      writer.write("[\n");
+      if (LOG.isInfoEnabled()) {
+        LOG.info("create: Writing timeline to " + file);
+      }
+      return new Timeline(conf.getTaskPartition(), processName, writer);
+    } catch (IOException e) {
+      LOG.error("create: Couldn't create timeline file " + file +
+          ", timeline disabled", e);
+      return DISABLED;
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Set the superstep attached to spans started from now on
+   *
+   * @param superstep Current superstep
+   */
+  public void setSuperstep(long superstep) {
+    this.superstep = superstep;
+  }
+
+  /**
+   * Start a span in the current superstep on the calling thread
+   *
+   * @param category Category of the span, one of the constants above
+   * @param name Name of the span
+   * @return Span to end when the work is done
+   */
+  public Span startSpan(String category, String name) {
+    return startSpan(category, name, superstep);
+  }
+
+  /**
+   * Start a span on the calling thread
+   *
+   * @param category Category of the span, one of the constants above
+   * @param name Name of the span
+   * @param spanSuperstep Superstep the span belongs to
+   * @return Span to end when the work is done
+   */
+  public Span startSpan(String category, String name, long spanSuperstep) {
+    if (!enabled) {
+      return NO_OP_SPAN;
+    }
+    return new Span(this, category, name, spanSuperstep, System.nanoTime());
+  }
+
+  /**
+   * Serialize a finished span
+   *
+   * @param span Span which ended
+   * @param endNanos Monotonic end time
+   */
+  private void record(Span span, long endNanos) {
+    Thread thread = Thread.currentThread();
+    long tid = thread.getId();
+    if (namedThreads.putIfAbsent(tid, Boolean.TRUE) == null) {
+      enqueue(metadataEvent("thread_name", tid, thread.getName()));
+    }
+    StringBuilder sb = new StringBuilder(160);
+    sb.append("{\"ph\":\"X\",\"cat\":\"").append(span.category)
+        .append("\",\"name\":").append(JSONObject.quote(span.name))
+        .append(",\"pid\":").append(taskPartition)
+        .append(",\"tid\":").append(tid)
+        .append(",\"ts\":").append(toMicros(span.startNanos))
+        .append(",\"dur\":").append((endNanos - span.startNanos) / 1000)
+        .append(",\"args\":{\"superstep\":").append(span.superstep);
+    if (span.argName != null) {
+      sb.append(",\"").append(span.argName).append("\":")
+          .append(span.argValue);
+    }
+    sb.append("}}");
+    enqueue(sb.toString());
+  }
+
+  /**
+   * Serialize a metadata event naming a process or thread
+   *
+   * @param kind process_name or thread_name
+   * @param tid Thread id
+   * @param name Name to show
+   * @return Serialized event
+   */
+  private String metadataEvent(String kind, long tid, String name) {
+    return "{\"ph\":\"M\",\"name\":\"" + kind + "\",\"pid\":" +
+        taskPartition + ",\"tid\":" + tid + ",\"args\":{\"name\":" +
+        JSONObject.quote(name) + "}}";
+  }
+
+  /**
+   * Convert monotonic time to wall-clock microseconds
+   *
+   * @param nanos Value of {@link System#nanoTime()}
+   * @return Microseconds since the epoch
+   */
+  private long toMicros(long nanos) {
+    return baseMicros + (nanos - baseNanos) / 1000;
+  }
+
+  /**
+   * Queue a serialized event, handing the queue to the background writer
+   * if it grew large. Never blocks on I/O.
+   *
+   * @param event Serialized event
+   */
+  private void enqueue(String event) {
+    pending.add(event);
+    if (numPending.incrementAndGet() >= FLUSH_THRESHOLD &&
+        writeScheduled.compareAndSet(false, true)) {
+      try {
+        writer.execute(new Runnable() {
+          @Override
+          public void run() {
+            writeScheduled.set(false);
+            flush();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // Closed, events are dropped
+        writeScheduled.set(false);
+      }
+    }
+  }
+
+  /**
+   * Write all queued events. Called at the end of every superstep, and by
+   * the background writer whenever enough events are queued.
+   */
+  public void flush() {
+    if (!enabled) {
+      return;
+    }
+    synchronized (this) {
+      String event;
+      try {
+        while ((event = pending.poll()) != null) {
+          numPending.decrementAndGet();
+          if (out != null) {
+            out.write(event);
+            out.write(",\n");
+          }
+        }
+        if (out != null) {
+          out.flush();
+        }
+      } catch (IOException e) {
+        LOG.error("flush: Failed to write timeline, disabling it", e);
+        closeQuietly();
+      }
+    }
+  }
+
+  /**
+   * Write remaining events and close this task's trace file. Spans ending
+   * afterwards are dropped.
+   */
+  public void close() {
+    if (!enabled) {
+      return;
+    }
+    writer.shutdown();
+    try {
+      writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+    synchronized (this) {
+      closeQuietly();
+    }
+  }
+
+  /**
+   * Close the output stream, logging failures
+   */
+  private void closeQuietly() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } catch (IOException e) {
+      LOG.error("closeQuietly: Failed to close timeline", e);
+    }
+    out = null;
+  }
+
+  /**
+   * Concatenate the trace files of all tasks into a single job trace.
+   * Must be called after all tasks closed their timelines.
+   *
+   * @param conf Configuration
+   */
+  public static void mergeTaskTimelines(
+      ImmutableClassesGiraphConfiguration<?, ?, ?> conf) {
+    String dir = GiraphConstants.TIMELINE_DIRECTORY.get(conf);
+    if (dir.isEmpty()) {
+      return;
+    }
+    Path dirPath = new Path(dir);
+    Path merged = new Path(dirPath, MERGED_FILE);
+    Writer writer = null;
+    try {
+      FileSystem fs = dirPath.getFileSystem(conf);
+      FileStatus[] taskFiles = fs.listStatus(dirPath, new PathFilter() {
+        @Override
+        public boolean accept(Path path) {
+          return path.getName().startsWith(TASK_FILE_PREFIX);
+        }
+      });
+      Arrays.sort(taskFiles);
+      writer = new BufferedWriter(
+          new OutputStreamWriter(fs.create(merged, true), Charsets.UTF_8));
+      writer.write("[\n");
+      String previous = null;
+      for (FileStatus taskFile : taskFiles) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            fs.open(taskFile.getPath()), Charsets.UTF_8));
+        try {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (!line.endsWith(",")) {
+              continue;
+            }
+            if (previous != null) {
+              writer.write(previous);
+              writer.write("\n");
+            }
+            previous = line;
+          }
+        } finally {
+          reader.close();
+        }
+      }
+      if (previous != null) {
+        writer.write(previous.substring(0, previous.length() - 1));
+        writer.write("\n");
+      }
+      writer.write("]\n");
+      if (LOG.isInfoEnabled()) {
+        LOG.info("mergeTaskTimelines: Merged " + taskFiles.length +
+            " task timelines into " + merged);
+      }
+    } catch (IOException e) {
+      LOG.error("mergeTaskTimelines: Failed to merge timelines into " +
+          merged, e);
+    } finally {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (IOException e) {
+          LOG.error("mergeTaskTimelines: Failed to close " + merged, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * A timed piece of work on one thread. Not thread-safe, must be ended by
+   * the thread which started it.
+   */
+  public static final class Span {
+    /** Timeline to record into, null for the no-op span */
+    private final Timeline timeline;
+    /** Category */
+    private final String category;
+    /** Name */
+    private final String name;
+    /** Superstep */
+    private final long superstep;
+    /** Monotonic start time */
+    private final long startNanos;
+    /** Name of the optional extra argument */
+    private String argName;
+    /** Value of the optional extra argument */
+    private long argValue;
+
+    /**
+     * Constructor
+     *
+     * @param timeline Timeline to record into
+     * @param category Category
+     * @param name Name
+     * @param superstep Superstep
+     * @param startNanos Monotonic start time
+     */
+    private Span(Timeline timeline, String category, String name,
+        long superstep, long startNanos) {
+      this.timeline = timeline;
+      this.category = category;
+      this.name = name;
+      this.superstep = superstep;
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * Attach a numeric argument, e.g. the partition id, to this span
+     *
+     * @param key Argument name, must not need escaping
+     * @param value Argument value
+     * @return This span
+     */
+    public Span setArg(String key, long value) {
+      if (timeline != null) {
+        argName = key;
+        argValue = value;
+      }
+      return this;
+    }
+
+    /**
+     * End the span and record it
+     */
+    public void end() {
+      if (timeline != null) {
+        timeline.record(this, System.nanoTime());
+      }
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.metrics;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Keeps the K labelled values with the largest values seen so far, e.g. the
+ * K vertices with most edges. Checking whether a value qualifies is a
+ * single comparison, so offering values which don't make it is cheap.
+ */
+@NotThreadSafe
+public class TopKList implements Writable {
+  /** Orders entries by decreasing value */
+  private static final Comparator<Entry> DESCENDING =
+      new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+          return Long.compare(e2.value, e1.value);
+        }
+      };
+
+  /** Maximum number of entries */
+  private int k;
+  /** Min-heap of entries by value */
+  private Entry[] heap;
+  /** Number of entries in the heap */
+  private int size;
+
+  /** Constructor for reflection */
+  public TopKList() {
+    this(0);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param k Maximum number of entries to keep
+   */
+  public TopKList(int k) {
+    this.k = k;
+    heap = new Entry[k];
+  }
+
+  /**
+   * Whether a value would be kept
+   *
+   * @param value Value
+   * @return True if {@link #add} with this value would keep it
+   */
+  public boolean accepts(long value) {
+    return size < k || (k > 0 && value > heap[0].value);
+  }
+
+  /**
+   * Offer a labelled value
+   *
+   * @param value Value
+   * @param label Label of the value
+   */
+  public void add(long value, String label) {
+    if (size < k) {
+      heap[size] = new Entry(value, label);
+      siftUp(size++);
+    } else if (accepts(value)) {
+      heap[0] = new Entry(value, label);
+      siftDown(0);
+    }
+  }
+
+  /**
+   * Offer all entries of another list
+   *
+   * @param other Other list
+   * @param labelPrefix Prefix added to labels of the other list
+   */
+  public void addAll(TopKList other, String labelPrefix) {
+    for (int i = 0; i < other.size; i++) {
+      Entry entry = other.heap[i];
+      if (accepts(entry.value)) {
+        add(entry.value, labelPrefix == null ? entry.label :
+            labelPrefix + entry.label);
+      }
+    }
+  }
+
+  /**
+   * Move an entry up the heap to its place
+   *
+   * @param index Index of the entry
+   */
+  private void siftUp(int index) {
+    Entry entry = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (heap[parent].value <= entry.value) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = entry;
+  }
+
+  /**
+   * Move an entry down the heap to its place
+   *
+   * @param index Index of the entry
+   */
+  private void siftDown(int index) {
+    Entry entry = heap[index];
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && heap[child + 1].value < heap[child].value) {
+        child++;
+      }
+      if (entry.value <= heap[child].value) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = entry;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get entries ordered from the largest value down
+   *
+   * @return Sorted entries
+   */
+  public Entry[] getSortedEntries() {
+    Entry[] sorted = Arrays.copyOf(heap, size);
+    Arrays.sort(sorted, DESCENDING);
+    return sorted;
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(k);
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeLong(heap[i].value);
+      out.writeUTF(heap[i].label);
+    }
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    k = in.readInt();
+    heap = new Entry[k];
+    size = 0;
+    int newSize = in.readInt();
+    for (int i = 0; i < newSize; i++) {
+      long value = in.readLong();
+      add(value, in.readUTF());
+    }
+  }
+
+  /**
+   * A labelled value
+   */
+  public static class Entry {
+    /** Value */
+    private final long value;
+    /** Label */
+    private final String label;
+
+    /**
+     * Constructor
+     *
+     * @param value Value
+     * @param label Label
+     */
+    public Entry(long value, String label) {
+      this.value = value;
+      this.label = label;
+    }
+
+    public long getValue() {
+      return value;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+
+    @Override
+    public String toString() {
+      return label + "=" + value;
+    }
+  }
+}
@@ -19,15 +19,20 @@
 package org.apache.giraph.metrics;
 
 import org.apache.giraph.graph.GraphTaskManager;
+import org.apache.giraph.utils.MemoryUtils;
 import org.apache.giraph.worker.BspServiceWorker;
 import org.apache.hadoop.io.Writable;
 
 import com.yammer.metrics.core.Gauge;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
 
 /**
  * Per-superstep metrics for a Worker.
@@ -43,6 +48,28 @@ public class WorkerSuperstepMetrics implements Writable {
   private LongAndTimeUnit superstepTimer;
   /** Time spent waiting for other workers to finish */
   private LongAndTimeUnit waitRequestsTimer;
+  /** Request round trip times to all peers, in us */
+  private final LatencyHistogram requestRttHistogram = new LatencyHistogram();
+  /** Time to add a partition's messages to the message store, in us */
+  private final LatencyHistogram addPartitionMessagesHistogram =
+      new LatencyHistogram();
+  /** Time to compute a partition, in us */
+  private final LatencyHistogram computePartitionHistogram =
+      new LatencyHistogram();
+  /** Time to flush the messages of a compute thread, in us */
+  private final LatencyHistogram flushHistogram = new LatencyHistogram();
+  /** Tasks requests were sent to */
+  private final IntArrayList peerTaskIds = new IntArrayList();
+  /** Number of requests sent to each of {@link #peerTaskIds} */
+  private final LongArrayList peerRttCounts = new LongArrayList();
+  /** 99th percentile request round trip to each of {@link #peerTaskIds} */
+  private final LongArrayList peerRttP99s = new LongArrayList();
+  /**
+   * Peak estimated bytes retained by each {@link MemoryAccounting.Subsystem},
+   * -1 if unknown
+   */
+  private final long[] memoryEstimates =
+      new long[MemoryAccounting.Subsystem.values().length];
 
   /**
    * Constructor
@@ -53,6 +80,7 @@ public class WorkerSuperstepMetrics implements Writable {
     timeToFirstMsg = new LongAndTimeUnit();
     superstepTimer = new LongAndTimeUnit();
     waitRequestsTimer = new LongAndTimeUnit();
+    Arrays.fill(memoryEstimates, -1);
   }
 
   /**
@@ -69,6 +97,51 @@ public class WorkerSuperstepMetrics implements Writable {
     return this;
   }
 
+  /**
+   * Move hot path histograms recorded during the superstep into this object.
+   *
+   * @return this object, for chaining
+   */
+  public WorkerSuperstepMetrics readHotPathHistograms() {
+    HotPathHistograms.get().drainTo(this);
+    return this;
+  }
+
+  /**
+   * Move peak memory estimates of the superstep into this object.
+   *
+   * @return this object, for chaining
+   */
+  public WorkerSuperstepMetrics readMemoryAccounting() {
+    if (MemoryAccounting.get().isEnabled()) {
+      MemoryAccounting.get().drainTo(this);
+    }
+    return this;
+  }
+
+  /**
+   * Set the peak memory estimate of a subsystem
+   *
+   * @param subsystem Subsystem
+   * @param bytes Estimated bytes retained, -1 if unknown
+   */
+  void setMemoryEstimate(MemoryAccounting.Subsystem subsystem, long bytes) {
+    memoryEstimates[subsystem.ordinal()] = bytes;
+  }
+
+  /**
+   * Add the request round trip times to one peer
+   *
+   * @param taskId Peer task id
+   * @param rtt Round trip times to the peer, in us
+   */
+  void addPeerRequestRtt(int taskId, LatencyHistogram rtt) {
+    requestRttHistogram.add(rtt);
+    peerTaskIds.add(taskId);
+    peerRttCounts.add(rtt.getCount());
+    peerRttP99s.add(rtt.getValueAtPercentile(99));
+  }
+
   /**
    * Read data from GiraphTimer into a LongAndTimeUnit.
    *
@@ -102,9 +175,40 @@ public class WorkerSuperstepMetrics implements Writable {
     out.println("  network communication time: " + commTimer);
     out.println("  time to first message: " + timeToFirstMsg);
     out.println("  wait on requests time: " + waitRequestsTimer);
+    printHistogram(out, "request round trip (us)", requestRttHistogram);
+    for (int i = 0; i < peerTaskIds.size(); i++) {
+      out.println("    to task " + peerTaskIds.getInt(i) + ": count=" +
+          peerRttCounts.getLong(i) + ", p99=" + peerRttP99s.getLong(i));
+    }
+    printHistogram(out, "add partition messages (us)",
+        addPartitionMessagesHistogram);
+    printHistogram(out, "compute partition (us)", computePartitionHistogram);
+    printHistogram(out, "flush messages (us)", flushHistogram);
+    for (MemoryAccounting.Subsystem subsystem :
+        MemoryAccounting.Subsystem.values()) {
+      long bytes = memoryEstimates[subsystem.ordinal()];
+      if (bytes >= 0) {
+        out.println("  estimated " + subsystem.getDescription() + ": " +
+            MemoryUtils.megaBytes(bytes) + " MB");
+      }
+    }
     return this;
   }
 
+  /**
+   * Print a histogram if it has any values
+   *
+   * @param out PrintStream to write to
+   * @param header Name of the histogram
+   * @param histogram Histogram to print
+   */
+  private static void printHistogram(PrintStream out, String header,
+      LatencyHistogram histogram) {
+    if (histogram.getCount() > 0) {
+      out.println("  " + header + ": " + histogram);
+    }
+  }
+
   /**
    * @return Communication timer
    */
@@ -140,6 +244,61 @@ public class WorkerSuperstepMetrics implements Writable {
     return waitRequestsTimer.getValue();
   }
 
+  public LatencyHistogram getRequestRttHistogram() {
+    return requestRttHistogram;
+  }
+
+  public LatencyHistogram getAddPartitionMessagesHistogram() {
+    return addPartitionMessagesHistogram;
+  }
+
+  public LatencyHistogram getComputePartitionHistogram() {
+    return computePartitionHistogram;
+  }
+
+  public LatencyHistogram getFlushHistogram() {
+    return flushHistogram;
+  }
+
+  /**
+   * @return Number of peers with request round trip statistics
+   */
+  public int getNumPeers() {
+    return peerTaskIds.size();
+  }
+
+  /**
+   * @param index Index of the peer
+   * @return Task id of the peer
+   */
+  public int getPeerTaskId(int index) {
+    return peerTaskIds.getInt(index);
+  }
+
+  /**
+   * @param index Index of the peer
+   * @return Number of requests sent to the peer
+   */
+  public long getPeerRttCount(int index) {
+    return peerRttCounts.getLong(index);
+  }
+
+  /**
+   * @param index Index of the peer
+   * @return 99th percentile round trip time to the peer, in us
+   */
+  public long getPeerRttP99(int index) {
+    return peerRttP99s.getLong(index);
+  }
+
+  /**
+   * @param subsystem Subsystem
+   * @return Peak estimated bytes retained by the subsystem, -1 if unknown
+   */
+  public long getMemoryEstimate(MemoryAccounting.Subsystem subsystem) {
+    return memoryEstimates[subsystem.ordinal()];
+  }
+
   @Override
   public void readFields(DataInput dataInput) throws IOException {
     commTimer.setValue(dataInput.readLong());
@@ -147,6 +306,22 @@ public class WorkerSuperstepMetrics implements Writable {
     timeToFirstMsg.setValue(dataInput.readLong());
     superstepTimer.setValue(dataInput.readLong());
     waitRequestsTimer.setValue(dataInput.readLong());
+    requestRttHistogram.readFields(dataInput);
+    addPartitionMessagesHistogram.readFields(dataInput);
+    computePartitionHistogram.readFields(dataInput);
+    flushHistogram.readFields(dataInput);
+    peerTaskIds.clear();
+    peerRttCounts.clear();
+    peerRttP99s.clear();
+    int numPeers = dataInput.readInt();
+    for (int i = 0; i < numPeers; i++) {
+      peerTaskIds.add(dataInput.readInt());
+      peerRttCounts.add(dataInput.readLong());
+      peerRttP99s.add(dataInput.readLong());
+    }
+    for (int i = 0; i < memoryEstimates.length; i++) {
+      memoryEstimates[i] = dataInput.readLong();
+    }
   }
 
   @Override
@@ -156,5 +331,18 @@ public class WorkerSuperstepMetrics implements Writable {
     dataOutput.writeLong(timeToFirstMsg.getValue());
     dataOutput.writeLong(superstepTimer.getValue());
     dataOutput.writeLong(waitRequestsTimer.getValue());
+    requestRttHistogram.write(dataOutput);
+    addPartitionMessagesHistogram.write(dataOutput);
+    computePartitionHistogram.write(dataOutput);
+    flushHistogram.write(dataOutput);
+    dataOutput.writeInt(peerTaskIds.size());
+    for (int i = 0; i < peerTaskIds.size(); i++) {
+      dataOutput.writeInt(peerTaskIds.getInt(i));
+      dataOutput.writeLong(peerRttCounts.getLong(i));
+      dataOutput.writeLong(peerRttP99s.getLong(i));
+    }
+    for (long bytes : memoryEstimates) {
+      dataOutput.writeLong(bytes);
+    }
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders vertices by a breadth-first traversal of the edges inside the
+ * partition, so that neighbors are computed close to each other. Every
+ * connected component is started from its vertex with the most out-edges,
+ * similar to Cuthill-McKee ordering. Needs memory for the partition's
+ * internal edges as int indices while reordering.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@SuppressWarnings("rawtypes")
+public class BfsVertexReorderer<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends DegreeVertexReorderer<I, V, E> {
+  @Override
+  public List<I> getVertexOrder(Partition<I, V, E> partition) {
+    List<I> vertexIds =
+        Lists.newArrayListWithCapacity((int) partition.getVertexCount());
+    int[] degrees = collectVertices(partition, vertexIds);
+    int numVertices = vertexIds.size();
+    Map<I, Integer> indices = Maps.newHashMapWithExpectedSize(numVertices);
+    for (int i = 0; i < numVertices; i++) {
+      indices.put(vertexIds.get(i), i);
+    }
+
+    // Edges to vertices of this partition, by index
+    int[][] neighbors = new int[numVertices][];
+    int[] buffer = new int[16];
+    for (Vertex<I, V, E> vertex : partition) {
+      Integer index = indices.get(vertex.getId());
+      int numNeighbors = 0;
+      for (Edge<I, E> edge : vertex.getEdges()) {
+        Integer neighbor = indices.get(edge.getTargetVertexId());
+        if (neighbor != null) {
+          if (numNeighbors == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+          }
+          buffer[numNeighbors++] = neighbor;
+        }
+      }
+      neighbors[index] = Arrays.copyOf(buffer, numNeighbors);
+    }
+
+    boolean[] visited = new boolean[numVertices];
+    int[] queue = new int[numVertices];
+    int tail = 0;
+    for (int seed : sortByDecreasingDegree(degrees)) {
+      if (visited[seed]) {
+        continue;
+      }
+      visited[seed] = true;
+      int head = tail;
+      queue[tail++] = seed;
+      while (head < tail) {
+        for (int neighbor : neighbors[queue[head++]]) {
+          if (!visited[neighbor]) {
+            visited[neighbor] = true;
+            queue[tail++] = neighbor;
+          }
+        }
+      }
+    }
+
+    List<I> orderedIds = Lists.newArrayListWithCapacity(numVertices);
+    for (int index : queue) {
+      orderedIds.add(vertexIds.get(index));
+    }
+    return orderedIds;
+  }
+}
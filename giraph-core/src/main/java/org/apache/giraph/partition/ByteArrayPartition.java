@@ -17,12 +17,13 @@
  */
 package org.apache.giraph.partition;
 
+import static org.apache.giraph.conf.GiraphConstants.VERTEX_REORDERER_CLASS;
+
+import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
-import com.google.common.primitives.Ints;
 import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.DefaultVertex;
 import org.apache.giraph.graph.Vertex;
-import org.apache.giraph.utils.UnsafeByteArrayInputStream;
-import org.apache.giraph.utils.WritableUtils;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.util.Progressable;
@@ -32,6 +33,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
@@ -39,6 +41,11 @@ import java.util.concurrent.ConcurrentMap;
  * Byte array based partition.  Should reduce the amount of memory used since
  * the entire graph is compressed into byte arrays.  Must guarantee, however,
  * that only one thread at a time will call getVertex since it is a singleton.
+ * With the default vertex class, vertices are handed out as
+ * {@link ByteArrayVertexView}s, which deserialize the value and the edges
+ * only when they are accessed, and {@link #saveVertex(Vertex)} writes back
+ * only the parts which changed. Other vertex classes are fully
+ * deserialized into a reused vertex of the configured class.
  *
  * @param <I> Vertex index value
  * @param <V> Vertex value
@@ -48,13 +55,22 @@ import java.util.concurrent.ConcurrentMap;
 public class ByteArrayPartition<I extends WritableComparable,
     V extends Writable, E extends Writable>
     extends BasicPartition<I, V, E>
-    implements ReusesObjectsPartition<I, V, E> {
+    implements ReusesObjectsPartition<I, V, E>,
+    ReorderablePartition<I, V, E> {
   /**
    * Vertex map for this range (keyed by index).  Note that the byte[] is a
    * serialized vertex with the first four bytes as the length of the vertex
-   * to read.
+   * to read, see {@link ByteArrayVertexView} for the layout.
    */
   private ConcurrentMap<I, byte[]> vertexMap;
+  /**
+   * Serialized vertices in iteration order, null to iterate in map order.
+   * Each serialized vertex holds its slot, so it can be replaced when it's
+   * rewritten into a new array.
+   */
+  private volatile VertexOrder<byte[]> vertexOrder;
+  /** Whether vertices are handed out as views over their bytes */
+  private boolean useVertexViews;
   /** Representative vertex */
   private Vertex<I, V, E> representativeVertex;
   /** Representative combiner vertex */
@@ -72,42 +88,79 @@ public class ByteArrayPartition<I extends WritableComparable,
     super.initialize(partitionId, progressable);
     vertexMap = new MapMaker().concurrencyLevel(
         getConf().getNettyServerExecutionConcurrency()).makeMap();
-    representativeVertex = getConf().createVertex();
-    representativeVertex.initialize(
-        getConf().createVertexId(),
-        getConf().createVertexValue(),
-        getConf().createOutEdges());
-    representativeCombinerVertex = getConf().createVertex();
-    representativeCombinerVertex.initialize(
-        getConf().createVertexId(),
-        getConf().createVertexValue(),
-        getConf().createOutEdges());
+    vertexOrder = null;
+    initializeRepresentativeVertices();
+  }
+
+  /**
+   * Create the reused vertices, views if the vertex class is the default
+   * one and vertices of the configured class otherwise.
+   */
+  private void initializeRepresentativeVertices() {
+    useVertexViews = DefaultVertex.class.equals(
+        getConf().getGiraphTypes().getVertexClass());
+    representativeVertex = createRepresentativeVertex();
+    representativeCombinerVertex = createRepresentativeVertex();
     useUnsafeSerialization = getConf().useUnsafeSerialization();
   }
 
+  /**
+   * Create a vertex which is pointed to serialized vertices.
+   *
+   * @return Vertex view, or vertex of the configured class
+   */
+  private Vertex<I, V, E> createRepresentativeVertex() {
+    if (useVertexViews) {
+      return new ByteArrayVertexView<I, V, E>(getConf());
+    }
+    Vertex<I, V, E> vertex = getConf().createVertex();
+    vertex.initialize(getConf().createVertexId(),
+        getConf().createVertexValue(), getConf().createOutEdges());
+    return vertex;
+  }
+
+  /**
+   * Point a representative vertex to a serialized vertex.
+   *
+   * @param vertex Representative vertex
+   * @param vertexData Serialized vertex
+   * @return The representative vertex
+   */
+  private Vertex<I, V, E> readVertex(Vertex<I, V, E> vertex,
+      byte[] vertexData) {
+    if (useVertexViews) {
+      ((ByteArrayVertexView<I, V, E>) vertex).reset(vertexData);
+    } else {
+      ByteArrayVertexView.readVertex(vertexData, vertex, getConf());
+    }
+    return vertex;
+  }
+
   @Override
   public Vertex<I, V, E> getVertex(I vertexIndex) {
     byte[] vertexData = vertexMap.get(vertexIndex);
     if (vertexData == null) {
       return null;
     }
-    WritableUtils.reinitializeVertexFromByteArray(
-        vertexData, representativeVertex, useUnsafeSerialization, getConf());
-    return representativeVertex;
+    return readVertex(representativeVertex, vertexData);
+  }
+
+  @Override
+  public boolean hasVertex(I vertexIndex) {
+    return vertexMap.containsKey(vertexIndex);
   }
 
   @Override
   public Vertex<I, V, E> putVertex(Vertex<I, V, E> vertex) {
     byte[] vertexData =
-        WritableUtils.writeVertexToByteArray(
-            vertex, useUnsafeSerialization, getConf());
+        ByteArrayVertexView.writeVertex(vertex, null, getConf());
     byte[] oldVertexBytes = vertexMap.put(vertex.getId(), vertexData);
     if (oldVertexBytes == null) {
+      addToOrder(vertexData);
       return null;
     } else {
-      WritableUtils.reinitializeVertexFromByteArray(oldVertexBytes,
-          representativeVertex, useUnsafeSerialization, getConf());
-      return representativeVertex;
+      replaceInOrder(getSlot(oldVertexBytes), vertexData);
+      return readVertex(representativeVertex, oldVertexBytes);
     }
   }
 
@@ -117,9 +170,8 @@ public class ByteArrayPartition<I extends WritableComparable,
     if (vertexBytes == null) {
       return null;
     }
-    WritableUtils.reinitializeVertexFromByteArray(vertexBytes,
-        representativeVertex, useUnsafeSerialization, getConf());
-    return representativeVertex;
+    vertexOrder = null;
+    return readVertex(representativeVertex, vertexBytes);
   }
 
   @Override
@@ -138,6 +190,7 @@ public class ByteArrayPartition<I extends WritableComparable,
       byte[] oldVertexBytes =
           vertexMap.putIfAbsent(entry.getKey(), entry.getValue());
       if (oldVertexBytes == null) {
+        addToOrder(entry.getValue());
         continue;
       }
 
@@ -147,11 +200,8 @@ public class ByteArrayPartition<I extends WritableComparable,
       // just add the new vertex as a byte[]
       synchronized (this) {
         // Combine the vertex values
-        WritableUtils.reinitializeVertexFromByteArray(oldVertexBytes,
-            representativeVertex, useUnsafeSerialization, getConf());
-        WritableUtils.reinitializeVertexFromByteArray(entry.getValue(),
-            representativeCombinerVertex, useUnsafeSerialization, getConf());
-        combine(representativeVertex, representativeCombinerVertex);
+        combine(oldVertexBytes,
+            readVertex(representativeCombinerVertex, entry.getValue()));
       }
     }
   }
@@ -160,16 +210,14 @@ public class ByteArrayPartition<I extends WritableComparable,
   public synchronized boolean putOrCombine(Vertex<I, V, E> vertex) {
     // Optimistically try to first put and then combine if this fails
     byte[] vertexData =
-        WritableUtils.writeVertexToByteArray(
-            vertex, useUnsafeSerialization, getConf());
+        ByteArrayVertexView.writeVertex(vertex, null, getConf());
     byte[] oldVertexBytes = vertexMap.putIfAbsent(vertex.getId(), vertexData);
     if (oldVertexBytes == null) {
+      addToOrder(vertexData);
       return true;
     }
 
-    WritableUtils.reinitializeVertexFromByteArray(oldVertexBytes,
-        representativeVertex, useUnsafeSerialization, getConf());
-    combine(representativeVertex, vertex);
+    combine(oldVertexBytes, vertex);
     return false;
   }
 
@@ -177,20 +225,25 @@ public class ByteArrayPartition<I extends WritableComparable,
    * Combine two vertices together and store the serialized bytes
    * in the vertex map.
    *
-   * @param representativeVertex existing vertex
+   * @param oldVertexBytes existing serialized vertex
    * @param representativeCombinerVertex new vertex to combine
    */
-  private void combine(Vertex<I, V, E> representativeVertex,
+  private void combine(byte[] oldVertexBytes,
       Vertex<I, V, E> representativeCombinerVertex) {
+    int slot = getSlot(oldVertexBytes);
+    readVertex(representativeVertex, oldVertexBytes);
     getVertexValueCombiner().combine(representativeVertex.getValue(),
         representativeCombinerVertex.getValue());
     // Add the edges to the representative vertex
     for (Edge<I, E> edge : representativeCombinerVertex.getEdges()) {
       representativeVertex.addEdge(edge);
     }
-    vertexMap.put(representativeCombinerVertex.getId(),
-        WritableUtils.writeVertexToByteArray(
-            representativeVertex, useUnsafeSerialization, getConf()));
+    byte[] vertexData = useVertexViews ?
+        ((ByteArrayVertexView<I, V, E>) representativeVertex).writeBack() :
+        ByteArrayVertexView.writeVertex(
+            representativeVertex, null, getConf());
+    vertexMap.put(representativeCombinerVertex.getId(), vertexData);
+    replaceInOrder(slot, vertexData);
   }
 
   @Override
@@ -202,47 +255,132 @@ public class ByteArrayPartition<I extends WritableComparable,
   public long getEdgeCount() {
     long edges = 0;
     for (byte[] vertexBytes : vertexMap.values()) {
-      WritableUtils.reinitializeVertexFromByteArray(vertexBytes,
-          representativeVertex, useUnsafeSerialization, getConf());
-      edges += representativeVertex.getNumEdges();
+      edges += ByteArrayVertexView.getNumEdges(
+          vertexBytes, useUnsafeSerialization);
     }
     return edges;
   }
 
   @Override
   public void saveVertex(Vertex<I, V, E> vertex) {
-    // Reuse the old buffer whenever possible
     byte[] oldVertexData = vertexMap.get(vertex.getId());
-    if (oldVertexData != null) {
-      vertexMap.put(vertex.getId(),
-          WritableUtils.writeVertexToByteArray(
-              vertex, oldVertexData, useUnsafeSerialization, getConf()));
+    if (oldVertexData == null) {
+      byte[] vertexData =
+          ByteArrayVertexView.writeVertex(vertex, null, getConf());
+      vertexMap.put(vertex.getId(), vertexData);
+      addToOrder(vertexData);
+    } else if (vertex instanceof ByteArrayVertexView &&
+        ((ByteArrayVertexView<I, V, E>) vertex).getData() == oldVertexData) {
+      // View over the stored bytes, only write back what changed
+      byte[] newVertexData =
+          ((ByteArrayVertexView<I, V, E>) vertex).writeBack();
+      if (newVertexData != oldVertexData) {
+        vertexMap.put(vertex.getId(), newVertexData);
+        replaceInOrder(getSlot(oldVertexData), newVertexData);
+      }
     } else {
-      vertexMap.put(vertex.getId(),
-          WritableUtils.writeVertexToByteArray(
-              vertex, useUnsafeSerialization, getConf()));
+      // Reuse the old buffer whenever possible
+      int slot = getSlot(oldVertexData);
+      byte[] newVertexData = ByteArrayVertexView.writeVertex(
+          vertex, oldVertexData, getConf());
+      vertexMap.put(vertex.getId(), newVertexData);
+      replaceInOrder(slot, newVertexData);
     }
   }
 
+  @Override
+  public boolean reorderVertices(List<I> vertexIds) {
+    if (vertexIds.size() != vertexMap.size()) {
+      return false;
+    }
+    List<byte[]> orderedData = Lists.newArrayListWithCapacity(
+        vertexIds.size());
+    for (I vertexId : vertexIds) {
+      byte[] vertexData = vertexMap.get(vertexId);
+      if (vertexData == null) {
+        return false;
+      }
+      orderedData.add(vertexData);
+    }
+    VertexOrder<byte[]> order = new VertexOrder<byte[]>(vertexIds.size());
+    for (byte[] vertexData : orderedData) {
+      ByteArrayVertexView.setSlot(vertexData, order.add(vertexData),
+          getConf());
+    }
+    vertexOrder = order;
+    return true;
+  }
+
+  /**
+   * Get the slot of a serialized vertex in the iteration order
+   *
+   * @param vertexData Serialized vertex
+   * @return Slot, meaningless if there is no iteration order
+   */
+  private int getSlot(byte[] vertexData) {
+    return ByteArrayVertexView.getSlot(vertexData, useUnsafeSerialization);
+  }
+
+  /**
+   * Add a new vertex to the iteration order, if there is one
+   *
+   * @param vertexData New serialized vertex
+   */
+  private void addToOrder(byte[] vertexData) {
+    VertexOrder<byte[]> order = vertexOrder;
+    if (order != null) {
+      ByteArrayVertexView.setSlot(vertexData, order.add(vertexData),
+          getConf());
+    }
+  }
+
+  /**
+   * Replace a serialized vertex in the iteration order, if there is one
+   *
+   * @param slot Slot of the vertex
+   * @param vertexData New serialized vertex
+   */
+  private void replaceInOrder(int slot, byte[] vertexData) {
+    VertexOrder<byte[]> order = vertexOrder;
+    if (order != null) {
+      ByteArrayVertexView.setSlot(vertexData, slot, getConf());
+      order.set(slot, vertexData);
+    }
+  }
+
+  /**
+   * Iterate over the serialized vertices in iteration order
+   *
+   * @return Iterator over serialized vertices
+   */
+  private Iterator<byte[]> orderedVertexData() {
+    VertexOrder<byte[]> order = vertexOrder;
+    if (order == null) {
+      return vertexMap.values().iterator();
+    }
+    return order.iterator();
+  }
+
   @Override
   public void write(DataOutput output) throws IOException {
     super.write(output);
     output.writeInt(vertexMap.size());
-    for (Map.Entry<I, byte[]> entry : vertexMap.entrySet()) {
+    // Vertices are written in iteration order, so the order survives
+    // being sent to another worker or spilled to disk if the job reorders
+    // vertices
+    I vertexId = getConf().createVertexId();
+    Iterator<byte[]> vertexDataIterator = orderedVertexData();
+    while (vertexDataIterator.hasNext()) {
+      byte[] vertexData = vertexDataIterator.next();
       progress();
-      entry.getKey().write(output);
+      ByteArrayVertexView.readId(vertexData, vertexId, getConf());
+      vertexId.write(output);
       // Note here that we are writing the size of the vertex data first
       // as it is encoded in the first four bytes of the byte[]
-      int vertexDataSize;
-      if (useUnsafeSerialization) {
-        vertexDataSize = UnsafeByteArrayInputStream.getInt(entry.getValue(),
-            0);
-      } else {
-        vertexDataSize = Ints.fromByteArray(entry.getValue());
-      }
-
+      int vertexDataSize = ByteArrayVertexView.getSize(
+          vertexData, useUnsafeSerialization);
       output.writeInt(vertexDataSize);
-      output.write(entry.getValue(), 0, vertexDataSize);
+      output.write(vertexData, 0, vertexDataSize);
     }
   }
 
@@ -253,12 +391,11 @@ public class ByteArrayPartition<I extends WritableComparable,
     vertexMap = new MapMaker().concurrencyLevel(
         getConf().getNettyServerExecutionConcurrency()).initialCapacity(
         size).makeMap();
-    representativeVertex = getConf().createVertex();
-    representativeVertex.initialize(
-        getConf().createVertexId(),
-        getConf().createVertexValue(),
-        getConf().createOutEdges());
-    useUnsafeSerialization = getConf().useUnsafeSerialization();
+    initializeRepresentativeVertices();
+    // Vertices were written in iteration order, keep it if the job
+    // reorders vertices
+    vertexOrder = VERTEX_REORDERER_CLASS.get(getConf()) != null ?
+        new VertexOrder<byte[]>(size) : null;
     for (int i = 0; i < size; ++i) {
       progress();
       I vertexId = getConf().createVertexId();
@@ -270,6 +407,7 @@ public class ByteArrayPartition<I extends WritableComparable,
         throw new IllegalStateException("readFields: Already saw vertex " +
             vertexId);
       }
+      addToOrder(vertexData);
     }
   }
 
@@ -279,14 +417,13 @@ public class ByteArrayPartition<I extends WritableComparable,
   }
 
   /**
-   * Iterator that deserializes a vertex from a byte array on the fly, using
-   * the same representative vertex object.
+   * Iterator that points the same representative vertex to each serialized
+   * vertex, a view deserializes the rest lazily.
    */
   private class RepresentativeVertexIterator implements
       Iterator<Vertex<I, V, E>> {
     /** Iterator to the vertex values */
-    private Iterator<byte[]> vertexDataIterator =
-        vertexMap.values().iterator();
+    private Iterator<byte[]> vertexDataIterator = orderedVertexData();
 
     @Override
     public boolean hasNext() {
@@ -295,10 +432,7 @@ public class ByteArrayPartition<I extends WritableComparable,
 
     @Override
     public Vertex<I, V, E> next() {
-      WritableUtils.reinitializeVertexFromByteArray(
-          vertexDataIterator.next(), representativeVertex,
-          useUnsafeSerialization, getConf());
-      return representativeVertex;
+      return readVertex(representativeVertex, vertexDataIterator.next());
     }
 
     @Override
@@ -0,0 +1,586 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.DefaultImmutableClassesGiraphConfigurable;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.MutableEdge;
+import org.apache.giraph.edge.OutEdges;
+import org.apache.giraph.graph.DefaultVertex;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.primitives.Ints;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+
+/**
+ * Flyweight vertex over a vertex serialized by {@link ByteArrayPartition}.
+ * Only the id and the halt flag are read when the view is pointed to a new
+ * vertex, the value and the edges are deserialized on first access. When
+ * the vertex is written back, parts which were never accessed are copied
+ * as raw bytes. An accessed value is only written if its serialized form
+ * changed, since it can be modified in place. Edges are only written if
+ * they were modified through one of the edge mutation methods or
+ * {@link #getMutableEdges()}, reading them doesn't cost a write back.
+ * A vertex whose value and edges are unchanged is updated in place,
+ * without allocating a new byte array.
+ *
+ * Serialized vertex layout: total size (int), offset of the edges (int),
+ * number of edges (int), slot in the partition's iteration order (int, -1
+ * if there is none), id, value, edges, halt flag (boolean). Writing back
+ * keeps the slot.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@NotThreadSafe
+public class ByteArrayVertexView<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends DefaultImmutableClassesGiraphConfigurable<I, V, E>
+    implements Vertex<I, V, E> {
+  /** Position of the total size of the serialized vertex */
+  private static final int SIZE_POS = 0;
+  /** Position of the offset of the serialized edges */
+  private static final int EDGES_OFFSET_POS = 4;
+  /** Position of the number of edges */
+  private static final int NUM_EDGES_POS = 8;
+  /** Position of the slot in the iteration order */
+  private static final int SLOT_POS = 12;
+  /** Size of the header preceding the id */
+  private static final int HEADER_SIZE = 16;
+
+  /** Vertex id, always deserialized */
+  private final I id;
+  /** Value object reused across vertices */
+  private final V reusableValue;
+  /** Out-edges object reused across vertices */
+  private final OutEdges<I, E> reusableEdges;
+  /** Vertex which implements the edge operations once edges are loaded */
+  private final DefaultVertex<I, V, E> edgesVertex;
+  /** Buffer used to serialize accessed parts when writing back */
+  private final ExtendedDataOutput scratch;
+  /** Use unsafe serialization */
+  private final boolean unsafe;
+
+  /** Serialized vertex */
+  private byte[] data;
+  /** Total size of the serialized vertex */
+  private int size;
+  /** Offset of the serialized value */
+  private int valueOffset;
+  /** Offset of the serialized edges */
+  private int edgesOffset;
+  /** Number of edges, as serialized */
+  private int numEdges;
+  /** Current value, valid only if the value is loaded */
+  private V value;
+  /** Whether the value was deserialized or replaced */
+  private boolean valueLoaded;
+  /** Whether the edges were deserialized or replaced */
+  private boolean edgesLoaded;
+  /** Whether the edges may have been modified */
+  private boolean edgesModified;
+  /** Halt flag */
+  private boolean halt;
+
+  /**
+   * Constructor
+   *
+   * @param conf Configuration
+   */
+  public ByteArrayVertexView(
+      ImmutableClassesGiraphConfiguration<I, V, E> conf) {
+    setConf(conf);
+    id = conf.createVertexId();
+    reusableValue = conf.createVertexValue();
+    reusableEdges = conf.createOutEdges();
+    edgesVertex = new DefaultVertex<I, V, E>();
+    edgesVertex.setConf(conf);
+    scratch = conf.createExtendedDataOutput();
+    unsafe = conf.useUnsafeSerialization();
+  }
+
+  /**
+   * Serialize a vertex in the layout read by this view.
+   *
+   * @param vertex Vertex to serialize
+   * @param buffer Buffer to reuse, or null to allocate a new one
+   * @param conf Configuration
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @return Serialized vertex, with the total size in the first four bytes
+   */
+  public static <I extends WritableComparable, V extends Writable,
+      E extends Writable> byte[] writeVertex(Vertex<I, V, E> vertex,
+      byte[] buffer, ImmutableClassesGiraphConfiguration<I, V, E> conf) {
+    ExtendedDataOutput output = (buffer == null) ?
+        conf.createExtendedDataOutput() :
+        conf.createExtendedDataOutput(buffer, 0);
+    try {
+      output.skipBytes(HEADER_SIZE);
+      vertex.getId().write(output);
+      vertex.getValue().write(output);
+      int edgesOffset = output.getPos();
+      ((OutEdges<I, E>) vertex.getEdges()).write(output);
+      output.writeBoolean(vertex.isHalted());
+      output.writeInt(SIZE_POS, output.getPos());
+      output.writeInt(EDGES_OFFSET_POS, edgesOffset);
+      output.writeInt(NUM_EDGES_POS, vertex.getNumEdges());
+      output.writeInt(SLOT_POS, -1);
+    } catch (IOException e) {
+      throw new IllegalStateException("writeVertex: IOException", e);
+    }
+    return output.getByteArray();
+  }
+
+  /**
+   * Deserialize a vertex written by
+   * {@link #writeVertex(Vertex, byte[], ImmutableClassesGiraphConfiguration)}
+   * into a vertex object, reusing its id, value and edges.
+   *
+   * @param vertexData Serialized vertex
+   * @param vertex Vertex to read into
+   * @param conf Configuration
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   */
+  public static <I extends WritableComparable, V extends Writable,
+      E extends Writable> void readVertex(byte[] vertexData,
+      Vertex<I, V, E> vertex,
+      ImmutableClassesGiraphConfiguration<I, V, E> conf) {
+    ExtendedDataInput input = createInput(vertexData,
+        getSize(vertexData, conf.useUnsafeSerialization()), HEADER_SIZE,
+        conf);
+    try {
+      WritableUtils.reinitializeVertexFromDataInput(input, vertex, conf);
+    } catch (IOException e) {
+      throw new IllegalStateException("readVertex: IOException", e);
+    }
+  }
+
+  /**
+   * Read the id of a serialized vertex.
+   *
+   * @param vertexData Serialized vertex
+   * @param id Id to read into
+   * @param conf Configuration
+   * @param <I> Vertex id
+   */
+  public static <I extends WritableComparable> void readId(
+      byte[] vertexData, I id,
+      ImmutableClassesGiraphConfiguration<I, ?, ?> conf) {
+    try {
+      id.readFields(createInput(vertexData,
+          getSize(vertexData, conf.useUnsafeSerialization()), HEADER_SIZE,
+          conf));
+    } catch (IOException e) {
+      throw new IllegalStateException("readId: IOException", e);
+    }
+  }
+
+  /**
+   * Create an input over a serialized vertex, positioned at an offset.
+   * Inputs always start at the beginning of the array, since the unsafe
+   * and the safe inputs interpret the length passed with an offset
+   * differently.
+   *
+   * @param vertexData Serialized vertex
+   * @param size Total size of the serialized vertex
+   * @param offset Position to start reading at
+   * @param conf Configuration
+   * @return Input positioned at the offset
+   */
+  private static ExtendedDataInput createInput(byte[] vertexData, int size,
+      int offset, ImmutableClassesGiraphConfiguration<?, ?, ?> conf) {
+    ExtendedDataInput input = conf.createExtendedDataInput(
+        vertexData, 0, size);
+    try {
+      input.skipBytes(offset);
+    } catch (IOException e) {
+      throw new IllegalStateException("createInput: IOException", e);
+    }
+    return input;
+  }
+
+  /**
+   * Get the total size of a serialized vertex.
+   *
+   * @param vertexData Serialized vertex
+   * @param unsafe Whether unsafe serialization was used
+   * @return Number of bytes used by the vertex
+   */
+  public static int getSize(byte[] vertexData, boolean unsafe) {
+    return readInt(vertexData, SIZE_POS, unsafe);
+  }
+
+  /**
+   * Get the number of edges of a serialized vertex, without deserializing
+   * them.
+   *
+   * @param vertexData Serialized vertex
+   * @param unsafe Whether unsafe serialization was used
+   * @return Number of edges
+   */
+  public static int getNumEdges(byte[] vertexData, boolean unsafe) {
+    return readInt(vertexData, NUM_EDGES_POS, unsafe);
+  }
+
+  /**
+   * Get the slot of a serialized vertex in the iteration order of its
+   * partition.
+   *
+   * @param vertexData Serialized vertex
+   * @param unsafe Whether unsafe serialization was used
+   * @return Slot, -1 if there is none
+   */
+  public static int getSlot(byte[] vertexData, boolean unsafe) {
+    return readInt(vertexData, SLOT_POS, unsafe);
+  }
+
+  /**
+   * Set the slot of a serialized vertex in the iteration order of its
+   * partition.
+   *
+   * @param vertexData Serialized vertex
+   * @param slot Slot
+   * @param conf Configuration
+   */
+  public static void setSlot(byte[] vertexData, int slot,
+      ImmutableClassesGiraphConfiguration<?, ?, ?> conf) {
+    conf.createExtendedDataOutput(vertexData, vertexData.length).writeInt(
+        SLOT_POS, slot);
+  }
+
+  /**
+   * Read an int from a serialized vertex.
+   *
+   * @param buf Serialized vertex
+   * @param pos Position of the int
+   * @param unsafe Whether unsafe serialization was used
+   * @return Int at the position
+   */
+  private static int readInt(byte[] buf, int pos, boolean unsafe) {
+    if (unsafe) {
+      return UnsafeByteArrayInputStream.getInt(buf, pos);
+    } else {
+      return Ints.fromBytes(buf[pos], buf[pos + 1], buf[pos + 2],
+          buf[pos + 3]);
+    }
+  }
+
+  /**
+   * Point this view to a serialized vertex. Only the id and the halt flag
+   * are deserialized.
+   *
+   * @param vertexData Serialized vertex
+   */
+  public void reset(byte[] vertexData) {
+    data = vertexData;
+    size = readInt(data, SIZE_POS, unsafe);
+    edgesOffset = readInt(data, EDGES_OFFSET_POS, unsafe);
+    numEdges = readInt(data, NUM_EDGES_POS, unsafe);
+    halt = data[size - 1] != 0;
+    ExtendedDataInput input = createInput(data, size, HEADER_SIZE, getConf());
+    try {
+      id.readFields(input);
+    } catch (IOException e) {
+      throw new IllegalStateException("reset: IOException", e);
+    }
+    valueOffset = input.getPos();
+    value = reusableValue;
+    valueLoaded = false;
+    edgesLoaded = false;
+    edgesModified = false;
+  }
+
+  /**
+   * Get the serialized vertex this view currently points to.
+   *
+   * @return Serialized vertex
+   */
+  public byte[] getData() {
+    return data;
+  }
+
+  /**
+   * Write the changes made through this view. The serialized vertex is
+   * updated in place when the sizes of the changed parts did not change,
+   * otherwise a new serialized vertex is built and the view is pointed to
+   * it.
+   *
+   * @return Serialized vertex, either the one this view was pointing to or
+   *         a new one
+   */
+  public byte[] writeBack() {
+    scratch.reset();
+    int newValueSize = edgesOffset - valueOffset;
+    int newEdgesSize = size - 1 - edgesOffset;
+    int newNumEdges = numEdges;
+    boolean valueChanged = false;
+    boolean edgesChanged = false;
+    try {
+      if (valueLoaded) {
+        value.write(scratch);
+        newValueSize = scratch.getPos();
+        valueChanged = !rangeEquals(
+            0, newValueSize, valueOffset, edgesOffset - valueOffset);
+      }
+      if (edgesModified) {
+        edgesVertex.unwrapMutableEdges();
+        ((OutEdges<I, E>) edgesVertex.getEdges()).write(scratch);
+        newEdgesSize = scratch.getPos() - (valueLoaded ? newValueSize : 0);
+        newNumEdges = edgesVertex.getNumEdges();
+        edgesChanged = true;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("writeBack: IOException", e);
+    }
+
+    if (newValueSize == edgesOffset - valueOffset &&
+        newEdgesSize == size - 1 - edgesOffset) {
+      // Same layout, overwrite the changed parts in place
+      if (valueChanged) {
+        System.arraycopy(scratch.getByteArray(), 0, data, valueOffset,
+            newValueSize);
+      }
+      if (edgesChanged) {
+        System.arraycopy(scratch.getByteArray(),
+            scratch.getPos() - newEdgesSize, data, edgesOffset, newEdgesSize);
+        if (newNumEdges != numEdges) {
+          getConf().createExtendedDataOutput(data, size).writeInt(
+              NUM_EDGES_POS, newNumEdges);
+          numEdges = newNumEdges;
+        }
+        edgesModified = false;
+      }
+      data[size - 1] = (byte) (halt ? 1 : 0);
+      return data;
+    }
+
+    ExtendedDataOutput output = getConf().createExtendedDataOutput(
+        valueOffset + newValueSize + newEdgesSize + 1);
+    try {
+      output.write(data, 0, valueOffset);
+      if (valueLoaded) {
+        output.write(scratch.getByteArray(), 0, newValueSize);
+      } else {
+        output.write(data, valueOffset, newValueSize);
+      }
+      int newEdgesOffset = output.getPos();
+      if (edgesModified) {
+        output.write(scratch.getByteArray(),
+            scratch.getPos() - newEdgesSize, newEdgesSize);
+      } else {
+        output.write(data, edgesOffset, newEdgesSize);
+      }
+      output.writeBoolean(halt);
+      output.writeInt(SIZE_POS, output.getPos());
+      output.writeInt(EDGES_OFFSET_POS, newEdgesOffset);
+      output.writeInt(NUM_EDGES_POS, newNumEdges);
+      data = output.getByteArray();
+      size = output.getPos();
+      edgesOffset = newEdgesOffset;
+      numEdges = newNumEdges;
+      edgesModified = false;
+    } catch (IOException e) {
+      throw new IllegalStateException("writeBack: IOException", e);
+    }
+    return data;
+  }
+
+  /**
+   * Compare a range of the scratch buffer with a range of the serialized
+   * vertex.
+   *
+   * @param scratchOffset Start in the scratch buffer
+   * @param scratchLength Length in the scratch buffer
+   * @param dataOffset Start in the serialized vertex
+   * @param dataLength Length in the serialized vertex
+   * @return True iff both ranges hold the same bytes
+   */
+  private boolean rangeEquals(int scratchOffset, int scratchLength,
+      int dataOffset, int dataLength) {
+    if (scratchLength != dataLength) {
+      return false;
+    }
+    byte[] scratchData = scratch.getByteArray();
+    for (int i = 0; i < scratchLength; ++i) {
+      if (scratchData[scratchOffset + i] != data[dataOffset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Deserialize the value if it wasn't accessed yet.
+   */
+  private void ensureValue() {
+    if (!valueLoaded) {
+      try {
+        value.readFields(createInput(data, size, valueOffset, getConf()));
+      } catch (IOException e) {
+        throw new IllegalStateException("ensureValue: IOException", e);
+      }
+      valueLoaded = true;
+    }
+  }
+
+  /**
+   * Deserialize the edges if they weren't accessed yet.
+   */
+  private void ensureEdges() {
+    if (!edgesLoaded) {
+      try {
+        reusableEdges.readFields(
+            createInput(data, size, edgesOffset, getConf()));
+      } catch (IOException e) {
+        throw new IllegalStateException("ensureEdges: IOException", e);
+      }
+      edgesVertex.initialize(id, reusableValue, reusableEdges);
+      edgesLoaded = true;
+    }
+  }
+
+  @Override
+  public void initialize(I id, V value, Iterable<Edge<I, E>> edges) {
+    throw new UnsupportedOperationException(
+        "initialize: Views are pointed to serialized vertices with reset");
+  }
+
+  @Override
+  public void initialize(I id, V value) {
+    throw new UnsupportedOperationException(
+        "initialize: Views are pointed to serialized vertices with reset");
+  }
+
+  @Override
+  public I getId() {
+    return id;
+  }
+
+  @Override
+  public V getValue() {
+    ensureValue();
+    return value;
+  }
+
+  @Override
+  public void setValue(V value) {
+    this.value = value;
+    valueLoaded = true;
+  }
+
+  @Override
+  public void voteToHalt() {
+    halt = true;
+  }
+
+  @Override
+  public int getNumEdges() {
+    return edgesLoaded ? edgesVertex.getNumEdges() : numEdges;
+  }
+
+  @Override
+  public Iterable<Edge<I, E>> getEdges() {
+    ensureEdges();
+    return edgesVertex.getEdges();
+  }
+
+  @Override
+  public void setEdges(Iterable<Edge<I, E>> edges) {
+    edgesVertex.initialize(id, reusableValue, edges);
+    edgesLoaded = true;
+    edgesModified = true;
+  }
+
+  @Override
+  public Iterable<MutableEdge<I, E>> getMutableEdges() {
+    ensureEdges();
+    edgesModified = true;
+    return edgesVertex.getMutableEdges();
+  }
+
+  @Override
+  public E getEdgeValue(I targetVertexId) {
+    ensureEdges();
+    return edgesVertex.getEdgeValue(targetVertexId);
+  }
+
+  @Override
+  public void setEdgeValue(I targetVertexId, E edgeValue) {
+    ensureEdges();
+    edgesModified = true;
+    edgesVertex.setEdgeValue(targetVertexId, edgeValue);
+  }
+
+  @Override
+  public Iterable<E> getAllEdgeValues(I targetVertexId) {
+    ensureEdges();
+    return edgesVertex.getAllEdgeValues(targetVertexId);
+  }
+
+  @Override
+  public void addEdge(Edge<I, E> edge) {
+    ensureEdges();
+    edgesModified = true;
+    edgesVertex.addEdge(edge);
+  }
+
+  @Override
+  public void removeEdges(I targetVertexId) {
+    ensureEdges();
+    edgesModified = true;
+    edgesVertex.removeEdges(targetVertexId);
+  }
+
+  @Override
+  public void unwrapMutableEdges() {
+    if (edgesLoaded) {
+      edgesVertex.unwrapMutableEdges();
+    }
+  }
+
+  @Override
+  public void wakeUp() {
+    halt = false;
+  }
+
+  @Override
+  public boolean isHalted() {
+    return halt;
+  }
+
+  @Override
+  public String toString() {
+    return "Vertex(id=" + getId() + ",value=" + getValue() +
+        ",#edges=" + getNumEdges() + ")";
+  }
+}
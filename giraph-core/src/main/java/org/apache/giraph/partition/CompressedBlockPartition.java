@@ -0,0 +1,688 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import static org.apache.giraph.conf.GiraphConstants.COMPRESSED_PARTITION_BLOCK_SIZE;
+import static org.apache.giraph.conf.GiraphConstants.COMPRESSED_PARTITION_LEVEL;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.util.Progressable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Partition which keeps serialized vertices, with their values and edges,
+ * in blocks compressed with Deflate. Meant for graphs with large vertex or
+ * edge values (feature vectors, label sets), to fit more of the graph in
+ * memory at the cost of CPU time.
+ *
+ * One block at a time is kept decompressed, and it is compressed again only
+ * when it changed, once another block is needed. Iteration goes block by
+ * block, and {@link #saveVertex(Vertex)} of the vertex returned by the
+ * iterator rewrites the block in a single pass, so a superstep decompresses
+ * every block once and compresses only blocks with changed vertices.
+ * Random access through {@link #getVertex(Object)} decompresses the block
+ * of the vertex, which is cheap as long as consecutive accesses hit the
+ * same block, so bulk updates such as moving input edges to vertices
+ * iterate over the partition instead (see
+ * {@link SequentialAccessPartition}). Blocks stay compressed when the
+ * partition is written out, e.g. when it is spilled to disk.
+ *
+ * Vertices returned by this partition are reused, and are only valid until
+ * the next call to it. Any call other than saving the current vertex of an
+ * iterator invalidates that iterator.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@ThreadSafe
+public class CompressedBlockPartition<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends BasicPartition<I, V, E>
+    implements ReusesObjectsPartition<I, V, E>,
+    SequentialAccessPartition<I, V, E> {
+  /** Deflaters, per thread since each holds a lot of native memory */
+  private static final ThreadLocal<Deflater> DEFLATER =
+      new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+          return new Deflater(Deflater.BEST_SPEED);
+        }
+      };
+  /** Inflaters, per thread since each holds native memory */
+  private static final ThreadLocal<Inflater> INFLATER =
+      new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+          return new Inflater();
+        }
+      };
+
+  /**
+   * Index of the block of each vertex. Concurrent so that
+   * {@link #hasVertex(Object)} doesn't need the partition monitor, which
+   * compute threads hold while message stores check destinations in other
+   * partitions.
+   */
+  private final ConcurrentMap<I, Integer> vertexBlocks =
+      Maps.newConcurrentMap();
+  /** Blocks of serialized vertices */
+  private List<Block> blocks;
+  /** Size of a block before compression */
+  private int blockSize;
+  /** Deflate level */
+  private int compressionLevel;
+  /** Index of the decompressed block, -1 if there is none */
+  private int hotIndex;
+  /** Serialized vertices of the decompressed block */
+  private ExtendedDataOutput hotData;
+  /** Buffer used when rewriting the decompressed block */
+  private ExtendedDataOutput spareData;
+  /** Buffer used for compression */
+  private byte[] compressBuffer;
+  /** Vertex returned by lookups */
+  private Vertex<I, V, E> lookupVertex;
+  /** Position of the vertex found by the last lookup */
+  private int foundStart;
+  /** Position after the vertex found by the last lookup */
+  private int foundEnd;
+  /** Number of edges of the vertex found by the last lookup */
+  private int foundNumEdges;
+  /** Whether the found vertex is still where the last lookup found it */
+  private boolean lookupValid;
+  /** Iterator whose block may have unfinished changes */
+  private BlockIterator activeIterator;
+
+  /**
+   * Constructor for reflection.
+   */
+  public CompressedBlockPartition() { }
+
+  @Override
+  public void initialize(int partitionId, Progressable progressable) {
+    super.initialize(partitionId, progressable);
+    initializeBlocks();
+  }
+
+  /** Create empty storage, settings are read from the configuration. */
+  private void initializeBlocks() {
+    vertexBlocks.clear();
+    blocks = Lists.newArrayList();
+    blockSize = COMPRESSED_PARTITION_BLOCK_SIZE.get(getConf());
+    compressionLevel = COMPRESSED_PARTITION_LEVEL.get(getConf());
+    hotIndex = -1;
+    hotData = getConf().createExtendedDataOutput();
+    spareData = getConf().createExtendedDataOutput();
+    lookupVertex = createVertex();
+    lookupValid = false;
+    activeIterator = null;
+  }
+
+  /**
+   * Create a vertex to deserialize into
+   *
+   * @return Vertex with id, value and edges
+   */
+  private Vertex<I, V, E> createVertex() {
+    Vertex<I, V, E> vertex = getConf().createVertex();
+    vertex.initialize(getConf().createVertexId(),
+        getConf().createVertexValue(), getConf().createOutEdges());
+    return vertex;
+  }
+
+  /**
+   * Compress serialized vertices
+   *
+   * @param data Serialized vertices
+   * @param length Number of bytes to compress
+   * @return Compressed bytes
+   */
+  private byte[] compress(byte[] data, int length) {
+    Deflater deflater = DEFLATER.get();
+    deflater.reset();
+    deflater.setLevel(compressionLevel);
+    deflater.setInput(data, 0, length);
+    deflater.finish();
+    if (compressBuffer == null) {
+      compressBuffer = new byte[Math.max(blockSize, 64)];
+    }
+    int size = 0;
+    while (!deflater.finished()) {
+      if (size == compressBuffer.length) {
+        compressBuffer = Arrays.copyOf(compressBuffer, size * 2);
+      }
+      size += deflater.deflate(
+          compressBuffer, size, compressBuffer.length - size);
+    }
+    return Arrays.copyOf(compressBuffer, size);
+  }
+
+  /**
+   * Decompress a block
+   *
+   * @param block Block
+   * @param to Buffer to decompress into, at least as big as the block
+   */
+  private static void decompress(Block block, byte[] to) {
+    Inflater inflater = INFLATER.get();
+    inflater.reset();
+    inflater.setInput(block.compressed);
+    int size = 0;
+    try {
+      while (size < block.rawSize) {
+        int read = inflater.inflate(to, size, block.rawSize - size);
+        if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new IllegalStateException(
+              "decompress: Block ended after " + size + " of " +
+              block.rawSize + " bytes");
+        }
+        size += read;
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("decompress: Corrupt block", e);
+    }
+  }
+
+  /**
+   * Make a block the decompressed one, compressing the previous one if it
+   * changed.
+   *
+   * @param index Index of the block
+   */
+  private void loadBlock(int index) {
+    if (hotIndex == index) {
+      return;
+    }
+    releaseBlock();
+    Block block = blocks.get(index);
+    byte[] buffer = hotData.getByteArray();
+    if (buffer.length < block.rawSize) {
+      buffer = new byte[block.rawSize];
+    }
+    decompress(block, buffer);
+    hotData = getConf().createExtendedDataOutput(buffer, block.rawSize);
+    hotIndex = index;
+    lookupValid = false;
+  }
+
+  /** Compress the decompressed block back if it changed. */
+  private void releaseBlock() {
+    if (hotIndex < 0) {
+      return;
+    }
+    Block block = blocks.get(hotIndex);
+    if (block.compressed == null) {
+      block.compressed = compress(hotData.getByteArray(), hotData.getPos());
+    }
+    hotIndex = -1;
+  }
+
+  /**
+   * Record that the decompressed block changed
+   *
+   * @return The decompressed block
+   */
+  private Block hotBlockChanged() {
+    Block block = blocks.get(hotIndex);
+    block.compressed = null;
+    block.rawSize = hotData.getPos();
+    lookupValid = false;
+    return block;
+  }
+
+  /**
+   * Finish the changes of the active iterator, and invalidate it, before
+   * the partition is used in another way.
+   */
+  private void finishIteration() {
+    if (activeIterator != null) {
+      activeIterator.finishBlock();
+      activeIterator.valid = false;
+      activeIterator = null;
+    }
+  }
+
+  /**
+   * Find a vertex in the decompressed block, and deserialize it into
+   * {@link #lookupVertex}.
+   *
+   * @param vertexId Vertex id
+   */
+  private void findVertex(I vertexId) {
+    ExtendedDataInput input = getConf().createExtendedDataInput(
+        hotData.getByteArray(), 0, hotData.getPos());
+    try {
+      while (!input.endOfInput()) {
+        int start = input.getPos();
+        WritableUtils.reinitializeVertexFromDataInput(
+            input, lookupVertex, getConf());
+        if (lookupVertex.getId().equals(vertexId)) {
+          foundStart = start;
+          foundEnd = input.getPos();
+          foundNumEdges = lookupVertex.getNumEdges();
+          lookupValid = true;
+          return;
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("findVertex: IOException", e);
+    }
+    throw new IllegalStateException("findVertex: Vertex " + vertexId +
+        " is missing from block " + hotIndex);
+  }
+
+  /**
+   * Find a vertex, and make its block the decompressed one
+   *
+   * @param vertexId Vertex id
+   * @return False if there is no such vertex
+   */
+  private boolean loadVertex(I vertexId) {
+    Integer index = vertexBlocks.get(vertexId);
+    if (index == null) {
+      return false;
+    }
+    loadBlock(index);
+    findVertex(vertexId);
+    return true;
+  }
+
+  /**
+   * Replace the vertex found by the last lookup
+   *
+   * @param vertex New vertex, or null to remove the vertex
+   */
+  private void replaceFoundVertex(Vertex<I, V, E> vertex) {
+    byte[] data = hotData.getByteArray();
+    int size = hotData.getPos();
+    spareData.reset();
+    try {
+      spareData.write(data, 0, foundStart);
+      if (vertex != null) {
+        WritableUtils.writeVertexToDataOutput(spareData, vertex, getConf());
+      }
+      spareData.write(data, foundEnd, size - foundEnd);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "replaceFoundVertex: IOException", e);
+    }
+    ExtendedDataOutput swap = hotData;
+    hotData = spareData;
+    spareData = swap;
+    Block block = hotBlockChanged();
+    block.numEdges += (vertex == null ? 0 : vertex.getNumEdges()) -
+        foundNumEdges;
+  }
+
+  /**
+   * Add a vertex which is not in the partition to the last block, or to
+   * a new block if the last one is full.
+   *
+   * @param vertex Vertex
+   */
+  private void appendVertex(Vertex<I, V, E> vertex) {
+    int index = blocks.size() - 1;
+    if (index < 0 || blocks.get(index).rawSize >= blockSize) {
+      releaseBlock();
+      blocks.add(new Block());
+      index = blocks.size() - 1;
+      hotData.reset();
+      hotIndex = index;
+    } else {
+      loadBlock(index);
+    }
+    try {
+      WritableUtils.writeVertexToDataOutput(hotData, vertex, getConf());
+    } catch (IOException e) {
+      throw new IllegalStateException("appendVertex: IOException", e);
+    }
+    hotBlockChanged().numEdges += vertex.getNumEdges();
+    vertexBlocks.put(
+        org.apache.hadoop.io.WritableUtils.clone(vertex.getId(), getConf()),
+        index);
+  }
+
+  @Override
+  public synchronized Vertex<I, V, E> getVertex(I vertexIndex) {
+    finishIteration();
+    return loadVertex(vertexIndex) ? lookupVertex : null;
+  }
+
+  @Override
+  public boolean hasVertex(I vertexIndex) {
+    return vertexBlocks.containsKey(vertexIndex);
+  }
+
+  /**
+   * Stop reusing the lookup vertex if it was passed in, so looking up the
+   * old version of the vertex doesn't overwrite it.
+   *
+   * @param vertex Vertex passed to the partition
+   */
+  private void detachLookupVertex(Vertex<I, V, E> vertex) {
+    if (vertex == lookupVertex) {
+      lookupVertex = createVertex();
+      lookupValid = false;
+    }
+  }
+
+  @Override
+  public synchronized Vertex<I, V, E> putVertex(Vertex<I, V, E> vertex) {
+    finishIteration();
+    detachLookupVertex(vertex);
+    if (loadVertex(vertex.getId())) {
+      replaceFoundVertex(vertex);
+      return lookupVertex;
+    }
+    appendVertex(vertex);
+    return null;
+  }
+
+  @Override
+  public synchronized Vertex<I, V, E> removeVertex(I vertexIndex) {
+    finishIteration();
+    if (!loadVertex(vertexIndex)) {
+      return null;
+    }
+    replaceFoundVertex(null);
+    vertexBlocks.remove(vertexIndex);
+    return lookupVertex;
+  }
+
+  @Override
+  public void addPartition(Partition<I, V, E> partition) {
+    for (Vertex<I, V, E> vertex : partition) {
+      putOrCombine(vertex);
+    }
+  }
+
+  @Override
+  public synchronized boolean putOrCombine(Vertex<I, V, E> vertex) {
+    finishIteration();
+    detachLookupVertex(vertex);
+    if (!loadVertex(vertex.getId())) {
+      appendVertex(vertex);
+      return true;
+    }
+    getVertexValueCombiner().combine(
+        lookupVertex.getValue(), vertex.getValue());
+    for (Edge<I, E> edge : vertex.getEdges()) {
+      lookupVertex.addEdge(edge);
+    }
+    replaceFoundVertex(lookupVertex);
+    return false;
+  }
+
+  @Override
+  public long getVertexCount() {
+    return vertexBlocks.size();
+  }
+
+  @Override
+  public synchronized long getEdgeCount() {
+    long edgeCount = 0;
+    for (Block block : blocks) {
+      edgeCount += block.numEdges;
+    }
+    return edgeCount;
+  }
+
+  @Override
+  public synchronized void saveVertex(Vertex<I, V, E> vertex) {
+    if (activeIterator != null && activeIterator.isCurrent(vertex)) {
+      activeIterator.saveCurrent();
+    } else if (vertex == lookupVertex && lookupValid) {
+      // Vertex from getVertex, still stored where it was found
+      replaceFoundVertex(vertex);
+    } else {
+      putVertex(vertex);
+    }
+  }
+
+  @Override
+  public synchronized void write(DataOutput output) throws IOException {
+    finishIteration();
+    releaseBlock();
+    super.write(output);
+    output.writeInt(blocks.size());
+    for (Block block : blocks) {
+      progress();
+      output.writeLong(block.numEdges);
+      output.writeInt(block.rawSize);
+      output.writeInt(block.compressed.length);
+      output.write(block.compressed);
+    }
+    output.writeInt(vertexBlocks.size());
+    for (Map.Entry<I, Integer> entry : vertexBlocks.entrySet()) {
+      entry.getKey().write(output);
+      output.writeInt(entry.getValue());
+    }
+  }
+
+  @Override
+  public synchronized void readFields(DataInput input) throws IOException {
+    super.readFields(input);
+    initializeBlocks();
+    int numBlocks = input.readInt();
+    for (int i = 0; i < numBlocks; ++i) {
+      progress();
+      Block block = new Block();
+      block.numEdges = input.readLong();
+      block.rawSize = input.readInt();
+      block.compressed = new byte[input.readInt()];
+      input.readFully(block.compressed);
+      blocks.add(block);
+    }
+    int numVertices = input.readInt();
+    for (int i = 0; i < numVertices; ++i) {
+      I vertexId = getConf().createVertexId();
+      vertexId.readFields(input);
+      vertexBlocks.put(vertexId, input.readInt());
+    }
+  }
+
+  @Override
+  public synchronized Iterator<Vertex<I, V, E>> iterator() {
+    finishIteration();
+    activeIterator = new BlockIterator();
+    return activeIterator;
+  }
+
+  /** Block of serialized vertices */
+  private static class Block {
+    /** Compressed vertices, null while decompressed and changed */
+    private byte[] compressed;
+    /** Size of the vertices before compression */
+    private int rawSize;
+    /** Number of edges of the vertices in the block */
+    private long numEdges;
+  }
+
+  /**
+   * Iterator which decompresses one block at a time into a reusable vertex.
+   * Saving the current vertex copies the block up to it, and the vertex
+   * itself, into a new version of the block, and the rest is copied when
+   * the block is finished. Blocks without saved vertices are not rewritten.
+   */
+  private class BlockIterator implements Iterator<Vertex<I, V, E>> {
+    /** Reusable vertex */
+    private final Vertex<I, V, E> vertex = createVertex();
+    /** False once the partition was used in another way */
+    private boolean valid = true;
+    /** Index of the next block */
+    private int nextBlock;
+    /** Index of the current block */
+    private int blockIndex;
+    /** Input over the current block, null between blocks */
+    private ExtendedDataInput input;
+    /** Position of the current vertex, -1 before the first one */
+    private int vertexStart = -1;
+    /** Position after the current vertex */
+    private int vertexEnd;
+    /** Number of edges of the current vertex when it was last stored */
+    private int storedNumEdges;
+    /** Whether the current block is being rewritten */
+    private boolean rewriting;
+    /** Position in the block up to which it was copied for rewriting */
+    private int copiedUpTo;
+    /** Position of the saved current vertex in the rewrite, or -1 */
+    private int savedStart;
+
+    @Override
+    public boolean hasNext() {
+      synchronized (CompressedBlockPartition.this) {
+        checkValid();
+        while (input == null || input.endOfInput()) {
+          finishBlock();
+          if (nextBlock >= blocks.size()) {
+            return false;
+          }
+          blockIndex = nextBlock++;
+          loadBlock(blockIndex);
+          input = getConf().createExtendedDataInput(
+              hotData.getByteArray(), 0, hotData.getPos());
+          progress();
+        }
+        return true;
+      }
+    }
+
+    @Override
+    public Vertex<I, V, E> next() {
+      synchronized (CompressedBlockPartition.this) {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        vertexStart = input.getPos();
+        try {
+          WritableUtils.reinitializeVertexFromDataInput(
+              input, vertex, getConf());
+        } catch (IOException e) {
+          throw new IllegalStateException("next: IOException", e);
+        }
+        vertexEnd = input.getPos();
+        storedNumEdges = vertex.getNumEdges();
+        savedStart = -1;
+        return vertex;
+      }
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException(
+          "remove: This method is not supported.");
+    }
+
+    /** Throw if the partition was used in another way. */
+    private void checkValid() {
+      if (!valid) {
+        throw new ConcurrentModificationException(
+            "checkValid: Partition was used while iterating over it");
+      }
+    }
+
+    /**
+     * Check whether a vertex is the current vertex of this iterator
+     *
+     * @param candidate Vertex
+     * @return True iff vertex was returned by the last next()
+     */
+    private boolean isCurrent(Vertex<I, V, E> candidate) {
+      return valid && candidate == vertex && input != null &&
+          vertexStart >= 0;
+    }
+
+    /** Store changes of the current vertex into the rewritten block. */
+    private void saveCurrent() {
+      if (!rewriting) {
+        spareData.reset();
+        rewriting = true;
+      }
+      if (savedStart >= 0) {
+        // Saved again, overwrite the previous version
+        spareData = getConf().createExtendedDataOutput(
+            spareData.getByteArray(), savedStart);
+      } else {
+        try {
+          spareData.write(hotData.getByteArray(), copiedUpTo,
+              vertexStart - copiedUpTo);
+        } catch (IOException e) {
+          throw new IllegalStateException("saveCurrent: IOException", e);
+        }
+        copiedUpTo = vertexEnd;
+        savedStart = spareData.getPos();
+      }
+      try {
+        WritableUtils.writeVertexToDataOutput(spareData, vertex, getConf());
+      } catch (IOException e) {
+        throw new IllegalStateException("saveCurrent: IOException", e);
+      }
+      blocks.get(blockIndex).numEdges +=
+          vertex.getNumEdges() - storedNumEdges;
+      storedNumEdges = vertex.getNumEdges();
+    }
+
+    /** Finish rewriting the current block, if any vertex was saved. */
+    private void finishBlock() {
+      if (input == null) {
+        return;
+      }
+      if (rewriting) {
+        try {
+          spareData.write(hotData.getByteArray(), copiedUpTo,
+              hotData.getPos() - copiedUpTo);
+        } catch (IOException e) {
+          throw new IllegalStateException("finishBlock: IOException", e);
+        }
+        ExtendedDataOutput swap = hotData;
+        hotData = spareData;
+        spareData = swap;
+        hotBlockChanged();
+      }
+      input = null;
+      vertexStart = -1;
+      rewriting = false;
+      copiedUpTo = 0;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import com.google.common.collect.Lists;
+import org.apache.giraph.conf.DefaultImmutableClassesGiraphConfigurable;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Orders vertices by decreasing number of out-edges, so that the hubs, whose
+ * values and messages are touched most often, are computed together.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@SuppressWarnings("rawtypes")
+public class DegreeVertexReorderer<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends DefaultImmutableClassesGiraphConfigurable<I, V, E>
+    implements VertexReorderer<I, V, E> {
+  @Override
+  public List<I> getVertexOrder(Partition<I, V, E> partition) {
+    List<I> vertexIds =
+        Lists.newArrayListWithCapacity((int) partition.getVertexCount());
+    int[] degrees = collectVertices(partition, vertexIds);
+    int[] order = sortByDecreasingDegree(degrees);
+    List<I> orderedIds = Lists.newArrayListWithCapacity(order.length);
+    for (int index : order) {
+      orderedIds.add(vertexIds.get(index));
+    }
+    return orderedIds;
+  }
+
+  /**
+   * Collect the ids of all vertices, copying them unless the partition
+   * hands out the vertex objects it stores.
+   *
+   * @param partition Partition
+   * @param vertexIds List to add the vertex ids to
+   * @return Number of out-edges of each vertex, in the order of vertexIds
+   */
+  protected int[] collectVertices(Partition<I, V, E> partition,
+      List<I> vertexIds) {
+    boolean copyIds = !(partition instanceof SimplePartition);
+    int[] degrees = new int[(int) partition.getVertexCount()];
+    for (Vertex<I, V, E> vertex : partition) {
+      if (vertexIds.size() == degrees.length) {
+        degrees = Arrays.copyOf(degrees, degrees.length * 2 + 1);
+      }
+      degrees[vertexIds.size()] = vertex.getNumEdges();
+      vertexIds.add(copyIds ? copyId(vertex.getId()) : vertex.getId());
+    }
+    return Arrays.copyOf(degrees, vertexIds.size());
+  }
+
+  /**
+   * Make a copy of a vertex id
+   *
+   * @param vertexId Vertex id to copy
+   * @return Copy of the vertex id
+   */
+  protected I copyId(I vertexId) {
+    I copy = getConf().createVertexId();
+    WritableUtils.readFieldsFromByteArray(
+        WritableUtils.writeToByteArray(vertexId), copy);
+    return copy;
+  }
+
+  /**
+   * Sort vertex indices by decreasing degree, keeping the original order of
+   * vertices with the same degree.
+   *
+   * @param degrees Degree of each vertex
+   * @return Vertex indices in order of decreasing degree
+   */
+  protected static int[] sortByDecreasingDegree(int[] degrees) {
+    // Sort (inverted degree, index) pairs packed into longs, which avoids
+    // boxing every index
+    long[] keys = new long[degrees.length];
+    for (int i = 0; i < degrees.length; i++) {
+      keys[i] = ((long) (Integer.MAX_VALUE - degrees[i]) << 32) | i;
+    }
+    Arrays.sort(keys);
+    int[] order = new int[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
+  }
+}
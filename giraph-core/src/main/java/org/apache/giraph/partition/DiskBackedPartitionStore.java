@@ -46,6 +46,7 @@ import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.OutEdges;
 import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -141,10 +142,16 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
   private AtomicInteger numPartitionsInMem;
   /** service worker reference */
   private CentralizedServiceWorker<I, V, E> serviceWorker;
+  /** Timeline of this task */
+  private final Timeline timeline;
   /** mumber of slots that are always kept in memory */
   private AtomicLong numOfStickyPartitions;
   /** counter */
   private long passedThroughEdges;
+  /** Number of partitions loaded from disk so far */
+  private final AtomicLong numPartitionsLoaded = new AtomicLong(0);
+  /** Number of partitions offloaded to disk so far */
+  private final AtomicLong numPartitionsOffloaded = new AtomicLong(0);
 
   /**
    * Constructor
@@ -160,6 +167,7 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
     this.conf = conf;
     this.context = context;
     this.serviceWorker = serviceWorker;
+    this.timeline = Timeline.of(serviceWorker.getGraphTaskManager());
 
     this.passedThroughEdges = 0;
     this.numPartitionsInMem = new AtomicInteger(0);
@@ -328,6 +336,33 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
     }
   }
 
+  /**
+   * Get the number of partitions currently held in memory.
+   *
+   * @return Number of in-memory partitions
+   */
+  public int getNumPartitionsInMemory() {
+    return numPartitionsInMem.get();
+  }
+
+  /**
+   * Get the number of partitions loaded from disk since the job started.
+   *
+   * @return Number of partition loads
+   */
+  public long getNumPartitionsLoaded() {
+    return numPartitionsLoaded.get();
+  }
+
+  /**
+   * Get the number of partitions offloaded to disk since the job started.
+   *
+   * @return Number of partition offloads
+   */
+  public long getNumPartitionsOffloaded() {
+    return numPartitionsOffloaded.get();
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -392,21 +427,23 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
   }
 
   /**
-   * Read vertex edges from an input and set them to the vertex.
+   * Read vertex edges from an input and set them to the vertex. Edges are
+   * read into new out-edges and set, so partitions which only write back
+   * vertex changes they know about (e.g. ByteArrayPartition) keep them.
    *
    * @param in The input stream
    * @param partition The partition owning the vertex
    * @throws IOException
    */
-  @SuppressWarnings("unchecked")
   private void readOutEdges(DataInput in, Partition<I, V, E> partition)
     throws IOException {
 
     I id = conf.createVertexId();
     id.readFields(in);
     Vertex<I, V, E> v = partition.getVertex(id);
-    OutEdges<I, E> edges = (OutEdges<I, E>) v.getEdges();
+    OutEdges<I, E> edges = conf.createAndInitializeOutEdges(0);
     edges.readFields(in);
+    v.setEdges(edges);
     partition.saveVertex(v);
   }
 
@@ -421,6 +458,9 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
    */
   private Partition<I, V, E> loadPartition(int id, long numVertices)
     throws IOException {
+    Timeline.Span span = timeline
+        .startSpan(Timeline.OUT_OF_CORE, "loadPartition")
+        .setArg("partition", id);
 
     Partition<I, V, E> partition = conf.createPartition(id, context);
 
@@ -467,6 +507,8 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
       LOG.error(msg);
       throw new IllegalStateException(msg);
     }
+    numPartitionsLoaded.incrementAndGet();
+    span.end();
     return partition;
   }
 
@@ -479,6 +521,9 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
   private void offloadPartition(MetaPartition meta) throws IOException {
 
     Partition<I, V, E> partition = meta.getPartition();
+    Timeline.Span span = timeline
+        .startSpan(Timeline.OUT_OF_CORE, "offloadPartition")
+        .setArg("partition", partition.getId());
     File file = new File(getVerticesPath(partition.getId()));
     File parent = file.getParentFile();
     if (!parent.exists() && !parent.mkdirs() && LOG.isDebugEnabled()) {
@@ -534,6 +579,8 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
       }
       outputStream.close();
     }
+    numPartitionsOffloaded.incrementAndGet();
+    span.end();
   }
 
   /**
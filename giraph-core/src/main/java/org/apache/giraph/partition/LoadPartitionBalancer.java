@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Balances partitions by their measured load, starting from the existing
+ * assignment and moving a partition only when it pays off.
+ *
+ * Load of a partition is its compute time in the last superstep, plus an
+ * estimate for messages it received and message bytes it sent. Predicted
+ * superstep time of a worker is the sum of loads of its partitions.
+ * Partitions are moved from the most loaded to the least loaded worker
+ * while the predicted reduction of the most loaded worker's time, over
+ * {@link GiraphConstants#LOAD_BALANCE_PAYBACK_SUPERSTEPS} supersteps,
+ * exceeds the estimated time to migrate the partition.
+ */
+final class LoadPartitionBalancer {
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(LoadPartitionBalancer.class);
+
+  /** Orders workers by their load */
+  private static final Comparator<WorkerLoad> WORKER_LOAD_COMPARATOR =
+      new Comparator<WorkerLoad>() {
+        @Override
+        public int compare(WorkerLoad load1, WorkerLoad load2) {
+          return Double.compare(load1.getLoad(), load2.getLoad());
+        }
+      };
+
+  /** Do not construct */
+  private LoadPartitionBalancer() { }
+
+  /**
+   * Balance partitions by load.
+   *
+   * @param conf Configuration
+   * @param ownerStatsMap Map of all partition owners to their stats
+   * @param availableWorkerInfos All the available workers
+   * @return Balanced partition owners
+   */
+  static Collection<PartitionOwner> balance(Configuration conf,
+      Map<PartitionOwner, PartitionStats> ownerStatsMap,
+      Collection<WorkerInfo> availableWorkerInfos) {
+    CostModel costModel = new CostModel(conf);
+    Map<WorkerInfo, WorkerLoad> workerLoads = Maps.newLinkedHashMap();
+    for (WorkerInfo workerInfo : availableWorkerInfos) {
+      workerLoads.put(workerInfo, new WorkerLoad(workerInfo));
+    }
+
+    // Start from the existing assignment, partitions of workers which are
+    // not available anymore have to be moved regardless of the cost
+    Map<PartitionOwner, WorkerInfo> originalWorkers = Maps.newHashMap();
+    List<PartitionOwner> orphans = Lists.newArrayList();
+    double totalLoad = 0;
+    for (Map.Entry<PartitionOwner, PartitionStats> entry :
+        ownerStatsMap.entrySet()) {
+      PartitionOwner owner = entry.getKey();
+      originalWorkers.put(owner, owner.getWorkerInfo());
+      totalLoad += costModel.getLoad(entry.getValue());
+      WorkerLoad workerLoad = workerLoads.get(owner.getWorkerInfo());
+      if (workerLoad == null) {
+        orphans.add(owner);
+      } else {
+        workerLoad.add(owner, costModel.getLoad(entry.getValue()));
+      }
+    }
+    Collections.sort(orphans, Collections.reverseOrder(
+        new LoadComparator(ownerStatsMap, costModel)));
+    for (PartitionOwner owner : orphans) {
+      minLoaded(workerLoads.values()).add(
+          owner, costModel.getLoad(ownerStatsMap.get(owner)));
+    }
+
+    double initialMaxLoad = maxLoaded(workerLoads.values()).getLoad();
+    int movedPartitions = 0;
+    double migrationMs = 0;
+    if (totalLoad > 0 && workerLoads.size() > 1) {
+      // Every partition is moved at most once, to avoid oscillation
+      Set<PartitionOwner> moved = Sets.newHashSet();
+      while (true) {
+        WorkerLoad maxWorker = maxLoaded(workerLoads.values());
+        WorkerLoad minWorker = minLoaded(workerLoads.values());
+        PartitionOwner bestOwner = null;
+        double bestBenefit = 0;
+        for (PartitionOwner owner : maxWorker.getPartitionOwners()) {
+          if (moved.contains(owner)) {
+            continue;
+          }
+          PartitionStats stats = ownerStatsMap.get(owner);
+          double load = costModel.getLoad(stats);
+          double gain = maxWorker.getLoad() -
+              Math.max(maxWorker.getLoad() - load, minWorker.getLoad() + load);
+          double benefit = gain * costModel.getPaybackSupersteps() -
+              costModel.getMigrationMs(stats);
+          if (benefit > bestBenefit) {
+            bestBenefit = benefit;
+            bestOwner = owner;
+          }
+        }
+        if (bestOwner == null) {
+          break;
+        }
+        PartitionStats stats = ownerStatsMap.get(bestOwner);
+        double load = costModel.getLoad(stats);
+        maxWorker.remove(bestOwner, load);
+        minWorker.add(bestOwner, load);
+        moved.add(bestOwner);
+        ++movedPartitions;
+        migrationMs += costModel.getMigrationMs(stats);
+      }
+    }
+
+    List<PartitionOwner> partitionOwnerList = Lists.newArrayList();
+    for (WorkerLoad workerLoad : workerLoads.values()) {
+      for (PartitionOwner owner : workerLoad.getPartitionOwners()) {
+        WorkerInfo originalWorker = originalWorkers.get(owner);
+        if (originalWorker.equals(workerLoad.getWorkerInfo())) {
+          owner.setPreviousWorkerInfo(null);
+        } else {
+          owner.setPreviousWorkerInfo(originalWorker);
+          owner.setWorkerInfo(workerLoad.getWorkerInfo());
+        }
+        partitionOwnerList.add(owner);
+      }
+    }
+    if (LOG.isInfoEnabled()) {
+      LOG.info("balance: Moved " + orphans.size() + " partitions of " +
+          "unavailable workers and " + movedPartitions + " partitions for " +
+          "load, predicted max worker load " + initialMaxLoad + " ms -> " +
+          maxLoaded(workerLoads.values()).getLoad() + " ms, " +
+          "estimated migration time " + migrationMs + " ms");
+    }
+    return partitionOwnerList;
+  }
+
+  /**
+   * Get the most loaded worker
+   *
+   * @param workerLoads Loads of all workers
+   * @return Most loaded worker
+   */
+  private static WorkerLoad maxLoaded(Collection<WorkerLoad> workerLoads) {
+    return Collections.max(workerLoads, WORKER_LOAD_COMPARATOR);
+  }
+
+  /**
+   * Get the least loaded worker
+   *
+   * @param workerLoads Loads of all workers
+   * @return Least loaded worker
+   */
+  private static WorkerLoad minLoaded(Collection<WorkerLoad> workerLoads) {
+    return Collections.min(workerLoads, WORKER_LOAD_COMPARATOR);
+  }
+
+  /**
+   * Estimates load of partitions and cost of moving them.
+   */
+  private static class CostModel {
+    /** Milliseconds per message received */
+    private final double msPerMessage;
+    /** Milliseconds per message byte sent */
+    private final double msPerSentByte;
+    /** Bytes to migrate per vertex */
+    private final long bytesPerVertex;
+    /** Bytes to migrate per edge */
+    private final long bytesPerEdge;
+    /** Migration throughput */
+    private final double migrationBytesPerMs;
+    /** Supersteps over which the speedup has to pay off */
+    private final int paybackSupersteps;
+
+    /**
+     * Constructor
+     *
+     * @param conf Configuration
+     */
+    public CostModel(Configuration conf) {
+      msPerMessage = GiraphConstants.LOAD_BALANCE_MS_PER_MESSAGE.get(conf);
+      msPerSentByte =
+          GiraphConstants.LOAD_BALANCE_MS_PER_SENT_BYTE.get(conf);
+      bytesPerVertex =
+          GiraphConstants.LOAD_BALANCE_BYTES_PER_VERTEX.get(conf);
+      bytesPerEdge = GiraphConstants.LOAD_BALANCE_BYTES_PER_EDGE.get(conf);
+      migrationBytesPerMs =
+          GiraphConstants.LOAD_BALANCE_MIGRATION_BYTES_PER_MS.get(conf);
+      paybackSupersteps =
+          GiraphConstants.LOAD_BALANCE_PAYBACK_SUPERSTEPS.get(conf);
+    }
+
+    /**
+     * Get predicted load of a partition in the next superstep
+     *
+     * @param stats Partition stats from the last superstep
+     * @return Load in milliseconds
+     */
+    public double getLoad(PartitionStats stats) {
+      return stats.getComputeMs() +
+          stats.getMessagesReceivedCount() * msPerMessage +
+          stats.getMessageBytesSentCount() * msPerSentByte;
+    }
+
+    /**
+     * Get estimated time to migrate a partition to another worker
+     *
+     * @param stats Partition stats
+     * @return Migration time in milliseconds
+     */
+    public double getMigrationMs(PartitionStats stats) {
+      return (stats.getVertexCount() * bytesPerVertex +
+          stats.getEdgeCount() * bytesPerEdge) / migrationBytesPerMs;
+    }
+
+    public int getPaybackSupersteps() {
+      return paybackSupersteps;
+    }
+  }
+
+  /**
+   * Orders partition owners by load of their partitions
+   */
+  private static class LoadComparator implements Comparator<PartitionOwner> {
+    /** Map of owner to stats */
+    private final Map<PartitionOwner, PartitionStats> ownerStatsMap;
+    /** Cost model */
+    private final CostModel costModel;
+
+    /**
+     * Constructor
+     *
+     * @param ownerStatsMap Map of owner to stats
+     * @param costModel Cost model
+     */
+    public LoadComparator(Map<PartitionOwner, PartitionStats> ownerStatsMap,
+        CostModel costModel) {
+      this.ownerStatsMap = ownerStatsMap;
+      this.costModel = costModel;
+    }
+
+    @Override
+    public int compare(PartitionOwner owner1, PartitionOwner owner2) {
+      return Double.compare(costModel.getLoad(ownerStatsMap.get(owner1)),
+          costModel.getLoad(ownerStatsMap.get(owner2)));
+    }
+  }
+
+  /**
+   * Partitions assigned to a worker and their total load
+   */
+  private static class WorkerLoad {
+    /** Worker */
+    private final WorkerInfo workerInfo;
+    /** Partitions assigned to the worker */
+    private final Set<PartitionOwner> partitionOwners =
+        Sets.newLinkedHashSet();
+    /** Total load of the partitions */
+    private double load = 0;
+
+    /**
+     * Constructor
+     *
+     * @param workerInfo Worker
+     */
+    public WorkerLoad(WorkerInfo workerInfo) {
+      this.workerInfo = workerInfo;
+    }
+
+    public WorkerInfo getWorkerInfo() {
+      return workerInfo;
+    }
+
+    public Set<PartitionOwner> getPartitionOwners() {
+      return partitionOwners;
+    }
+
+    public double getLoad() {
+      return load;
+    }
+
+    /**
+     * Assign partition to this worker
+     *
+     * @param owner Partition owner
+     * @param partitionLoad Load of the partition
+     */
+    public void add(PartitionOwner owner, double partitionLoad) {
+      partitionOwners.add(owner);
+      load += partitionLoad;
+    }
+
+    /**
+     * Remove partition from this worker
+     *
+     * @param owner Partition owner
+     * @param partitionLoad Load of the partition
+     */
+    public void remove(PartitionOwner owner, double partitionLoad) {
+      partitionOwners.remove(owner);
+      load -= partitionLoad;
+    }
+  }
+}
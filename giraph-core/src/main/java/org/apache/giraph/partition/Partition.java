@@ -54,6 +54,16 @@ public interface Partition<I extends WritableComparable,
    */
   Vertex<I, V, E> getVertex(I vertexIndex);
 
+  /**
+   * Check whether a vertex is in the Partition. Unlike
+   * {@link #getVertex(Object)}, it can be called by any thread while other
+   * threads are computing the partition.
+   *
+   * @param vertexIndex Vertex index to search for
+   * @return True iff the vertex exists
+   */
+  boolean hasVertex(I vertexIndex);
+
   /**
    * Put a vertex into the Partition
    *
@@ -51,6 +51,12 @@ public class PartitionBalancer {
   /** Rebalance across supersteps by vertices */
   public static final String VERTICES_BALANCE_ALGORITHM =
     "vertices";
+  /**
+   * Rebalance across supersteps by measured compute time and messages,
+   * moving partitions only when it pays off the migration
+   */
+  public static final String LOAD_BALANCE_ALGORITHM =
+    "load";
   /** Class logger */
   private static Logger LOG = Logger.getLogger(PartitionBalancer.class);
 
@@ -227,7 +233,7 @@ public class PartitionBalancer {
       balanceValue = BalanceValue.EDGES;
     } else if (balanceAlgorithm.equals(VERTICES_BALANCE_ALGORITHM)) {
       balanceValue = BalanceValue.VERTICES;
-    } else {
+    } else if (!balanceAlgorithm.equals(LOAD_BALANCE_ALGORITHM)) {
       throw new IllegalArgumentException(
           "balancePartitionsAcrossWorkers: Illegal balance " +
               "algorithm - " + balanceAlgorithm);
@@ -267,6 +273,11 @@ public class PartitionBalancer {
               partitionOwners.size() + " and should match.");
     }
 
+    if (balanceValue == BalanceValue.UNSET) {
+      return LoadPartitionBalancer.balance(
+          conf, ownerStatsMap, availableWorkerInfos);
+    }
+
     List<WorkerInfoAssignments> workerInfoAssignmentsList =
         new ArrayList<WorkerInfoAssignments>(availableWorkerInfos.size());
     for (WorkerInfo workerInfo : availableWorkerInfos) {
@@ -276,8 +287,9 @@ public class PartitionBalancer {
     }
 
     // A simple heuristic for balancing the partitions across the workers
-    // using a value (edges, vertices).  An improvement would be to
-    // take into account the already existing partition worker assignments.
+    // using a value (edges, vertices).  The load algorithm
+    // (LoadPartitionBalancer) takes into account the already existing
+    // partition worker assignments.
     // 1.  Sort the partitions by size
     // 2.  Place the workers in a min heap sorted by their total balance
     //     value.
@@ -40,6 +40,10 @@ public class PartitionStats implements Writable {
   private long messagesSentCount = 0;
   /** Message byetes sent from this partition */
   private long messageBytesSentCount = 0;
+  /** Messages processed by vertices of this partition */
+  private long messagesReceivedCount = 0;
+  /** Milliseconds spent computing this partition */
+  private long computeMs = 0;
 
   /**
    * Default constructor for reflection.
@@ -174,6 +178,42 @@ public class PartitionStats implements Writable {
     return messageBytesSentCount;
   }
 
+  /**
+   * Add messages to the messages received count.
+   *
+   * @param messagesReceivedCount Number of messages to add.
+   */
+  public void addMessagesReceivedCount(long messagesReceivedCount) {
+    this.messagesReceivedCount += messagesReceivedCount;
+  }
+
+  /**
+   * Get the number of messages processed by vertices of this partition.
+   *
+   * @return Messages received count.
+   */
+  public long getMessagesReceivedCount() {
+    return messagesReceivedCount;
+  }
+
+  /**
+   * Add time spent computing this partition.
+   *
+   * @param computeMs Milliseconds to add.
+   */
+  public void addComputeMs(long computeMs) {
+    this.computeMs += computeMs;
+  }
+
+  /**
+   * Get the time spent computing this partition.
+   *
+   * @return Compute time in milliseconds.
+   */
+  public long getComputeMs() {
+    return computeMs;
+  }
+
   @Override
   public void readFields(DataInput input) throws IOException {
     partitionId = input.readInt();
@@ -182,6 +222,8 @@ public class PartitionStats implements Writable {
     edgeCount = input.readLong();
     messagesSentCount = input.readLong();
     messageBytesSentCount = input.readLong();
+    messagesReceivedCount = input.readLong();
+    computeMs = input.readLong();
   }
 
   @Override
@@ -192,6 +234,8 @@ public class PartitionStats implements Writable {
     output.writeLong(edgeCount);
     output.writeLong(messagesSentCount);
     output.writeLong(messageBytesSentCount);
+    output.writeLong(messagesReceivedCount);
+    output.writeLong(computeMs);
   }
 
   @Override
@@ -199,6 +243,7 @@ public class PartitionStats implements Writable {
     return "(id=" + partitionId + ",vtx=" + vertexCount + ",finVtx=" +
         finishedVertexCount + ",edges=" + edgeCount + ",msgsSent=" +
         messagesSentCount + ",msgBytesSent=" +
-          messageBytesSentCount + ")";
+          messageBytesSentCount + ",msgsReceived=" + messagesReceivedCount +
+          ",computeMs=" + computeMs + ")";
   }
 }
@@ -81,6 +81,20 @@ public abstract class PartitionStore<I extends WritableComparable,
    */
   public abstract boolean hasPartition(Integer partitionId);
 
+  /**
+   * Whether a vertex is known to exist, without loading its partition.
+   * Thread-safe, may be called while partitions are being computed.
+   * Stores which can't answer cheaply return false.
+   *
+   * @param partitionId Id of the partition of the vertex
+   * @param vertexId Vertex id
+   * @return True if the vertex exists, false if it doesn't or its
+   *         partition is not available in memory
+   */
+  public boolean hasVertexInMemory(Integer partitionId, I vertexId) {
+    return false;
+  }
+
   /**
    * Return the ids of all the stored partitions as an Iterable.
    *
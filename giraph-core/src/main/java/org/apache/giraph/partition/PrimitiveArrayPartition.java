@@ -0,0 +1,666 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import static org.apache.giraph.conf.GiraphConstants.MESSAGE_STORE_FACTORY_CLASS;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.apache.giraph.comm.messages.MessageStoreFactory;
+import org.apache.giraph.conf.GiraphTypes;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.OutEdges;
+import org.apache.giraph.graph.DefaultVertex;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.types.ops.PrimitiveIdTypeOps;
+import org.apache.giraph.types.ops.PrimitiveTypeOps;
+import org.apache.giraph.types.ops.TypeOpsUtils;
+import org.apache.giraph.types.ops.collections.BasicArrayList;
+import org.apache.giraph.utils.ReflectionUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.util.Progressable;
+
+/**
+ * Partition for graphs whose vertex ids and values have primitive
+ * {@link PrimitiveIdTypeOps} and {@link PrimitiveTypeOps}. Ids, values and
+ * halt flags are kept in parallel primitive arrays, indexed by an
+ * open-addressing hash table of positions, so there are no per-vertex
+ * objects other than the out-edges. Vertices are handed out as reusable
+ * views, and changes made through them are stored by
+ * {@link #saveVertex(Vertex)}.
+ *
+ * Iteration follows the positions in the arrays, which are in insertion
+ * order. Removing a vertex moves the last vertex into its place, and
+ * {@link #reorderVertices(List)} permutes the arrays.
+ *
+ * Views returned by {@link #getVertex(Object)} and by iterators are only
+ * valid until the next call which returns a view, and until the partition
+ * is modified. Only one thread at a time should use them.
+ *
+ * {@link #hasVertex(Object)}, {@link #getVertexCount()} and
+ * {@link #getEdgeCount()} don't take the partition monitor, which is held
+ * while the partition is computed and message stores check destinations
+ * in other partitions. They take a separate structure lock instead, which
+ * writers take inside the partition monitor whenever they change the ids,
+ * the index or the number of vertices.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@ThreadSafe
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class PrimitiveArrayPartition<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends BasicPartition<I, V, E>
+    implements ReorderablePartition<I, V, E> {
+  /** Initial capacity of the arrays */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** Vertex id type ops */
+  private PrimitiveIdTypeOps<I> idTypeOps;
+  /** Vertex value type ops */
+  private PrimitiveTypeOps<V> valueTypeOps;
+  /** Vertex ids, by position */
+  private BasicArrayList<I> ids;
+  /** Vertex values, by position */
+  private BasicArrayList<V> values;
+  /** Halt flags, by position */
+  private BitSet halted;
+  /** Out-edges, by position */
+  private List<OutEdges<I, E>> edges;
+  /** Hash codes of the vertex ids, by position */
+  private IntArrayList hashes;
+  /** Open-addressing index, position + 1 of a vertex or 0 if empty */
+  private int[] index;
+  /** Id used when comparing against stored ids */
+  private I scratchId;
+  /** View returned by getVertex */
+  private VertexView lookupView;
+  /**
+   * Guards ids, hashes, index and the edges list against structural
+   * changes. Taken inside the partition monitor, never the other way round.
+   */
+  private final Object structureLock = new Object();
+  /** Id used when comparing against stored ids under structureLock only */
+  private I lockedScratchId;
+
+  /**
+   * Constructor for reflection.
+   */
+  public PrimitiveArrayPartition() { }
+
+  /**
+   * Check whether this partition can hold the graph of a job.
+   *
+   * @param conf Configuration
+   * @param types Graph types
+   * @return True iff ids and values have primitive type ops, vertices are
+   *         {@link DefaultVertex}es and messages don't need to be traversed
+   *         in order
+   */
+  public static boolean isSupported(Configuration conf, GiraphTypes types) {
+    if (types.getVertexIdClass() == null ||
+        types.getVertexValueClass() == null ||
+        !DefaultVertex.class.equals(types.getVertexClass()) ||
+        TypeOpsUtils.getPrimitiveIdTypeOpsOrNull(
+            types.getVertexIdClass()) == null ||
+        TypeOpsUtils.getPrimitiveTypeOpsOrNull(
+            types.getVertexValueClass()) == null) {
+      return false;
+    }
+    MessageStoreFactory messageStoreFactory = ReflectionUtils.newInstance(
+        MESSAGE_STORE_FACTORY_CLASS.get(conf));
+    return !messageStoreFactory.shouldTraverseMessagesInOrder();
+  }
+
+  @Override
+  public void initialize(int partitionId, Progressable progressable) {
+    super.initialize(partitionId, progressable);
+    initializeArrays(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create empty arrays and index.
+   *
+   * @param capacity Expected number of vertices
+   */
+  private void initializeArrays(int capacity) {
+    idTypeOps = TypeOpsUtils.getPrimitiveIdTypeOps(
+        getConf().getVertexIdClass());
+    valueTypeOps = TypeOpsUtils.getPrimitiveTypeOps(
+        getConf().getVertexValueClass());
+    capacity = Math.max(capacity, INITIAL_CAPACITY);
+    synchronized (structureLock) {
+      ids = idTypeOps.createArrayList(capacity);
+      values = valueTypeOps.createArrayList(capacity);
+      halted = new BitSet(capacity);
+      edges = new ArrayList<OutEdges<I, E>>(capacity);
+      hashes = new IntArrayList(capacity);
+      index = new int[HashCommon.arraySize(capacity, 0.5f)];
+      scratchId = idTypeOps.create();
+      lockedScratchId = idTypeOps.create();
+      lookupView = new VertexView();
+    }
+  }
+
+  /**
+   * Compute the hash code used in the index.
+   *
+   * @param vertexId Vertex id
+   * @return Mixed hash code
+   */
+  private static int hash(Object vertexId) {
+    return HashCommon.murmurHash3(vertexId.hashCode());
+  }
+
+  /**
+   * Find the index slot of a vertex.
+   *
+   * @param vertexId Vertex id
+   * @param hash Hash of the vertex id
+   * @param compareId Id to read stored ids into
+   * @return Slot holding the vertex, or the empty slot where it would be
+   *         inserted
+   */
+  private int findSlot(I vertexId, int hash, I compareId) {
+    int mask = index.length - 1;
+    int slot = hash & mask;
+    while (index[slot] != 0) {
+      int position = index[slot] - 1;
+      if (hashes.getInt(position) == hash) {
+        ids.getInto(position, compareId);
+        if (compareId.equals(vertexId)) {
+          return slot;
+        }
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Find the position of a vertex.
+   *
+   * @param vertexId Vertex id
+   * @return Position, or -1 if there is no such vertex
+   */
+  private int findPosition(I vertexId) {
+    return index[findSlot(vertexId, hash(vertexId), scratchId)] - 1;
+  }
+
+  /**
+   * Find the index slot which points to a position.
+   *
+   * @param position Position of a vertex
+   * @return Slot holding the position
+   */
+  private int findSlotOfPosition(int position) {
+    int mask = index.length - 1;
+    int slot = hashes.getInt(position) & mask;
+    while (index[slot] != position + 1) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Append a vertex to the arrays, it must not be in the partition yet.
+   *
+   * @param vertex Vertex to copy
+   * @param hash Hash of the vertex id
+   * @param slot Empty index slot for the vertex
+   */
+  private void append(Vertex<I, V, E> vertex, int hash, int slot) {
+    vertex.unwrapMutableEdges();
+    synchronized (structureLock) {
+      int position = ids.size();
+      ids.add(vertex.getId());
+      values.add(vertex.getValue());
+      halted.set(position, vertex.isHalted());
+      edges.add((OutEdges<I, E>) vertex.getEdges());
+      hashes.add(hash);
+      index[slot] = position + 1;
+      if (ids.size() * 2 > index.length) {
+        rehash(index.length * 2);
+      }
+    }
+  }
+
+  /**
+   * Overwrite the value, halt flag and edges at a position.
+   *
+   * @param position Position of the vertex
+   * @param vertex Vertex to copy
+   */
+  private void store(int position, Vertex<I, V, E> vertex) {
+    values.set(position, vertex.getValue());
+    halted.set(position, vertex.isHalted());
+    vertex.unwrapMutableEdges();
+    edges.set(position, (OutEdges<I, E>) vertex.getEdges());
+  }
+
+  /**
+   * Rebuild the index from the stored hashes.
+   *
+   * @param indexSize New size of the index, a power of two
+   */
+  private void rehash(int indexSize) {
+    index = new int[indexSize];
+    int mask = indexSize - 1;
+    for (int position = 0; position < ids.size(); ++position) {
+      int slot = hashes.getInt(position) & mask;
+      while (index[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      index[slot] = position + 1;
+    }
+  }
+
+  /**
+   * Empty an index slot, shifting the following entries back so that
+   * lookups don't stop early.
+   *
+   * @param slot Slot to empty
+   */
+  private void removeSlot(int slot) {
+    int mask = index.length - 1;
+    int last = slot;
+    int current = slot;
+    while (true) {
+      current = (current + 1) & mask;
+      if (index[current] == 0) {
+        index[last] = 0;
+        return;
+      }
+      int ideal = hashes.getInt(index[current] - 1) & mask;
+      // Move the entry back unless its ideal slot is cyclically in
+      // (last, current]
+      boolean stays = (last <= current) ?
+          (last < ideal && ideal <= current) :
+          (last < ideal || ideal <= current);
+      if (!stays) {
+        index[last] = index[current];
+        last = current;
+      }
+    }
+  }
+
+  /**
+   * Create a vertex object holding a copy of the vertex at a position.
+   *
+   * @param position Position of the vertex
+   * @return New vertex
+   */
+  private Vertex<I, V, E> copyVertex(int position) {
+    I id = idTypeOps.create();
+    ids.getInto(position, id);
+    V value = valueTypeOps.create();
+    values.getInto(position, value);
+    Vertex<I, V, E> vertex = getConf().createVertex();
+    vertex.initialize(id, value, edges.get(position));
+    if (halted.get(position)) {
+      vertex.voteToHalt();
+    }
+    return vertex;
+  }
+
+  @Override
+  public synchronized Vertex<I, V, E> getVertex(I vertexIndex) {
+    int position = findPosition(vertexIndex);
+    if (position < 0) {
+      return null;
+    }
+    lookupView.reset(position);
+    return lookupView;
+  }
+
+  @Override
+  public boolean hasVertex(I vertexIndex) {
+    synchronized (structureLock) {
+      return index[findSlot(vertexIndex, hash(vertexIndex),
+          lockedScratchId)] != 0;
+    }
+  }
+
+  @Override
+  public synchronized Vertex<I, V, E> putVertex(Vertex<I, V, E> vertex) {
+    if (isCurrentView(vertex)) {
+      store(((VertexView) vertex).position, vertex);
+      return vertex;
+    }
+    int hash = hash(vertex.getId());
+    int slot = findSlot(vertex.getId(), hash, scratchId);
+    if (index[slot] == 0) {
+      append(vertex, hash, slot);
+      return null;
+    }
+    int position = index[slot] - 1;
+    Vertex<I, V, E> oldVertex = copyVertex(position);
+    store(position, vertex);
+    return oldVertex;
+  }
+
+  @Override
+  public synchronized Vertex<I, V, E> removeVertex(I vertexIndex) {
+    int slot = findSlot(vertexIndex, hash(vertexIndex), scratchId);
+    if (index[slot] == 0) {
+      return null;
+    }
+    int position = index[slot] - 1;
+    Vertex<I, V, E> vertex = copyVertex(position);
+    V value = valueTypeOps.create();
+    synchronized (structureLock) {
+      removeSlot(slot);
+
+      // Move the last vertex into the freed position
+      int last = ids.size() - 1;
+      if (position != last) {
+        index[findSlotOfPosition(last)] = position + 1;
+        ids.getInto(last, scratchId);
+        ids.set(position, scratchId);
+        values.getInto(last, value);
+        values.set(position, value);
+        halted.set(position, halted.get(last));
+        edges.set(position, edges.get(last));
+        hashes.set(position, hashes.getInt(last));
+      }
+      ids.popInto(scratchId);
+      values.popInto(value);
+      halted.clear(last);
+      edges.remove(last);
+      hashes.removeInt(last);
+    }
+    return vertex;
+  }
+
+  @Override
+  public synchronized boolean putOrCombine(Vertex<I, V, E> vertex) {
+    int hash = hash(vertex.getId());
+    int slot = findSlot(vertex.getId(), hash, scratchId);
+    if (index[slot] == 0) {
+      append(vertex, hash, slot);
+      return true;
+    }
+    int position = index[slot] - 1;
+    V value = valueTypeOps.create();
+    values.getInto(position, value);
+    getVertexValueCombiner().combine(value, vertex.getValue());
+    values.set(position, value);
+    OutEdges<I, E> originalEdges = edges.get(position);
+    for (Edge<I, E> edge : vertex.getEdges()) {
+      originalEdges.add(edge);
+    }
+    return false;
+  }
+
+  @Override
+  public void addPartition(Partition<I, V, E> partition) {
+    for (Vertex<I, V, E> vertex : partition) {
+      putOrCombine(vertex);
+    }
+  }
+
+  @Override
+  public synchronized boolean reorderVertices(List<I> vertexIds) {
+    int size = ids.size();
+    if (vertexIds.size() != size) {
+      return false;
+    }
+    int[] positions = new int[size];
+    for (int i = 0; i < size; ++i) {
+      positions[i] = findPosition(vertexIds.get(i));
+      if (positions[i] < 0) {
+        return false;
+      }
+    }
+    BasicArrayList<I> newIds = idTypeOps.createArrayList(size);
+    BasicArrayList<V> newValues = valueTypeOps.createArrayList(size);
+    BitSet newHalted = new BitSet(size);
+    List<OutEdges<I, E>> newEdges = new ArrayList<OutEdges<I, E>>(size);
+    IntArrayList newHashes = new IntArrayList(size);
+    V value = valueTypeOps.create();
+    for (int i = 0; i < size; ++i) {
+      int position = positions[i];
+      ids.getInto(position, scratchId);
+      newIds.add(scratchId);
+      values.getInto(position, value);
+      newValues.add(value);
+      newHalted.set(i, halted.get(position));
+      newEdges.add(edges.get(position));
+      newHashes.add(hashes.getInt(position));
+    }
+    synchronized (structureLock) {
+      ids = newIds;
+      values = newValues;
+      halted = newHalted;
+      edges = newEdges;
+      hashes = newHashes;
+      rehash(index.length);
+    }
+    return true;
+  }
+
+  @Override
+  public long getVertexCount() {
+    synchronized (structureLock) {
+      return ids.size();
+    }
+  }
+
+  @Override
+  public long getEdgeCount() {
+    synchronized (structureLock) {
+      long edgeCount = 0;
+      for (OutEdges<I, E> vertexEdges : edges) {
+        edgeCount += vertexEdges.size();
+      }
+      return edgeCount;
+    }
+  }
+
+  @Override
+  public synchronized void saveVertex(Vertex<I, V, E> vertex) {
+    if (isCurrentView(vertex)) {
+      store(((VertexView) vertex).position, vertex);
+    } else {
+      putVertex(vertex);
+    }
+  }
+
+  /**
+   * Check whether a vertex is a view of this partition which still points
+   * to the position of its vertex.
+   *
+   * @param vertex Vertex to check
+   * @return True iff changes to the vertex can be stored at its position
+   */
+  private boolean isCurrentView(Vertex<I, V, E> vertex) {
+    if (!(vertex instanceof PrimitiveArrayPartition.VertexView)) {
+      return false;
+    }
+    VertexView view = (VertexView) vertex;
+    if (view.getPartition() != this || view.position >= ids.size()) {
+      return false;
+    }
+    ids.getInto(view.position, scratchId);
+    return scratchId.equals(view.getId());
+  }
+
+  @Override
+  public synchronized void write(DataOutput output) throws IOException {
+    super.write(output);
+    output.writeInt(ids.size());
+    I id = idTypeOps.create();
+    V value = valueTypeOps.create();
+    for (int position = 0; position < ids.size(); ++position) {
+      progress();
+      ids.getInto(position, id);
+      id.write(output);
+      values.getInto(position, value);
+      value.write(output);
+      edges.get(position).write(output);
+      output.writeBoolean(halted.get(position));
+    }
+  }
+
+  /**
+   * Write vertex ids and vertex values as two columns, each one as its
+   * {@link BasicArrayList} serialization, without creating vertex objects.
+   *
+   * @param output Output to write to
+   * @throws IOException
+   */
+  public synchronized void writeColumns(DataOutput output)
+    throws IOException {
+    ids.write(output);
+    values.write(output);
+  }
+
+  @Override
+  public synchronized void readFields(DataInput input) throws IOException {
+    super.readFields(input);
+    int size = input.readInt();
+    initializeArrays(size);
+    I id = idTypeOps.create();
+    V value = valueTypeOps.create();
+    for (int position = 0; position < size; ++position) {
+      progress();
+      id.readFields(input);
+      value.readFields(input);
+      OutEdges<I, E> vertexEdges = getConf().createOutEdges();
+      vertexEdges.readFields(input);
+      int hash = hash(id);
+      int slot = findSlot(id, hash, scratchId);
+      if (index[slot] != 0) {
+        throw new IllegalStateException("readFields: " + this +
+            " already has same id " + id);
+      }
+      boolean vertexHalted = input.readBoolean();
+      synchronized (structureLock) {
+        ids.add(id);
+        values.add(value);
+        halted.set(position, vertexHalted);
+        edges.add(vertexEdges);
+        hashes.add(hash);
+        index[slot] = position + 1;
+      }
+    }
+  }
+
+  @Override
+  public Iterator<Vertex<I, V, E>> iterator() {
+    return new Iterator<Vertex<I, V, E>>() {
+      /** View handed out by this iterator */
+      private final VertexView view = new VertexView();
+      /** Position of the next vertex */
+      private int position;
+
+      @Override
+      public boolean hasNext() {
+        synchronized (PrimitiveArrayPartition.this) {
+          return position < ids.size();
+        }
+      }
+
+      @Override
+      public Vertex<I, V, E> next() {
+        synchronized (PrimitiveArrayPartition.this) {
+          if (position >= ids.size()) {
+            throw new NoSuchElementException();
+          }
+          view.reset(position++);
+        }
+        return view;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException(
+            "remove: This method is not supported.");
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "(id=" + getId() + ",V=" + getVertexCount() + ")";
+  }
+
+  /**
+   * Reusable vertex over a position of the arrays. Value and halt flag are
+   * copied in when the view is pointed to a position, edges are shared.
+   */
+  private class VertexView extends DefaultVertex<I, V, E> {
+    /** Reusable id */
+    private final I id = idTypeOps.create();
+    /** Reusable value */
+    private final V value = valueTypeOps.create();
+    /** Position of the vertex */
+    private int position;
+
+    /**
+     * Constructor
+     */
+    VertexView() {
+      setConf(PrimitiveArrayPartition.this.getConf());
+    }
+
+    /**
+     * Point the view to a vertex.
+     *
+     * @param position Position of the vertex
+     */
+    void reset(int position) {
+      this.position = position;
+      ids.getInto(position, id);
+      values.getInto(position, value);
+      initialize(id, value, edges.get(position));
+      if (halted.get(position)) {
+        voteToHalt();
+      } else {
+        wakeUp();
+      }
+    }
+
+    /**
+     * Get the partition this view belongs to.
+     *
+     * @return Partition
+     */
+    PrimitiveArrayPartition<I, V, E> getPartition() {
+      return PrimitiveArrayPartition.this;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.util.List;
+
+/**
+ * Partition which can iterate over its vertices in a given order, see
+ * {@link VertexReorderer}.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public interface ReorderablePartition<I extends WritableComparable,
+    V extends Writable, E extends Writable> extends Partition<I, V, E> {
+  /**
+   * Iterate over the vertices in the given order from now on. Vertices
+   * added later are iterated after these. Removing a vertex may drop the
+   * order, since keeping it compact would cost more than it saves. The
+   * order is kept when the partition is written and read back if the job
+   * has a {@link VertexReorderer}, without changing the serialized form.
+   *
+   * @param vertexIds Ids of all the vertices of this partition, in order
+   * @return True if the order is used, false if the partition has to keep
+   *         its own order or the ids don't match its vertices
+   */
+  boolean reorderVertices(List<I> vertexIds);
+}
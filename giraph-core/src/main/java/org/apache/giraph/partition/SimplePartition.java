@@ -19,11 +19,13 @@
 package org.apache.giraph.partition;
 
 import static org.apache.giraph.conf.GiraphConstants.MESSAGE_STORE_FACTORY_CLASS;
+import static org.apache.giraph.conf.GiraphConstants.VERTEX_REORDERER_CLASS;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
@@ -52,9 +54,12 @@ import com.google.common.collect.Maps;
 @SuppressWarnings("rawtypes")
 public class SimplePartition<I extends WritableComparable,
     V extends Writable, E extends Writable>
-    extends BasicPartition<I, V, E> {
+    extends BasicPartition<I, V, E>
+    implements ReorderablePartition<I, V, E> {
   /** Vertex map for this range (keyed by index) */
   private ConcurrentMap<I, Vertex<I, V, E>> vertexMap;
+  /** Vertices in iteration order, null to iterate in map order */
+  private volatile VertexOrder<Vertex<I, V, E>> vertexOrder;
 
   /**
    * Constructor for reflection.
@@ -69,6 +74,7 @@ public class SimplePartition<I extends WritableComparable,
     } else {
       vertexMap = Maps.newConcurrentMap();
     }
+    vertexOrder = null;
   }
 
   @Override
@@ -76,14 +82,30 @@ public class SimplePartition<I extends WritableComparable,
     return vertexMap.get(vertexIndex);
   }
 
+  @Override
+  public boolean hasVertex(I vertexIndex) {
+    return vertexMap.containsKey(vertexIndex);
+  }
+
   @Override
   public Vertex<I, V, E> putVertex(Vertex<I, V, E> vertex) {
-    return vertexMap.put(vertex.getId(), vertex);
+    Vertex<I, V, E> oldVertex = vertexMap.put(vertex.getId(), vertex);
+    if (oldVertex == null) {
+      addToOrder(vertex);
+    } else if (oldVertex != vertex) {
+      // Finding the slot of the replaced vertex would need an index
+      vertexOrder = null;
+    }
+    return oldVertex;
   }
 
   @Override
   public Vertex<I, V, E> removeVertex(I vertexIndex) {
-    return vertexMap.remove(vertexIndex);
+    Vertex<I, V, E> vertex = vertexMap.remove(vertexIndex);
+    if (vertex != null) {
+      vertexOrder = null;
+    }
+    return vertex;
   }
 
   @Override
@@ -93,6 +115,7 @@ public class SimplePartition<I extends WritableComparable,
       originalVertex =
           vertexMap.putIfAbsent(vertex.getId(), vertex);
       if (originalVertex == null) {
+        addToOrder(vertex);
         return true;
       }
     }
@@ -118,6 +141,38 @@ public class SimplePartition<I extends WritableComparable,
     }
   }
 
+  @Override
+  public boolean reorderVertices(List<I> vertexIds) {
+    // Message stores which need sorted traversal rely on the sorted map
+    if (vertexMap instanceof ConcurrentSkipListMap ||
+        vertexIds.size() != vertexMap.size()) {
+      return false;
+    }
+    VertexOrder<Vertex<I, V, E>> order =
+        new VertexOrder<Vertex<I, V, E>>(vertexIds.size());
+    for (I vertexId : vertexIds) {
+      Vertex<I, V, E> vertex = vertexMap.get(vertexId);
+      if (vertex == null) {
+        return false;
+      }
+      order.add(vertex);
+    }
+    vertexOrder = order;
+    return true;
+  }
+
+  /**
+   * Add a new vertex to the iteration order, if there is one
+   *
+   * @param vertex New vertex
+   */
+  private void addToOrder(Vertex<I, V, E> vertex) {
+    VertexOrder<Vertex<I, V, E>> order = vertexOrder;
+    if (order != null) {
+      order.add(vertex);
+    }
+  }
+
   @Override
   public long getVertexCount() {
     return vertexMap.size();
@@ -151,6 +206,12 @@ public class SimplePartition<I extends WritableComparable,
       vertexMap = Maps.newConcurrentMap();
     }
     int vertices = input.readInt();
+    // Vertices were written in iteration order, keep it if the job
+    // reorders vertices
+    VertexOrder<Vertex<I, V, E>> order =
+        VERTEX_REORDERER_CLASS.get(getConf()) != null &&
+        !(vertexMap instanceof ConcurrentSkipListMap) ?
+        new VertexOrder<Vertex<I, V, E>>(vertices) : null;
     for (int i = 0; i < vertices; ++i) {
       progress();
       Vertex<I, V, E> vertex =
@@ -160,14 +221,20 @@ public class SimplePartition<I extends WritableComparable,
             "readFields: " + this +
             " already has same id " + vertex);
       }
+      if (order != null) {
+        order.add(vertex);
+      }
     }
+    vertexOrder = order;
   }
 
   @Override
   public void write(DataOutput output) throws IOException {
     super.write(output);
     output.writeInt(vertexMap.size());
-    for (Vertex<I, V, E> vertex : vertexMap.values()) {
+    // Vertices are written in iteration order, so the order survives
+    // being sent to another worker or spilled to disk
+    for (Vertex<I, V, E> vertex : this) {
       progress();
       WritableUtils.writeVertexToDataOutput(output, vertex, getConf());
     }
@@ -175,7 +242,11 @@ public class SimplePartition<I extends WritableComparable,
 
   @Override
   public Iterator<Vertex<I, V, E>> iterator() {
-    return vertexMap.values().iterator();
+    VertexOrder<Vertex<I, V, E>> order = vertexOrder;
+    if (order == null) {
+      return vertexMap.values().iterator();
+    }
+    return order.iterator();
   }
 
   /**
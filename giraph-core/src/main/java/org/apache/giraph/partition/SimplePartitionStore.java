@@ -99,6 +99,12 @@ public class SimplePartitionStore<I extends WritableComparable,
     return partitions.containsKey(partitionId);
   }
 
+  @Override
+  public boolean hasVertexInMemory(Integer partitionId, I vertexId) {
+    Partition<I, V, E> partition = partitions.get(partitionId);
+    return partition != null && partition.hasVertex(vertexId);
+  }
+
   @Override
   public Iterable<Integer> getPartitionIds() {
     return partitions.keySet();
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Stored vertices of a {@link ReorderablePartition} in iteration order, new
+ * vertices are appended at the end. Partitions keep whatever they store per
+ * vertex here (vertex objects or serialized vertices), so iterating doesn't
+ * look anything up by id. Each vertex has a slot, its position in the
+ * order, which the partition uses to replace it.
+ *
+ * @param <T> What the partition stores per vertex
+ */
+@ThreadSafe
+class VertexOrder<T> {
+  /** Stored vertices, by slot */
+  private Object[] elements;
+  /** Number of used slots */
+  private int size;
+
+  /**
+   * Constructor
+   *
+   * @param expectedSize Expected number of vertices
+   */
+  VertexOrder(int expectedSize) {
+    elements = new Object[Math.max(expectedSize, 1)];
+  }
+
+  /**
+   * Add a new vertex at the end of the order
+   *
+   * @param element Stored vertex
+   * @return Slot of the vertex
+   */
+  synchronized int add(T element) {
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, size * 2);
+    }
+    elements[size] = element;
+    return size++;
+  }
+
+  /**
+   * Replace the stored vertex in a slot
+   *
+   * @param slot Slot of the vertex
+   * @param element New stored vertex
+   */
+  synchronized void set(int slot, T element) {
+    elements[slot] = element;
+  }
+
+  /**
+   * Iterate over the order. Vertices added after the iterator was created
+   * are not seen, vertices replaced before they are reached are.
+   *
+   * @return Iterator over stored vertices
+   */
+  Iterator<T> iterator() {
+    final Object[] iteratedElements;
+    final int iteratedSize;
+    synchronized (this) {
+      iteratedElements = elements;
+      iteratedSize = size;
+    }
+    return new Iterator<T>() {
+      /** Next slot */
+      private int slot;
+
+      @Override
+      public boolean hasNext() {
+        return slot < iteratedSize;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public T next() {
+        if (slot >= iteratedSize) {
+          throw new NoSuchElementException();
+        }
+        return (T) iteratedElements[slot++];
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException(
+            "remove: Vertices can't be removed from an order");
+      }
+    };
+  }
+
+  /**
+   * Get the number of vertices in the order
+   *
+   * @return Number of vertices
+   */
+  synchronized int size() {
+    return size;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfigurable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.util.List;
+
+/**
+ * Decides in which order the vertices of a partition are computed. Used
+ * once after input, on partitions which are {@link ReorderablePartition}s,
+ * so that vertices which are close in the graph are also close in the
+ * iteration order.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public interface VertexReorderer<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends ImmutableClassesGiraphConfigurable<I, V, E> {
+  /**
+   * Get the ids of all vertices in the partition in the order in which they
+   * should be iterated. Returned ids must not be reused by the partition.
+   *
+   * @param partition Partition to reorder
+   * @return Ids of all vertices of the partition, in the new order
+   */
+  List<I> getVertexOrder(Partition<I, V, E> partition);
+}
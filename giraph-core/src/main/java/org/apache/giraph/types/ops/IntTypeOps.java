@@ -19,6 +19,8 @@ package org.apache.giraph.types.ops;
 
 import org.apache.giraph.types.ops.collections.Basic2ObjectMap;
 import org.apache.giraph.types.ops.collections.Basic2ObjectMap.BasicInt2ObjectOpenHashMap;
+import org.apache.giraph.types.ops.collections.Basic2PrimitiveMap;
+import org.apache.giraph.types.ops.collections.Basic2PrimitiveMap.BasicInt2PrimitiveOpenHashMap;
 import org.apache.giraph.types.ops.collections.BasicArrayList;
 import org.apache.giraph.types.ops.collections.BasicArrayList.BasicIntArrayList;
 import org.apache.giraph.types.ops.collections.BasicSet;
@@ -65,4 +67,10 @@ public enum IntTypeOps implements PrimitiveIdTypeOps<IntWritable> {
       int capacity) {
     return new BasicInt2ObjectOpenHashMap<>(capacity);
   }
+
+  @Override
+  public <V> Basic2PrimitiveMap<IntWritable, V> create2PrimitiveOpenHashMap(
+      PrimitiveTypeOps<V> valueTypeOps, int capacity) {
+    return new BasicInt2PrimitiveOpenHashMap<>(valueTypeOps, capacity);
+  }
 }
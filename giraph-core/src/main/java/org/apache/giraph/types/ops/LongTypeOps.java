@@ -19,6 +19,8 @@ package org.apache.giraph.types.ops;
 
 import org.apache.giraph.types.ops.collections.Basic2ObjectMap;
 import org.apache.giraph.types.ops.collections.Basic2ObjectMap.BasicLong2ObjectOpenHashMap;
+import org.apache.giraph.types.ops.collections.Basic2PrimitiveMap;
+import org.apache.giraph.types.ops.collections.Basic2PrimitiveMap.BasicLong2PrimitiveOpenHashMap;
 import org.apache.giraph.types.ops.collections.BasicArrayList;
 import org.apache.giraph.types.ops.collections.BasicArrayList.BasicLongArrayList;
 import org.apache.giraph.types.ops.collections.BasicSet;
@@ -65,4 +67,10 @@ public enum LongTypeOps implements PrimitiveIdTypeOps<LongWritable> {
       int capacity) {
     return new BasicLong2ObjectOpenHashMap<>(capacity);
   }
+
+  @Override
+  public <V> Basic2PrimitiveMap<LongWritable, V> create2PrimitiveOpenHashMap(
+      PrimitiveTypeOps<V> valueTypeOps, int capacity) {
+    return new BasicLong2PrimitiveOpenHashMap<>(valueTypeOps, capacity);
+  }
 }
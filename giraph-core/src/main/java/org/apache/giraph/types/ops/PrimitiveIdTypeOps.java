@@ -18,6 +18,7 @@
 package org.apache.giraph.types.ops;
 
 import org.apache.giraph.types.ops.collections.Basic2ObjectMap;
+import org.apache.giraph.types.ops.collections.Basic2PrimitiveMap;
 import org.apache.giraph.types.ops.collections.BasicSet;
 
 
@@ -52,4 +53,16 @@ public interface PrimitiveIdTypeOps<T> extends PrimitiveTypeOps<T> {
    * @return Basic2ObjectMap
    */
   <V> Basic2ObjectMap<T, V> create2ObjectOpenHashMap(int capacity);
+
+  /**
+   * Create Basic2PrimitiveMap with key type T, given value TypeOps and
+   * capacity. Values are kept as primitives.
+   *
+   * @param valueTypeOps TypeOps of values
+   * @param capacity Capacity
+   * @param <V> Type of values in the map
+   * @return Basic2PrimitiveMap
+   */
+  <V> Basic2PrimitiveMap<T, V> create2PrimitiveOpenHashMap(
+      PrimitiveTypeOps<V> valueTypeOps, int capacity);
 }
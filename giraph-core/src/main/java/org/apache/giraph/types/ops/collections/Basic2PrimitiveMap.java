@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.types.ops.collections;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.giraph.types.ops.IntTypeOps;
+import org.apache.giraph.types.ops.LongTypeOps;
+import org.apache.giraph.types.ops.PrimitiveIdTypeOps;
+import org.apache.giraph.types.ops.PrimitiveTypeOps;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+
+/**
+ * Map from primitive keys to primitive values, with only basic set of
+ * operations. Values are kept unboxed in a {@link BasicArrayList}, and keys
+ * are indexed into it, so any primitive key type can be combined with any
+ * primitive value type. Values are passed in and out through objects owned
+ * by the caller.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public abstract class Basic2PrimitiveMap<K, V> {
+  /** Values, at the position of their key */
+  private final BasicArrayList<V> values;
+  /** Reusable value, for moving values around */
+  private final V reusableValue;
+
+  /**
+   * Constructor
+   *
+   * @param valueTypeOps TypeOps of values
+   * @param capacity Capacity
+   */
+  protected Basic2PrimitiveMap(PrimitiveTypeOps<V> valueTypeOps,
+      int capacity) {
+    values = valueTypeOps.createArrayList(capacity);
+    reusableValue = valueTypeOps.create();
+  }
+
+  /** Removes all of the elements from this map. */
+  public void clear() {
+    clearKeys();
+    values.clear();
+  }
+
+  /**
+   * Number of elements in this map
+   * @return size
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * Checks whether key is present in the map
+   * @param key Key
+   * @return true if present
+   */
+  public boolean containsKey(K key) {
+    return getPosition(key) >= 0;
+  }
+
+  /**
+   * Get value for a given key
+   * @param key Key
+   * @param to Object to store the value into, unchanged if key is not present
+   * @return true if key was present
+   */
+  public boolean getInto(K key, V to) {
+    int position = getPosition(key);
+    if (position < 0) {
+      return false;
+    }
+    values.getInto(position, to);
+    return true;
+  }
+
+  /**
+   * Adds a pair to the map, or replaces the value of the key.
+   *
+   * @param key Key
+   * @param value Value, not kept
+   * @return true if key wasn't present before
+   */
+  public boolean put(K key, V value) {
+    int position = getPosition(key);
+    if (position >= 0) {
+      values.set(position, value);
+      return false;
+    }
+    addKey(key);
+    values.add(value);
+    return true;
+  }
+
+  /**
+   * Removes the mapping with the given key.
+   *
+   * @param key Key
+   * @return true if key was present
+   */
+  public boolean remove(K key) {
+    int position = getPosition(key);
+    if (position < 0) {
+      return false;
+    }
+    removeAt(position);
+    return true;
+  }
+
+  /**
+   * Removes the mapping at a given position. Last pair is moved into the
+   * hole, so positions of other pairs stay valid, except for the last one.
+   *
+   * @param position Position, between 0 and size() - 1
+   */
+  public void removeAt(int position) {
+    removeKeyAt(position);
+    values.popInto(reusableValue);
+    if (position < values.size()) {
+      values.set(position, reusableValue);
+    }
+  }
+
+  /**
+   * Get key at a given position. Positions are dense, from 0 to size() - 1,
+   * and only change on removals.
+   *
+   * @param position Position
+   * @param to Object to store the key into
+   */
+  public abstract void getKeyInto(int position, K to);
+
+  /**
+   * Get value at a given position
+   *
+   * @param position Position
+   * @param to Object to store the value into
+   */
+  public void getValueInto(int position, V to) {
+    values.getInto(position, to);
+  }
+
+  /**
+   * Set value at a given position
+   *
+   * @param position Position
+   * @param value Value, not kept
+   */
+  public void setValue(int position, V value) {
+    values.set(position, value);
+  }
+
+  /**
+   * TypeOps for type of keys this object holds
+   * @return TypeOps
+   */
+  public abstract PrimitiveIdTypeOps<K> getKeyTypeOps();
+
+  /**
+   * TypeOps for type of values this object holds
+   * @return TypeOps
+   */
+  public PrimitiveTypeOps<V> getValueTypeOps() {
+    return values.getElementTypeOps();
+  }
+
+  /**
+   * Fast iterator over keys within this map, which doesn't allocate new
+   * element for each returned element.
+   *
+   * Object returned by next() is only valid until next() is called again,
+   * because it is reused.
+   *
+   * @return Iterator
+   */
+  public Iterator<K> fastKeyIterator() {
+    return new ReusableIterator();
+  }
+
+  /**
+   * Serializes the object.
+   * @param out <code>DataOuput</code> to serialize object into.
+   * @throws IOException
+   */
+  public void write(DataOutput out) throws IOException {
+    writeKeys(out);
+    values.write(out);
+  }
+
+  /**
+   * Deserialize the object.
+   * @param in <code>DataInput</code> to deseriablize object from.
+   * @throws IOException
+   */
+  public void readFields(DataInput in) throws IOException {
+    readKeys(in);
+    values.readFields(in);
+  }
+
+  /**
+   * Get position of the value of a key
+   * @param key Key
+   * @return Position, or -1 if key is not present
+   */
+  protected abstract int getPosition(K key);
+
+  /**
+   * Add a key which is not present, at position size()
+   * @param key Key
+   */
+  protected abstract void addKey(K key);
+
+  /**
+   * Remove the key at a position, and move the last key into it
+   * @param position Position
+   */
+  protected abstract void removeKeyAt(int position);
+
+  /** Remove all keys */
+  protected abstract void clearKeys();
+
+  /**
+   * Serialize keys, in the order of their positions
+   * @param out Output
+   * @throws IOException
+   */
+  protected abstract void writeKeys(DataOutput out) throws IOException;
+
+  /**
+   * Deserialize keys written with {@link #writeKeys(DataOutput)}
+   * @param in Input
+   * @throws IOException
+   */
+  protected abstract void readKeys(DataInput in) throws IOException;
+
+  /**
+   * Iterator over keys by position, that reuses key object.
+   */
+  private class ReusableIterator implements Iterator<K> {
+    /** Reusable key object */
+    private final K reusableKey = getKeyTypeOps().create();
+    /** Position of the next key */
+    private int position;
+
+    @Override
+    public boolean hasNext() {
+      return position < size();
+    }
+
+    @Override
+    public K next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      getKeyInto(position++, reusableKey);
+      return reusableKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * IntWritable implementation of Basic2PrimitiveMap
+   *
+   * @param <V> Value type
+   */
+  public static final class BasicInt2PrimitiveOpenHashMap<V>
+      extends Basic2PrimitiveMap<IntWritable, V> {
+    /** Map from key to its position */
+    private final Int2IntOpenHashMap positions;
+    /** Keys, by position */
+    private final IntArrayList keys;
+
+    /**
+     * Constructor
+     * @param valueTypeOps TypeOps of values
+     * @param capacity Capacity
+     */
+    public BasicInt2PrimitiveOpenHashMap(PrimitiveTypeOps<V> valueTypeOps,
+        int capacity) {
+      super(valueTypeOps, capacity);
+      positions = new Int2IntOpenHashMap(capacity);
+      positions.defaultReturnValue(-1);
+      keys = new IntArrayList(capacity);
+    }
+
+    @Override
+    public PrimitiveIdTypeOps<IntWritable> getKeyTypeOps() {
+      return IntTypeOps.INSTANCE;
+    }
+
+    @Override
+    public void getKeyInto(int position, IntWritable to) {
+      to.set(keys.getInt(position));
+    }
+
+    @Override
+    protected int getPosition(IntWritable key) {
+      return positions.get(key.get());
+    }
+
+    @Override
+    protected void addKey(IntWritable key) {
+      positions.put(key.get(), keys.size());
+      keys.add(key.get());
+    }
+
+    @Override
+    protected void removeKeyAt(int position) {
+      positions.remove(keys.getInt(position));
+      int last = keys.removeInt(keys.size() - 1);
+      if (position < keys.size()) {
+        keys.set(position, last);
+        positions.put(last, position);
+      }
+    }
+
+    @Override
+    protected void clearKeys() {
+      positions.clear();
+      keys.clear();
+    }
+
+    @Override
+    protected void writeKeys(DataOutput out) throws IOException {
+      out.writeInt(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        out.writeInt(keys.getInt(i));
+      }
+    }
+
+    @Override
+    protected void readKeys(DataInput in) throws IOException {
+      int size = in.readInt();
+      clearKeys();
+      keys.ensureCapacity(size);
+      for (int i = 0; i < size; i++) {
+        int key = in.readInt();
+        positions.put(key, i);
+        keys.add(key);
+      }
+    }
+  }
+
+  /**
+   * LongWritable implementation of Basic2PrimitiveMap
+   *
+   * @param <V> Value type
+   */
+  public static final class BasicLong2PrimitiveOpenHashMap<V>
+      extends Basic2PrimitiveMap<LongWritable, V> {
+    /** Map from key to its position */
+    private final Long2IntOpenHashMap positions;
+    /** Keys, by position */
+    private final LongArrayList keys;
+
+    /**
+     * Constructor
+     * @param valueTypeOps TypeOps of values
+     * @param capacity Capacity
+     */
+    public BasicLong2PrimitiveOpenHashMap(PrimitiveTypeOps<V> valueTypeOps,
+        int capacity) {
+      super(valueTypeOps, capacity);
+      positions = new Long2IntOpenHashMap(capacity);
+      positions.defaultReturnValue(-1);
+      keys = new LongArrayList(capacity);
+    }
+
+    @Override
+    public PrimitiveIdTypeOps<LongWritable> getKeyTypeOps() {
+      return LongTypeOps.INSTANCE;
+    }
+
+    @Override
+    public void getKeyInto(int position, LongWritable to) {
+      to.set(keys.getLong(position));
+    }
+
+    @Override
+    protected int getPosition(LongWritable key) {
+      return positions.get(key.get());
+    }
+
+    @Override
+    protected void addKey(LongWritable key) {
+      positions.put(key.get(), keys.size());
+      keys.add(key.get());
+    }
+
+    @Override
+    protected void removeKeyAt(int position) {
+      positions.remove(keys.getLong(position));
+      long last = keys.removeLong(keys.size() - 1);
+      if (position < keys.size()) {
+        keys.set(position, last);
+        positions.put(last, position);
+      }
+    }
+
+    @Override
+    protected void clearKeys() {
+      positions.clear();
+      keys.clear();
+    }
+
+    @Override
+    protected void writeKeys(DataOutput out) throws IOException {
+      out.writeInt(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        out.writeLong(keys.getLong(i));
+      }
+    }
+
+    @Override
+    protected void readKeys(DataInput in) throws IOException {
+      int size = in.readInt();
+      clearKeys();
+      keys.ensureCapacity(size);
+      for (int i = 0; i < size; i++) {
+        long key = in.readLong();
+        positions.put(key, i);
+        keys.add(key);
+      }
+    }
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.giraph.utils;
 
 import org.apache.giraph.factories.MessageValueFactory;
+import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 
@@ -40,6 +41,8 @@ public class ByteArrayVertexIdMessages<I extends WritableComparable,
   private MessageValueFactory<M> messageValueFactory;
   /** Add the message size to the stream? (Depends on the message store) */
   private boolean useMessageSizeEncoding = false;
+  /** Are vertex ids {@link IntWritable}s (otherwise LongWritables)? */
+  private boolean intVertexIds = false;
 
   /**
    * Constructor
@@ -83,12 +86,80 @@ public class ByteArrayVertexIdMessages<I extends WritableComparable,
   public void initialize() {
     super.initialize();
     setUseMessageSizeEncoding();
+    intVertexIds = IntWritable.class.equals(getConf().getVertexIdClass());
   }
 
   @Override
   public void initialize(int expectedSize) {
     super.initialize(expectedSize);
     setUseMessageSizeEncoding();
+    intVertexIds = IntWritable.class.equals(getConf().getVertexIdClass());
+  }
+
+  /**
+   * Write a primitive vertex id in the same format as its writable
+   * (IntWritable or LongWritable, depending on the vertex id class).
+   *
+   * @param vertexId Vertex id
+   * @throws IOException
+   */
+  private void writePrimitiveId(long vertexId) throws IOException {
+    if (intVertexIds) {
+      extendedDataOutput.writeInt((int) vertexId);
+    } else {
+      extendedDataOutput.writeLong(vertexId);
+    }
+  }
+
+  /**
+   * Add a double message to a vertex with a primitive id, without going
+   * through writables. Bytes are the same as when adding the id and a
+   * DoubleWritable message.
+   *
+   * @param vertexId Vertex id (int or long)
+   * @param message Message
+   */
+  public void addDoubleMessage(long vertexId, double message) {
+    try {
+      writePrimitiveId(vertexId);
+      extendedDataOutput.writeDouble(message);
+    } catch (IOException e) {
+      throw new IllegalStateException("addDoubleMessage: IOException", e);
+    }
+  }
+
+  /**
+   * Add a float message to a vertex with a primitive id, without going
+   * through writables. Bytes are the same as when adding the id and a
+   * FloatWritable message.
+   *
+   * @param vertexId Vertex id (int or long)
+   * @param message Message
+   */
+  public void addFloatMessage(long vertexId, float message) {
+    try {
+      writePrimitiveId(vertexId);
+      extendedDataOutput.writeFloat(message);
+    } catch (IOException e) {
+      throw new IllegalStateException("addFloatMessage: IOException", e);
+    }
+  }
+
+  /**
+   * Add a long message to a vertex with a primitive id, without going
+   * through writables. Bytes are the same as when adding the id and a
+   * LongWritable message.
+   *
+   * @param vertexId Vertex id (int or long)
+   * @param message Message
+   */
+  public void addLongMessage(long vertexId, long message) {
+    try {
+      writePrimitiveId(vertexId);
+      extendedDataOutput.writeLong(message);
+    } catch (IOException e) {
+      throw new IllegalStateException("addLongMessage: IOException", e);
+    }
   }
 
   @Override
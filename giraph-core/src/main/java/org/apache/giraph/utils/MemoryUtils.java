@@ -36,7 +36,7 @@ public class MemoryUtils {
    * @param bytes integer number of bytes
    * @return megabytes
    */
-  private static double megaBytes(long bytes) {
+  public static double megaBytes(long bytes) {
     return bytes / 1024.0 / 1024.0;
   }
 
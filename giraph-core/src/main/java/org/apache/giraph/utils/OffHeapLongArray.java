@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.utils;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Growable array of longs kept outside of the Java heap, so that very large
+ * arrays neither count towards heap size nor have to be scanned by the
+ * garbage collector. Memory has to be released explicitly with
+ * {@link #close()}.
+ *
+ * Appending is not thread-safe, reading is safe once writing is done.
+ */
+@NotThreadSafe
+public final class OffHeapLongArray implements Closeable {
+  /** Access to the unsafe class */
+  private static final sun.misc.Unsafe UNSAFE;
+  static {
+    try {
+      Field field = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      UNSAFE = (sun.misc.Unsafe) field.get(null);
+      // Checkstyle exception due to needing to check if unsafe is allowed
+      // CHECKSTYLE: stop IllegalCatch
+    } catch (Exception e) {
+      // CHECKSTYLE: resume IllegalCatch
+      throw new RuntimeException("OffHeapLongArray: Failed to " +
+          "get unsafe", e);
+    }
+  }
+  /** Minimum capacity, in longs */
+  private static final long MIN_CAPACITY = 16;
+
+  /** Address of the first element, 0 if released */
+  private long address;
+  /** Number of longs which fit in allocated memory */
+  private long capacity;
+  /** Number of longs in the array */
+  private long size;
+
+  /**
+   * Constructor
+   *
+   * @param initialCapacity Number of longs to allocate memory for
+   */
+  public OffHeapLongArray(long initialCapacity) {
+    capacity = Math.max(MIN_CAPACITY, initialCapacity);
+    address = UNSAFE.allocateMemory(capacity * ByteUtils.SIZE_OF_LONG);
+  }
+
+  /**
+   * Append a long, growing the array if needed
+   *
+   * @param value Value to append
+   */
+  public void add(long value) {
+    if (size == capacity) {
+      ensureCapacity(capacity + (capacity >> 1));
+    }
+    UNSAFE.putLong(address + size * ByteUtils.SIZE_OF_LONG, value);
+    ++size;
+  }
+
+  /**
+   * Get a long, index is not checked
+   *
+   * @param index Index in the array
+   * @return Value at index
+   */
+  public long get(long index) {
+    return UNSAFE.getLong(address + index * ByteUtils.SIZE_OF_LONG);
+  }
+
+  /**
+   * Set a long, index is not checked
+   *
+   * @param index Index in the array, less than size
+   * @param value Value to set
+   */
+  public void set(long index, long value) {
+    UNSAFE.putLong(address + index * ByteUtils.SIZE_OF_LONG, value);
+  }
+
+  /**
+   * Make sure the array can hold at least given number of longs
+   *
+   * @param minCapacity Required capacity, in longs
+   */
+  public void ensureCapacity(long minCapacity) {
+    if (minCapacity > capacity) {
+      address = UNSAFE.reallocateMemory(address,
+          minCapacity * ByteUtils.SIZE_OF_LONG);
+      capacity = minCapacity;
+    }
+  }
+
+  /**
+   * Release memory not used by elements
+   */
+  public void trim() {
+    long newCapacity = Math.max(MIN_CAPACITY, size);
+    if (newCapacity < capacity) {
+      address = UNSAFE.reallocateMemory(address,
+          newCapacity * ByteUtils.SIZE_OF_LONG);
+      capacity = newCapacity;
+    }
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Get the number of bytes allocated off-heap
+   *
+   * @return Allocated bytes
+   */
+  public long getAllocatedBytes() {
+    return address == 0 ? 0 : capacity * ByteUtils.SIZE_OF_LONG;
+  }
+
+  /**
+   * Release off-heap memory, the array can't be used afterwards
+   */
+  @Override
+  public void close() {
+    if (address != 0) {
+      UNSAFE.freeMemory(address);
+      address = 0;
+      capacity = 0;
+      size = 0;
+    }
+  }
+}
@@ -46,8 +46,12 @@ import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.graph.VertexEdgeCount;
 import org.apache.giraph.io.EdgeOutputFormat;
 import org.apache.giraph.io.EdgeWriter;
+import org.apache.giraph.io.SimpleVertexWriter;
 import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.VertexPartitionWriter;
 import org.apache.giraph.io.VertexWriter;
+import org.apache.giraph.io.superstep_output.AsyncEdgeWriterPool;
+import org.apache.giraph.io.superstep_output.AsyncVertexWriterPool;
 import org.apache.giraph.io.superstep_output.SuperstepOutput;
 import org.apache.giraph.mapping.translate.TranslateEdge;
 import org.apache.giraph.master.MasterInfo;
@@ -55,14 +59,21 @@ import org.apache.giraph.master.SuperstepClasses;
 import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.metrics.GiraphTimer;
 import org.apache.giraph.metrics.GiraphTimerContext;
+import org.apache.giraph.metrics.MemoryAccounting;
 import org.apache.giraph.metrics.ResetSuperstepMetricsObserver;
+import org.apache.giraph.metrics.SkewTracker;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
+import org.apache.giraph.metrics.SuperstepPhaseTracker;
+import org.apache.giraph.metrics.SuperstepPhases;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.metrics.WorkerSuperstepMetrics;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionExchange;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.partition.PartitionStats;
 import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.partition.ReorderablePartition;
+import org.apache.giraph.partition.VertexReorderer;
 import org.apache.giraph.partition.WorkerGraphPartitioner;
 import org.apache.giraph.utils.CallableFactory;
 import org.apache.giraph.utils.JMapHistoDumper;
@@ -116,6 +127,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ZooKeeper-based implementation of {@link CentralizedServiceWorker}.
@@ -157,6 +169,8 @@ public class BspServiceWorker<I extends WritableComparable,
   private List<WorkerInfo> workerInfoList = Lists.newArrayList();
   /** Have the partition exchange children (workers) changed? */
   private final BspEvent partitionExchangeChildrenChanged;
+  /** Number of edges of this worker's partitions in the last superstep */
+  private long localEdges;
 
   /** Worker Context */
   private final WorkerContext workerContext;
@@ -171,6 +185,8 @@ public class BspServiceWorker<I extends WritableComparable,
   private final WorkerObserver[] observers;
   /** Writer for worker progress */
   private final WorkerProgressWriter workerProgressWriter;
+  /** Publishes live status for the master dashboard, if enabled */
+  private final WorkerStatusReporter workerStatusReporter;
 
   // Per-Superstep Metrics
   /** Timer for WorkerContext#postSuperstep */
@@ -231,6 +247,10 @@ public class BspServiceWorker<I extends WritableComparable,
     workerProgressWriter = conf.trackJobProgressOnClient() ?
         new WorkerProgressWriter(graphTaskManager.getJobProgressTracker()) :
         null;
+    workerStatusReporter = GiraphConstants.DASHBOARD_ENABLE.get(conf) ?
+        new WorkerStatusReporter(this, getZkExt(), workerStatusPath,
+            GiraphConstants.DASHBOARD_UPDATE_MSECS.get(conf)) :
+        null;
 
     GiraphMetrics.get().addSuperstepResetObserver(this);
   }
@@ -508,6 +528,8 @@ public class BspServiceWorker<I extends WritableComparable,
           "markCurrentWorkerDoneThenWaitForOthers: " +
           "InterruptedException creating worker done splits", e);
     }
+    Timeline.Span span =
+        getTimeline().startSpan(Timeline.BARRIER, "waitForInputSplitsDone");
     while (true) {
       Stat inputSplitsDoneStat;
       try {
@@ -529,6 +551,7 @@ public class BspServiceWorker<I extends WritableComparable,
       inputSplitEvents.getAllDoneChanged().waitForever();
       inputSplitEvents.getAllDoneChanged().reset();
     }
+    span.end();
   }
 
   @Override
@@ -570,6 +593,10 @@ public class BspServiceWorker<I extends WritableComparable,
       }
     }
 
+    // Input loading is timed like the compute phase of a regular superstep
+    SuperstepPhaseTracker.get().startSuperstep();
+    SuperstepPhaseTracker.get().startPhase(SuperstepPhases.Phase.COMPUTE);
+
     // Add the partitions that this worker owns
     Collection<? extends PartitionOwner> masterSetPartitionOwners =
         startSuperstep();
@@ -658,6 +685,8 @@ public class BspServiceWorker<I extends WritableComparable,
     if (LOG.isInfoEnabled()) {
       LOG.info("setup: Finally loaded a total of " + vertexEdgeCount);
     }
+    SuperstepPhaseTracker.get().startPhase(
+        SuperstepPhases.Phase.WAIT_REQUESTS);
 
     if (getConfiguration().hasVertexInputFormat()) {
       // Workers wait for each other to finish, coordinated by master
@@ -687,8 +716,17 @@ public class BspServiceWorker<I extends WritableComparable,
     localData.removeMappingStoreIfPossible();
 
     if (getConfiguration().hasEdgeInputFormat()) {
+      MemoryAccounting.get().estimateEdgeStore(
+          getServerData().getEdgeStore());
       // Move edges from temporary storage to their source vertices.
       getServerData().getEdgeStore().moveEdgesToVertices();
+      MemoryAccounting.get().setEstimate(
+          MemoryAccounting.Subsystem.EDGES, 0);
+    }
+
+    if (GiraphConstants.VERTEX_REORDERER_CLASS.get(getConfiguration()) !=
+        null) {
+      reorderVertices();
     }
 
     // Generate the partition stats for the input superstep and process
@@ -713,6 +751,58 @@ public class BspServiceWorker<I extends WritableComparable,
     return finishSuperstep(partitionStatsList, null);
   }
 
+  /**
+   * Reorder the vertices of every partition with the configured
+   * {@link org.apache.giraph.partition.VertexReorderer}, so that computation
+   * visits neighbors close to each other.
+   */
+  private void reorderVertices() {
+    final int numPartitions = getPartitionStore().getNumPartitions();
+    if (numPartitions == 0) {
+      return;
+    }
+    final Queue<Integer> partitionIdQueue =
+        new ArrayBlockingQueue<Integer>(numPartitions);
+    Iterables.addAll(partitionIdQueue, getPartitionStore().getPartitionIds());
+    final AtomicInteger reorderedPartitions = new AtomicInteger();
+    long startMillis = System.currentTimeMillis();
+
+    CallableFactory<Void> callableFactory = new CallableFactory<Void>() {
+      @Override
+      public Callable<Void> newCallable(int callableId) {
+        return new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            VertexReorderer<I, V, E> reorderer =
+                getConfiguration().createVertexReorderer();
+            Integer partitionId;
+            while ((partitionId = partitionIdQueue.poll()) != null) {
+              Partition<I, V, E> partition =
+                  getPartitionStore().getOrCreatePartition(partitionId);
+              if (partition instanceof ReorderablePartition &&
+                  ((ReorderablePartition<I, V, E>) partition).reorderVertices(
+                      reorderer.getVertexOrder(partition))) {
+                reorderedPartitions.incrementAndGet();
+              }
+              getPartitionStore().putPartition(partition);
+              getContext().progress();
+            }
+            return null;
+          }
+        };
+      }
+    };
+    ProgressableUtils.getResultsWithNCallables(callableFactory,
+        Math.min(getConfiguration().getNumInputSplitsThreads(),
+            numPartitions), "reorder-vertices-%d", getContext());
+
+    if (LOG.isInfoEnabled()) {
+      LOG.info("reorderVertices: Reordered " + reorderedPartitions.get() +
+          " out of " + numPartitions + " partitions in " +
+          (System.currentTimeMillis() - startMillis) + " ms");
+    }
+  }
+
   /**
    * Register the health of this worker for a given superstep
    *
@@ -812,12 +902,15 @@ public class BspServiceWorker<I extends WritableComparable,
     AddressesAndPartitionsWritable addressesAndPartitions =
         new AddressesAndPartitionsWritable(
             workerGraphPartitioner.createPartitionOwner().getClass());
+    Timeline.Span span = getTimeline().startSpan(Timeline.BARRIER,
+        "waitForPartitionAssignment");
     try {
       while (getZkExt().exists(addressesAndPartitionsPath, true) ==
           null) {
         getAddressesAndPartitionsReadyChangedEvent().waitForever();
         getAddressesAndPartitionsReadyChangedEvent().reset();
       }
+      span.end();
       WritableUtils.readFieldsFromZnode(
           getZkExt(),
           addressesAndPartitionsPath,
@@ -879,17 +972,22 @@ public class BspServiceWorker<I extends WritableComparable,
     // 5. Let the master know it is finished.
     // 6. Wait for the master's superstep info, and check if done
     waitForRequestsToFinish();
+    SuperstepPhaseTracker.get().startPhase(
+        SuperstepPhases.Phase.POST_SUPERSTEP);
 
     getGraphTaskManager().notifyFinishedCommunication();
 
     long workerSentMessages = 0;
     long workerSentMessageBytes = 0;
     long localVertices = 0;
+    long superstepLocalEdges = 0;
     for (PartitionStats partitionStats : partitionStatsList) {
       workerSentMessages += partitionStats.getMessagesSentCount();
       workerSentMessageBytes += partitionStats.getMessageBytesSentCount();
       localVertices += partitionStats.getVertexCount();
+      superstepLocalEdges += partitionStats.getEdgeCount();
     }
+    localEdges = superstepLocalEdges;
 
     if (getSuperstep() != INPUT_SUPERSTEP) {
       postSuperstepCallbacks();
@@ -902,6 +1000,9 @@ public class BspServiceWorker<I extends WritableComparable,
     if (incomingMessageStore instanceof AsyncMessageStoreWrapper) {
       ((AsyncMessageStoreWrapper) incomingMessageStore).waitToComplete();
     }
+    MemoryAccounting.get().estimateStores(getPartitionStore(),
+        getServerData().<Writable>getCurrentMessageStore(),
+        incomingMessageStore);
 
     if (LOG.isInfoEnabled()) {
       LOG.info("finishSuperstep: Superstep " + getSuperstep() +
@@ -913,6 +1014,7 @@ public class BspServiceWorker<I extends WritableComparable,
     if (superstepTimerContext != null) {
       superstepTimerContext.stop();
     }
+    SuperstepPhaseTracker.get().enterBarrier();
     writeFinshedSuperstepInfoToZK(partitionStatsList,
       workerSentMessages, workerSentMessageBytes);
 
@@ -926,7 +1028,10 @@ public class BspServiceWorker<I extends WritableComparable,
     String superstepFinishedNode =
         getSuperstepFinishedPath(getApplicationAttempt(), getSuperstep());
 
+    Timeline.Span barrierSpan =
+        getTimeline().startSpan(Timeline.BARRIER, "waitForOtherWorkers");
     waitForOtherWorkers(superstepFinishedNode);
+    barrierSpan.end();
 
     GlobalStats globalStats = new GlobalStats();
     SuperstepClasses superstepClasses = new SuperstepClasses();
@@ -979,7 +1084,10 @@ public class BspServiceWorker<I extends WritableComparable,
           MemoryUtils.getRuntimeMemoryStats());
     }
     GiraphTimerContext timerContext = waitRequestsTimer.time();
+    Timeline.Span span =
+        getTimeline().startSpan(Timeline.FLUSH, "waitAllRequests");
     workerClient.waitAllRequests();
+    span.end();
     timerContext.stop();
   }
 
@@ -1024,7 +1132,8 @@ public class BspServiceWorker<I extends WritableComparable,
     byte[] partitionStatsBytes =
         WritableUtils.writeListToByteArray(finalizedPartitionStatsList);
     WorkerSuperstepMetrics metrics = new WorkerSuperstepMetrics();
-    metrics.readFromRegistry();
+    metrics.readFromRegistry().readHotPathHistograms()
+        .readMemoryAccounting();
     byte[] metricsBytes = WritableUtils.writeToByteArray(metrics);
 
     JSONObject workerFinishedInfoObj = new JSONObject();
@@ -1036,6 +1145,13 @@ public class BspServiceWorker<I extends WritableComparable,
         workerSentMessageBytes);
       workerFinishedInfoObj.put(JSONOBJ_METRICS_KEY,
           Base64.encodeBytes(metricsBytes));
+      if (SkewTracker.get().isEnabled()) {
+        workerFinishedInfoObj.put(JSONOBJ_SKEW_KEY, Base64.encodeBytes(
+            WritableUtils.writeToByteArray(SkewTracker.get().drain())));
+      }
+      workerFinishedInfoObj.put(JSONOBJ_PHASES_KEY, Base64.encodeBytes(
+          WritableUtils.writeToByteArray(
+              SuperstepPhaseTracker.get().snapshot())));
     } catch (JSONException e) {
       throw new RuntimeException(e);
     }
@@ -1088,13 +1204,19 @@ public class BspServiceWorker<I extends WritableComparable,
     }
 
     final int numPartitions = getPartitionStore().getNumPartitions();
-    int numThreads = Math.min(getConfiguration().getNumOutputThreads(),
-        numPartitions);
+    // With async output, save threads only serialize vertices, so there can
+    // be more of them even if the output format is not thread-safe
+    int numThreads = Math.min(conf.isAsyncVertexOutput() ?
+        GiraphConstants.NUM_OUTPUT_THREADS.get(conf) :
+        conf.getNumOutputThreads(), numPartitions);
     LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
         "saveVertices: Starting to save " + numLocalVertices + " vertices " +
             "using " + numThreads + " threads");
     final VertexOutputFormat<I, V, E> vertexOutputFormat =
         getConfiguration().createWrappedVertexOutputFormat();
+    final AsyncVertexWriterPool<I, V, E> asyncWriterPool =
+        conf.isAsyncVertexOutput() ?
+            new AsyncVertexWriterPool<I, V, E>(conf, getContext()) : null;
 
     final Queue<Integer> partitionIdQueue =
         (numPartitions == 0) ? new LinkedList<Integer>() :
@@ -1121,10 +1243,20 @@ public class BspServiceWorker<I extends WritableComparable,
 
           @Override
           public Void call() throws Exception {
-            VertexWriter<I, V, E> vertexWriter =
-                vertexOutputFormat.createVertexWriter(getContext());
-            vertexWriter.setConf(getConfiguration());
-            vertexWriter.initialize(getContext());
+            SimpleVertexWriter<I, V, E> vertexWriter;
+            VertexWriter<I, V, E> syncVertexWriter = null;
+            AsyncVertexWriterPool<I, V, E>.AsyncVertexWriter
+                asyncVertexWriter = null;
+            if (asyncWriterPool != null) {
+              asyncVertexWriter = asyncWriterPool.createVertexWriter();
+              vertexWriter = asyncVertexWriter;
+            } else {
+              syncVertexWriter =
+                  vertexOutputFormat.createVertexWriter(getContext());
+              syncVertexWriter.setConf(getConfiguration());
+              syncVertexWriter.initialize(getContext());
+              vertexWriter = syncVertexWriter;
+            }
             long nextPrintVertices = 0;
             long nextUpdateProgressVertices = VERTICES_TO_UPDATE_PROGRESS;
             long nextPrintMsecs = System.currentTimeMillis() + 15000;
@@ -1138,36 +1270,49 @@ public class BspServiceWorker<I extends WritableComparable,
 
               Partition<I, V, E> partition =
                   getPartitionStore().getOrCreatePartition(partitionId);
-              long verticesWritten = 0;
-              for (Vertex<I, V, E> vertex : partition) {
-                vertexWriter.writeVertex(vertex);
-                ++verticesWritten;
-
-                // Update status at most every 250k vertices or 15 seconds
-                if (verticesWritten > nextPrintVertices &&
-                    System.currentTimeMillis() > nextPrintMsecs) {
-                  LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
-                      "saveVertices: Saved " + verticesWritten + " out of " +
-                          partition.getVertexCount() + " partition vertices, " +
-                          "on partition " + partitionIndex +
-                          " out of " + numPartitions);
-                  nextPrintMsecs = System.currentTimeMillis() + 15000;
-                  nextPrintVertices = verticesWritten + 250000;
-                }
-
-                if (verticesWritten >= nextUpdateProgressVertices) {
-                  WorkerProgress.get().addVerticesStored(
-                      VERTICES_TO_UPDATE_PROGRESS);
-                  nextUpdateProgressVertices += VERTICES_TO_UPDATE_PROGRESS;
+              if (vertexWriter instanceof VertexPartitionWriter) {
+                // Writer reads the partition's representation directly
+                ((VertexPartitionWriter<I, V, E>) vertexWriter)
+                    .writePartition(partition);
+                WorkerProgress.get().addVerticesStored(
+                    partition.getVertexCount());
+              } else {
+                long verticesWritten = 0;
+                for (Vertex<I, V, E> vertex : partition) {
+                  vertexWriter.writeVertex(vertex);
+                  ++verticesWritten;
+
+                  // Update status at most every 250k vertices or 15 seconds
+                  if (verticesWritten > nextPrintVertices &&
+                      System.currentTimeMillis() > nextPrintMsecs) {
+                    LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
+                        "saveVertices: Saved " + verticesWritten +
+                            " out of " + partition.getVertexCount() +
+                            " partition vertices, on partition " +
+                            partitionIndex + " out of " + numPartitions);
+                    nextPrintMsecs = System.currentTimeMillis() + 15000;
+                    nextPrintVertices = verticesWritten + 250000;
+                  }
+
+                  if (verticesWritten >= nextUpdateProgressVertices) {
+                    WorkerProgress.get().addVerticesStored(
+                        VERTICES_TO_UPDATE_PROGRESS);
+                    nextUpdateProgressVertices += VERTICES_TO_UPDATE_PROGRESS;
+                  }
                 }
+                WorkerProgress.get().addVerticesStored(
+                    verticesWritten % VERTICES_TO_UPDATE_PROGRESS);
               }
               getPartitionStore().putPartition(partition);
               ++partitionIndex;
-              WorkerProgress.get().addVerticesStored(
-                  verticesWritten % VERTICES_TO_UPDATE_PROGRESS);
               WorkerProgress.get().incrementPartitionsStored();
             }
-            vertexWriter.close(getContext()); // the temp results are saved now
+            if (asyncVertexWriter != null) {
+              asyncVertexWriter.flush();
+            } else {
+              // the temp results are saved now
+              syncVertexWriter.close(getContext());
+            }
             return null;
           }
         };
@@ -1175,6 +1320,10 @@ public class BspServiceWorker<I extends WritableComparable,
     };
     ProgressableUtils.getResultsWithNCallables(callableFactory, numThreads,
         "save-vertices-%d", getContext());
+    if (asyncWriterPool != null) {
+      // Wait for writer threads to write everything and close their writers
+      asyncWriterPool.close();
+    }
 
     LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
       "saveVertices: Done saving vertices.");
@@ -1219,32 +1368,52 @@ public class BspServiceWorker<I extends WritableComparable,
     }
 
     final int numPartitions = getPartitionStore().getNumPartitions();
-    int numThreads = Math.min(conf.getNumOutputThreads(),
+    int numThreads = Math.min(GiraphConstants.NUM_OUTPUT_THREADS.get(conf),
         numPartitions);
     LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
         "saveEdges: Starting to save the edges using " +
         numThreads + " threads");
     final EdgeOutputFormat<I, V, E> edgeOutputFormat =
         conf.createWrappedEdgeOutputFormat();
+    // If output format is not thread-safe, threads only serialize edges and
+    // a single writer thread writes them out
+    final AsyncEdgeWriterPool<I, V, E> asyncWriterPool =
+        (numThreads > 1 && !conf.edgeOutputFormatThreadSafe()) ?
+            new AsyncEdgeWriterPool<I, V, E>(conf, getContext(), 1) : null;
 
     final Queue<Integer> partitionIdQueue =
         (numPartitions == 0) ? new LinkedList<Integer>() :
             new ArrayBlockingQueue<Integer>(numPartitions);
     Iterables.addAll(partitionIdQueue, getPartitionStore().getPartitionIds());
 
+    // Partitions don't change after the last superstep, so its stats give
+    // the number of edges without going over (possibly out-of-core)
+    // partitions
+    WorkerProgress.get().startStoringEdges(localEdges);
+
     CallableFactory<Void> callableFactory = new CallableFactory<Void>() {
       @Override
       public Callable<Void> newCallable(int callableId) {
         return new Callable<Void>() {
+          /** How often to update WorkerProgress */
+          private static final long EDGES_TO_UPDATE_PROGRESS = 1000000;
+
           @Override
           public Void call() throws Exception {
-            EdgeWriter<I, V, E>  edgeWriter =
-                edgeOutputFormat.createEdgeWriter(getContext());
-            edgeWriter.setConf(conf);
-            edgeWriter.initialize(getContext());
+            EdgeWriter<I, V, E> edgeWriter = null;
+            AsyncEdgeWriterPool<I, V, E>.AsyncEdgeWriter asyncEdgeWriter =
+                null;
+            if (asyncWriterPool != null) {
+              asyncEdgeWriter = asyncWriterPool.createEdgeWriter();
+            } else {
+              edgeWriter = edgeOutputFormat.createEdgeWriter(getContext());
+              edgeWriter.setConf(conf);
+              edgeWriter.initialize(getContext());
+            }
 
             long nextPrintVertices = 0;
             long nextPrintMsecs = System.currentTimeMillis() + 15000;
+            long edgesNotReported = 0;
             int partitionIndex = 0;
             int numPartitions = getPartitionStore().getNumPartitions();
             while (!partitionIdQueue.isEmpty()) {
@@ -1259,12 +1428,25 @@ public class BspServiceWorker<I extends WritableComparable,
               long edges = 0;
               long partitionEdgeCount = partition.getEdgeCount();
               for (Vertex<I, V, E> vertex : partition) {
-                for (Edge<I, E> edge : vertex.getEdges()) {
-                  edgeWriter.writeEdge(vertex.getId(), vertex.getValue(), edge);
-                  ++edges;
+                long vertexEdges = 0;
+                if (asyncEdgeWriter != null) {
+                  vertexEdges = asyncEdgeWriter.writeEdges(vertex);
+                } else {
+                  for (Edge<I, E> edge : vertex.getEdges()) {
+                    edgeWriter.writeEdge(
+                        vertex.getId(), vertex.getValue(), edge);
+                    ++vertexEdges;
+                  }
                 }
+                edges += vertexEdges;
+                edgesNotReported += vertexEdges;
                 ++vertices;
 
+                if (edgesNotReported >= EDGES_TO_UPDATE_PROGRESS) {
+                  WorkerProgress.get().addEdgesStored(edgesNotReported);
+                  edgesNotReported = 0;
+                }
+
                 // Update status at most every 250k vertices or 15 seconds
                 if (vertices > nextPrintVertices &&
                     System.currentTimeMillis() > nextPrintMsecs) {
@@ -1280,14 +1462,24 @@ public class BspServiceWorker<I extends WritableComparable,
               getPartitionStore().putPartition(partition);
               ++partitionIndex;
             }
-            edgeWriter.close(getContext()); // the temp results are saved now
+            WorkerProgress.get().addEdgesStored(edgesNotReported);
+            if (asyncEdgeWriter != null) {
+              asyncEdgeWriter.flush();
+            } else {
+              // the temp results are saved now
+              edgeWriter.close(getContext());
+            }
             return null;
           }
         };
       }
     };
     ProgressableUtils.getResultsWithNCallables(callableFactory, numThreads,
-        "save-vertices-%d", getContext());
+        "save-edges-%d", getContext());
+    if (asyncWriterPool != null) {
+      // Wait for the writer thread to write everything and close its writer
+      asyncWriterPool.close();
+    }
 
     LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
       "saveEdges: Done saving edges.");
@@ -1328,7 +1520,12 @@ public class BspServiceWorker<I extends WritableComparable,
     if (workerProgressWriter != null) {
       workerProgressWriter.stop();
     }
+    if (workerStatusReporter != null) {
+      workerStatusReporter.stop();
+    }
     getPartitionStore().shutdown();
+    // Timeline has to be complete before the master merges it
+    getTimeline().close();
     // All worker processes should denote they are done by adding special
     // znode.  Once the number of znodes equals the number of partitions
     // for workers and masters, the master will clean up the ZooKeeper
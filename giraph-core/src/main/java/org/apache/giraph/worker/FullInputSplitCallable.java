@@ -21,6 +21,7 @@ package org.apache.giraph.worker;
 import com.google.common.collect.Lists;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.io.GiraphInputFormat;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.time.SystemTime;
 import org.apache.giraph.time.Time;
 import org.apache.giraph.time.Times;
@@ -67,6 +68,8 @@ public abstract class FullInputSplitCallable<I extends WritableComparable,
   private final ZooKeeperExt zooKeeperExt;
   /** Get the start time in nanos */
   private final long startNanos = TIME.getNanoseconds();
+  /** Timeline of this task */
+  private final Timeline timeline;
 
   // CHECKSTYLE: stop ParameterNumberCheck
   /**
@@ -77,17 +80,20 @@ public abstract class FullInputSplitCallable<I extends WritableComparable,
    * @param configuration Configuration
    * @param zooKeeperExt Handle to ZooKeeperExt
    * @param currentIndex Atomic Integer to get splitPath from list
+   * @param timeline Timeline of this task
    */
   public FullInputSplitCallable(InputSplitPathOrganizer splitOrganizer,
       Mapper<?, ?, ?, ?>.Context context,
       ImmutableClassesGiraphConfiguration<I, V, E> configuration,
       ZooKeeperExt zooKeeperExt,
-      AtomicInteger currentIndex) {
+      AtomicInteger currentIndex,
+      Timeline timeline) {
     this.pathList = Lists.newArrayList(splitOrganizer.getPathList());
     this.currentIndex = currentIndex;
     this.zooKeeperExt = zooKeeperExt;
     this.context = context;
     this.configuration = configuration;
+    this.timeline = timeline;
   }
   // CHECKSTYLE: resume ParameterNumberCheck
 
@@ -164,8 +170,11 @@ public abstract class FullInputSplitCallable<I extends WritableComparable,
     String inputSplitPath)
     throws IOException, ClassNotFoundException, InterruptedException,
     InstantiationException, IllegalAccessException {
+    Timeline.Span span =
+        timeline.startSpan(Timeline.INPUT, "readMappingSplit");
     InputSplit inputSplit = getInputSplit(inputSplitPath);
     Integer entriesRead = readInputSplit(inputSplit);
+    span.setArg("entries", entriesRead).end();
     if (LOG.isInfoEnabled()) {
       LOG.info("loadFromInputSplit: Finished loading " +
           inputSplitPath + " " + entriesRead);
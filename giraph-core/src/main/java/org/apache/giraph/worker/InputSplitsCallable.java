@@ -27,6 +27,9 @@ import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.metrics.GiraphMetricsRegistry;
 import org.apache.giraph.metrics.MeterDesc;
 import org.apache.giraph.metrics.MetricNames;
+import org.apache.giraph.metrics.SuperstepPhaseTracker;
+import org.apache.giraph.metrics.SuperstepPhases;
+import org.apache.giraph.metrics.Timeline;
 import org.apache.giraph.time.SystemTime;
 import org.apache.giraph.time.Time;
 import org.apache.giraph.time.Times;
@@ -82,6 +85,8 @@ public abstract class InputSplitsCallable<I extends WritableComparable,
   private final long startNanos = TIME.getNanoseconds();
   /** Whether to prioritize local input splits. */
   private final boolean useLocality;
+  /** Timeline of this task */
+  private final Timeline timeline;
 
   // CHECKSTYLE: stop ParameterNumberCheck
   /**
@@ -107,6 +112,7 @@ public abstract class InputSplitsCallable<I extends WritableComparable,
     this.useLocality = configuration.useInputSplitLocality();
     this.splitsHandler = splitsHandler;
     this.configuration = configuration;
+    this.timeline = bspServiceWorker.getTimeline();
   }
   // CHECKSTYLE: resume ParameterNumberCheck
 
@@ -238,7 +244,12 @@ public abstract class InputSplitsCallable<I extends WritableComparable,
           edgesPerSecond + " edges/sec");
     }
     try {
+      SuperstepPhaseTracker.get().startPhaseOnThread(
+          SuperstepPhases.Phase.FLUSH);
+      Timeline.Span flushSpan =
+          timeline.startSpan(Timeline.FLUSH, "flushInput");
       workerClientRequestProcessor.flush();
+      flushSpan.end();
     } catch (IOException e) {
       throw new IllegalStateException("call: Flushing failed.", e);
     }
@@ -263,8 +274,11 @@ public abstract class InputSplitsCallable<I extends WritableComparable,
       String inputSplitPath)
     throws IOException, ClassNotFoundException, InterruptedException,
       InstantiationException, IllegalAccessException {
+    Timeline.Span span =
+        timeline.startSpan(Timeline.INPUT, "readInputSplit");
     InputSplit inputSplit = getInputSplit(inputSplitPath);
     VertexEdgeCount vertexEdgeCount = readInputSplit(inputSplit);
+    span.setArg("vertices", vertexEdgeCount.getVertexCount()).end();
     if (LOG.isInfoEnabled()) {
       LOG.info("loadFromInputSplit: Finished loading " +
           inputSplitPath + " " + vertexEdgeCount);
@@ -26,6 +26,9 @@ import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.log4j.Logger;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 /**
  * Stores LocalData for each worker
  *
@@ -78,6 +81,15 @@ public class LocalData<I extends WritableComparable, V extends Writable,
    */
   public void removeMappingStoreIfPossible() {
     if (mappingStoreOps != null && mappingStoreOps.hasEmbedding()) {
+      if (mappingStore instanceof Closeable) {
+        // release memory which garbage collection doesn't take care of
+        try {
+          ((Closeable) mappingStore).close();
+        } catch (IOException e) {
+          throw new IllegalStateException(
+              "removeMappingStoreIfPossible: Failed to close mapping store", e);
+        }
+      }
       mappingStore = null;
     }
   }
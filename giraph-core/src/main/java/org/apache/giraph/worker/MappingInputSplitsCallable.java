@@ -72,7 +72,8 @@ public class MappingInputSplitsCallable<I extends WritableComparable,
       AtomicInteger currentIndex,
       BspServiceWorker<I, V, E> bspServiceWorker) {
     super(splitOrganizer, context,
-      configuration, zooKeeperExt, currentIndex);
+      configuration, zooKeeperExt, currentIndex,
+      bspServiceWorker.getTimeline());
     this.mappingInputFormat = mappingInputFormat;
     this.bspServiceWorker = bspServiceWorker;
   }
@@ -88,6 +89,7 @@ public class MappingInputSplitsCallable<I extends WritableComparable,
     MappingReader<I, V, E, B> mappingReader =
         mappingInputFormat.createMappingReader(inputSplit, context);
     mappingReader.setConf(configuration);
+    mappingReader.setNumWorkers(bspServiceWorker.getWorkerInfoList().size());
 
     WorkerThreadAggregatorUsage aggregatorUsage = this.bspServiceWorker
         .getAggregatorHandler().newThreadAggregatorUsage();
@@ -73,6 +73,10 @@ public class WorkerProgress {
   protected int partitionsStored = 0;
   /** Whether worker finished storing data */
   protected boolean storingDone = false;
+  /** How many edges are there to store */
+  protected long edgesToStore = 0;
+  /** How many edges were stored until now */
+  protected long edgesStored = 0;
 
   /** Id of the mapper */
   protected int taskId;
@@ -205,6 +209,25 @@ public class WorkerProgress {
     partitionsStored++;
   }
 
+  /**
+   * Notify this class that worker is starting to store edges
+   *
+   * @param edgesToStore How many edges should be stored
+   */
+  public synchronized void startStoringEdges(long edgesToStore) {
+    this.edgesToStore = edgesToStore;
+  }
+
+  /**
+   * Add number of edges stored
+   *
+   * @param edgesStored How many edges were stored since the last time
+   *                    this function was called
+   */
+  public synchronized void addEdgesStored(long edgesStored) {
+    this.edgesStored += edgesStored;
+  }
+
   /**
    * Notify this class that storing data is done
    */
@@ -314,6 +337,16 @@ public class WorkerProgress {
     return freeMemoryMB;
   }
 
+  @ThriftField(20)
+  public synchronized long getEdgesToStore() {
+    return edgesToStore;
+  }
+
+  @ThriftField(21)
+  public synchronized long getEdgesStored() {
+    return edgesStored;
+  }
+
   public synchronized boolean isInputSuperstep() {
     return currentSuperstep == -1;
   }
@@ -411,6 +444,16 @@ public class WorkerProgress {
     this.storingDone = storingDone;
   }
 
+  @ThriftField
+  public void setEdgesToStore(long edgesToStore) {
+    this.edgesToStore = edgesToStore;
+  }
+
+  @ThriftField
+  public void setEdgesStored(long edgesStored) {
+    this.edgesStored = edgesStored;
+  }
+
   @ThriftField
   public void setFreeMemoryMB(double freeMemoryMB) {
     this.freeMemoryMB = freeMemoryMB;
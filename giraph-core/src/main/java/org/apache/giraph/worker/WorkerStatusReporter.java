@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.worker;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.comm.netty.ByteCounterDelegate;
+import org.apache.giraph.partition.DiskBackedPartitionStore;
+import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.utils.MemoryUtils;
+import org.apache.giraph.zk.ZooKeeperExt;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.Charset;
+
+/**
+ * Periodically publishes the live status of this worker (progress, memory
+ * headroom, network throughput and out-of-core activity) to an ephemeral
+ * znode, so the master dashboard can show it while a superstep is still
+ * running.
+ */
+public class WorkerStatusReporter {
+  /** Task id key */
+  public static final String TASK_ID_KEY = "taskId";
+  /** Hostname key */
+  public static final String HOSTNAME_KEY = "hostname";
+  /** Time of the update key */
+  public static final String TIMESTAMP_KEY = "timestampMsecs";
+  /** Superstep key */
+  public static final String SUPERSTEP_KEY = "superstep";
+  /** Vertices loaded key */
+  public static final String VERTICES_LOADED_KEY = "verticesLoaded";
+  /** Edges loaded key */
+  public static final String EDGES_LOADED_KEY = "edgesLoaded";
+  /** Vertices to compute key */
+  public static final String VERTICES_TO_COMPUTE_KEY = "verticesToCompute";
+  /** Vertices computed key */
+  public static final String VERTICES_COMPUTED_KEY = "verticesComputed";
+  /** Partitions to compute key */
+  public static final String PARTITIONS_TO_COMPUTE_KEY =
+      "partitionsToCompute";
+  /** Partitions computed key */
+  public static final String PARTITIONS_COMPUTED_KEY = "partitionsComputed";
+  /** Computation done key */
+  public static final String COMPUTATION_DONE_KEY = "computationDone";
+  /** Vertices to store key */
+  public static final String VERTICES_TO_STORE_KEY = "verticesToStore";
+  /** Vertices stored key */
+  public static final String VERTICES_STORED_KEY = "verticesStored";
+  /** Used heap key */
+  public static final String HEAP_USED_MB_KEY = "heapUsedMB";
+  /** Max heap key */
+  public static final String HEAP_MAX_MB_KEY = "heapMaxMB";
+  /** Heap headroom key */
+  public static final String HEAP_HEADROOM_MB_KEY = "heapHeadroomMB";
+  /** Bytes sent key */
+  public static final String BYTES_SENT_KEY = "bytesSent";
+  /** Bytes received key */
+  public static final String BYTES_RECEIVED_KEY = "bytesReceived";
+  /** Send throughput key */
+  public static final String SENT_MB_PER_SEC_KEY = "sentMBPerSec";
+  /** Receive throughput key */
+  public static final String RECEIVED_MB_PER_SEC_KEY = "receivedMBPerSec";
+  /** Partitions in memory key (only with out-of-core graph) */
+  public static final String PARTITIONS_IN_MEMORY_KEY = "partitionsInMemory";
+  /** Partitions loaded from disk key (only with out-of-core graph) */
+  public static final String PARTITIONS_LOADED_KEY = "partitionsLoaded";
+  /** Partitions offloaded to disk key (only with out-of-core graph) */
+  public static final String PARTITIONS_OFFLOADED_KEY =
+      "partitionsOffloaded";
+
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(WorkerStatusReporter.class);
+  /** Charset of the status data */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /** Service worker */
+  private final CentralizedServiceWorker<?, ?, ?> serviceWorker;
+  /** ZooKeeper to publish to */
+  private final ZooKeeperExt zk;
+  /** Ephemeral znode of this worker */
+  private final String statusNode;
+  /** Milliseconds between updates */
+  private final int updateMsecs;
+  /** Thread which publishes the status */
+  private final Thread reporterThread;
+  /** Whether worker finished application */
+  private volatile boolean finished = false;
+  /** Bytes sent at the previous update */
+  private long lastBytesSent;
+  /** Bytes received at the previous update */
+  private long lastBytesReceived;
+  /** Time of the previous update */
+  private long lastUpdateMsecs;
+
+  /**
+   * Constructor, starts separate thread to periodically publish worker's
+   * status
+   *
+   * @param serviceWorker Service worker
+   * @param zk ZooKeeper to publish to
+   * @param workerStatusPath Parent path of all worker status znodes
+   * @param updateMsecs Milliseconds between updates
+   */
+  public WorkerStatusReporter(CentralizedServiceWorker<?, ?, ?> serviceWorker,
+      ZooKeeperExt zk, String workerStatusPath, int updateMsecs) {
+    this.serviceWorker = serviceWorker;
+    this.zk = zk;
+    this.statusNode = workerStatusPath + "/" +
+        serviceWorker.getWorkerInfo().getTaskId();
+    this.updateMsecs = updateMsecs;
+    lastUpdateMsecs = System.currentTimeMillis();
+    reporterThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          while (!finished) {
+            publishStatus();
+            Thread.sleep(WorkerStatusReporter.this.updateMsecs);
+          }
+        } catch (InterruptedException e) {
+          // Thread is interrupted when stop is called, we can just log this
+          if (LOG.isInfoEnabled()) {
+            LOG.info("run: WorkerStatusReporter interrupted");
+          }
+        }
+      }
+    }, "worker-status-reporter");
+    reporterThread.setDaemon(true);
+    reporterThread.start();
+  }
+
+  /**
+   * Collect the current status of this worker.
+   *
+   * @return Status as JSON
+   * @throws JSONException
+   */
+  JSONObject createStatus() throws JSONException {
+    WorkerProgress progress = WorkerProgress.get();
+    JSONObject status = new JSONObject();
+    long now = System.currentTimeMillis();
+    status.put(TASK_ID_KEY, serviceWorker.getWorkerInfo().getTaskId());
+    status.put(HOSTNAME_KEY, serviceWorker.getWorkerInfo().getHostname());
+    status.put(TIMESTAMP_KEY, now);
+    status.put(SUPERSTEP_KEY, progress.getCurrentSuperstep());
+    status.put(VERTICES_LOADED_KEY, progress.getVerticesLoaded());
+    status.put(EDGES_LOADED_KEY, progress.getEdgesLoaded());
+    status.put(VERTICES_TO_COMPUTE_KEY, progress.getVerticesToCompute());
+    status.put(VERTICES_COMPUTED_KEY, progress.getVerticesComputed());
+    status.put(PARTITIONS_TO_COMPUTE_KEY, progress.getPartitionsToCompute());
+    status.put(PARTITIONS_COMPUTED_KEY, progress.getPartitionsComputed());
+    status.put(COMPUTATION_DONE_KEY, progress.isComputationDone());
+    status.put(VERTICES_TO_STORE_KEY, progress.getVerticesToStore());
+    status.put(VERTICES_STORED_KEY, progress.getVerticesStored());
+
+    double maxMB = MemoryUtils.maxMemoryMB();
+    double usedMB = MemoryUtils.totalMemoryMB() - MemoryUtils.freeMemoryMB();
+    status.put(HEAP_USED_MB_KEY, usedMB);
+    status.put(HEAP_MAX_MB_KEY, maxMB);
+    status.put(HEAP_HEADROOM_MB_KEY, maxMB - usedMB);
+
+    long bytesSent = ByteCounterDelegate.getTotalBytesSent();
+    long bytesReceived = ByteCounterDelegate.getTotalBytesReceived();
+    double secs = Math.max(1, now - lastUpdateMsecs) / 1000d;
+    status.put(BYTES_SENT_KEY, bytesSent);
+    status.put(BYTES_RECEIVED_KEY, bytesReceived);
+    status.put(SENT_MB_PER_SEC_KEY, (bytesSent - lastBytesSent) /
+        ByteCounterDelegate.MEGABYTE / secs);
+    status.put(RECEIVED_MB_PER_SEC_KEY, (bytesReceived - lastBytesReceived) /
+        ByteCounterDelegate.MEGABYTE / secs);
+    lastBytesSent = bytesSent;
+    lastBytesReceived = bytesReceived;
+    lastUpdateMsecs = now;
+
+    PartitionStore<?, ?, ?> partitionStore = serviceWorker.getPartitionStore();
+    if (partitionStore instanceof DiskBackedPartitionStore) {
+      DiskBackedPartitionStore<?, ?, ?> diskBackedStore =
+          (DiskBackedPartitionStore<?, ?, ?>) partitionStore;
+      status.put(PARTITIONS_IN_MEMORY_KEY,
+          diskBackedStore.getNumPartitionsInMemory());
+      status.put(PARTITIONS_LOADED_KEY,
+          diskBackedStore.getNumPartitionsLoaded());
+      status.put(PARTITIONS_OFFLOADED_KEY,
+          diskBackedStore.getNumPartitionsOffloaded());
+    }
+    return status;
+  }
+
+  /**
+   * Publish the current status, failures are only logged since the
+   * dashboard is best effort.
+   *
+   * @throws InterruptedException
+   */
+  private void publishStatus() throws InterruptedException {
+    try {
+      zk.createOrSetExt(statusNode,
+          createStatus().toString().getBytes(UTF_8),
+          Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL, true, -1);
+    } catch (KeeperException e) {
+      LOG.warn("publishStatus: Failed to publish status to " + statusNode, e);
+    } catch (JSONException e) {
+      LOG.warn("publishStatus: Failed to create status", e);
+    }
+  }
+
+  /**
+   * Stop the thread which publishes worker's status, after publishing the
+   * final status.
+   *
+   * @throws InterruptedException
+   */
+  public void stop() throws InterruptedException {
+    finished = true;
+    reporterThread.interrupt();
+    reporterThread.join();
+    publishStatus();
+  }
+}
@@ -24,6 +24,7 @@ import org.apache.giraph.comm.netty.handler.WorkerRequestServerHandler;
 import org.apache.giraph.comm.requests.SendPartitionMutationsRequest;
 import org.apache.giraph.comm.requests.SendVertexRequest;
 import org.apache.giraph.comm.requests.SendWorkerMessagesRequest;
+import org.apache.giraph.comm.requests.SendWorkerMutationsRequest;
 import org.apache.giraph.comm.requests.SendWorkerOneMessageToManyRequest;
 import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.GiraphConstants;
@@ -34,6 +35,7 @@ import org.apache.giraph.factories.TestMessageValueFactory;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.graph.VertexMutations;
 import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.MetricNames;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionStore;
 import org.apache.giraph.utils.ByteArrayOneMessageToManyIds;
@@ -51,11 +53,12 @@ import org.junit.Test;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.yammer.metrics.core.Histogram;
 
 import java.io.IOException;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -282,9 +285,9 @@ public class RequestTest {
     server.stop();
 
     // Check the output
-    ConcurrentHashMap<IntWritable, VertexMutations<IntWritable, IntWritable,
+    ConcurrentMap<IntWritable, VertexMutations<IntWritable, IntWritable,
     IntWritable>> inVertexIdMutations =
-        serverData.getVertexMutations();
+        serverData.getPartitionMutations().get(partitionId);
     int keySum = 0;
     for (Entry<IntWritable, VertexMutations<IntWritable, IntWritable,
         IntWritable>> entry :
@@ -308,4 +311,81 @@ public class RequestTest {
     }
     assertEquals(55, keySum);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void sendWorkerMutationsRequest() throws IOException {
+    // Data to send
+    int partitionId = 19;
+    ExtendedDataOutput partitionData = conf.createExtendedDataOutput();
+    for (int i = 0; i < 11; ++i) {
+      IntWritable vertexId = new IntWritable(i);
+      for (int j = 0; j < 3; ++j) {
+        Vertex<IntWritable, IntWritable, IntWritable> vertex =
+            conf.createVertex();
+        vertex.initialize(new IntWritable(i), new IntWritable(j));
+        VertexMutationsEncoding.writeAddVertex(partitionData, vertex, conf);
+      }
+      for (int j = 0; j < 2; ++j) {
+        VertexMutationsEncoding.writeRemoveVertex(partitionData, vertexId);
+      }
+      for (int j = 0; j < 5; ++j) {
+        Edge<IntWritable, IntWritable> edge =
+            EdgeFactory.create(new IntWritable(i), new IntWritable(2 * j));
+        VertexMutationsEncoding.writeAddEdge(partitionData, vertexId, edge);
+      }
+      for (int j = 0; j < 7; ++j) {
+        VertexMutationsEncoding.writeRemoveEdge(
+            partitionData, vertexId, new IntWritable(j));
+      }
+    }
+    PairList<Integer, ExtendedDataOutput> workerPartitions =
+        new PairList<Integer, ExtendedDataOutput>();
+    workerPartitions.initialize();
+    workerPartitions.add(partitionId, partitionData);
+
+    // Send the request
+    SendWorkerMutationsRequest<IntWritable, IntWritable, IntWritable>
+        request = new SendWorkerMutationsRequest<IntWritable, IntWritable,
+        IntWritable>(conf, workerPartitions);
+    GiraphMetrics.init(conf);
+    client.sendWritableRequest(workerInfo.getTaskId(), request);
+    client.waitAllRequests();
+
+    // Stop the service
+    client.stop();
+    server.stop();
+
+    // Check the output
+    ConcurrentMap<IntWritable, VertexMutations<IntWritable, IntWritable,
+    IntWritable>> inVertexIdMutations =
+        serverData.getPartitionMutations().get(partitionId);
+    int keySum = 0;
+    for (Entry<IntWritable, VertexMutations<IntWritable, IntWritable,
+        IntWritable>> entry :
+          inVertexIdMutations.entrySet()) {
+      synchronized (entry.getValue()) {
+        keySum += entry.getKey().get();
+        int vertexValueSum = 0;
+        for (Vertex<IntWritable, IntWritable, IntWritable>
+        vertex : entry.getValue().getAddedVertexList()) {
+          vertexValueSum += vertex.getValue().get();
+        }
+        assertEquals(3, vertexValueSum);
+        assertEquals(2, entry.getValue().getRemovedVertexCount());
+        assertEquals(7, entry.getValue().getRemovedEdgeList().size());
+        int addEdgeValueSum = 0;
+        for (Edge<IntWritable, IntWritable> edge :
+            entry.getValue().getAddedEdgeList()) {
+          addEdgeValueSum += edge.getValue().get();
+        }
+        assertEquals(20, addEdgeValueSum);
+      }
+    }
+    assertEquals(55, keySum);
+    // One request with mutations of 11 vertices
+    Histogram verticesInMutationHist = GiraphMetrics.get().perSuperstep()
+        .getUniformHistogram(MetricNames.VERTICES_IN_MUTATION_REQUEST);
+    assertEquals(1, verticesInMutationHist.count());
+    assertEquals(11, verticesInMutationHist.max(), 0);
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.comm.netty.NettyWorkerClientRequestProcessor;
+import org.apache.giraph.comm.requests.SendWorkerMessagesRequest;
+import org.apache.giraph.comm.requests.WritableRequest;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.edge.OutEdges;
+import org.apache.giraph.graph.GraphTaskManager;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.BasicPartitionOwner;
+import org.apache.giraph.partition.PartitionOwner;
+import org.apache.giraph.utils.ByteArrayVertexIdMessages;
+import org.apache.giraph.utils.LongNoOpComputation;
+import org.apache.giraph.utils.VertexIdMessageIterator;
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test routing and flushing of {@link SendMessageCache}
+ */
+@SuppressWarnings("unchecked")
+public class TestSendMessageCache {
+  /** Number of partitions, two per worker */
+  private static final int NUM_PARTITIONS = 4;
+
+  /** Configuration */
+  private ImmutableClassesGiraphConfiguration<LongWritable, LongWritable,
+      LongWritable> conf;
+  /** Workers */
+  private List<WorkerInfo> workers;
+  /** Service worker */
+  private CentralizedServiceWorker<LongWritable, LongWritable, LongWritable>
+  serviceWorker;
+  /** Request processor the cache sends through */
+  private NettyWorkerClientRequestProcessor<LongWritable, LongWritable,
+      LongWritable> processor;
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration tmpConf = new GiraphConfiguration();
+    GiraphConstants.COMPUTATION_CLASS.set(tmpConf, LongNoOpComputation.class);
+    conf = new ImmutableClassesGiraphConfiguration<LongWritable, LongWritable,
+        LongWritable>(tmpConf);
+
+    workers = Lists.newArrayList();
+    final List<PartitionOwner> owners = Lists.newArrayList();
+    for (int i = 0; i < NUM_PARTITIONS / 2; i++) {
+      WorkerInfo workerInfo = new WorkerInfo();
+      workerInfo.setTaskId(i);
+      workers.add(workerInfo);
+      owners.add(new BasicPartitionOwner(2 * i, workerInfo));
+      owners.add(new BasicPartitionOwner(2 * i + 1, workerInfo));
+    }
+    serviceWorker = Mockito.mock(CentralizedServiceWorker.class);
+    Mockito.doReturn(owners).when(serviceWorker).getPartitionOwners();
+    Mockito.when(serviceWorker.getWorkerInfoList()).thenReturn(workers);
+    Mockito.when(serviceWorker.getGraphTaskManager()).thenReturn(
+        Mockito.mock(GraphTaskManager.class));
+    Mockito.when(serviceWorker.getVertexPartitionOwner(
+        Mockito.any(LongWritable.class))).thenAnswer(
+        new Answer<PartitionOwner>() {
+          @Override
+          public PartitionOwner answer(InvocationOnMock invocation) {
+            LongWritable id = (LongWritable) invocation.getArguments()[0];
+            return owners.get((int) (id.get() % NUM_PARTITIONS));
+          }
+        });
+    processor = Mockito.mock(NettyWorkerClientRequestProcessor.class);
+  }
+
+  /**
+   * Create a cache which only sends when flushed, or after every message
+   *
+   * @param sendEveryMessage Whether to send after every message
+   * @return Cache
+   */
+  private SendMessageCache<LongWritable, LongWritable> createCache(
+      boolean sendEveryMessage) {
+    return new SendMessageCache<LongWritable, LongWritable>(conf,
+        serviceWorker, processor, sendEveryMessage ? 1 : Integer.MAX_VALUE);
+  }
+
+  /**
+   * Create a vertex with edges to the given ids
+   *
+   * @param id Vertex id
+   * @param targetIds Ids of edge targets
+   * @return Vertex
+   */
+  private Vertex<LongWritable, LongWritable, LongWritable> createVertex(
+      long id, long... targetIds) {
+    OutEdges<LongWritable, LongWritable> edges =
+        conf.createAndInitializeOutEdges();
+    for (long targetId : targetIds) {
+      edges.add(EdgeFactory.create(new LongWritable(targetId),
+          new LongWritable()));
+    }
+    Vertex<LongWritable, LongWritable, LongWritable> vertex =
+        conf.createVertex();
+    vertex.initialize(new LongWritable(id), new LongWritable(), edges);
+    return vertex;
+  }
+
+  /**
+   * Get the messages cached for a partition as "id:message" strings
+   *
+   * @param cache Cache
+   * @param partitionId Partition id
+   * @return Cached messages, null if there are none
+   */
+  private static List<String> getMessages(
+      SendMessageCache<LongWritable, LongWritable> cache, int partitionId) {
+    ByteArrayVertexIdMessages<LongWritable, LongWritable> messages =
+        (ByteArrayVertexIdMessages<LongWritable, LongWritable>)
+            cache.getData(partitionId);
+    if (messages == null) {
+      return null;
+    }
+    List<String> result = Lists.newArrayList();
+    VertexIdMessageIterator<LongWritable, LongWritable> iterator =
+        messages.getVertexIdMessageIterator();
+    while (iterator.hasNext()) {
+      iterator.next();
+      result.add(iterator.getCurrentVertexId().get() + ":" +
+          iterator.getCurrentMessage().get());
+    }
+    return result;
+  }
+
+  /**
+   * Get the bytes cached for a partition
+   *
+   * @param cache Cache
+   * @param partitionId Partition id
+   * @return Serialized messages
+   */
+  private static byte[] getBytes(
+      SendMessageCache<LongWritable, LongWritable> cache, int partitionId) {
+    ByteArrayVertexIdMessages<LongWritable, LongWritable> messages =
+        (ByteArrayVertexIdMessages<LongWritable, LongWritable>)
+            cache.getData(partitionId);
+    return Arrays.copyOf(messages.getByteArray(), messages.getSize());
+  }
+
+  @Test
+  public void testPrimitiveRouting() {
+    SendMessageCache<LongWritable, LongWritable> cache = createCache(false);
+    cache.sendLongMessageRequest(5, 50);
+    cache.sendLongMessageToAllRequest(createVertex(1, 2, 3, 6), 7);
+
+    assertNull(getMessages(cache, 0));
+    assertEquals(Arrays.asList("5:50"), getMessages(cache, 1));
+    assertEquals(Arrays.asList("2:7", "6:7"), getMessages(cache, 2));
+    assertEquals(Arrays.asList("3:7"), getMessages(cache, 3));
+    assertEquals(4, cache.resetMessageCount());
+    Mockito.verifyZeroInteractions(processor);
+
+    // Same bytes as sending writables
+    SendMessageCache<LongWritable, LongWritable> writableCache =
+        createCache(false);
+    writableCache.sendMessageRequest(new LongWritable(5),
+        new LongWritable(50));
+    writableCache.sendMessageToAllRequest(createVertex(1, 2, 3, 6),
+        new LongWritable(7));
+    for (int partitionId = 1; partitionId < NUM_PARTITIONS; partitionId++) {
+      assertArrayEquals(getBytes(writableCache, partitionId),
+          getBytes(cache, partitionId));
+    }
+  }
+
+  @Test
+  public void testFlush() {
+    SendMessageCache<LongWritable, LongWritable> cache = createCache(false);
+    cache.sendLongMessageToAllRequest(createVertex(0, 0, 1, 2, 3), 1);
+    cache.flush();
+
+    for (WorkerInfo workerInfo : workers) {
+      Mockito.verify(processor).doRequest(Mockito.eq(workerInfo),
+          Mockito.any(SendWorkerMessagesRequest.class));
+    }
+    for (int partitionId = 0; partitionId < NUM_PARTITIONS; partitionId++) {
+      assertNull(getMessages(cache, partitionId));
+    }
+  }
+
+  @Test
+  public void testSendWhenFull() {
+    SendMessageCache<LongWritable, LongWritable> cache = createCache(true);
+    cache.sendLongMessageRequest(2, 1);
+
+    Mockito.verify(processor).doRequest(Mockito.eq(workers.get(1)),
+        Mockito.any(WritableRequest.class));
+    Mockito.verifyNoMoreInteractions(processor);
+    assertNull(getMessages(cache, 2));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWrongMessageType() {
+    createCache(false).sendDoubleMessageRequest(1, 1.0);
+  }
+}
@@ -18,6 +18,10 @@
 
 package org.apache.giraph.comm.messages;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
 
@@ -27,6 +31,8 @@ import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.combiner.FloatSumMessageCombiner;
 import org.apache.giraph.comm.messages.primitives.IntByteArrayMessageStore;
 import org.apache.giraph.comm.messages.primitives.IntFloatMessageStore;
+import org.apache.giraph.comm.messages.primitives.PrimitiveListMessageStore;
+import org.apache.giraph.comm.messages.primitives.PrimitiveOneMessagePerVertexStore;
 import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.factories.TestMessageValueFactory;
@@ -142,6 +148,8 @@ public class TestIntFloatPrimitiveMessageStores {
     Assert.assertEquals((float) 3.0, m2.iterator().next().get());
     Assert.assertTrue(
         Iterables.isEmpty(messageStore.getVertexMessages(new IntWritable(3))));
+    Assert.assertEquals(4, messageStore.getReceivedMessageCount(0));
+    Assert.assertEquals(3, messageStore.getReceivedMessageCount(1));
   }
 
   @Test
@@ -172,5 +180,81 @@ public class TestIntFloatPrimitiveMessageStores {
     Assert.assertEquals((float) 3.0, m2.iterator().next().get());
     Assert.assertTrue(
         Iterables.isEmpty(messageStore.getVertexMessages(new IntWritable(3))));
+    Assert.assertEquals(4, messageStore.getReceivedMessageCount(0));
+    Assert.assertEquals(3, messageStore.getReceivedMessageCount(1));
+  }
+
+  @Test
+  public void testPrimitiveOneMessagePerVertexStore() throws IOException {
+    PrimitiveOneMessagePerVertexStore<IntWritable, FloatWritable>
+        messageStore = new PrimitiveOneMessagePerVertexStore<>(
+            new TestMessageValueFactory<FloatWritable>(FloatWritable.class),
+            service, new FloatSumMessageCombiner(), createIntFloatConf());
+    insertIntFloatMessages(messageStore);
+
+    FloatWritable message = new FloatWritable();
+    Assert.assertTrue(
+        messageStore.readVertexMessage(new IntWritable(0), message));
+    Assert.assertEquals((float) 10.0, message.get());
+    Iterable<FloatWritable> m1 =
+        messageStore.getVertexMessages(new IntWritable(1));
+    Assert.assertEquals(1, Iterables.size(m1));
+    Assert.assertEquals((float) 8.0, m1.iterator().next().get());
+    Assert.assertTrue(
+        messageStore.readVertexMessage(new IntWritable(2), message));
+    Assert.assertEquals((float) 3.0, message.get());
+    Assert.assertFalse(
+        messageStore.readVertexMessage(new IntWritable(3), message));
+
+    // Removing a vertex moves another one in its place
+    messageStore.clearVertexMessages(new IntWritable(0));
+    Assert.assertFalse(messageStore.hasMessagesForVertex(new IntWritable(0)));
+    Assert.assertTrue(
+        messageStore.readVertexMessage(new IntWritable(2), message));
+    Assert.assertEquals((float) 3.0, message.get());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    messageStore.writePartition(new DataOutputStream(bytes), 0);
+    messageStore.clearPartition(0);
+    Assert.assertFalse(messageStore.hasMessagesForVertex(new IntWritable(2)));
+    messageStore.readFieldsForPartition(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())), 0);
+    Assert.assertTrue(
+        messageStore.readVertexMessage(new IntWritable(2), message));
+    Assert.assertEquals((float) 3.0, message.get());
+    Assert.assertEquals(1,
+        Iterables.size(messageStore.getPartitionDestinationVertices(0)));
+  }
+
+  @Test
+  public void testPrimitiveListMessageStore() throws IOException {
+    PrimitiveListMessageStore<IntWritable, FloatWritable> messageStore =
+        new PrimitiveListMessageStore<>(
+            new TestMessageValueFactory<FloatWritable>(FloatWritable.class),
+            service, createIntFloatConf());
+    insertIntFloatMessages(messageStore);
+
+    Iterable<FloatWritable> m0 =
+        messageStore.getVertexMessages(new IntWritable(0));
+    Assert.assertEquals(3, Iterables.size(m0));
+    Iterator<FloatWritable> i0 = m0.iterator();
+    Assert.assertEquals((float) 1.0, i0.next().get());
+    Assert.assertEquals((float) 4.0, i0.next().get());
+    Assert.assertEquals((float) 5.0, i0.next().get());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    messageStore.writePartition(new DataOutputStream(bytes), 1);
+    messageStore.clearPartition(1);
+    messageStore.readFieldsForPartition(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())), 1);
+    Iterable<FloatWritable> m1 =
+        messageStore.getVertexMessages(new IntWritable(1));
+    Assert.assertEquals(3, Iterables.size(m1));
+    Iterator<FloatWritable> i1 = m1.iterator();
+    Assert.assertEquals((float) 1.0, i1.next().get());
+    Assert.assertEquals((float) 3.0, i1.next().get());
+    Assert.assertEquals((float) 4.0, i1.next().get());
+    Assert.assertTrue(
+        Iterables.isEmpty(messageStore.getVertexMessages(new IntWritable(3))));
   }
 }
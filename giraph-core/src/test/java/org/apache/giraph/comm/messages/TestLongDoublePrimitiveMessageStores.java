@@ -19,6 +19,7 @@
 package org.apache.giraph.comm.messages;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import junit.framework.Assert;
@@ -35,6 +36,7 @@ import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionStore;
 import org.apache.giraph.utils.ByteArrayVertexIdMessages;
+import org.apache.giraph.utils.WritableUtils;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
@@ -74,6 +76,17 @@ public class TestLongDoublePrimitiveMessageStores {
     Mockito.when(partition.getVertexCount()).thenReturn(Long.valueOf(1));
     Mockito.when(partitionStore.getOrCreatePartition(0)).thenReturn(partition);
     Mockito.when(partitionStore.getOrCreatePartition(1)).thenReturn(partition);
+    // Vertices 0 and 1 exist, 2 doesn't
+    Mockito.when(partitionStore.hasVertexInMemory(
+        Mockito.anyInt(), Mockito.any(LongWritable.class))).thenAnswer(
+        new Answer<Boolean>() {
+          @Override
+          public Boolean answer(InvocationOnMock invocation) {
+            LongWritable vertexId = (LongWritable) invocation.getArguments()[1];
+            return vertexId.get() < 2;
+          }
+        }
+    );
   }
 
   private static class LongDoubleNoOpComputation extends
@@ -144,6 +157,24 @@ public class TestLongDoublePrimitiveMessageStores {
         Iterables.isEmpty(messageStore.getVertexMessages(new LongWritable(3))));
   }
 
+  @Test
+  public void testReadVertexMessage() throws IOException {
+    LongDoubleMessageStore messageStore =
+        new LongDoubleMessageStore(service, new DoubleSumMessageCombiner());
+    insertLongDoubleMessages(messageStore);
+
+    DoubleWritable message = new DoubleWritable(-1);
+    Assert.assertTrue(
+        messageStore.readVertexMessage(new LongWritable(0), message));
+    Assert.assertEquals(10.0, message.get());
+    Assert.assertTrue(
+        messageStore.readVertexMessage(new LongWritable(1), message));
+    Assert.assertEquals(8.0, message.get());
+    Assert.assertFalse(
+        messageStore.readVertexMessage(new LongWritable(3), message));
+    Assert.assertEquals(8.0, message.get());
+  }
+
   @Test
   public void testLongByteArrayMessageStore() throws IOException {
     LongByteArrayMessageStore<DoubleWritable> messageStore =
@@ -173,4 +204,43 @@ public class TestLongDoublePrimitiveMessageStores {
     Assert.assertTrue(
         Iterables.isEmpty(messageStore.getVertexMessages(new LongWritable(3))));
   }
+
+  @Test
+  public void testUnknownDestinations() throws IOException {
+    LongDoubleMessageStore combinedStore =
+        new LongDoubleMessageStore(service, new DoubleSumMessageCombiner());
+    LongByteArrayMessageStore<DoubleWritable> byteArrayStore =
+        new LongByteArrayMessageStore<DoubleWritable>(
+            new TestMessageValueFactory<DoubleWritable>(DoubleWritable.class),
+            service, createLongDoubleConf());
+    for (MessageStore<LongWritable, DoubleWritable> messageStore :
+        Lists.<MessageStore<LongWritable, DoubleWritable>>newArrayList(
+            combinedStore, byteArrayStore)) {
+      insertLongDoubleMessages(messageStore);
+      Assert.assertEquals(Lists.newArrayList(new LongWritable(2)),
+          Lists.newArrayList(
+              messageStore.getPartitionUnknownDestinationVertices(0)));
+      Assert.assertTrue(Iterables.isEmpty(
+          messageStore.getPartitionUnknownDestinationVertices(1)));
+      messageStore.clearPartition(0);
+      Assert.assertTrue(Iterables.isEmpty(
+          messageStore.getPartitionUnknownDestinationVertices(0)));
+    }
+  }
+
+  @Test
+  public void testPrimitiveMessagesSameBytes() {
+    ByteArrayVertexIdMessages<LongWritable, DoubleWritable> writables =
+        createLongDoubleMessages();
+    ByteArrayVertexIdMessages<LongWritable, DoubleWritable> primitives =
+        createLongDoubleMessages();
+    for (long id = -3; id < 5; id++) {
+      writables.add(new LongWritable(id), new DoubleWritable(id * 0.5));
+      primitives.addDoubleMessage(id, id * 0.5);
+    }
+    Assert.assertEquals(writables.getSize(), primitives.getSize());
+    Assert.assertTrue(Arrays.equals(
+        WritableUtils.writeToByteArray(writables),
+        WritableUtils.writeToByteArray(primitives)));
+  }
 }
@@ -18,9 +18,15 @@
 
 package org.apache.giraph.comm.messages.queue;
 
+import org.apache.giraph.comm.messages.CombinedMessageReader;
 import org.apache.giraph.comm.messages.MessageStore;
+import org.apache.giraph.comm.messages.ReceivedMessageCountReader;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.factories.TestMessageValueFactory;
 import org.apache.giraph.utils.ByteArrayVertexIdMessages;
+import org.apache.giraph.utils.NoOpComputation;
 import org.apache.giraph.utils.VertexIdMessages;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
@@ -32,13 +38,33 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test case for AsyncMessageStoreWrapper
  */
 public class AsyncMessageStoreWrapperTest {
 
+  public static class LongNoOpComputation extends NoOpComputation<LongWritable,
+      IntWritable, IntWritable, IntWritable> { }
+
+  private static ByteArrayVertexIdMessages<LongWritable, IntWritable>
+  createMessages(int numMessages) {
+    GiraphConfiguration tmpConf = new GiraphConfiguration();
+    GiraphConstants.COMPUTATION_CLASS.set(tmpConf, LongNoOpComputation.class);
+    ByteArrayVertexIdMessages<LongWritable, IntWritable> messages =
+        new ByteArrayVertexIdMessages<>(
+            new TestMessageValueFactory<>(IntWritable.class));
+    messages.setConf(new ImmutableClassesGiraphConfiguration(tmpConf));
+    messages.initialize();
+    for (int i = 0; i < numMessages; i++) {
+      messages.add(new LongWritable(i), new IntWritable(i));
+    }
+    return messages;
+  }
 
   @Test
   public void testAsyncQueue() throws IOException {
@@ -49,16 +75,56 @@ public class AsyncMessageStoreWrapperTest {
         Arrays.asList(0, 1, 2, 3, 4), 2);
 
     for (int i = 0; i < 1000; i++) {
-      queue.addPartitionMessages(i % 5, new ByteArrayVertexIdMessages<LongWritable, IntWritable>(new TestMessageValueFactory<>(IntWritable.class)));
+      queue.addPartitionMessages(i % 5, createMessages(i % 5));
     }
 
     queue.waitToComplete();
 
     assertArrayEquals(new int[] {200, 200, 200, 200, 200}, store.counters);
+    // The store doesn't count messages, so the wrapper does
+    for (int i = 0; i < 5; i++) {
+      assertEquals(200 * i, queue.getReceivedMessageCount(i));
+    }
+
+    queue.clearAll();
+  }
 
+  @Test
+  public void testWrapDelegatesToStore() throws IOException {
+    MessageStore<LongWritable, IntWritable> plain =
+        AsyncMessageStoreWrapper.wrap(new TestMessageStore(),
+            Arrays.asList(0), 1);
+    assertFalse(plain instanceof CombinedMessageReader);
+    plain.clearAll();
+
+    TestCombinedMessageStore store = new TestCombinedMessageStore();
+    AsyncMessageStoreWrapper<LongWritable, IntWritable> queue =
+        AsyncMessageStoreWrapper.wrap(store, Arrays.asList(0, 1), 1);
+    assertTrue(queue instanceof CombinedMessageReader);
+    IntWritable message = new IntWritable();
+    assertTrue(((CombinedMessageReader<LongWritable, IntWritable>) queue)
+        .readVertexMessage(new LongWritable(3), message));
+    assertEquals(3, message.get());
+    assertEquals(7, queue.getReceivedMessageCount(1));
     queue.clearAll();
   }
 
+  static class TestCombinedMessageStore extends TestMessageStore implements
+      CombinedMessageReader<LongWritable, IntWritable>,
+      ReceivedMessageCountReader {
+    @Override
+    public boolean readVertexMessage(LongWritable vertexId,
+        IntWritable message) {
+      message.set((int) vertexId.get());
+      return true;
+    }
+
+    @Override
+    public long getReceivedMessageCount(int partitionId) {
+      return partitionId * 7;
+    }
+  }
+
 
   static class TestMessageStore implements MessageStore<LongWritable, IntWritable> {
 
@@ -105,6 +171,12 @@ public class AsyncMessageStoreWrapperTest {
       return null;
     }
 
+    @Override
+    public Iterable<LongWritable> getPartitionUnknownDestinationVertices(
+        int partitionId) {
+      return null;
+    }
+
     @Override
     public void clearPartition(int partitionId) throws IOException {
 
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.TestVertexAndEdges.TestComputation;
+import org.apache.giraph.utils.NoOpComputation;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.VLongWritable;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests {@link EdgeSorter}.
+ */
+public class TestEdgeSorter {
+  /**
+   * Sums values of duplicate edges.
+   */
+  public static class SumEdgeValueCombiner
+      implements EdgeValueCombiner<DoubleWritable> {
+    @Override
+    public void combine(DoubleWritable originalEdgeValue,
+        DoubleWritable edgeValue) {
+      originalEdgeValue.set(originalEdgeValue.get() + edgeValue.get());
+    }
+  }
+
+  @Test
+  public void testSort() {
+    for (Class<? extends OutEdges> edgesClass :
+        Lists.newArrayList(LongDoubleArrayEdges.class, ArrayListEdges.class)) {
+      EdgeSorter<LongWritable, DoubleWritable> sorter =
+          createSorter(edgesClass, false);
+      // Run twice to check reusing edge objects
+      for (int i = 0; i < 2; i++) {
+        sorter.addEdges(createEdges(5, 3, 5));
+        sorter.addEdges(createEdges(1, 3));
+        checkEdges(sorter.createSortedOutEdges(),
+            new long[] {1, 3, 3, 5, 5}, new double[] {1, 3, 3, 5, 5});
+      }
+    }
+  }
+
+  @Test
+  public void testDedup() {
+    for (Class<? extends OutEdges> edgesClass :
+        Lists.newArrayList(LongDoubleArrayEdges.class, ArrayListEdges.class)) {
+      EdgeSorter<LongWritable, DoubleWritable> sorter =
+          createSorter(edgesClass, true);
+      for (int i = 0; i < 2; i++) {
+        sorter.addEdges(createEdges(7, 2, 7, 7, 4, 2));
+        checkEdges(sorter.createSortedOutEdges(),
+            new long[] {2, 4, 7}, new double[] {4, 4, 21});
+      }
+    }
+  }
+
+  /**
+   * Computation with edge values which have no TypeOps, so the sorter has
+   * to copy edges by serializing them.
+   */
+  public static class VLongEdgesComputation extends NoOpComputation<
+      LongWritable, LongWritable, VLongWritable, LongWritable> {
+  }
+
+  @Test
+  public void testSortSerializedEdges() {
+    GiraphConfiguration giraphConf = new GiraphConfiguration();
+    giraphConf.setComputationClass(VLongEdgesComputation.class);
+    giraphConf.setOutEdgesClass(ArrayListEdges.class);
+    ImmutableClassesGiraphConfiguration<LongWritable, LongWritable,
+        VLongWritable> conf = new ImmutableClassesGiraphConfiguration<
+        LongWritable, LongWritable, VLongWritable>(giraphConf);
+    EdgeSorter<LongWritable, VLongWritable> sorter =
+        new EdgeSorter<LongWritable, VLongWritable>(conf, false);
+    for (int i = 0; i < 2; i++) {
+      List<Edge<LongWritable, VLongWritable>> edges = Lists.newArrayList();
+      for (long targetId : new long[] {9, 4, 6, 1}) {
+        edges.add(EdgeFactory.create(
+            new LongWritable(targetId), new VLongWritable(targetId * 10)));
+        if (edges.size() == 3) {
+          // Edges are added in two batches
+          sorter.addEdges(edges);
+          edges.clear();
+        }
+      }
+      sorter.addEdges(edges);
+      OutEdges<LongWritable, VLongWritable> sorted =
+          sorter.createSortedOutEdges();
+      assertEquals(4, sorted.size());
+      long[] expectedIds = new long[] {1, 4, 6, 9};
+      int index = 0;
+      for (Edge<LongWritable, VLongWritable> sortedEdge : sorted) {
+        assertEquals(expectedIds[index], sortedEdge.getTargetVertexId().get());
+        assertEquals(expectedIds[index] * 10, sortedEdge.getValue().get());
+        ++index;
+      }
+    }
+  }
+
+  /**
+   * Create sorter with summing edge value combiner
+   *
+   * @param edgesClass OutEdges class
+   * @param dedup Whether to remove duplicates
+   * @return Edge sorter
+   */
+  private static EdgeSorter<LongWritable, DoubleWritable> createSorter(
+      Class<? extends OutEdges> edgesClass, boolean dedup) {
+    GiraphConfiguration giraphConf = new GiraphConfiguration();
+    giraphConf.setComputationClass(TestComputation.class);
+    giraphConf.setOutEdgesClass(edgesClass);
+    giraphConf.setEdgeValueCombinerClass(SumEdgeValueCombiner.class);
+    ImmutableClassesGiraphConfiguration<LongWritable, FloatWritable,
+        DoubleWritable> conf = new ImmutableClassesGiraphConfiguration<
+        LongWritable, FloatWritable, DoubleWritable>(giraphConf);
+    return new EdgeSorter<LongWritable, DoubleWritable>(conf, dedup);
+  }
+
+  /**
+   * Create edges, value of each edge equals its target id. The same edge
+   * object is returned for all edges, like when iterating over OutEdges.
+   *
+   * @param targetIds Target ids
+   * @return Edges
+   */
+  private static Iterable<Edge<LongWritable, DoubleWritable>> createEdges(
+      final long... targetIds) {
+    final ReusableEdge<LongWritable, DoubleWritable> edge =
+        EdgeFactory.createReusable(new LongWritable(), new DoubleWritable());
+    return new Iterable<Edge<LongWritable, DoubleWritable>>() {
+      @Override
+      public Iterator<Edge<LongWritable, DoubleWritable>> iterator() {
+        return new Iterator<Edge<LongWritable, DoubleWritable>>() {
+          private int index = 0;
+
+          @Override
+          public boolean hasNext() {
+            return index < targetIds.length;
+          }
+
+          @Override
+          public Edge<LongWritable, DoubleWritable> next() {
+            edge.getTargetVertexId().set(targetIds[index]);
+            edge.getValue().set(targetIds[index]);
+            ++index;
+            return edge;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Check edges are equal to expected ones, in the same order
+   *
+   * @param edges Edges to check
+   * @param targetIds Expected target ids
+   * @param values Expected values
+   */
+  private static void checkEdges(OutEdges<LongWritable, DoubleWritable> edges,
+      long[] targetIds, double[] values) {
+    assertEquals(targetIds.length, edges.size());
+    Iterator<Edge<LongWritable, DoubleWritable>> iterator = edges.iterator();
+    for (int i = 0; i < targetIds.length; i++) {
+      Edge<LongWritable, DoubleWritable> edge = iterator.next();
+      assertEquals(targetIds[i], edge.getTargetVertexId().get());
+      assertEquals(values[i], edge.getValue().get(), 0);
+    }
+    assertFalse(iterator.hasNext());
+  }
+}
@@ -43,6 +43,7 @@ public class TestStrictRandomAccessEdges {
     public void setUp() {
       edgesClasses.add(HashMapEdges.class);
       edgesClasses.add(LongDoubleHashMapEdges.class);
+      edgesClasses.add(IdAndValueHashMapEdges.class);
     }
 
     /**
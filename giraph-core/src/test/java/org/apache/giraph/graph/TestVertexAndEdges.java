@@ -22,6 +22,7 @@ import com.google.common.collect.Lists;
 import org.apache.giraph.comm.messages.MessageStoreFactory;
 import org.apache.giraph.comm.messages.out_of_core.DiskBackedMessageStoreFactory;
 import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.ArrayListEdges;
 import org.apache.giraph.edge.ByteArrayEdges;
@@ -29,6 +30,8 @@ import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
 import org.apache.giraph.edge.HashMapEdges;
 import org.apache.giraph.edge.HashMultimapEdges;
+import org.apache.giraph.edge.IdAndValueArrayEdges;
+import org.apache.giraph.edge.IdAndValueHashMapEdges;
 import org.apache.giraph.edge.LongDoubleArrayEdges;
 import org.apache.giraph.edge.LongDoubleHashMapEdges;
 import org.apache.giraph.edge.MutableEdge;
@@ -159,6 +162,8 @@ public class TestVertexAndEdges {
     edgesClasses.add(HashMultimapEdges.class);
     edgesClasses.add(LongDoubleArrayEdges.class);
     edgesClasses.add(LongDoubleHashMapEdges.class);
+    edgesClasses.add(IdAndValueArrayEdges.class);
+    edgesClasses.add(IdAndValueHashMapEdges.class);
   }
 
   protected Vertex<LongWritable, FloatWritable, DoubleWritable>
@@ -197,6 +202,32 @@ public class TestVertexAndEdges {
     return immutableClassesGiraphConfiguration.createOutEdges();
   }
 
+  /**
+   * Primitive array edges are used only when no out-edges class is set.
+   */
+  @Test
+  public void testPrimitiveOutEdgesSelection() {
+    GiraphConfiguration giraphConfiguration = new GiraphConfiguration();
+    giraphConfiguration.setComputationClass(TestComputation.class);
+    assertEquals(LongDoubleArrayEdges.class,
+        new ImmutableClassesGiraphConfiguration(
+            giraphConfiguration).getOutEdgesClass());
+
+    giraphConfiguration = new GiraphConfiguration();
+    giraphConfiguration.setComputationClass(TestComputation.class);
+    giraphConfiguration.setOutEdgesClass(ByteArrayEdges.class);
+    assertEquals(ByteArrayEdges.class,
+        new ImmutableClassesGiraphConfiguration(
+            giraphConfiguration).getOutEdgesClass());
+
+    giraphConfiguration = new GiraphConfiguration();
+    giraphConfiguration.setComputationClass(TestComputation.class);
+    GiraphConstants.USE_PRIMITIVE_OUT_EDGES.set(giraphConfiguration, false);
+    assertEquals(ByteArrayEdges.class,
+        new ImmutableClassesGiraphConfiguration(
+            giraphConfiguration).getOutEdgesClass());
+  }
+
   /**
    * Test the provided {@link org.apache.giraph.edge.OutEdges} implementations for instantiation,
    * initialization, edge addition, and edge removal.
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.io;
+
+import org.apache.giraph.bsp.ImmutableOutputCommitter;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.superstep_output.AsyncEdgeWriterPool;
+import org.apache.giraph.utils.InternalVertexRunner;
+import org.apache.giraph.utils.LongNoOpComputation;
+import org.apache.giraph.utils.TestGraph;
+import org.apache.giraph.worker.WorkerProgress;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test for writing edges in the end of the application, both through
+ * {@link AsyncEdgeWriterPool} and directly from multiple threads
+ */
+public class TestAsyncEdgeOutput {
+  /** Number of vertices in test graphs */
+  private static final int NUM_VERTICES = 500;
+
+  @Before
+  public void setUp() {
+    InMemoryEdgeOutputFormat.reset();
+  }
+
+  @Test
+  public void testAsyncEdgeWriterPool() throws Exception {
+    GiraphConfiguration giraphConf = createConf();
+    // Small buffers, so output is split into many of them
+    GiraphConstants.ASYNC_VERTEX_OUTPUT_BUFFER_SIZE.set(giraphConf, 100);
+    GiraphConstants.ASYNC_VERTEX_OUTPUT_MAX_BUFFERS.set(giraphConf, 2);
+    final ImmutableClassesGiraphConfiguration<LongWritable, LongWritable,
+        LongWritable> conf = new ImmutableClassesGiraphConfiguration<
+        LongWritable, LongWritable, LongWritable>(giraphConf);
+    final AsyncEdgeWriterPool<LongWritable, LongWritable, LongWritable>
+        pool = new AsyncEdgeWriterPool<LongWritable, LongWritable,
+        LongWritable>(conf, Mockito.mock(Mapper.Context.class), 2);
+
+    final int numProducers = 4;
+    final AtomicInteger edgesWritten = new AtomicInteger();
+    Thread[] producers = new Thread[numProducers];
+    for (int p = 0; p < numProducers; p++) {
+      final int producer = p;
+      producers[p] = new Thread() {
+        @Override
+        public void run() {
+          AsyncEdgeWriterPool<LongWritable, LongWritable, LongWritable>
+              .AsyncEdgeWriter writer = pool.createEdgeWriter();
+          try {
+            for (long id = producer; id < NUM_VERTICES; id += numProducers) {
+              edgesWritten.addAndGet(writer.writeEdges(createVertex(conf, id)));
+            }
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+          writer.flush();
+        }
+      };
+      producers[p].start();
+    }
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    pool.close();
+
+    assertEquals(expectedEdgeCount(), edgesWritten.get());
+    assertEquals(2, InMemoryEdgeOutputFormat.WRITERS_CREATED.get());
+    assertEquals(2, InMemoryEdgeOutputFormat.WRITERS_CLOSED.get());
+    checkWrittenEdges();
+  }
+
+  @Test
+  public void testSaveEdgesNotThreadSafe() throws Exception {
+    GiraphConfiguration conf = createConf();
+    conf.setEdgeOutputFormatThreadSafe(false);
+    runJob(conf);
+    // Saving threads only serialize edges, a single writer writes them out
+    assertEquals(1, InMemoryEdgeOutputFormat.WRITERS_CREATED.get());
+    checkWrittenEdges();
+  }
+
+  @Test
+  public void testSaveEdgesThreadSafe() throws Exception {
+    GiraphConfiguration conf = createConf();
+    conf.setEdgeOutputFormatThreadSafe(true);
+    runJob(conf);
+    // Every saving thread writes through its own writer
+    assertEquals(4, InMemoryEdgeOutputFormat.WRITERS_CREATED.get());
+    checkWrittenEdges();
+  }
+
+  /**
+   * Create configuration with in-memory edge output
+   *
+   * @return Configuration
+   */
+  private static GiraphConfiguration createConf() {
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setComputationClass(LongNoOpComputation.class);
+    conf.setEdgeOutputFormatClass(InMemoryEdgeOutputFormat.class);
+    return conf;
+  }
+
+  /**
+   * Run the job on the test graph with multiple output threads, and check
+   * edges stored are reported to {@link WorkerProgress}
+   *
+   * @param conf Configuration
+   * @throws Exception
+   */
+  private static void runJob(GiraphConfiguration conf) throws Exception {
+    GiraphConstants.USER_PARTITION_COUNT.set(conf, 8);
+    GiraphConstants.NUM_OUTPUT_THREADS.set(conf, 4);
+    ImmutableClassesGiraphConfiguration<LongWritable, LongWritable,
+        LongWritable> immutableConf = new ImmutableClassesGiraphConfiguration<
+        LongWritable, LongWritable, LongWritable>(conf);
+    TestGraph<LongWritable, LongWritable, LongWritable> graph =
+        new TestGraph<LongWritable, LongWritable, LongWritable>(conf);
+    for (long id = 0; id < NUM_VERTICES; id++) {
+      graph.addVertex(createVertex(immutableConf, id));
+    }
+    long edgesStoredBefore = WorkerProgress.get().getEdgesStored();
+    InternalVertexRunner.runWithInMemoryOutput(conf, graph);
+    assertEquals(expectedEdgeCount(), WorkerProgress.get().getEdgesToStore());
+    assertEquals(expectedEdgeCount(),
+        WorkerProgress.get().getEdgesStored() - edgesStoredBefore);
+    assertEquals(InMemoryEdgeOutputFormat.WRITERS_CREATED.get(),
+        InMemoryEdgeOutputFormat.WRITERS_CLOSED.get());
+  }
+
+  /**
+   * Create test vertex, vertex i has value i * 3 and i % 5 edges to
+   * vertices i + 1 ... i + i % 5, with values equal to target ids
+   *
+   * @param conf Configuration
+   * @param id Vertex id
+   * @return Vertex
+   */
+  private static Vertex<LongWritable, LongWritable, LongWritable>
+  createVertex(ImmutableClassesGiraphConfiguration<LongWritable,
+      LongWritable, LongWritable> conf, long id) {
+    Vertex<LongWritable, LongWritable, LongWritable> vertex =
+        conf.createVertex();
+    List<Edge<LongWritable, LongWritable>> edges =
+        Lists.newArrayList();
+    for (long target = id + 1; target <= id + id % 5; target++) {
+      edges.add(EdgeFactory.create(
+          new LongWritable(target), new LongWritable(target)));
+    }
+    vertex.initialize(new LongWritable(id), new LongWritable(id * 3), edges);
+    return vertex;
+  }
+
+  /**
+   * Get number of edges in the test graph
+   *
+   * @return Number of edges
+   */
+  private static int expectedEdgeCount() {
+    int edges = 0;
+    for (long id = 0; id < NUM_VERTICES; id++) {
+      edges += id % 5;
+    }
+    return edges;
+  }
+
+  /**
+   * Check every edge of the test graph was written exactly once, with its
+   * source value and edge value, and no writer was used concurrently
+   */
+  private static void checkWrittenEdges() {
+    Multiset<String> expected = HashMultiset.create();
+    for (long id = 0; id < NUM_VERTICES; id++) {
+      for (long target = id + 1; target <= id + id % 5; target++) {
+        expected.add(edgeToString(id, id * 3, target, target));
+      }
+    }
+    assertEquals(expected,
+        HashMultiset.create(InMemoryEdgeOutputFormat.EDGES));
+    assertFalse(InMemoryEdgeOutputFormat.CONCURRENT_USE.get() > 0);
+  }
+
+  /**
+   * Describe a written edge
+   *
+   * @param sourceId Source id
+   * @param sourceValue Source value
+   * @param targetId Target id
+   * @param edgeValue Edge value
+   * @return Edge description
+   */
+  private static String edgeToString(long sourceId, long sourceValue,
+      long targetId, long edgeValue) {
+    return sourceId + " " + sourceValue + " " + targetId + " " + edgeValue;
+  }
+
+  /**
+   * Edge output format which keeps written edges in memory. Its writers
+   * are not thread-safe, concurrent use of a writer is detected and
+   * reported.
+   */
+  public static class InMemoryEdgeOutputFormat extends
+      EdgeOutputFormat<LongWritable, LongWritable, LongWritable> {
+    /** All written edges */
+    private static final Collection<String> EDGES =
+        new ConcurrentLinkedQueue<String>();
+    /** Number of created writers */
+    private static final AtomicInteger WRITERS_CREATED = new AtomicInteger();
+    /** Number of closed writers */
+    private static final AtomicInteger WRITERS_CLOSED = new AtomicInteger();
+    /** Number of times some writer was used from two threads at once */
+    private static final AtomicInteger CONCURRENT_USE = new AtomicInteger();
+
+    /**
+     * Clear written edges and counters
+     */
+    public static void reset() {
+      EDGES.clear();
+      WRITERS_CREATED.set(0);
+      WRITERS_CLOSED.set(0);
+      CONCURRENT_USE.set(0);
+    }
+
+    @Override
+    public EdgeWriter<LongWritable, LongWritable, LongWritable>
+    createEdgeWriter(TaskAttemptContext context) {
+      WRITERS_CREATED.incrementAndGet();
+      return new EdgeWriter<LongWritable, LongWritable, LongWritable>() {
+        /** Number of threads currently in writeEdge */
+        private final AtomicInteger activeThreads = new AtomicInteger();
+
+        @Override
+        public void initialize(TaskAttemptContext context) {
+        }
+
+        @Override
+        public void writeEdge(LongWritable sourceId, LongWritable sourceValue,
+            Edge<LongWritable, LongWritable> edge) {
+          if (activeThreads.incrementAndGet() > 1) {
+            CONCURRENT_USE.incrementAndGet();
+          }
+          EDGES.add(edgeToString(sourceId.get(), sourceValue.get(),
+              edge.getTargetVertexId().get(), edge.getValue().get()));
+          activeThreads.decrementAndGet();
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) {
+          WRITERS_CLOSED.incrementAndGet();
+        }
+      };
+    }
+
+    @Override
+    public void checkOutputSpecs(JobContext context) {
+    }
+
+    @Override
+    public OutputCommitter getOutputCommitter(TaskAttemptContext context) {
+      return new ImmutableOutputCommitter();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.formats.ColumnarVertexOutputFormat;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PrimitiveArrayPartition;
+import org.apache.giraph.partition.SimplePartition;
+import org.apache.giraph.types.ops.TypeOpsUtils;
+import org.apache.giraph.types.ops.collections.BasicArrayList.BasicLongArrayList;
+import org.apache.giraph.utils.LongNoOpComputation;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link ColumnarVertexOutputFormat}
+ */
+public class TestColumnarVertexOutputFormat {
+  @Test
+  public void testWriteAndReadPrimitiveArrayPartition() throws IOException {
+    GiraphConfiguration giraphConf = new GiraphConfiguration();
+    GiraphConstants.USE_PRIMITIVE_PARTITION.set(giraphConf, true);
+    checkWriteAndReadColumns(giraphConf, PrimitiveArrayPartition.class);
+  }
+
+  @Test
+  public void testWriteAndReadSimplePartition() throws IOException {
+    GiraphConfiguration giraphConf = new GiraphConfiguration();
+    GiraphConstants.PARTITION_CLASS.set(giraphConf, SimplePartition.class);
+    checkWriteAndReadColumns(giraphConf, SimplePartition.class);
+  }
+
+  @Test
+  public void testSupportedTypes() {
+    assertTrue(ColumnarVertexOutputFormat.isSupported(
+        LongWritable.class, DoubleWritable.class));
+    assertFalse(ColumnarVertexOutputFormat.isSupported(
+        LongWritable.class, Text.class));
+  }
+
+  /**
+   * Write columns of a partition and check they are read back correctly
+   *
+   * @param giraphConf Configuration
+   * @param partitionClass Expected partition class
+   * @throws IOException
+   */
+  private static void checkWriteAndReadColumns(
+      GiraphConfiguration giraphConf,
+      Class<? extends Partition> partitionClass) throws IOException {
+    giraphConf.setComputationClass(LongNoOpComputation.class);
+    ImmutableClassesGiraphConfiguration<LongWritable, LongWritable,
+        LongWritable> conf = new ImmutableClassesGiraphConfiguration<
+        LongWritable, LongWritable, LongWritable>(giraphConf);
+    Partition<LongWritable, LongWritable, LongWritable> partition =
+        conf.createPartition(0, Mockito.mock(Mapper.Context.class));
+    assertEquals(partitionClass, partition.getClass());
+    Map<Long, Long> expected = Maps.newHashMap();
+    for (long id = 0; id < 100; id++) {
+      Vertex<LongWritable, LongWritable, LongWritable> vertex =
+          conf.createVertex();
+      vertex.initialize(new LongWritable(id * 7), new LongWritable(id * id));
+      partition.putVertex(vertex);
+      expected.put(id * 7, id * id);
+    }
+
+    UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream();
+    ColumnarVertexOutputFormat.writeColumns(partition, out,
+        TypeOpsUtils.getPrimitiveIdTypeOps(LongWritable.class),
+        TypeOpsUtils.getPrimitiveTypeOps(LongWritable.class));
+
+    BasicLongArrayList ids = new BasicLongArrayList(0);
+    BasicLongArrayList values = new BasicLongArrayList(0);
+    ColumnarVertexOutputFormat.readColumns(
+        new UnsafeByteArrayInputStream(out.getByteArray(), 0, out.getPos()),
+        ids, values);
+    assertEquals(100, ids.size());
+    assertEquals(100, values.size());
+    LongWritable id = new LongWritable();
+    LongWritable value = new LongWritable();
+    for (int i = 0; i < ids.size(); i++) {
+      ids.getInto(i, id);
+      values.getInto(i, value);
+      assertEquals(expected.remove(id.get()).longValue(), value.get());
+    }
+    assertTrue(expected.isEmpty());
+  }
+}
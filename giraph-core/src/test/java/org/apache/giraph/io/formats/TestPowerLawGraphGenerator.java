@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import org.apache.giraph.bsp.BspInputSplit;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link PowerLawGraphGenerator}s
+ */
+public class TestPowerLawGraphGenerator {
+  @Test
+  public void testRMat() {
+    checkGenerator(new RMatGraphGenerator(10000, 10, 7, 0.57, 0.19, 0.19));
+    checkGenerator(new RMatGraphGenerator(1 << 13, 10, 7, 0.57, 0.19, 0.19));
+  }
+
+  @Test
+  public void testChungLu() {
+    checkGenerator(new ChungLuGraphGenerator(10000, 10, 7, 2.5));
+    checkGenerator(new ChungLuGraphGenerator(10000, 10, 7, 2));
+  }
+
+  @Test
+  public void testSplitsCoverAllVertices() {
+    long numVertices = 1003;
+    long expectedStart = 0;
+    for (int i = 0; i < 10; i++) {
+      BspInputSplit split = new BspInputSplit(i, 10);
+      assertEquals(expectedStart,
+          PseudoRandomUtils.getSplitStartingVertexId(split, numVertices));
+      expectedStart +=
+          PseudoRandomUtils.getSplitNumVertices(split, numVertices);
+    }
+    assertEquals(numVertices, expectedStart);
+  }
+
+  /**
+   * Check that generated graph has expected size, is skewed, and that
+   * vertex data depends only on vertex id
+   *
+   * @param generator Generator to check
+   */
+  private static void checkGenerator(PowerLawGraphGenerator generator) {
+    long numVertices = generator.getNumVertices();
+    Random random = new Random();
+    long totalEdges = 0;
+    int maxEdges = 0;
+    for (long vertexId = 0; vertexId < numVertices; vertexId++) {
+      generator.seedVertex(vertexId, random);
+      int numEdges = generator.getNumEdges(vertexId, random);
+      totalEdges += numEdges;
+      maxEdges = Math.max(maxEdges, numEdges);
+      for (int i = 0; i < numEdges; i++) {
+        long destVertexId = generator.generateDestVertex(vertexId, random);
+        assertTrue(destVertexId >= 0 && destVertexId < numVertices);
+      }
+    }
+    long expectedEdges = numVertices * 10;
+    assertTrue("Got " + totalEdges + " edges",
+        Math.abs(totalEdges - expectedEdges) < expectedEdges / 20);
+    assertTrue("Max degree " + maxEdges + " is not skewed", maxEdges > 100);
+
+    Random other = new Random();
+    generator.seedVertex(42, random);
+    generator.seedVertex(42, other);
+    assertEquals(generator.getNumEdges(42, random),
+        generator.getNumEdges(42, other));
+    assertEquals(generator.generateDestVertex(42, random),
+        generator.generateDestVertex(42, other));
+  }
+}
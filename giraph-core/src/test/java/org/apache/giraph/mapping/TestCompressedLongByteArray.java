@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link CompressedLongByteArray}
+ */
+public class TestCompressedLongByteArray {
+  /**
+   * Build an array from entries, check all lookups and iteration
+   *
+   * @param entries Entries to store
+   * @param random Random for probing absent ids
+   */
+  private void checkEntries(TreeMap<Long, Byte> entries, Random random) {
+    CompressedLongByteArray array =
+        new CompressedLongByteArray(entries.size());
+    try {
+      for (Long id : entries.keySet()) {
+        array.add(id, entries.get(id));
+      }
+      array.finish();
+      assertEquals(entries.size(), array.size());
+      for (Long id : entries.keySet()) {
+        assertEquals((byte) entries.get(id), array.get(id));
+        if (!entries.containsKey(id + 1)) {
+          assertEquals(-1, array.get(id + 1));
+        }
+      }
+      for (int i = 0; i < 1000; i++) {
+        long id = random.nextLong();
+        Byte expected = entries.get(id);
+        assertEquals(expected == null ? -1 : expected, array.get(id));
+      }
+
+      CompressedLongByteArray.Cursor cursor = array.cursor();
+      for (Long id : entries.keySet()) {
+        assertTrue(cursor.next());
+        assertEquals((long) id, cursor.getId());
+        assertEquals((byte) entries.get(id), cursor.getTarget());
+      }
+      assertFalse(cursor.next());
+    } finally {
+      array.close();
+    }
+  }
+
+  @Test
+  public void testConsecutiveIds() {
+    Random random = new Random(1);
+    TreeMap<Long, Byte> entries = new TreeMap<Long, Byte>();
+    for (long id = 1000; id < 11000; id++) {
+      // Runs of equal targets, so some blocks have a single target
+      entries.put(id, (byte) (id / 500));
+    }
+    checkEntries(entries, random);
+  }
+
+  @Test
+  public void testSparseIds() {
+    Random random = new Random(2);
+    TreeMap<Long, Byte> entries = new TreeMap<Long, Byte>();
+    long id = -5000;
+    for (int i = 0; i < 10000; i++) {
+      id += 1 + random.nextInt(i % 3 == 0 ? 3 : 100000);
+      entries.put(id, (byte) random.nextInt(256));
+    }
+    checkEntries(entries, random);
+  }
+
+  @Test
+  public void testExtremeIds() {
+    Random random = new Random(3);
+    TreeMap<Long, Byte> entries = new TreeMap<Long, Byte>();
+    entries.put(Long.MIN_VALUE, (byte) 3);
+    entries.put(Long.MIN_VALUE + 1, (byte) 255);
+    entries.put(-1L, (byte) 0);
+    entries.put(0L, (byte) 7);
+    entries.put(Long.MAX_VALUE - 1, (byte) 100);
+    entries.put(Long.MAX_VALUE, (byte) 1);
+    checkEntries(entries, random);
+  }
+
+  @Test
+  public void testEmpty() {
+    checkEntries(new TreeMap<Long, Byte>(), new Random(4));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsortedIds() {
+    CompressedLongByteArray array = new CompressedLongByteArray(2);
+    try {
+      array.add(5, (byte) 1);
+      array.add(5, (byte) 1);
+    } finally {
+      array.close();
+    }
+  }
+}
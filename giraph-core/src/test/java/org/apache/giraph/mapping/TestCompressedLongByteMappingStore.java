@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.utils.LongNoOpComputation;
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for {@link CompressedLongByteMappingStore}
+ */
+public class TestCompressedLongByteMappingStore {
+  /** Number of filling threads */
+  private static final int NUM_THREADS = 4;
+  /** Number of entries each thread adds */
+  private static final int ENTRIES_PER_THREAD = 1000;
+
+  @Test
+  public void testFillFromManyThreads() throws InterruptedException {
+    GiraphConfiguration giraphConf = new GiraphConfiguration();
+    giraphConf.setComputationClass(LongNoOpComputation.class);
+    // Small runs, so that each thread produces many of them
+    GiraphConstants.COMPRESSED_MAPPINGSTORE_RUN_SIZE.set(giraphConf, 100);
+    final CompressedLongByteMappingStore store =
+        new CompressedLongByteMappingStore();
+    store.setConf(new ImmutableClassesGiraphConfiguration(giraphConf));
+    store.initialize();
+
+    Thread[] threads = new Thread[NUM_THREADS];
+    for (int t = 0; t < NUM_THREADS; t++) {
+      final int thread = t;
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          // Threads interleave ids, and add them in decreasing order
+          for (int i = ENTRIES_PER_THREAD - 1; i >= 0; i--) {
+            long id = 3L * (i * NUM_THREADS + thread);
+            store.addEntry(new LongWritable(id),
+                new ByteWritable((byte) (id % 200)));
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    store.postFilling();
+
+    assertEquals(NUM_THREADS * ENTRIES_PER_THREAD, store.getStats());
+    ByteWritable target = new ByteWritable();
+    for (long i = 0; i < NUM_THREADS * ENTRIES_PER_THREAD; i++) {
+      long id = 3 * i;
+      assertEquals((byte) (id % 200),
+          store.getByteTarget(new LongWritable(id)));
+      assertEquals((byte) (id % 200),
+          store.getTarget(new LongWritable(id), target).get());
+      assertNull(store.getTarget(new LongWritable(id + 1), target));
+    }
+    store.close();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.mapping;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link StreamingPartitionAssigner}
+ */
+public class TestStreamingPartitionAssigner {
+  /** Number of vertices in each clique */
+  private static final int CLIQUE_SIZE = 10;
+
+  /**
+   * Stream two interleaved cliques, each should end up on its own worker
+   *
+   * @param algorithm Scoring function
+   */
+  private void testCliques(StreamingPartitionAlgorithm algorithm) {
+    StreamingPartitionAssigner assigner =
+        new StreamingPartitionAssigner(algorithm, 2, 1.1f, 1.5f);
+    for (int i = 0; i < CLIQUE_SIZE; i++) {
+      for (int clique = 0; clique < 2; clique++) {
+        LongArrayList neighbors = new LongArrayList();
+        for (int j = 0; j < CLIQUE_SIZE; j++) {
+          if (j != i) {
+            neighbors.add(clique * CLIQUE_SIZE + j);
+          }
+        }
+        assigner.assign(clique * CLIQUE_SIZE + i, neighbors);
+      }
+    }
+    for (int clique = 0; clique < 2; clique++) {
+      byte target = assigner.getAssignment(clique * CLIQUE_SIZE);
+      for (int i = 1; i < CLIQUE_SIZE; i++) {
+        assertEquals(target, assigner.getAssignment(clique * CLIQUE_SIZE + i));
+      }
+    }
+    assertEquals(CLIQUE_SIZE, assigner.getLoad(0));
+    assertEquals(CLIQUE_SIZE, assigner.getLoad(1));
+  }
+
+  @Test
+  public void testLdgCliques() {
+    testCliques(StreamingPartitionAlgorithm.LDG);
+  }
+
+  @Test
+  public void testFennelCliques() {
+    testCliques(StreamingPartitionAlgorithm.FENNEL);
+  }
+
+  @Test
+  public void testBalance() {
+    int numWorkers = 7;
+    int numVertices = 10000;
+    float slack = 1.1f;
+    StreamingPartitionAssigner assigner = new StreamingPartitionAssigner(
+        StreamingPartitionAlgorithm.LDG, numWorkers, slack, 1.5f);
+    Random random = new Random(42);
+    LongArrayList neighbors = new LongArrayList();
+    for (int i = 0; i < numVertices; i++) {
+      neighbors.clear();
+      for (int j = 0; j < 5; j++) {
+        // Mostly point to vertices close by, which were already assigned
+        neighbors.add(Math.max(0, i - random.nextInt(100)));
+      }
+      assigner.assign(i, neighbors);
+    }
+    assertEquals(numVertices, assigner.getNumVertices());
+    long total = 0;
+    for (int worker = 0; worker < numWorkers; worker++) {
+      assertTrue(assigner.getLoad(worker) <=
+          Math.ceil(slack * numVertices / numWorkers));
+      total += assigner.getLoad(worker);
+    }
+    assertEquals(numVertices, total);
+  }
+
+  @Test
+  public void testReassignKeepsWorker() {
+    StreamingPartitionAssigner assigner = new StreamingPartitionAssigner(
+        StreamingPartitionAlgorithm.LDG, 3, 1.1f, 1.5f);
+    LongArrayList neighbors = new LongArrayList();
+    byte target = assigner.assign(5, neighbors);
+    assigner.assign(6, neighbors);
+    neighbors.add(6);
+    assertEquals(target, assigner.assign(5, neighbors));
+    assertEquals(2, assigner.getNumVertices());
+    assertEquals(-1, assigner.getAssignment(7));
+  }
+
+  @Test
+  public void testMaxWorkers() {
+    StreamingPartitionAssigner assigner = new StreamingPartitionAssigner(
+        StreamingPartitionAlgorithm.LDG,
+        StreamingPartitionAssigner.MAX_WORKERS, 1.1f, 1.5f);
+    LongArrayList neighbors = new LongArrayList();
+    for (int i = 0; i < StreamingPartitionAssigner.MAX_WORKERS; i++) {
+      assigner.assign(i, neighbors);
+    }
+    int lastWorker = StreamingPartitionAssigner.MAX_WORKERS - 1;
+    assertEquals(1, assigner.getLoad(lastWorker));
+    assertEquals((byte) lastWorker, assigner.getAssignment(lastWorker));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooManyWorkers() {
+    new StreamingPartitionAssigner(StreamingPartitionAlgorithm.LDG,
+        StreamingPartitionAssigner.MAX_WORKERS + 1, 1.1f, 1.5f);
+  }
+}
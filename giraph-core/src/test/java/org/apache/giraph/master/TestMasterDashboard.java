@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.master;
+
+import org.apache.giraph.worker.WorkerStatusReporter;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** Test summarizing worker statuses in {@link MasterDashboard} */
+public class TestMasterDashboard {
+  /**
+   * Create a worker status.
+   *
+   * @param taskId Task id
+   * @param superstep Superstep
+   * @param toCompute Vertices to compute
+   * @param computed Vertices computed
+   * @param headroomMB Heap headroom
+   * @return Status
+   */
+  private static JSONObject status(int taskId, long superstep,
+      long toCompute, long computed, double headroomMB)
+    throws JSONException {
+    JSONObject status = new JSONObject();
+    status.put(WorkerStatusReporter.TASK_ID_KEY, taskId);
+    status.put(WorkerStatusReporter.SUPERSTEP_KEY, superstep);
+    status.put(WorkerStatusReporter.VERTICES_TO_COMPUTE_KEY, toCompute);
+    status.put(WorkerStatusReporter.VERTICES_COMPUTED_KEY, computed);
+    status.put(WorkerStatusReporter.COMPUTATION_DONE_KEY,
+        computed == toCompute);
+    status.put(WorkerStatusReporter.HEAP_HEADROOM_MB_KEY, headroomMB);
+    status.put(WorkerStatusReporter.SENT_MB_PER_SEC_KEY, 1.5);
+    return status;
+  }
+
+  @Test
+  public void testStragglersAreBelowAverageSlowestFirst()
+    throws JSONException {
+    List<JSONObject> workers = Lists.newArrayList(
+        status(0, 3, 100, 90, 500),
+        status(1, 3, 100, 10, 500),
+        status(2, 3, 100, 100, 500),
+        status(3, 3, 100, 40, 500),
+        // Still catching up from an older superstep, not comparable
+        status(4, 2, 100, 0, 500));
+    Assert.assertEquals(Arrays.asList(1, 3),
+        MasterDashboard.findStragglers(workers));
+  }
+
+  @Test
+  public void testNoStragglersWhenBalanced() throws JSONException {
+    List<JSONObject> workers = Lists.newArrayList(
+        status(0, 1, 100, 50, 500),
+        status(1, 1, 200, 100, 500));
+    Assert.assertEquals(Collections.<Integer>emptyList(),
+        MasterDashboard.findStragglers(workers));
+  }
+
+  @Test
+  public void testSummarize() throws JSONException {
+    List<JSONObject> workers = Lists.newArrayList(
+        status(1, 5, 100, 10, 300),
+        status(0, 5, 50, 50, 100));
+    JSONObject dashboard = MasterDashboard.summarize("job", 5, workers);
+    Assert.assertEquals(2, dashboard.getInt("numWorkers"));
+    Assert.assertEquals(0, dashboard.getJSONArray("workers")
+        .getJSONObject(0).getInt(WorkerStatusReporter.TASK_ID_KEY));
+    JSONObject totals = dashboard.getJSONObject("totals");
+    Assert.assertEquals(150, totals.getLong(
+        WorkerStatusReporter.VERTICES_TO_COMPUTE_KEY));
+    Assert.assertEquals(60, totals.getLong(
+        WorkerStatusReporter.VERTICES_COMPUTED_KEY));
+    Assert.assertEquals(3.0, totals.getDouble(
+        WorkerStatusReporter.SENT_MB_PER_SEC_KEY), 1e-9);
+    Assert.assertEquals(0, totals.getInt("minHeapHeadroomTaskId"));
+    Assert.assertEquals(1, dashboard.getJSONArray("stragglers").getInt(0));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.metrics.SuperstepPhases.Phase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link CriticalPath} and {@link SuperstepPhases}
+ */
+public class TestCriticalPath {
+  /**
+   * Create phases of a worker which started the superstep at 0
+   *
+   * @param prepare Prepare msecs
+   * @param compute Compute msecs
+   * @param flush Flush msecs
+   * @param waitRequests Msecs waiting for requests
+   * @param postSuperstep Post superstep msecs
+   * @return Phases
+   */
+  private static SuperstepPhases phases(long prepare, long compute,
+      long flush, long waitRequests, long postSuperstep) {
+    long[] marks = new long[SuperstepPhases.NUM_MARKS];
+    marks[1] = prepare;
+    marks[2] = marks[1] + compute;
+    marks[3] = marks[2] + flush;
+    marks[4] = marks[3] + waitRequests;
+    marks[5] = marks[4] + postSuperstep;
+    return new SuperstepPhases(marks);
+  }
+
+  @Test
+  public void testSlowCompute() {
+    CriticalPath path = CriticalPath.analyze(3,
+        Arrays.asList("w0", "w1", "w2"),
+        Arrays.asList(phases(10, 100, 5, 20, 1),
+            phases(10, 400, 5, 20, 1),
+            phases(12, 110, 5, 20, 1)));
+    assertEquals(3, path.getSuperstep());
+    assertEquals("w1", path.getWorker());
+    assertEquals(436 - 148, path.getHeldUpMsecs());
+    assertEquals(Phase.COMPUTE, path.getPhase());
+    assertEquals(400, path.getPhaseMsecs());
+    assertEquals(110, path.getMedianPhaseMsecs());
+    assertEquals(436, path.getSuperstepMsecs());
+    assertEquals(3, path.getNumWorkers());
+  }
+
+  @Test
+  public void testSlowFlush() {
+    CriticalPath path = CriticalPath.analyze(1,
+        Arrays.asList("w0", "w1"),
+        Arrays.asList(phases(10, 100, 500, 20, 1),
+            phases(10, 120, 5, 20, 1)));
+    assertEquals("w0", path.getWorker());
+    assertEquals(Phase.FLUSH, path.getPhase());
+    assertEquals(631 - 156, path.getHeldUpMsecs());
+  }
+
+  @Test
+  public void testSingleWorker() {
+    CriticalPath path = CriticalPath.analyze(0,
+        Collections.singletonList("w0"),
+        Collections.singletonList(phases(10, 100, 5, 20, 1)));
+    assertEquals("w0", path.getWorker());
+    assertEquals(0, path.getHeldUpMsecs());
+    // Nobody to compare against, so the longest phase is blamed
+    assertEquals(Phase.COMPUTE, path.getPhase());
+    assertNull(CriticalPath.analyze(0, Collections.<String>emptyList(),
+        Collections.<SuperstepPhases>emptyList()));
+  }
+
+  @Test
+  public void testTrackerSkippedPhases() {
+    SuperstepPhaseTracker tracker = new SuperstepPhaseTracker();
+    tracker.startSuperstep();
+    tracker.startPhase(Phase.COMPUTE);
+    tracker.enterBarrier();
+    SuperstepPhases phases = tracker.snapshot();
+    long total = 0;
+    for (Phase phase : Phase.values()) {
+      assertTrue(phases.getPhaseMsecs(phase) >= 0);
+      total += phases.getPhaseMsecs(phase);
+    }
+    assertEquals(phases.getTotalMsecs(), total);
+    assertEquals(0, phases.getPhaseMsecs(Phase.FLUSH));
+    assertEquals(0, phases.getPhaseMsecs(Phase.WAIT_REQUESTS));
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    SuperstepPhases phases = phases(1, 2, 3, 4, 5);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    phases.write(new DataOutputStream(bytes));
+    SuperstepPhases copy = new SuperstepPhases();
+    copy.readFields(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())));
+    for (Phase phase : Phase.values()) {
+      assertEquals(phases.getPhaseMsecs(phase), copy.getPhaseMsecs(phase));
+    }
+    assertEquals(15, copy.getTotalMsecs());
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for {@link HotPathHistograms}
+ */
+public class TestHotPathHistograms {
+  @After
+  public void tearDown() {
+    HotPathHistograms.init(new GiraphConfiguration());
+  }
+
+  @Test
+  public void testRequestRttPerPeer() {
+    GiraphConfiguration conf = new GiraphConfiguration();
+    GiraphConstants.METRICS_ENABLE.set(conf, true);
+    HotPathHistograms.init(conf);
+    HotPathHistograms histograms = HotPathHistograms.get();
+    histograms.registerPeer(1);
+    histograms.recordRequestRtt(1, 5000);
+    histograms.recordRequestRtt(1, 7000);
+    // Peers which were not registered grow the array
+    histograms.recordRequestRtt(300, 2000);
+
+    WorkerSuperstepMetrics metrics = new WorkerSuperstepMetrics();
+    histograms.drainTo(metrics);
+    assertEquals(2, metrics.getNumPeers());
+    assertEquals(1, metrics.getPeerTaskId(0));
+    assertEquals(2, metrics.getPeerRttCount(0));
+    assertEquals(300, metrics.getPeerTaskId(1));
+    assertEquals(1, metrics.getPeerRttCount(1));
+    assertEquals(3, metrics.getRequestRttHistogram().getCount());
+
+    // Drained histograms are empty, and empty peers are skipped
+    metrics = new WorkerSuperstepMetrics();
+    histograms.drainTo(metrics);
+    assertEquals(0, metrics.getNumPeers());
+  }
+
+  @Test
+  public void testDisabled() {
+    HotPathHistograms.init(new GiraphConfiguration());
+    HotPathHistograms histograms = HotPathHistograms.get();
+    histograms.recordRequestRtt(1, 5000);
+    WorkerSuperstepMetrics metrics = new WorkerSuperstepMetrics();
+    histograms.drainTo(metrics);
+    assertEquals(0, metrics.getNumPeers());
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link LatencyHistogram}
+ */
+public class TestLatencyHistogram {
+  @Test
+  public void testSmallValuesExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 20; i++) {
+      histogram.record(i);
+    }
+    assertEquals(20, histogram.getCount());
+    assertEquals(210, histogram.getSum());
+    assertEquals(20, histogram.getMax());
+    assertEquals(10, histogram.getValueAtPercentile(50));
+    assertEquals(19, histogram.getValueAtPercentile(95));
+    assertEquals(20, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value < LatencyHistogram.MAX_VALUE / 3;
+         value = value * 3 + 1) {
+      histogram.clear();
+      histogram.record(value);
+      long reported = histogram.getValueAtPercentile(50);
+      assertEquals(value, reported);
+      // Without max clamping the bucket bound is within 1/16 of the value
+      histogram.record(value * 2);
+      long upper = histogram.getValueAtPercentile(50);
+      assertTrue(upper >= value);
+      assertTrue(upper - value <= value / 16);
+    }
+  }
+
+  @Test
+  public void testClamp() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(2, histogram.getCount());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+    assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+    assertEquals(LatencyHistogram.MAX_VALUE,
+        histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testDrainAndAdd() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100);
+    histogram.record(1000);
+    LatencyHistogram target = new LatencyHistogram();
+    target.record(10);
+    histogram.drainTo(target);
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getSum());
+    assertEquals(0, histogram.getMax());
+    assertEquals(3, target.getCount());
+    assertEquals(1110, target.getSum());
+    assertEquals(1000, target.getMax());
+
+    LatencyHistogram sum = new LatencyHistogram();
+    sum.add(target);
+    sum.add(target);
+    assertEquals(6, sum.getCount());
+    assertEquals(1000, sum.getMax());
+    assertEquals(3, target.getCount());
+  }
+
+  @Test
+  public void testConcurrentRecord() throws InterruptedException {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final int perThread = 10000;
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int offset = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < perThread; i++) {
+            histogram.record(i + offset);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(threads.length * perThread, histogram.getCount());
+    assertEquals(perThread - 1 + threads.length - 1, histogram.getMax());
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 1000; i++) {
+      histogram.record(i * i);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    histogram.write(new DataOutputStream(bytes));
+    LatencyHistogram copy = new LatencyHistogram();
+    copy.record(5);
+    copy.readFields(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(histogram.getCount(), copy.getCount());
+    assertEquals(histogram.getSum(), copy.getSum());
+    assertEquals(histogram.getMax(), copy.getMax());
+    for (int p = 0; p <= 100; p += 10) {
+      assertEquals(histogram.getValueAtPercentile(p),
+          copy.getValueAtPercentile(p));
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.metrics.MemoryAccounting.Subsystem;
+import org.apache.giraph.utils.WritableUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for {@link MemoryAccounting}
+ */
+public class TestMemoryAccounting {
+  @After
+  public void tearDown() {
+    MemoryAccounting.init(new GiraphConfiguration());
+  }
+
+  @Test
+  public void testPeaksAreDrainedEverySuperstep() throws Exception {
+    GiraphConfiguration conf = new GiraphConfiguration();
+    GiraphConstants.MEMORY_ACCOUNTING_ENABLE.set(conf, true);
+    MemoryAccounting.init(conf);
+    MemoryAccounting accounting = MemoryAccounting.get();
+
+    accounting.setEstimate(Subsystem.PARTITIONS, 1000);
+    accounting.addSendCacheBytes(100);
+    accounting.addSendCacheBytes(50);
+    accounting.addNettyBytes(300);
+    accounting.addNettyBytes(200);
+    accounting.addNettyBytes(-500);
+
+    WorkerSuperstepMetrics metrics = new WorkerSuperstepMetrics();
+    accounting.drainTo(metrics);
+    assertEquals(1000, metrics.getMemoryEstimate(Subsystem.PARTITIONS));
+    assertEquals(-1, metrics.getMemoryEstimate(Subsystem.MESSAGES));
+    assertEquals(150, metrics.getMemoryEstimate(Subsystem.SEND_CACHES));
+    assertEquals(500, metrics.getMemoryEstimate(Subsystem.NETTY));
+
+    // Send caches start over, other estimates are kept
+    metrics = new WorkerSuperstepMetrics();
+    accounting.drainTo(metrics);
+    assertEquals(1000, metrics.getMemoryEstimate(Subsystem.PARTITIONS));
+    assertEquals(0, metrics.getMemoryEstimate(Subsystem.SEND_CACHES));
+    assertEquals(0, metrics.getMemoryEstimate(Subsystem.NETTY));
+
+    // Estimates survive serialization to the master
+    WorkerSuperstepMetrics copy = new WorkerSuperstepMetrics();
+    WritableUtils.readFieldsFromByteArray(
+        WritableUtils.writeToByteArray(metrics), copy);
+    assertEquals(1000, copy.getMemoryEstimate(Subsystem.PARTITIONS));
+    assertEquals(-1, copy.getMemoryEstimate(Subsystem.EDGES));
+  }
+
+  @Test
+  public void testDisabledIgnoresUpdates() {
+    MemoryAccounting accounting = MemoryAccounting.get();
+    accounting.setEstimate(Subsystem.PARTITIONS, 1000);
+    accounting.addSendCacheBytes(100);
+    WorkerSuperstepMetrics metrics = new WorkerSuperstepMetrics();
+    metrics.readMemoryAccounting();
+    assertEquals(-1, metrics.getMemoryEstimate(Subsystem.PARTITIONS));
+    assertEquals(-1, metrics.getMemoryEstimate(Subsystem.SEND_CACHES));
+  }
+}
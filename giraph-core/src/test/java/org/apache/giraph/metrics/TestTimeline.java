@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link Timeline}
+ */
+public class TestTimeline {
+  /**
+   * Parse the events written so far
+   *
+   * @param out Timeline output
+   * @return Parsed events
+   * @throws JSONException
+   */
+  private static List<JSONObject> parse(StringWriter out)
+    throws JSONException {
+    String[] lines = out.toString().split("\n");
+    assertEquals("[", lines[0]);
+    List<JSONObject> events = Lists.newArrayList();
+    for (int i = 1; i < lines.length; i++) {
+      assertTrue(lines[i].endsWith(","));
+      events.add(new JSONObject(
+          lines[i].substring(0, lines[i].length() - 1)));
+    }
+    return events;
+  }
+
+  @Test
+  public void testDisabledWithoutTask() {
+    Timeline timeline = Timeline.of(null);
+    assertSame(Timeline.disabled(), timeline);
+    assertFalse(timeline.isEnabled());
+    Timeline.Span span = timeline.startSpan(Timeline.COMPUTE, "compute");
+    assertSame(span, timeline.startSpan(Timeline.FLUSH, "flush"));
+    span.setArg("partition", 1).end();
+  }
+
+  @Test
+  public void testSpans() throws JSONException, InterruptedException {
+    StringWriter out = new StringWriter();
+    out.write("[\n");
+    final Timeline timeline = new Timeline(3, "task 3", out);
+    timeline.setSuperstep(5);
+    timeline.startSpan(Timeline.COMPUTE, "computePartition")
+        .setArg("partition", 7).end();
+    Thread thread = new Thread("other") {
+      @Override
+      public void run() {
+        timeline.startSpan(Timeline.MASTER, "masterCompute", 9).end();
+      }
+    };
+    thread.start();
+    thread.join();
+    timeline.close();
+    // Dropped, the timeline is closed
+    timeline.startSpan(Timeline.FLUSH, "flush").end();
+    timeline.flush();
+
+    List<JSONObject> events = parse(out);
+    assertEquals(5, events.size());
+    assertEquals("process_name", events.get(0).getString("name"));
+    assertEquals("task 3",
+        events.get(0).getJSONObject("args").getString("name"));
+    assertEquals("thread_name", events.get(1).getString("name"));
+
+    JSONObject compute = events.get(2);
+    assertEquals("X", compute.getString("ph"));
+    assertEquals(Timeline.COMPUTE, compute.getString("cat"));
+    assertEquals("computePartition", compute.getString("name"));
+    assertEquals(3, compute.getInt("pid"));
+    assertEquals(Thread.currentThread().getId(), compute.getLong("tid"));
+    assertTrue(compute.getLong("dur") >= 0);
+    assertEquals(5, compute.getJSONObject("args").getLong("superstep"));
+    assertEquals(7, compute.getJSONObject("args").getLong("partition"));
+
+    assertEquals("other",
+        events.get(3).getJSONObject("args").getString("name"));
+    JSONObject master = events.get(4);
+    assertEquals(thread.getId(), master.getLong("tid"));
+    assertEquals(9, master.getJSONObject("args").getLong("superstep"));
+    assertTrue(master.getLong("ts") >= compute.getLong("ts"));
+  }
+
+  @Test
+  public void testBackgroundWrite() throws InterruptedException {
+    StringWriter out = new StringWriter();
+    out.write("[\n");
+    Timeline timeline = new Timeline(0, "task 0", out);
+    // Enough events to hand the queue to the writer, without flushing
+    for (int i = 0; i < 16 * 1024; i++) {
+      timeline.startSpan(Timeline.COMPUTE, "compute").end();
+    }
+    long deadline = System.currentTimeMillis() + 10000;
+    while (out.getBuffer().length() <= 2 &&
+        System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(out.getBuffer().length() > 2);
+    timeline.close();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link TopKList} and {@link SkewStats}
+ */
+public class TestTopKList {
+  @Test
+  public void testKeepsLargest() {
+    TopKList list = new TopKList(5);
+    Random random = new Random(17);
+    for (int i = 0; i < 1000; i++) {
+      long value = random.nextInt(1000);
+      list.add(value, "v" + value);
+    }
+    for (long value = 1000; value < 1005; value++) {
+      list.add(value, "v" + value);
+    }
+    assertEquals(5, list.size());
+    TopKList.Entry[] entries = list.getSortedEntries();
+    for (int i = 0; i < 5; i++) {
+      assertEquals(1004 - i, entries[i].getValue());
+      assertEquals("v" + (1004 - i), entries[i].getLabel());
+    }
+    assertFalse(list.accepts(1000));
+    assertTrue(list.accepts(1001));
+  }
+
+  @Test
+  public void testDisabled() {
+    TopKList list = new TopKList(0);
+    assertFalse(list.accepts(Long.MAX_VALUE));
+    list.add(1, "a");
+    assertEquals(0, list.size());
+  }
+
+  @Test
+  public void testMergeWithPrefix() {
+    TopKList first = new TopKList(2);
+    first.add(1, "a");
+    first.add(5, "b");
+    TopKList second = new TopKList(2);
+    second.add(3, "c");
+    second.add(7, "d");
+    first.addAll(second, "w1 ");
+    TopKList.Entry[] entries = first.getSortedEntries();
+    assertEquals(2, entries.length);
+    assertEquals("w1 d", entries[0].getLabel());
+    assertEquals("b", entries[1].getLabel());
+  }
+
+  @Test
+  public void testSkewStatsSerialization() throws IOException {
+    SkewStats stats = new SkewStats(3);
+    for (int i = 0; i < 10; i++) {
+      stats.recordVertex(i, i * 10, 10 - i, i % 4, i * i);
+      stats.recordPartition(i, 100 - i);
+    }
+    // Unmeasured compute time is ignored
+    stats.recordVertex(99, -1, 0, 0, 0);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    stats.write(new DataOutputStream(bytes));
+    SkewStats copy = new SkewStats();
+    copy.readFields(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())));
+
+    SkewStats merged = new SkewStats(3);
+    merged.addAll(copy, "worker ");
+    assertEquals("9",
+        merged.getComputeMicros().getSortedEntries()[0].getLabel());
+    assertEquals(90,
+        merged.getComputeMicros().getSortedEntries()[0].getValue());
+    assertEquals("0",
+        merged.getMessagesSent().getSortedEntries()[0].getLabel());
+    assertEquals(3,
+        merged.getMessagesReceived().getSortedEntries()[0].getValue());
+    assertEquals(81, merged.getEdges().getSortedEntries()[0].getValue());
+    TopKList.Entry[] partitions =
+        merged.getPartitionComputeMs().getSortedEntries();
+    assertEquals(3, partitions.length);
+    assertEquals("worker partition 0", partitions[0].getLabel());
+    assertEquals(100, partitions[0].getValue());
+  }
+
+  @Test
+  public void testSkewStatsSkipsUnsampledVertices() throws IOException {
+    SkewStats stats = new SkewStats(3);
+    stats.recordVertex(1, -1, 2, -1, 3);
+    assertEquals(0, stats.getComputeMicros().size());
+    assertEquals(0, stats.getMessagesReceived().size());
+    assertEquals(1, stats.getMessagesSent().size());
+    assertEquals(1, stats.getEdges().size());
+    stats.recordVertex(2, 5, 0, 0, 0);
+    assertEquals(1, stats.getComputeMicros().size());
+    assertEquals(1, stats.getMessagesReceived().size());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    stats.print(0, 64, new PrintStream(bytes, true, "UTF-8"));
+    String printed = bytes.toString("UTF-8");
+    assertTrue(printed.contains(
+        "vertex compute time (us, sampled 1 in 64 vertices)"));
+    assertTrue(printed.contains(
+        "vertex messages received (sampled 1 in 64 vertices)"));
+  }
+}
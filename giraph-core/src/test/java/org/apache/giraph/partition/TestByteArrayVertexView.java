@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.ByteValueVertex;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.NoOpComputation;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test for {@link ByteArrayVertexView}.
+ */
+public class TestByteArrayVertexView {
+  private ImmutableClassesGiraphConfiguration<LongWritable, IntWritable,
+      FloatWritable> conf;
+
+  public static class MyComputation extends NoOpComputation<LongWritable,
+      IntWritable, FloatWritable, IntWritable> { }
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setComputationClass(MyComputation.class);
+    configuration.setPartitionClass(ByteArrayPartition.class);
+    conf = new ImmutableClassesGiraphConfiguration<LongWritable, IntWritable,
+        FloatWritable>(configuration);
+  }
+
+  private Vertex<LongWritable, IntWritable, FloatWritable> createVertex(
+      long id, int value, long... targets) {
+    Vertex<LongWritable, IntWritable, FloatWritable> vertex =
+        conf.createVertex();
+    vertex.initialize(new LongWritable(id), new IntWritable(value));
+    for (long target : targets) {
+      vertex.addEdge(EdgeFactory.create(new LongWritable(target),
+          new FloatWritable(target)));
+    }
+    return vertex;
+  }
+
+  private ByteArrayVertexView<LongWritable, IntWritable, FloatWritable>
+  createView(byte[] vertexData) {
+    ByteArrayVertexView<LongWritable, IntWritable, FloatWritable> view =
+        new ByteArrayVertexView<LongWritable, IntWritable,
+            FloatWritable>(conf);
+    view.reset(vertexData);
+    return view;
+  }
+
+  @Test
+  public void testUnchangedVertexIsNotRewritten() {
+    byte[] vertexData = ByteArrayVertexView.writeVertex(
+        createVertex(1, 10, 2, 3), null, conf);
+    ByteArrayVertexView<LongWritable, IntWritable, FloatWritable> view =
+        createView(vertexData);
+    assertEquals(1, view.getId().get());
+    assertEquals(2, view.getNumEdges());
+    assertFalse(view.isHalted());
+    assertEquals(10, view.getValue().get());
+
+    view.voteToHalt();
+    assertSame(vertexData, view.writeBack());
+    view = createView(vertexData);
+    assertTrue(view.isHalted());
+    assertEquals(10, view.getValue().get());
+    assertEquals(3f, view.getEdgeValue(new LongWritable(3)).get(), 0f);
+  }
+
+  @Test
+  public void testChangedValueIsWrittenInPlace() {
+    byte[] vertexData = ByteArrayVertexView.writeVertex(
+        createVertex(1, 10, 2, 3), null, conf);
+    ByteArrayVertexView<LongWritable, IntWritable, FloatWritable> view =
+        createView(vertexData);
+    view.getValue().set(11);
+    assertSame(vertexData, view.writeBack());
+    view = createView(vertexData);
+    view.setValue(new IntWritable(12));
+    view.setEdgeValue(new LongWritable(2), new FloatWritable(5));
+    assertSame(vertexData, view.writeBack());
+
+    view = createView(vertexData);
+    assertEquals(12, view.getValue().get());
+    assertEquals(2, view.getNumEdges());
+    assertEquals(5f, view.getEdgeValue(new LongWritable(2)).get(), 0f);
+  }
+
+  @Test
+  public void testChangedEdgesAreRewritten() {
+    byte[] vertexData = ByteArrayVertexView.writeVertex(
+        createVertex(1, 10, 2, 3), null, conf);
+    ByteArrayVertexView<LongWritable, IntWritable, FloatWritable> view =
+        createView(vertexData);
+    view.addEdge(EdgeFactory.create(new LongWritable(4),
+        new FloatWritable(4)));
+    byte[] newVertexData = view.writeBack();
+    assertNotSame(vertexData, newVertexData);
+    assertSame(newVertexData, view.getData());
+    assertEquals(3, view.getNumEdges());
+
+    view = createView(newVertexData);
+    assertEquals(1, view.getId().get());
+    assertEquals(10, view.getValue().get());
+    assertEquals(3, view.getNumEdges());
+    assertEquals(4f, view.getEdgeValue(new LongWritable(4)).get(), 0f);
+    view.removeEdges(new LongWritable(2));
+    view.removeEdges(new LongWritable(3));
+    view = createView(view.writeBack());
+    assertEquals(1, view.getNumEdges());
+    assertEquals(10, view.getValue().get());
+  }
+
+  @Test
+  public void testReadEdgesAreNotWritten() {
+    byte[] vertexData = ByteArrayVertexView.writeVertex(
+        createVertex(1, 10, 2, 3), null, conf);
+    ByteArrayVertexView<LongWritable, IntWritable, FloatWritable> view =
+        createView(vertexData);
+    int numEdges = 0;
+    for (Edge<LongWritable, FloatWritable> edge : view.getEdges()) {
+      ++numEdges;
+    }
+    assertEquals(2, numEdges);
+    assertSame(vertexData, view.writeBack());
+    view = createView(vertexData);
+    assertEquals(2, view.getNumEdges());
+    assertEquals(2f, view.getEdgeValue(new LongWritable(2)).get(), 0f);
+  }
+
+  @Test
+  public void testCustomVertexClass() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setComputationClass(MyComputation.class);
+    configuration.setPartitionClass(ByteArrayPartition.class);
+    configuration.setVertexClass(ByteValueVertex.class);
+    ImmutableClassesGiraphConfiguration<LongWritable, IntWritable,
+        FloatWritable> customConf = new ImmutableClassesGiraphConfiguration<
+        LongWritable, IntWritable, FloatWritable>(configuration);
+    Partition<LongWritable, IntWritable, FloatWritable> partition =
+        customConf.createPartition(0, Mockito.mock(Mapper.Context.class));
+    partition.putVertex(createVertex(1, 10, 2));
+
+    Vertex<LongWritable, IntWritable, FloatWritable> vertex =
+        partition.getVertex(new LongWritable(1));
+    assertTrue(vertex instanceof ByteValueVertex);
+    assertEquals(10, vertex.getValue().get());
+    vertex.setValue(new IntWritable(11));
+    vertex.addEdge(EdgeFactory.create(new LongWritable(3),
+        new FloatWritable(3)));
+    partition.saveVertex(vertex);
+
+    vertex = partition.iterator().next();
+    assertTrue(vertex instanceof ByteValueVertex);
+    assertEquals(11, vertex.getValue().get());
+    assertEquals(2, vertex.getNumEdges());
+    assertEquals(2, partition.getEdgeCount());
+  }
+
+  @Test
+  public void testByteArrayPartition() {
+    Partition<LongWritable, IntWritable, FloatWritable> partition =
+        conf.createPartition(0, Mockito.mock(Mapper.Context.class));
+    for (long id = 0; id < 10; ++id) {
+      partition.putVertex(createVertex(id, (int) id, id + 1));
+    }
+    assertEquals(10, partition.getEdgeCount());
+
+    for (Vertex<LongWritable, IntWritable, FloatWritable> vertex :
+        partition) {
+      long id = vertex.getId().get();
+      if (id % 3 == 0) {
+        vertex.getValue().set(-1);
+      } else if (id % 3 == 1) {
+        vertex.addEdge(EdgeFactory.create(new LongWritable(-1),
+            new FloatWritable(0)));
+      } else {
+        vertex.voteToHalt();
+      }
+      partition.saveVertex(vertex);
+    }
+    assertEquals(13, partition.getEdgeCount());
+
+    for (long id = 0; id < 10; ++id) {
+      Vertex<LongWritable, IntWritable, FloatWritable> vertex =
+          partition.getVertex(new LongWritable(id));
+      assertEquals(id % 3 == 0 ? -1 : id, vertex.getValue().get());
+      assertEquals(id % 3 == 1 ? 2 : 1, vertex.getNumEdges());
+      assertEquals(id % 3 == 2, vertex.isHalted());
+      assertEquals(id + 1f,
+          vertex.getEdgeValue(new LongWritable(id + 1)).get(), 0f);
+    }
+  }
+}
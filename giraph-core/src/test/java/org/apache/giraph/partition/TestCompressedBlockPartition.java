@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.giraph.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.edge.SimpleEdgeStore;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
+import org.apache.giraph.utils.NoOpComputation;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Test for {@link CompressedBlockPartition}.
+ */
+@SuppressWarnings("unchecked")
+public class TestCompressedBlockPartition {
+  private ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+      FloatWritable> conf;
+  private Mapper<?, ?, ?, ?>.Context context;
+
+  public static class MyComputation extends NoOpComputation<LongWritable,
+      DoubleWritable, FloatWritable, DoubleWritable> { }
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setComputationClass(MyComputation.class);
+    configuration.setPartitionClass(CompressedBlockPartition.class);
+    // Small blocks, so there are many of them
+    GiraphConstants.COMPRESSED_PARTITION_BLOCK_SIZE.set(configuration, 200);
+    conf = new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, FloatWritable>(configuration);
+    context = Mockito.mock(Mapper.Context.class);
+  }
+
+  private Vertex<LongWritable, DoubleWritable, FloatWritable> createVertex(
+      long id, double value, long... targets) {
+    Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+        conf.createVertex();
+    vertex.initialize(new LongWritable(id), new DoubleWritable(value));
+    for (long target : targets) {
+      vertex.addEdge(EdgeFactory.create(new LongWritable(target),
+          new FloatWritable(target)));
+    }
+    return vertex;
+  }
+
+  @Test
+  public void testPutGetRemove() {
+    Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(0, context);
+    assertTrue(partition instanceof CompressedBlockPartition);
+    Map<Long, Double> expected = Maps.newHashMap();
+    Random random = new Random(17);
+    for (int i = 0; i < 10000; ++i) {
+      long id = random.nextInt(2000) - 1000;
+      if (random.nextInt(3) == 0) {
+        Vertex<LongWritable, DoubleWritable, FloatWritable> removed =
+            partition.removeVertex(new LongWritable(id));
+        Double value = expected.remove(id);
+        if (value == null) {
+          assertNull(removed);
+        } else {
+          assertEquals(id, removed.getId().get());
+          assertEquals(value, removed.getValue().get(), 0);
+        }
+      } else {
+        partition.putVertex(createVertex(id, i, id + 1));
+        expected.put(id, (double) i);
+      }
+    }
+
+    assertEquals(expected.size(), partition.getVertexCount());
+    assertEquals(expected.size(), partition.getEdgeCount());
+    for (long id = -1000; id < 1000; ++id) {
+      Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+          partition.getVertex(new LongWritable(id));
+      assertEquals(expected.containsKey(id),
+          partition.hasVertex(new LongWritable(id)));
+      if (expected.containsKey(id)) {
+        assertEquals(id, vertex.getId().get());
+        assertEquals(expected.get(id), vertex.getValue().get(), 0);
+      } else {
+        assertNull(vertex);
+      }
+    }
+    int count = 0;
+    for (Vertex<LongWritable, DoubleWritable, FloatWritable> vertex :
+        partition) {
+      assertEquals(expected.get(vertex.getId().get()),
+          vertex.getValue().get(), 0);
+      ++count;
+    }
+    assertEquals(expected.size(), count);
+  }
+
+  @Test
+  public void testHasVertexDoesntNeedPartitionMonitor()
+      throws InterruptedException {
+    final Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(0, context);
+    partition.putVertex(createVertex(1, 1, 2));
+    final boolean[] results = new boolean[2];
+    Thread reader = new Thread() {
+      @Override
+      public void run() {
+        results[0] = partition.hasVertex(new LongWritable(1));
+        results[1] = partition.getVertexCount() == 1;
+      }
+    };
+    // Hold the monitor like a compute thread does
+    synchronized (partition) {
+      reader.start();
+      reader.join(10000);
+      assertFalse(reader.isAlive());
+    }
+    assertTrue(results[0]);
+    assertTrue(results[1]);
+  }
+
+  @Test
+  public void testSaveVertex() throws IOException {
+    Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(3, context);
+    for (long id = 0; id < 100; ++id) {
+      partition.putVertex(createVertex(id, id, id + 1));
+    }
+    assertFalse(partition.putOrCombine(createVertex(0, 5, 2)));
+    assertEquals(101, partition.getEdgeCount());
+
+    // Change a vertex in place, as edge input does
+    Vertex<LongWritable, DoubleWritable, FloatWritable> changed =
+        partition.getVertex(new LongWritable(1));
+    changed.addEdge(EdgeFactory.create(new LongWritable(-2),
+        new FloatWritable(2)));
+    partition.saveVertex(changed);
+    assertEquals(102, partition.getEdgeCount());
+
+    // Only some vertices are saved, like halted vertices in compute
+    for (Vertex<LongWritable, DoubleWritable, FloatWritable> vertex :
+        partition) {
+      long id = vertex.getId().get();
+      if (id % 3 == 0) {
+        continue;
+      }
+      if (id % 2 == 0) {
+        vertex.getValue().set(-id);
+        vertex.voteToHalt();
+      } else {
+        vertex.setValue(new DoubleWritable(id * 10));
+        vertex.addEdge(EdgeFactory.create(new LongWritable(-1),
+            new FloatWritable(1)));
+      }
+      partition.saveVertex(vertex);
+      // Saving twice keeps only the last version
+      partition.saveVertex(vertex);
+    }
+
+    UnsafeByteArrayOutputStream output = new UnsafeByteArrayOutputStream();
+    partition.write(output);
+    Partition<LongWritable, DoubleWritable, FloatWritable> copy =
+        conf.createPartition(-1, context);
+    copy.readFields(new UnsafeByteArrayInputStream(
+        output.getByteArray(), 0, output.getPos()));
+    assertEquals(3, copy.getId());
+    assertEquals(100, copy.getVertexCount());
+    assertEquals(partition.getEdgeCount(), copy.getEdgeCount());
+    long edgeCount = 0;
+    for (long id = 0; id < 100; ++id) {
+      Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+          copy.getVertex(new LongWritable(id));
+      int expectedEdges = (id == 0 || id == 1) ? 2 : 1;
+      if (id % 3 == 0) {
+        assertEquals(id, vertex.getValue().get(), 0);
+        assertFalse(vertex.isHalted());
+      } else {
+        assertEquals(id % 2 == 0 ? -id : id * 10,
+            vertex.getValue().get(), 0);
+        assertEquals(id % 2 == 0, vertex.isHalted());
+        if (id % 2 != 0) {
+          ++expectedEdges;
+        }
+      }
+      assertEquals(expectedEdges, vertex.getNumEdges());
+      edgeCount += expectedEdges;
+    }
+    assertEquals(edgeCount, copy.getEdgeCount());
+  }
+
+  @Test
+  public void testUnfinishedIteration() {
+    Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(0, context);
+    for (long id = 0; id < 50; ++id) {
+      partition.putVertex(createVertex(id, id));
+    }
+    Iterator<Vertex<LongWritable, DoubleWritable, FloatWritable>> iterator =
+        partition.iterator();
+    Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+        iterator.next();
+    long savedId = vertex.getId().get();
+    vertex.getValue().set(-1);
+    partition.saveVertex(vertex);
+    iterator.next();
+
+    // Changes before the iteration stopped are kept
+    assertEquals(-1, partition.getVertex(
+        new LongWritable(savedId)).getValue().get(), 0);
+    assertEquals(50, partition.getVertexCount());
+    int count = 0;
+    for (Vertex<LongWritable, DoubleWritable, FloatWritable> other :
+        partition) {
+      long id = other.getId().get();
+      assertEquals(id == savedId ? -1 : id, other.getValue().get(), 0);
+      ++count;
+    }
+    assertEquals(50, count);
+  }
+
+  @Test
+  public void testRandomOrderGetAndSave() {
+    Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(0, context);
+    List<Long> ids = Lists.newArrayList();
+    for (long id = 0; id < 2000; ++id) {
+      partition.putVertex(createVertex(id, id, id + 1));
+      ids.add(id);
+    }
+    Random random = new Random(23);
+    for (int round = 0; round < 3; ++round) {
+      Collections.shuffle(ids, random);
+      for (long id : ids) {
+        Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+            partition.getVertex(new LongWritable(id));
+        assertEquals(id + round, vertex.getValue().get(), 0);
+        assertEquals(round + 1, vertex.getNumEdges());
+        vertex.getValue().set(id + round + 1);
+        vertex.addEdge(EdgeFactory.create(new LongWritable(-round),
+            new FloatWritable(round)));
+        partition.saveVertex(vertex);
+      }
+    }
+
+    assertEquals(2000, partition.getVertexCount());
+    assertEquals(2000 * 4, partition.getEdgeCount());
+    int count = 0;
+    for (Vertex<LongWritable, DoubleWritable, FloatWritable> vertex :
+        partition) {
+      assertEquals(vertex.getId().get() + 3, vertex.getValue().get(), 0);
+      assertEquals(4, vertex.getNumEdges());
+      ++count;
+    }
+    assertEquals(2000, count);
+  }
+
+  @Test
+  public void testMoveEdgesToVertices() {
+    PartitionStore<LongWritable, DoubleWritable, FloatWritable>
+        partitionStore = new SimplePartitionStore<LongWritable,
+            DoubleWritable, FloatWritable>(conf, context);
+    Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(0, context);
+    for (long id = 0; id < 2000; ++id) {
+      partition.putVertex(createVertex(id, id, id + 1));
+    }
+    partitionStore.addPartition(partition);
+    CentralizedServiceWorker<LongWritable, DoubleWritable, FloatWritable>
+        serviceWorker = Mockito.mock(CentralizedServiceWorker.class);
+    Mockito.when(serviceWorker.getPartitionStore()).thenReturn(
+        partitionStore);
+    SimpleEdgeStore<LongWritable, DoubleWritable, FloatWritable> edgeStore =
+        new SimpleEdgeStore<LongWritable, DoubleWritable, FloatWritable>(
+            serviceWorker, conf, context);
+
+    // Edges arrive in random order, some for vertices which don't exist
+    List<Long> ids = Lists.newArrayList();
+    for (long id = 0; id < 2100; ++id) {
+      ids.add(id);
+    }
+    Collections.shuffle(ids, new Random(29));
+    ByteArrayVertexIdEdges<LongWritable, FloatWritable> edges =
+        new ByteArrayVertexIdEdges<LongWritable, FloatWritable>();
+    edges.setConf(conf);
+    edges.initialize();
+    for (long id : ids) {
+      edges.add(new LongWritable(id), EdgeFactory.create(
+          new LongWritable(-id), new FloatWritable(id)));
+    }
+    edgeStore.addPartitionEdges(0, edges);
+    edgeStore.moveEdgesToVertices();
+
+    partition = partitionStore.getOrCreatePartition(0);
+    assertEquals(2100, partition.getVertexCount());
+    assertEquals(2000 * 2 + 100, partition.getEdgeCount());
+    for (long id = 0; id < 2100; ++id) {
+      Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+          partition.getVertex(new LongWritable(id));
+      assertEquals(id < 2000 ? id : 0, vertex.getValue().get(), 0);
+      assertEquals(id < 2000 ? 2 : 1, vertex.getNumEdges());
+      assertEquals(id, vertex.getEdgeValue(new LongWritable(-id)).get(), 0);
+    }
+    partitionStore.putPartition(partition);
+  }
+}
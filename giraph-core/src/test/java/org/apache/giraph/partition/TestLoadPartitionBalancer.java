@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link LoadPartitionBalancer}
+ */
+public class TestLoadPartitionBalancer {
+  @Test
+  public void testMovesWhenItPaysOff() {
+    List<WorkerInfo> workers = createWorkers(2);
+    List<PartitionOwner> owners = Lists.newArrayList();
+    List<PartitionStats> stats = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      addPartition(owners, stats, workers.get(0), 1000, 1000);
+    }
+    addPartition(owners, stats, workers.get(1), 1000, 100);
+
+    Collection<PartitionOwner> balanced = balance(owners, stats, workers);
+    assertEquals(5, balanced.size());
+    long[] loads = getWorkerLoads(balanced, stats, workers);
+    assertEquals(2100, Math.max(loads[0], loads[1]));
+    int moved = 0;
+    for (PartitionOwner owner : balanced) {
+      if (owner.getPreviousWorkerInfo() != null) {
+        assertEquals(workers.get(0), owner.getPreviousWorkerInfo());
+        assertEquals(workers.get(1), owner.getWorkerInfo());
+        ++moved;
+      }
+    }
+    assertEquals(2, moved);
+  }
+
+  @Test
+  public void testNoMoveWhenMigrationIsTooExpensive() {
+    List<WorkerInfo> workers = createWorkers(2);
+    List<PartitionOwner> owners = Lists.newArrayList();
+    List<PartitionStats> stats = Lists.newArrayList();
+    // ~8 GB per partition takes longer to move than the time saved
+    for (int i = 0; i < 4; i++) {
+      addPartition(owners, stats, workers.get(0), 100000000, 1000);
+    }
+    addPartition(owners, stats, workers.get(1), 100000000, 100);
+
+    for (PartitionOwner owner : balance(owners, stats, workers)) {
+      assertNull(owner.getPreviousWorkerInfo());
+    }
+  }
+
+  @Test
+  public void testUnavailableWorker() {
+    List<WorkerInfo> workers = createWorkers(3);
+    List<PartitionOwner> owners = Lists.newArrayList();
+    List<PartitionStats> stats = Lists.newArrayList();
+    addPartition(owners, stats, workers.get(0), 100000000, 100);
+    addPartition(owners, stats, workers.get(1), 100000000, 100);
+    addPartition(owners, stats, workers.get(2), 100000000, 100);
+
+    Collection<PartitionOwner> balanced =
+        balance(owners, stats, workers.subList(0, 2));
+    assertEquals(3, balanced.size());
+    for (PartitionOwner owner : balanced) {
+      assertTrue(!owner.getWorkerInfo().equals(workers.get(2)));
+      if (owner.getPartitionId() == 2) {
+        assertEquals(workers.get(2), owner.getPreviousWorkerInfo());
+      } else {
+        assertNull(owner.getPreviousWorkerInfo());
+      }
+    }
+  }
+
+  /**
+   * Run the load balancer
+   *
+   * @param owners Partition owners
+   * @param stats Partition stats
+   * @param workers Available workers
+   * @return Balanced partition owners
+   */
+  private static Collection<PartitionOwner> balance(
+      List<PartitionOwner> owners, List<PartitionStats> stats,
+      List<WorkerInfo> workers) {
+    Configuration conf = new Configuration();
+    conf.set(PartitionBalancer.PARTITION_BALANCE_ALGORITHM,
+        PartitionBalancer.LOAD_BALANCE_ALGORITHM);
+    return PartitionBalancer.balancePartitionsAcrossWorkers(
+        conf, owners, stats, workers);
+  }
+
+  /**
+   * Create workers
+   *
+   * @param numWorkers Number of workers
+   * @return Workers
+   */
+  private static List<WorkerInfo> createWorkers(int numWorkers) {
+    List<WorkerInfo> workers = Lists.newArrayList();
+    for (int i = 0; i < numWorkers; i++) {
+      WorkerInfo workerInfo = new WorkerInfo();
+      workerInfo.setInetSocketAddress(
+          InetSocketAddress.createUnresolved("worker" + i, 30000 + i));
+      workerInfo.setTaskId(i);
+      workers.add(workerInfo);
+    }
+    return workers;
+  }
+
+  /**
+   * Add partition with given size and compute time
+   *
+   * @param owners Partition owners to add to
+   * @param stats Partition stats to add to
+   * @param workerInfo Worker which owns the partition
+   * @param vertices Number of vertices (and edges) in the partition
+   * @param computeMs Compute time of the partition
+   */
+  private static void addPartition(List<PartitionOwner> owners,
+      List<PartitionStats> stats, WorkerInfo workerInfo, long vertices,
+      long computeMs) {
+    int partitionId = owners.size();
+    owners.add(new BasicPartitionOwner(partitionId, workerInfo));
+    PartitionStats partitionStats =
+        new PartitionStats(partitionId, vertices, 0, vertices, 0, 0);
+    partitionStats.addComputeMs(computeMs);
+    stats.add(partitionStats);
+  }
+
+  /**
+   * Sum compute time of partitions on each worker
+   *
+   * @param owners Partition owners
+   * @param stats Partition stats, indexed by partition id
+   * @param workers Workers
+   * @return Load of each worker
+   */
+  private static long[] getWorkerLoads(Collection<PartitionOwner> owners,
+      List<PartitionStats> stats, List<WorkerInfo> workers) {
+    long[] loads = new long[workers.size()];
+    for (PartitionOwner owner : owners) {
+      loads[workers.indexOf(owner.getWorkerInfo())] +=
+          stats.get(owner.getPartitionId()).getComputeMs();
+    }
+    return loads;
+  }
+}
@@ -41,6 +41,7 @@ import org.apache.giraph.bsp.CentralizedServiceWorker;
 import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
 import org.apache.giraph.graph.BasicComputation;
 import org.apache.giraph.graph.Vertex;
@@ -174,6 +175,67 @@ public class TestPartitionStores {
     FileUtils.deleteDirectory(directory);
   }
 
+  @Test
+  public void testDiskBackedPartitionStoreKeepsByteArrayEdges()
+    throws IOException {
+    File directory = Files.createTempDir();
+    GiraphConstants.PARTITIONS_DIRECTORY.set(
+        conf, new File(directory, "giraph_partitions").toString());
+    GiraphConstants.USE_OUT_OF_CORE_GRAPH.set(conf, true);
+    GiraphConstants.MAX_PARTITIONS_IN_MEMORY.set(conf, 1);
+    conf.setPartitionClass(ByteArrayPartition.class);
+
+    CentralizedServiceWorker<IntWritable, IntWritable, NullWritable>
+      serviceWorker = Mockito.mock(CentralizedServiceWorker.class);
+    Mockito.when(serviceWorker.getSuperstep()).thenReturn(
+      BspService.INPUT_SUPERSTEP);
+
+    PartitionStore<IntWritable, IntWritable, NullWritable> partitionStore =
+        new DiskBackedPartitionStore<IntWritable, IntWritable, NullWritable>(
+            conf, context, serviceWorker);
+    for (int partitionId = 0; partitionId < 2; partitionId++) {
+      Partition<IntWritable, IntWritable, NullWritable> partition =
+          conf.createPartition(partitionId, context);
+      for (int i = 0; i < 5; i++) {
+        int id = 10 * partitionId + i;
+        Vertex<IntWritable, IntWritable, NullWritable> v =
+            conf.createVertex();
+        v.initialize(new IntWritable(id), new IntWritable(id));
+        for (int j = 1; j <= i; j++) {
+          v.addEdge(EdgeFactory.create(new IntWritable(id + j)));
+        }
+        partition.putVertex(v);
+      }
+      // Only one partition fits in memory, the other one goes to disk
+      partitionStore.addPartition(partition);
+    }
+
+    // Load each partition back from disk twice, offloading the other one
+    for (int round = 0; round < 2; round++) {
+      for (int partitionId = 0; partitionId < 2; partitionId++) {
+        Partition<IntWritable, IntWritable, NullWritable> partition =
+            partitionStore.getOrCreatePartition(partitionId);
+        assertEquals(5, partition.getVertexCount());
+        assertEquals(10, partition.getEdgeCount());
+        for (int i = 0; i < 5; i++) {
+          int id = 10 * partitionId + i;
+          Vertex<IntWritable, IntWritable, NullWritable> v =
+              partition.getVertex(new IntWritable(id));
+          assertEquals(id, v.getValue().get());
+          assertEquals(i, v.getNumEdges());
+          int target = id;
+          for (Edge<IntWritable, NullWritable> edge : v.getEdges()) {
+            assertEquals(++target, edge.getTargetVertexId().get());
+          }
+          assertEquals(id + i, target);
+        }
+        partitionStore.putPartition(partition);
+      }
+    }
+    partitionStore.shutdown();
+    FileUtils.deleteDirectory(directory);
+  }
+
   @Test
   public void testDiskBackedPartitionStore() throws IOException {
     File directory = Files.createTempDir();
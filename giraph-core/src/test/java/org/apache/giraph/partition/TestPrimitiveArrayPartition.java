@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.NoOpComputation;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Test for {@link PrimitiveArrayPartition}.
+ */
+public class TestPrimitiveArrayPartition {
+  private ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+      FloatWritable> conf;
+  private Mapper<?, ?, ?, ?>.Context context;
+
+  public static class MyComputation extends NoOpComputation<LongWritable,
+      DoubleWritable, FloatWritable, DoubleWritable> { }
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setComputationClass(MyComputation.class);
+    conf = new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, FloatWritable>(configuration);
+    context = Mockito.mock(Mapper.Context.class);
+  }
+
+  private Vertex<LongWritable, DoubleWritable, FloatWritable> createVertex(
+      long id, double value, long... targets) {
+    Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+        conf.createVertex();
+    vertex.initialize(new LongWritable(id), new DoubleWritable(value));
+    for (long target : targets) {
+      vertex.addEdge(EdgeFactory.create(new LongWritable(target),
+          new FloatWritable(target)));
+    }
+    return vertex;
+  }
+
+  @Test
+  public void testSelection() {
+    assertTrue(conf.createPartition(0, context) instanceof
+        PrimitiveArrayPartition);
+    assertEquals(PrimitiveArrayPartition.class, conf.getPartitionClass());
+    GiraphConfiguration mutable = new GiraphConfiguration();
+    mutable.setComputationClass(MyComputation.class);
+    assertEquals(PrimitiveArrayPartition.class,
+        mutable.getPartitionClass());
+
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setComputationClass(MyComputation.class);
+    configuration.setPartitionClass(SimplePartition.class);
+    assertTrue(new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, FloatWritable>(configuration).createPartition(
+        0, context) instanceof SimplePartition);
+
+    configuration = new GiraphConfiguration();
+    configuration.setComputationClass(MyComputation.class);
+    GiraphConstants.USE_PRIMITIVE_PARTITION.set(configuration, false);
+    assertTrue(new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, FloatWritable>(configuration).createPartition(
+        0, context) instanceof SimplePartition);
+  }
+
+  @Test
+  public void testPutGetRemove() {
+    Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(0, context);
+    Map<Long, Double> expected = Maps.newHashMap();
+    Random random = new Random(17);
+    for (int i = 0; i < 10000; ++i) {
+      long id = random.nextInt(2000) - 1000;
+      if (random.nextInt(3) == 0) {
+        Vertex<LongWritable, DoubleWritable, FloatWritable> removed =
+            partition.removeVertex(new LongWritable(id));
+        Double value = expected.remove(id);
+        if (value == null) {
+          assertNull(removed);
+        } else {
+          assertEquals(id, removed.getId().get());
+          assertEquals(value, removed.getValue().get(), 0);
+        }
+      } else {
+        partition.putVertex(createVertex(id, i));
+        expected.put(id, (double) i);
+      }
+    }
+
+    assertEquals(expected.size(), partition.getVertexCount());
+    for (long id = -1000; id < 1000; ++id) {
+      Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+          partition.getVertex(new LongWritable(id));
+      assertEquals(expected.containsKey(id),
+          partition.hasVertex(new LongWritable(id)));
+      if (expected.containsKey(id)) {
+        assertEquals(id, vertex.getId().get());
+        assertEquals(expected.get(id), vertex.getValue().get(), 0);
+      } else {
+        assertNull(vertex);
+      }
+    }
+    int count = 0;
+    for (Vertex<LongWritable, DoubleWritable, FloatWritable> vertex :
+        partition) {
+      assertEquals(expected.get(vertex.getId().get()),
+          vertex.getValue().get(), 0);
+      ++count;
+    }
+    assertEquals(expected.size(), count);
+  }
+
+  @Test
+  public void testReadersDontNeedPartitionMonitor()
+      throws InterruptedException {
+    final Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(0, context);
+    partition.putVertex(createVertex(1, 1, 2));
+    final boolean[] results = new boolean[2];
+    Thread reader = new Thread() {
+      @Override
+      public void run() {
+        results[0] = partition.hasVertex(new LongWritable(1));
+        results[1] = partition.getVertexCount() == 1 &&
+            partition.getEdgeCount() == 1;
+      }
+    };
+    // Hold the monitor like a compute thread does
+    synchronized (partition) {
+      reader.start();
+      reader.join(10000);
+      assertFalse(reader.isAlive());
+    }
+    assertTrue(results[0]);
+    assertTrue(results[1]);
+  }
+
+  @Test
+  public void testSaveVertex() throws IOException {
+    Partition<LongWritable, DoubleWritable, FloatWritable> partition =
+        conf.createPartition(3, context);
+    for (long id = 0; id < 10; ++id) {
+      partition.putVertex(createVertex(id, id, id + 1));
+    }
+    assertFalse(partition.putOrCombine(createVertex(0, 5, 2)));
+    assertEquals(11, partition.getEdgeCount());
+
+    for (Vertex<LongWritable, DoubleWritable, FloatWritable> vertex :
+        partition) {
+      long id = vertex.getId().get();
+      if (id % 2 == 0) {
+        vertex.getValue().set(-id);
+        vertex.voteToHalt();
+      } else {
+        vertex.setValue(new DoubleWritable(id * 10));
+        vertex.addEdge(EdgeFactory.create(new LongWritable(-1),
+            new FloatWritable(1)));
+      }
+      partition.saveVertex(vertex);
+    }
+    assertEquals(16, partition.getEdgeCount());
+
+    UnsafeByteArrayOutputStream output = new UnsafeByteArrayOutputStream();
+    partition.write(output);
+    Partition<LongWritable, DoubleWritable, FloatWritable> copy =
+        conf.createPartition(-1, context);
+    copy.readFields(new UnsafeByteArrayInputStream(
+        output.getByteArray(), 0, output.getPos()));
+    assertEquals(3, copy.getId());
+    assertEquals(10, copy.getVertexCount());
+    assertEquals(16, copy.getEdgeCount());
+    for (long id = 0; id < 10; ++id) {
+      Vertex<LongWritable, DoubleWritable, FloatWritable> vertex =
+          copy.getVertex(new LongWritable(id));
+      assertEquals(id % 2 == 0 ? -id : id * 10,
+          vertex.getValue().get(), 0);
+      assertEquals(id % 2 == 0, vertex.isHalted());
+      assertEquals(id == 0 ? 2 : (id % 2 == 0 ? 1 : 2),
+          vertex.getNumEdges());
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.NoOpComputation;
+import org.apache.giraph.utils.ReflectionUtils;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Test for {@link VertexReorderer}s and {@link ReorderablePartition}s.
+ */
+@SuppressWarnings("unchecked")
+public class TestVertexReorderer {
+  /** Expected BFS order of the test graph */
+  private static final List<Integer> BFS_ORDER =
+      Arrays.asList(3, 1, 5, 6, 2, 4);
+
+  private ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+      NullWritable> conf;
+  private Mapper<?, ?, ?, ?>.Context context;
+
+  public static class MyComputation extends NoOpComputation<IntWritable,
+      IntWritable, NullWritable, IntWritable> { }
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setComputationClass(MyComputation.class);
+    GiraphConstants.VERTEX_REORDERER_CLASS.set(configuration,
+        BfsVertexReorderer.class);
+    conf = new ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+        NullWritable>(configuration);
+    context = Mockito.mock(Mapper.Context.class);
+  }
+
+  private Vertex<IntWritable, IntWritable, NullWritable> createVertex(
+      int id, int... targets) {
+    Vertex<IntWritable, IntWritable, NullWritable> vertex =
+        conf.createVertex();
+    vertex.initialize(new IntWritable(id), new IntWritable(id));
+    for (int target : targets) {
+      vertex.addEdge(EdgeFactory.create(new IntWritable(target)));
+    }
+    return vertex;
+  }
+
+  /**
+   * Vertex 3 is the hub, 2 has an edge leaving the partition and 4 is only
+   * reachable from itself.
+   */
+  private Partition<IntWritable, IntWritable, NullWritable> createPartition(
+      Class<? extends Partition> partitionClass) {
+    Partition<IntWritable, IntWritable, NullWritable> partition =
+        newPartition(partitionClass, 0);
+    partition.putVertex(createVertex(1));
+    partition.putVertex(createVertex(2, 100));
+    partition.putVertex(createVertex(3, 1, 5, 6));
+    partition.putVertex(createVertex(4, 2));
+    partition.putVertex(createVertex(5, 2));
+    partition.putVertex(createVertex(6));
+    return partition;
+  }
+
+  private Partition<IntWritable, IntWritable, NullWritable> newPartition(
+      Class<? extends Partition> partitionClass, int partitionId) {
+    Partition<IntWritable, IntWritable, NullWritable> partition =
+        ReflectionUtils.newInstance(partitionClass, conf);
+    partition.initialize(partitionId, context);
+    assertEquals(partitionClass, partition.getClass());
+    return partition;
+  }
+
+  private static List<Integer> getIds(
+      Iterable<Vertex<IntWritable, IntWritable, NullWritable>> vertices) {
+    List<Integer> ids = Lists.newArrayList();
+    for (Vertex<IntWritable, IntWritable, NullWritable> vertex : vertices) {
+      ids.add(vertex.getId().get());
+    }
+    return ids;
+  }
+
+  private static List<Integer> toInts(List<IntWritable> vertexIds) {
+    List<Integer> ids = Lists.newArrayList();
+    for (IntWritable vertexId : vertexIds) {
+      ids.add(vertexId.get());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testDegreeOrder() {
+    DegreeVertexReorderer<IntWritable, IntWritable, NullWritable> reorderer =
+        new DegreeVertexReorderer<IntWritable, IntWritable, NullWritable>();
+    reorderer.setConf(conf);
+    List<Integer> order = toInts(
+        reorderer.getVertexOrder(createPartition(SimplePartition.class)));
+    assertEquals(6, order.size());
+    assertEquals(3, (int) order.get(0));
+    assertEquals(ImmutableSet.of(2, 4, 5),
+        Sets.newHashSet(order.subList(1, 4)));
+    assertEquals(ImmutableSet.of(1, 6),
+        Sets.newHashSet(order.subList(4, 6)));
+  }
+
+  @Test
+  public void testSimplePartition() throws IOException {
+    testReorderedPartition(SimplePartition.class);
+  }
+
+  @Test
+  public void testByteArrayPartition() throws IOException {
+    testReorderedPartition(ByteArrayPartition.class);
+  }
+
+  @Test
+  public void testPrimitiveArrayPartition() throws IOException {
+    testReorderedPartition(PrimitiveArrayPartition.class);
+  }
+
+  private void testReorderedPartition(
+      Class<? extends Partition> partitionClass) throws IOException {
+    Partition<IntWritable, IntWritable, NullWritable> partition =
+        createPartition(partitionClass);
+    BfsVertexReorderer<IntWritable, IntWritable, NullWritable> reorderer =
+        new BfsVertexReorderer<IntWritable, IntWritable, NullWritable>();
+    reorderer.setConf(conf);
+    List<IntWritable> order = reorderer.getVertexOrder(partition);
+    assertEquals(BFS_ORDER, toInts(order));
+    assertTrue(((ReorderablePartition<IntWritable, IntWritable,
+        NullWritable>) partition).reorderVertices(order));
+    assertEquals(BFS_ORDER, getIds(partition));
+
+    // New vertices go last
+    partition.putVertex(createVertex(7, 3));
+    List<Integer> expected = Lists.newArrayList(BFS_ORDER);
+    expected.add(7);
+    assertEquals(expected, getIds(partition));
+    assertEquals(7, partition.getEdgeCount());
+
+    // Rewritten vertices keep their place
+    for (Vertex<IntWritable, IntWritable, NullWritable> vertex : partition) {
+      vertex.addEdge(EdgeFactory.create(new IntWritable(200)));
+      vertex.setValue(new IntWritable(vertex.getId().get() + 1000));
+      partition.saveVertex(vertex);
+    }
+    assertEquals(expected, getIds(partition));
+    assertEquals(14, partition.getEdgeCount());
+    for (Vertex<IntWritable, IntWritable, NullWritable> vertex : partition) {
+      assertEquals(vertex.getId().get() + 1000, vertex.getValue().get());
+    }
+
+    // Order is kept through serialization
+    UnsafeByteArrayOutputStream outputStream =
+        new UnsafeByteArrayOutputStream();
+    partition.write(outputStream);
+    Partition<IntWritable, IntWritable, NullWritable> copy =
+        newPartition(partitionClass, -1);
+    copy.readFields(new UnsafeByteArrayInputStream(
+        outputStream.getByteArray(), 0, outputStream.getPos()));
+    assertEquals(expected, getIds(copy));
+
+    // Removing a vertex falls back to the partition's own order
+    partition.removeVertex(new IntWritable(5));
+    Set<Integer> remaining = Sets.newHashSet(expected);
+    remaining.remove(5);
+    List<Integer> ids = getIds(partition);
+    assertEquals(remaining.size(), ids.size());
+    assertEquals(remaining, Sets.newHashSet(ids));
+  }
+}
@@ -201,6 +201,46 @@ public class SimpleShortestPathsComputationTest {
     assertEquals(4.0, distances.get(4L), 0d);
   }
 
+  /**
+   * A local integration test on toy data, with vertices written by
+   * asynchronous writer threads
+   */
+  @Test
+  public void testToyDataAsyncOutput() throws Exception {
+
+    // a small four vertex graph
+    String[] graph = new String[] {
+        "1 2:1.0 3:3.0",
+        "2 3:1.0 4:10.0",
+        "3 4:2.0",
+        "4"
+    };
+
+    GiraphConfiguration conf = new GiraphConfiguration();
+    // start from vertex 1
+    SOURCE_ID.set(conf, 1);
+    conf.setComputationClass(SimpleShortestPathsComputation.class);
+    conf.setOutEdgesClass(ByteArrayEdges.class);
+    conf.setVertexInputFormatClass(LongDoubleFloatTextInputFormat.class);
+    conf.setVertexOutputFormatClass(
+        VertexWithDoubleValueNullEdgeTextOutputFormat.class);
+    conf.setAsyncVertexOutput(true);
+    conf.setNumOutputThreads(2);
+
+    // run internally
+    Iterable<String> results = InternalVertexRunner.run(conf, graph);
+
+    Map<Long, Double> distances = parseDistances(results);
+
+    // verify results
+    assertNotNull(distances);
+    assertEquals(4, distances.size());
+    assertEquals(0.0, distances.get(1L), 0d);
+    assertEquals(1.0, distances.get(2L), 0d);
+    assertEquals(2.0, distances.get(3L), 0d);
+    assertEquals(4.0, distances.get(4L), 0d);
+  }
+
   private Map<Long, Double> parseDistances(Iterable<String> results) {
     Map<Long, Double> distances =
         Maps.newHashMapWithExpectedSize(Iterables.size(results));